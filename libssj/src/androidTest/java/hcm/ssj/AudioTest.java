@@ -36,18 +36,34 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 import hcm.ssj.audio.AudioChannel;
 import hcm.ssj.audio.AudioWriter;
+import hcm.ssj.audio.Energy;
 import hcm.ssj.audio.Intensity;
+import hcm.ssj.audio.MFCC;
 import hcm.ssj.audio.Microphone;
 import hcm.ssj.audio.Pitch;
+import hcm.ssj.audio.SpeechRate;
+import hcm.ssj.audio.VoiceFeatures;
+import hcm.ssj.core.Cons;
 import hcm.ssj.core.EventChannel;
+import hcm.ssj.core.Gate;
 import hcm.ssj.core.Pipeline;
 import hcm.ssj.core.Provider;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.StreamGate;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
 import hcm.ssj.event.ThresholdEventSender;
 import hcm.ssj.signal.Avg;
 import hcm.ssj.test.EventLogger;
+import hcm.ssj.test.Logger;
 
 import static android.support.test.InstrumentationRegistry.getContext;
 
@@ -177,4 +193,483 @@ public class AudioTest
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSpeechRateIncremental() throws Exception
+    {
+        // intensity contour at 100 Hz with a syllable nucleus every 25 samples, every fifth one unvoiced
+        double sr = 100;
+        int length = 3000;
+        int window = 500;
+        int width = 3;
+        float[] intensity = new float[length];
+        float[] voiced = new float[length];
+        Random random = new Random(7);
+        for (int i = 0; i < length; i++)
+        {
+            int nucleus = i / 25;
+            double distance = i - (nucleus * 25 + 12);
+            intensity[i] = (float) (40 + 15 * Math.exp(-distance * distance / 18) + 0.1 * random.nextGaussian());
+            voiced[i] = (nucleus % 5 == 4) ? 0.1f : 0.9f;
+        }
+
+        // windows starting between two nuclei are counted the same by both modes
+        SpeechRateProbe batch = new SpeechRateProbe();
+        SpeechRateProbe incremental = new SpeechRateProbe();
+        incremental.options.incremental.set(true);
+        for (int start = 0; start + window <= length; start += 50)
+        {
+            int expected = countNuclei(start, start + window);
+            Assert.assertEquals(expected, batch.count(intensity, voiced, start, window, sr));
+            Assert.assertEquals(expected, incremental.count(intensity, voiced, start, window, sr));
+        }
+
+        // windows cutting through nuclei, nuclei at the end are left for the next window
+        incremental = new SpeechRateProbe();
+        incremental.options.incremental.set(true);
+        for (int start = 0; start + window <= length; start += 37)
+        {
+            Assert.assertEquals(countNuclei(start, start + window - width), incremental.count(intensity, voiced, start, window, sr));
+        }
+    }
+
+    /**
+     * @return number of voiced nuclei of testSpeechRateIncremental between the samples from and to
+     */
+    private int countNuclei(int from, int to)
+    {
+        int count = 0;
+        for (int nucleus = 0; nucleus * 25 + 12 < to; nucleus++)
+        {
+            if (nucleus * 25 + 12 >= from && nucleus % 5 != 4)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testGate() throws Exception
+    {
+        //setup
+        Pipeline frame = Pipeline.getInstance();
+        frame.options.bufferSize.set(10.0f);
+
+        //sensor
+        Microphone microphone = new Microphone();
+        AudioChannel audio = new AudioChannel();
+        audio.options.sampleRate.set(16000);
+        audio.options.scale.set(true);
+        frame.addSensor(microphone, audio);
+
+        //cheap silence detection
+        Energy energy = new Energy();
+        energy.options.computeSPL.set(true);
+        energy.options.computeSilence.set(true);
+        frame.addTransformer(energy, audio, 0.1, 0);
+
+        //intensity is only computed if there was sound within the last second
+        StreamGate gate = new StreamGate(energy, 1, 0.5f, false);
+        gate.hold = 1.0;
+        gate.warmUp = 0.2;
+
+        Intensity intensity = new Intensity();
+        intensity.setGate(gate);
+        frame.addTransformer(intensity, audio, 1.0, 0);
+
+        Logger log = new Logger();
+        frame.addConsumer(log, intensity, 1.0, 0);
+
+        //start framework
+        frame.start();
+
+        //run test
+        long end = System.currentTimeMillis() + TestHelper.DUR_TEST_NORMAL;
+        try
+        {
+            while (System.currentTimeMillis() < end)
+            {
+                Thread.sleep(1);
+            }
+        } catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+        frame.stop();
+        frame.release();
+    }
+
+    @Test
+    public void testGateOutput() throws Exception
+    {
+        // frames of 0.1s, the script is active in frames 10-19 and from frame 40 on
+        Pipeline frame = Pipeline.getInstance();
+        frame.options.bufferSize.set(10.0f);
+
+        TestSensor sensor = new TestSensor();
+        TestSensorChannel channel = new TestSensorChannel();
+        frame.addSensor(sensor, channel);
+
+        ScriptedActivity activity = new ScriptedActivity();
+        frame.addTransformer(activity, channel, 0.1, 0);
+
+        //scripted gate, zeros while closed
+        Gate zeroGate = new ScriptedGate();
+        zeroGate.hold = 0.25;
+        zeroGate.warmUp = 0.15;
+        zeroGate.fill = Gate.Fill.ZERO;
+        FrameProbe zero = new FrameProbe();
+        zero.setGate(zeroGate);
+        frame.addTransformer(zero, channel, 0.1, 0);
+
+        //same script through a stream gate, last output while closed
+        Gate holdGate = new StreamGate(activity, 0, 0.5f, true);
+        holdGate.hold = 0.25;
+        holdGate.warmUp = 0.15;
+        holdGate.fill = Gate.Fill.HOLD;
+        FrameProbe hold = new FrameProbe();
+        hold.setGate(holdGate);
+        frame.addTransformer(hold, channel, 0.1, 0);
+
+        TestRecorder zeroOutput = new TestRecorder();
+        frame.addConsumer(zeroOutput, zero, 0.1, 0);
+        TestRecorder holdOutput = new TestRecorder();
+        frame.addConsumer(holdOutput, hold, 0.1, 0);
+
+        //consumer which only runs while the script is inactive
+        TestRecorder inactive = new TestRecorder();
+        inactive.setGate(new StreamGate(activity, 0, 0.5f, false));
+        frame.addConsumer(inactive, channel, 0.1, 0);
+
+        frame.start();
+        Thread.sleep(6000);
+        frame.stop();
+        frame.release();
+
+        int frames = 50;
+        Assert.assertTrue(zeroOutput.size() >= frames && holdOutput.size() >= frames);
+
+        //open while active and for 0.25s (frames 20-22) after the activity
+        float last = 0;
+        ArrayList<Integer> calls = new ArrayList<>();
+        ArrayList<Integer> skipped = new ArrayList<>();
+        for (int k = 0; k < frames; k++)
+        {
+            boolean open = ScriptedActivity.isActive(k) || (k >= 20 && k < 23);
+            if (open)
+            {
+                //warm up with the two preceding frames after the gate was closed
+                if (k > 0 && !calls.contains(k - 1))
+                {
+                    calls.add(k - 2);
+                    calls.add(k - 1);
+                }
+                calls.add(k);
+                last = k + 1;
+            }
+            if (!ScriptedActivity.isActive(k))
+            {
+                skipped.add(k);
+            }
+
+            Assert.assertEquals(k, Math.round(zeroOutput.getTime(k) * 10));
+            Assert.assertEquals(open ? k + 1 : 0, zeroOutput.getFrame(k).ptrF()[0], 0);
+            Assert.assertEquals(last, holdOutput.getFrame(k).ptrF()[0], 0);
+        }
+
+        Assert.assertEquals(calls, zero.getCalls().subList(0, calls.size()));
+        Assert.assertEquals(calls, hold.getCalls().subList(0, calls.size()));
+
+        //gated consumer only gets the inactive frames
+        ArrayList<Integer> consumed = new ArrayList<>();
+        for (int i = 0; i < inactive.size() && inactive.getTime(i) < frames / 10.0; i++)
+        {
+            consumed.add((int) Math.round(inactive.getTime(i) * 10));
+        }
+        Assert.assertEquals(skipped, consumed);
+    }
+
+    @Test
+    public void testMFCC() throws Exception
+    {
+        // a stationary tone yields constant coefficients and zero deltas
+        double sr = 16000;
+        int num = 400;
+
+        MFCC mfcc = new MFCC();
+        mfcc.options.deltas.set(2);
+
+        Stream[] input = new Stream[]{Stream.create(num, 1, sr, Cons.Type.SHORT)};
+        Stream output = Stream.create(1, mfcc.getSampleDimension(input), sr / num, Cons.Type.FLOAT);
+        mfcc.enter(input, output);
+
+        Assert.assertEquals(39, output.dim);
+
+        float[] first = null;
+        for (int frame = 0; frame < 10; frame++)
+        {
+            for (int i = 0; i < num; i++)
+            {
+                input[0].ptrS()[i] = (short) (10000 * Math.sin(2 * Math.PI * 500 * i / sr));
+            }
+
+            mfcc.transform(input, output);
+
+            if (first == null)
+            {
+                first = output.ptrF().clone();
+            }
+        }
+
+        for (int i = 0; i < 13; i++)
+        {
+            Assert.assertEquals(first[i], output.ptrF()[i], 1e-4);
+            Assert.assertEquals(0, output.ptrF()[13 + i], 1e-4);
+            Assert.assertEquals(0, output.ptrF()[26 + i], 1e-4);
+        }
+    }
+
+    @Test
+    public void testVoiceFeatures() throws Exception
+    {
+        // fused features match the separate components on the same frame
+        double sr = 16000;
+        int num = 8000;
+
+        Stream[] input = new Stream[]{Stream.create(num, 1, sr, Cons.Type.FLOAT)};
+        input[0].desc = new String[]{"Audio"};
+        for (int i = 0; i < num; i++)
+        {
+            input[0].ptrF()[i] = (float) (0.4 * Math.sin(2 * Math.PI * 200 * i / sr));
+        }
+
+        VoiceFeatures features = new VoiceFeatures();
+        features.options.computeRMS.set(true);
+        float[] fused = transform(features, input, sr, num);
+
+        Energy energy = new Energy();
+        energy.options.computeRMS.set(true);
+        float[] rmsSpl = transform(energy, input, sr, num);
+
+        Intensity intensity = new Intensity();
+        intensity.options.mean.set(true);
+        float[] meanIntensity = transform(intensity, input, sr, num);
+
+        Pitch pitch = new Pitch();
+        pitch.options.computeVoicedProb.set(true);
+        float[] pitchProb = transform(pitch, input, sr, num);
+
+        Assert.assertEquals(5, fused.length);
+        Assert.assertEquals(rmsSpl[0], fused[0], 0);
+        Assert.assertEquals(rmsSpl[1], fused[1], 0);
+        Assert.assertEquals(meanIntensity[0], fused[2], 0);
+        Assert.assertEquals(pitchProb[0], fused[3], 0);
+        Assert.assertEquals(pitchProb[1], fused[4], 0);
+        Assert.assertEquals(200, fused[3], 1);
+    }
+
+    @Test
+    public void testIncrementalPitch() throws Exception
+    {
+        // 10 ms hops over 40 ms frames give the same pitch as the full YIN
+        double sr = 16000;
+        int hop = 160;
+        int num = 640;
+
+        Pitch yin = new Pitch();
+        yin.options.computeVoicedProb.set(true);
+
+        Pitch incremental = new Pitch();
+        incremental.options.computeVoicedProb.set(true);
+        incremental.options.detector.set(Pitch.INCREMENTAL_YIN);
+
+        Stream[] input = new Stream[]{Stream.create(num, 1, sr, Cons.Type.FLOAT)};
+        input[0].desc = new String[]{"Audio"};
+        Stream yinOutput = Stream.create(1, 2, sr / hop, Cons.Type.FLOAT);
+        Stream incrementalOutput = Stream.create(1, 2, sr / hop, Cons.Type.FLOAT);
+
+        yin.init(hop / sr, (num - hop) / sr);
+        incremental.init(hop / sr, (num - hop) / sr);
+        yin.enter(input, yinOutput);
+        incremental.enter(input, incrementalOutput);
+
+        for (int frame = 0; frame < 50; frame++)
+        {
+            for (int i = 0; i < num; i++)
+            {
+                input[0].ptrF()[i] = (float) (0.4 * Math.sin(2 * Math.PI * 180 * (frame * hop + i) / sr));
+            }
+
+            yin.transform(input, yinOutput);
+            incremental.transform(input, incrementalOutput);
+
+            Assert.assertEquals(yinOutput.ptrF()[0], incrementalOutput.ptrF()[0], 0.01);
+            Assert.assertEquals(yinOutput.ptrF()[1], incrementalOutput.ptrF()[1], 1e-4);
+        }
+
+        Assert.assertEquals(180, incrementalOutput.ptrF()[0], 1);
+    }
+
+    @Test
+    public void testIntensityFFT() throws Exception
+    {
+        // fft convolution and direct windowed sums give the same intensity contour
+        double sr = 16000;
+        int num = 16000;
+
+        Stream[] input = new Stream[]{Stream.create(num, 1, sr, Cons.Type.FLOAT)};
+        input[0].desc = new String[]{"Audio"};
+        Random random = new Random(42);
+        for (int i = 0; i < num; i++)
+        {
+            // offset, chirp and noise with a silent gap in the middle
+            input[0].ptrF()[i] = (i >= 6000 && i < 9000) ? 0 : (float) (0.1 + 0.3 * Math.sin(2 * Math.PI * (100 + 0.02 * i) * i / sr) + 0.05 * random.nextGaussian());
+        }
+
+        // dense frames, so that the convolution is cheaper and gets used
+        Intensity convolution = new Intensity();
+        convolution.options.timeStep.set(0.001);
+        convolution.options.fft.set(true);
+        float[] fft = transform(convolution, input, sr, num);
+
+        Intensity direct = new Intensity();
+        direct.options.timeStep.set(0.001);
+        direct.options.fft.set(false);
+        float[] sums = transform(direct, input, sr, num);
+
+        Assert.assertEquals(sums.length, fft.length);
+        Assert.assertTrue(fft.length > 100);
+        for (int i = 0; i < fft.length; i++)
+        {
+            Assert.assertEquals(sums[i], fft[i], 1e-3);
+        }
+    }
+
+    private float[] transform(Transformer transformer, Stream[] input, double sr, int num) throws Exception
+    {
+        transformer.init(num / sr, 0);
+        Stream output = Stream.create(transformer.getSampleNumber(num), transformer.getSampleDimension(input), sr / num, Cons.Type.FLOAT);
+        transformer.enter(input, output);
+        transformer.transform(input, output);
+
+        return output.ptrF().clone();
+    }
+
+    /**
+     * outputs 1 in scripted frames, 0 otherwise
+     */
+    private static class ScriptedActivity extends Transformer
+    {
+        static boolean isActive(long frame)
+        {
+            return (frame >= 10 && frame < 20) || frame >= 40;
+        }
+
+        @Override
+        public OptionList getOptions()
+        {
+            return null;
+        }
+
+        @Override
+        public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+        {
+            stream_out.ptrF()[0] = isActive(Math.round(stream_in[0].time * 10)) ? 1 : 0;
+        }
+
+        @Override
+        public int getSampleDimension(Stream[] stream_in)
+        {
+            return 1;
+        }
+
+        @Override
+        public int getSampleBytes(Stream[] stream_in)
+        {
+            return 4;
+        }
+
+        @Override
+        public Cons.Type getSampleType(Stream[] stream_in)
+        {
+            return Cons.Type.FLOAT;
+        }
+
+        @Override
+        public int getSampleNumber(int sampleNumber_in)
+        {
+            return 1;
+        }
+
+        @Override
+        protected void describeOutput(Stream[] stream_in, Stream stream_out)
+        {
+            stream_out.desc = new String[]{"active"};
+        }
+    }
+
+    /**
+     * active in the scripted frames of 0.1s
+     */
+    private static class ScriptedGate extends Gate
+    {
+        @Override
+        protected boolean isActive(double time, double duration)
+        {
+            return ScriptedActivity.isActive(Math.round(time * 10));
+        }
+    }
+
+    /**
+     * outputs the number of the frame plus one and remembers which frames were transformed
+     */
+    private static class FrameProbe extends ScriptedActivity
+    {
+        private final List<Integer> calls = Collections.synchronizedList(new ArrayList<Integer>());
+
+        List<Integer> getCalls()
+        {
+            return calls;
+        }
+
+        @Override
+        public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+        {
+            int frame = (int) Math.round(stream_in[0].time * 10);
+            calls.add(frame);
+            stream_out.ptrF()[0] = frame + 1;
+        }
+    }
+
+    /**
+     * feeds windows of intensity and voicing to SpeechRate and returns the number of syllables it found
+     */
+    private static class SpeechRateProbe extends SpeechRate
+    {
+        private Stream input = null;
+
+        int count(float[] intensity, float[] voiced, int start, int num, double sr) throws SSJFatalException
+        {
+            if (input == null)
+            {
+                input = Stream.create(num, 2, sr, Cons.Type.FLOAT);
+                input.desc = new String[]{"Intensity", "VoicedProb"};
+                getEventChannelOut();
+                enter(new Stream[]{input});
+            }
+
+            input.time = start / sr;
+            for (int i = 0; i < num; i++)
+            {
+                input.ptrF()[i * 2] = intensity[start + i];
+                input.ptrF()[i * 2 + 1] = voiced[start + i];
+            }
+            consume(new Stream[]{input}, null);
+
+            String data = getEventChannelOut().getLastEvent(true, false).ptrStr();
+            double rate = Double.parseDouble(data.replaceAll(".*value=\"([^\"]*)\".*", "$1"));
+            return (int) Math.round(rate * num / sr);
+        }
+    }
+}
@@ -35,14 +35,25 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
 
 import hcm.ssj.androidSensor.AndroidSensor;
 import hcm.ssj.androidSensor.AndroidSensorChannel;
 import hcm.ssj.androidSensor.SensorType;
+import hcm.ssj.core.Cons;
 import hcm.ssj.core.Pipeline;
+import hcm.ssj.core.stream.Stream;
+import hcm.ssj.file.AsciiFormatter;
+import hcm.ssj.file.AsyncWriter;
 import hcm.ssj.file.FileCons;
 import hcm.ssj.file.FileReader;
 import hcm.ssj.file.FileReaderChannel;
@@ -78,6 +89,287 @@ public class FileTest
         testWriteRead(false);
     }
 
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testReplay() throws Exception
+    {
+        File dir = getInstrumentation().getContext().getFilesDir();
+        String fileName = getClass().getSimpleName() + "Replay." + FileCons.FILE_EXTENSION_STREAM;
+        File fileHeader = new File(dir, fileName);
+        //write a known signal
+        Pipeline framework = Pipeline.getInstance();
+        framework.options.bufferSize.set(10.0f);
+        TestSensorChannel channel = new TestSensorChannel();
+        channel.options.dimension.set(2);
+        framework.addSensor(new TestSensor(), channel);
+        FileWriter fileWriter = new FileWriter();
+        fileWriter.options.filePath.setValue(dir.getPath());
+        fileWriter.options.fileName.set(fileName);
+        framework.addConsumer(fileWriter, channel, 0.25, 0);
+        framework.start();
+        Thread.sleep(4000);
+        framework.stop();
+        framework.release();
+        Stream reference = Stream.load(fileHeader.getPath());
+        //replay the file twice, starting in the middle of the second pass
+        framework = Pipeline.getInstance();
+        framework.options.bufferSize.set(10.0f);
+        FileReader fileReader = new FileReader();
+        fileReader.options.file.setValue(fileHeader.getPath());
+        fileReader.options.playlist.set(new String[]{fileHeader.getPath()});
+        fileReader.options.loop.set(false);
+        FileReaderChannel fileReaderChannel = new FileReaderChannel();
+        int offset = reference.num / 2;
+        fileReaderChannel.options.offset.set((reference.num + offset) / reference.sr);
+        framework.addSensor(fileReader, fileReaderChannel);
+        TestRecorder recorder = new TestRecorder();
+        framework.addConsumer(recorder, fileReaderChannel, 0.25, 0);
+        if (Math.abs(fileReaderChannel.getDuration() - 2 * reference.num / reference.sr) > 1e-9)
+        {
+            throw new RuntimeException("invalid duration " + fileReaderChannel.getDuration());
+        }
+        framework.start();
+        Thread.sleep(1000);
+        fileReaderChannel.seek(0);
+        Thread.sleep(1000);
+        framework.stop();
+        framework.release();
+        //replayed samples in order of their position in the pipeline
+        ArrayList<Double> replayed = new ArrayList<>();
+        for (int k = 0; k < recorder.size(); k++)
+        {
+            Stream frame = recorder.getFrame(k);
+            if (Math.round(recorder.getTime(k) * frame.sr) != replayed.size() / frame.dim)
+            {
+                throw new RuntimeException("missing frame " + k);
+            }
+            for (int i = 0; i < frame.num * frame.dim; i++)
+            {
+                replayed.add(TestRecorder.value(frame, i));
+            }
+        }
+        //starts at the offset, continues from the beginning after the seek
+        int dim = reference.dim;
+        int sought = 0;
+        while (sought * dim < replayed.size() && offset + sought < reference.num
+               && replayed.get(sought * dim) == TestRecorder.value(reference, (offset + sought) * dim))
+        {
+            sought++;
+        }
+        int samples = replayed.size() / dim;
+        if (sought < reference.sr / 2 || samples - sought < reference.sr / 2)
+        {
+            throw new RuntimeException("replay did not start at the offset or did not continue after seeking");
+        }
+        for (int n = 0; n < samples; n++)
+        {
+            int source = (n < sought) ? offset + n : n - sought;
+            for (int d = 0; d < dim; d++)
+            {
+                if (replayed.get(n * dim + d) != TestRecorder.value(reference, source * dim + d))
+                {
+                    throw new RuntimeException("sample " + n + " of the replay differs");
+                }
+            }
+        }
+        //cleanup
+        if (!fileHeader.delete() || !new File(dir, fileName + FileCons.TAG_DATA_FILE).delete())
+        {
+            throw new RuntimeException("Files could not be deleted");
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testCompressed() throws Exception
+    {
+        File dir = getInstrumentation().getContext().getFilesDir();
+        //integer types are delta coded, floating point types xor coded
+        Cons.Type[] types = new Cons.Type[]{Cons.Type.SHORT, Cons.Type.INT, Cons.Type.LONG, Cons.Type.FLOAT, Cons.Type.DOUBLE};
+        File[] headers = new File[types.length];
+        //write a known signal
+        Pipeline framework = Pipeline.getInstance();
+        framework.options.bufferSize.set(10.0f);
+        TestSensor sensor = new TestSensor();
+        for (int i = 0; i < types.length; i++)
+        {
+            headers[i] = new File(dir, getClass().getSimpleName() + types[i] + "." + FileCons.FILE_EXTENSION_STREAM);
+            TestSensorChannel channel = new TestSensorChannel();
+            channel.options.type.set(types[i]);
+            channel.options.dimension.set(3);
+            framework.addSensor(sensor, channel);
+            FileWriter fileWriter = new FileWriter();
+            fileWriter.options.filePath.setValue(dir.getPath());
+            fileWriter.options.fileName.set(headers[i].getName());
+            fileWriter.options.type.set(Cons.FileType.COMPRESSED);
+            fileWriter.options.chunk.set(0.5);
+            framework.addConsumer(fileWriter, channel, 0.25, 0);
+        }
+        framework.start();
+        Thread.sleep(3000);
+        framework.stop();
+        framework.release();
+        for (int i = 0; i < types.length; i++)
+        {
+            //load
+            Stream stream = Stream.load(headers[i].getPath());
+            if (stream.num < 100 || stream.dim != 3 || stream.type != types[i])
+            {
+                throw new RuntimeException("compressed file could not be read");
+            }
+            for (int n = 0; n < stream.num; n++)
+            {
+                checkTestSignal(stream, n, n);
+            }
+            //replay
+            framework = Pipeline.getInstance();
+            framework.options.bufferSize.set(10.0f);
+            FileReader fileReader = new FileReader();
+            fileReader.options.file.setValue(headers[i].getPath());
+            fileReader.options.loop.set(false);
+            FileReaderChannel fileReaderChannel = new FileReaderChannel();
+            framework.addSensor(fileReader, fileReaderChannel);
+            TestRecorder recorder = new TestRecorder();
+            framework.addConsumer(recorder, fileReaderChannel, 0.25, 0);
+            framework.start();
+            Thread.sleep(1500);
+            framework.stop();
+            framework.release();
+            if (recorder.size() < 4)
+            {
+                throw new RuntimeException("compressed file could not be replayed");
+            }
+            for (int k = 0; k < recorder.size(); k++)
+            {
+                Stream frame = recorder.getFrame(k);
+                long first = Math.round(recorder.getTime(k) * frame.sr);
+                for (int n = 0; n < frame.num && first + n < stream.num; n++)
+                {
+                    checkTestSignal(frame, n, first + n);
+                }
+            }
+            //cleanup
+            if (!headers[i].delete() || !new File(dir, headers[i].getName() + FileCons.TAG_DATA_FILE).delete())
+            {
+                throw new RuntimeException("Files could not be deleted");
+            }
+        }
+    }
+
+    /**
+     * @param stream Stream with the signal of a TestSensorChannel
+     * @param index  sample in the stream
+     * @param sample number of the sample in the signal
+     */
+    private void checkTestSignal(Stream stream, int index, long sample)
+    {
+        for (int d = 0; d < stream.dim; d++)
+        {
+            double value = TestSensorChannel.value(sample, d);
+            double expected;
+            switch (stream.type)
+            {
+                case SHORT:
+                    expected = (short) value;
+                    break;
+                case INT:
+                    expected = (int) value;
+                    break;
+                case LONG:
+                    expected = (long) value;
+                    break;
+                case FLOAT:
+                    expected = (float) value;
+                    break;
+                default:
+                    expected = value;
+                    break;
+            }
+            if (TestRecorder.value(stream, index * stream.dim + d) != expected)
+            {
+                throw new RuntimeException(stream.type + " sample " + sample + " differs");
+            }
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testAsyncWriter() throws Exception
+    {
+        File file = new File(getInstrumentation().getContext().getFilesDir(), getClass().getSimpleName() + ".async");
+        FileWriter options = new FileWriter();
+        options.options.asyncBuffers.set(3);
+        options.options.asyncBufferSize.set(1);
+        options.options.flushInterval.set(0.1);
+        //slow device, so that the writing thread has to wait for free buffers
+        FileOutputStream device = new FileOutputStream(file)
+        {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException
+            {
+                try
+                {
+                    Thread.sleep(1);
+                }
+                catch (InterruptedException e)
+                {
+                    throw new IOException(e);
+                }
+                super.write(b, off, len);
+            }
+        };
+        AsyncWriter writer = (AsyncWriter) AsyncWriter.create(device, options.options, "test");
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        //sparse data is written by the I/O thread after the flush interval
+        byte[] data = new byte[5000];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) (i * 31 + (i >> 8));
+        }
+        writer.write(data, 0, 10);
+        expected.write(data, 0, 10);
+        Thread.sleep(500);
+        if (file.length() != 10)
+        {
+            throw new RuntimeException("partial buffer was not written after the flush interval");
+        }
+        //chunks of varying size, crossing buffer boundaries
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++)
+        {
+            int off = random.nextInt(data.length);
+            int len = random.nextInt(data.length - off + 1);
+            writer.write(data, off, len);
+            expected.write(data, off, len);
+        }
+        writer.write(data[0]);
+        expected.write(data[0]);
+        writer.close();
+        if (writer.getQueueDepth() != 0 || writer.getStallCount() == 0 || writer.getMaxQueueDepth() == 0)
+        {
+            throw new RuntimeException("invalid writer metrics");
+        }
+        //all data in order
+        byte[] written = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        in.readFully(written);
+        in.close();
+        if (!Arrays.equals(expected.toByteArray(), written))
+        {
+            throw new RuntimeException("written data does not match");
+        }
+        if (!file.delete())
+        {
+            throw new RuntimeException("File could not be deleted");
+        }
+    }
+
     /**
      * @throws Exception
      */
@@ -137,6 +429,40 @@ public class FileTest
         }
     }
 
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testAsciiFormatter() throws Exception
+    {
+        AsciiFormatter formatter = new AsciiFormatter(AsciiFormatter.Format.SSI, 4, 16);
+        formatter.put(-1.23456f);
+        formatter.put(' ');
+        formatter.put(42L);
+        formatter.put(' ');
+        formatter.put(0.5);
+        if (!new String(formatter.getBuffer(), 0, formatter.size()).equals("-1.2346 42 0.5000"))
+        {
+            throw new RuntimeException("invalid ssi formatting");
+        }
+
+        formatter = new AsciiFormatter(AsciiFormatter.Format.COMPACT, 6, 16);
+        formatter.put(2.5f);
+        formatter.put(' ');
+        formatter.put(-3.0);
+        if (!new String(formatter.getBuffer(), 0, formatter.size()).equals("2.5 -3"))
+        {
+            throw new RuntimeException("invalid compact formatting");
+        }
+
+        formatter = new AsciiFormatter(AsciiFormatter.Format.SSI, 6, 16);
+        formatter.put(Float.MAX_VALUE);
+        if (!new String(formatter.getBuffer(), 0, formatter.size()).equals(Float.toString(Float.MAX_VALUE)))
+        {
+            throw new RuntimeException("invalid formatting of large floats");
+        }
+    }
+
     /**
      * @param internalStorage boolean
      * @throws Exception
@@ -30,9 +30,13 @@ package hcm.ssj;
 import android.support.test.filters.SmallTest;
 import android.support.test.runner.AndroidJUnit4;
 
+import junit.framework.Assert;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Random;
+
 import hcm.ssj.androidSensor.AndroidSensor;
 import hcm.ssj.androidSensor.AndroidSensorChannel;
 import hcm.ssj.androidSensor.SensorType;
@@ -45,6 +49,10 @@ import hcm.ssj.core.Log;
 import hcm.ssj.core.Pipeline;
 import hcm.ssj.core.Provider;
 import hcm.ssj.event.FloatsEventSender;
+import hcm.ssj.ioput.AudioCodec;
+import hcm.ssj.ioput.AudioSocketChannel;
+import hcm.ssj.ioput.AudioSocketReader;
+import hcm.ssj.ioput.AudioSocketWriter;
 import hcm.ssj.ioput.BluetoothChannel;
 import hcm.ssj.ioput.BluetoothConnection;
 import hcm.ssj.ioput.BluetoothEventReader;
@@ -283,4 +291,117 @@ public class IOputTest {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAudioCodec() throws Exception
+    {
+        Random random = new Random(7);
+        int num = 1600;
+
+        for (int dim = 1; dim <= 2; dim++)
+        {
+            short[] silent = new short[num * dim];
+            short[] noise = new short[num * dim];
+            short[] fullScale = new short[num * dim];
+            short[] sine = new short[num * dim];
+            for (int i = 0; i < num * dim; i++)
+            {
+                noise[i] = (short) random.nextInt();
+                fullScale[i] = ((i / dim) % 2 == 0) ? Short.MAX_VALUE : Short.MIN_VALUE;
+                sine[i] = (short) (8000 * Math.sin(0.05 * (i / dim + i % dim)));
+            }
+
+            // lossless round trip is exact, also for incompressible input
+            for (short[] samples : new short[][]{silent, noise, fullScale, sine})
+            {
+                Assert.assertEquals(0.0, codecError(AudioCodec.Type.LOSSLESS, samples, num, dim), 0);
+                Assert.assertEquals(0.0, codecError(AudioCodec.Type.PCM, samples, num, dim), 0);
+            }
+
+            // adpcm error relative to the signal power
+            Assert.assertEquals(0.0, codecError(AudioCodec.Type.ADPCM, silent, num, dim), 0);
+            Assert.assertTrue(codecError(AudioCodec.Type.ADPCM, sine, num, dim) < 1e-3);
+            Assert.assertTrue(codecError(AudioCodec.Type.ADPCM, noise, num, dim) < 0.1);
+            Assert.assertTrue(codecError(AudioCodec.Type.ADPCM, fullScale, num, dim) < 0.1);
+        }
+    }
+
+    /**
+     * Encodes and decodes one packet
+     *
+     * @return squared error relative to the signal power (0 for silent input if exact)
+     */
+    private double codecError(AudioCodec.Type type, short[] samples, int num, int dim) throws Exception
+    {
+        AudioCodec codec = new AudioCodec(type, dim);
+        byte[] packet = new byte[codec.maxEncodedSize(num)];
+        int length = codec.encode(samples, num, 3, 48000L, packet);
+
+        short[] decoded = new short[num * dim];
+        Assert.assertEquals(num, new AudioCodec(type, dim).decode(packet, length, decoded));
+        Assert.assertEquals(3, AudioCodec.getSequence(packet));
+        Assert.assertEquals(48000L, AudioCodec.getPosition(packet));
+
+        double error = 0, power = 0;
+        for (int i = 0; i < samples.length; i++)
+        {
+            error += (double) (samples[i] - decoded[i]) * (samples[i] - decoded[i]);
+            power += (double) samples[i] * samples[i];
+        }
+        return (power > 0) ? error / power : error;
+    }
+
+    @Test
+    public void testAudioSocketLoopback() throws Exception
+    {
+        Pipeline frame = Pipeline.getInstance();
+        frame.options.bufferSize.set(10.0f);
+
+        Microphone mic = new Microphone();
+        AudioChannel audio = new AudioChannel();
+        audio.options.sampleRate.set(16000);
+        audio.options.scale.set(true);
+        frame.addSensor(mic, audio);
+
+        AudioSocketWriter writer = new AudioSocketWriter();
+        writer.options.ip.set("127.0.0.1");
+        writer.options.port.set(34301);
+        writer.options.codec.set(AudioCodec.Type.ADPCM);
+        frame.addConsumer(writer, audio, 0.02, 0);
+
+        AudioSocketReader reader = new AudioSocketReader();
+        reader.options.ip.set("127.0.0.1");
+        reader.options.port.set(34301);
+        reader.options.codec.set(AudioCodec.Type.ADPCM);
+
+        AudioSocketChannel received = new AudioSocketChannel();
+        received.options.sr.set(16000.);
+        received.options.num.set(320);
+        received.options.type.set(Cons.Type.FLOAT);
+        frame.addSensor(reader, received);
+
+        Logger log = new Logger();
+        log.options.reduceNum.set(true);
+        frame.addConsumer(log, received, 1.0, 0);
+
+        try {
+            frame.start();
+
+            long start = System.currentTimeMillis();
+            while(true)
+            {
+                if(System.currentTimeMillis() > start + TestHelper.DUR_TEST_SHORT)
+                    break;
+
+                Thread.sleep(1);
+            }
+
+            frame.stop();
+            frame.clear();
+        }
+        catch(Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+}
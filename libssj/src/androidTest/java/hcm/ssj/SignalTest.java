@@ -34,23 +34,44 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import hcm.ssj.androidSensor.AndroidSensor;
 import hcm.ssj.androidSensor.AndroidSensorChannel;
 import hcm.ssj.androidSensor.SensorType;
 import hcm.ssj.biosig.HRVSpectral;
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.ExceptionHandler;
+import hcm.ssj.core.Log;
 import hcm.ssj.core.Pipeline;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
 import hcm.ssj.file.FileReader;
 import hcm.ssj.file.FileReaderChannel;
+import hcm.ssj.signal.Butfilt;
 import hcm.ssj.signal.Derivative;
 import hcm.ssj.signal.FFTfeat;
 import hcm.ssj.signal.Functionals;
+import hcm.ssj.signal.Median;
+import hcm.ssj.signal.MvgMedian;
+import hcm.ssj.signal.MvgMinMax;
 import hcm.ssj.signal.PSD;
+import hcm.ssj.signal.Resample;
 import hcm.ssj.signal.Spectrogram;
 import hcm.ssj.test.Logger;
 
 import static android.support.test.InstrumentationRegistry.getContext;
 import static android.support.test.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(AndroidJUnit4.class)
 @SmallTest
@@ -195,6 +216,297 @@ public class SignalTest
 		frame.release();
 	}
 
+	@Test
+	public void testFunctionalsIncremental() throws Exception
+	{
+		// windows of 1s moving by 0.1s, incremental results must match the full computation
+		double sr = 100;
+		int dim = 3;
+		int frame = 10;
+		int window = 100;
+		int frames = 500;
+
+		float[] data = new float[(frames * frame + window) * dim];
+		Random random = new Random(0);
+		for (int i = 0; i < data.length; i++)
+		{
+			data[i] = (float) random.nextGaussian();
+		}
+
+		Functionals[] functionals = new Functionals[2];
+		Stream[][] input = new Stream[2][];
+		Stream[] output = new Stream[2];
+		for (int k = 0; k < 2; k++)
+		{
+			functionals[k] = new Functionals();
+			functionals[k].options.path.set(true);
+			functionals[k].options.delta.set(3);
+			functionals[k].options.incremental.set(k == 1);
+
+			input[k] = new Stream[]{Stream.create(window, dim, sr, Cons.Type.FLOAT)};
+			output[k] = Stream.create(1, functionals[k].getSampleDimension(input[k]), sr, Cons.Type.FLOAT);
+			functionals[k].enter(input[k], output[k]);
+		}
+
+		for (int i = 0; i < frames; i++)
+		{
+			for (int k = 0; k < 2; k++)
+			{
+				System.arraycopy(data, i * frame * dim, input[k][0].ptrF(), 0, window * dim);
+				input[k][0].time = i * frame / sr;
+				functionals[k].transform(input[k], output[k]);
+			}
+
+			float[] expected = output[0].ptrF();
+			float[] actual = output[1].ptrF();
+			for (int j = 0; j < expected.length; j++)
+			{
+				assertEquals(expected[j], actual[j], 1e-4 * Math.max(1, Math.abs(expected[j])));
+			}
+		}
+	}
+
+	@Test
+	public void testDimensionRanges() throws Exception
+	{
+		// filtering dimension ranges separately must give the same result as filtering all at once
+		int dim = 8;
+		int num = 100;
+
+		Butfilt[] filters = new Butfilt[2];
+		Stream[][] input = new Stream[2][];
+		Stream[] output = new Stream[2];
+		for (int k = 0; k < 2; k++)
+		{
+			filters[k] = new Butfilt();
+			filters[k].options.type.set(Butfilt.Type.LOW);
+			filters[k].options.low.set(0.2);
+
+			input[k] = new Stream[]{Stream.create(num, dim, 100, Cons.Type.FLOAT)};
+			output[k] = Stream.create(num, dim, 100, Cons.Type.FLOAT);
+			filters[k].enter(input[k], output[k]);
+		}
+
+		Random random = new Random(0);
+		for (int frame = 0; frame < 10; frame++)
+		{
+			for (int i = 0; i < num * dim; i++)
+			{
+				float value = (float) random.nextGaussian();
+				input[0][0].ptrF()[i] = value;
+				input[1][0].ptrF()[i] = value;
+			}
+
+			filters[0].transform(input[0], output[0]);
+			filters[1].transform(input[1], output[1], 0, 3);
+			filters[1].transform(input[1], output[1], 3, dim);
+
+			for (int i = 0; i < num * dim; i++)
+			{
+				assertEquals(output[0].ptrF()[i], output[1].ptrF()[i], 0);
+			}
+		}
+	}
+
+	@Test
+	public void testParallelism() throws Exception
+	{
+		// splitting dimensions among the worker pool must not change the output of a running pipeline
+		Pipeline frame = Pipeline.getInstance();
+		frame.options.bufferSize.set(10.0f);
+		frame.options.countdown.set(0);
+
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		frame.setExceptionHandler(new ExceptionHandler()
+		{
+			@Override
+			public void handle(String location, String msg, Throwable t)
+			{
+				errors.add(t);
+			}
+		});
+
+		TestSensor sensor = new TestSensor();
+		TestSensorChannel channel = new TestSensorChannel();
+		channel.options.dimension.set(8);
+		frame.addSensor(sensor, channel);
+
+		TestRecorder[] filtered = new TestRecorder[2];
+		TestRecorder[] functionals = new TestRecorder[2];
+		for (int k = 0; k < 2; k++)
+		{
+			Butfilt filter = new Butfilt();
+			filter.options.type.set(Butfilt.Type.LOW);
+			filter.options.low.set(0.2);
+			filter.parallelism = (k == 0) ? 1 : 4;
+			frame.addTransformer(filter, channel, 0.1, 0);
+
+			filtered[k] = new TestRecorder();
+			frame.addConsumer(filtered[k], filter, 0.1, 0);
+
+			//overlapping windows, 8 dimensions in 3 uneven partitions
+			Functionals functional = new Functionals();
+			functional.options.path.set(true);
+			functional.parallelism = (k == 0) ? 1 : 3;
+			frame.addTransformer(functional, channel, 0.5, 0.5);
+
+			functionals[k] = new TestRecorder();
+			frame.addConsumer(functionals[k], functional, 0.5, 0);
+		}
+
+		//errors of partitions running in the pool are reported by the pipeline
+		FailingPartition failing = new FailingPartition();
+		failing.parallelism = 2;
+		frame.addTransformer(failing, channel, 0.1, 0);
+
+		frame.start();
+		Thread.sleep(3000);
+		frame.stop();
+		frame.release();
+
+		assertTrue(filtered[0].size() >= 20 && filtered[1].size() >= 20);
+		assertTrue(functionals[0].size() >= 4 && functionals[1].size() >= 4);
+
+		compareRecordings(filtered[0], filtered[1]);
+		compareRecordings(functionals[0], functionals[1]);
+
+		assertTrue(failing.getThreads().size() > 1);
+		assertFalse(errors.isEmpty());
+		for (Throwable error : errors)
+		{
+			assertTrue(error instanceof IllegalStateException);
+		}
+	}
+
+	private static void compareRecordings(TestRecorder serial, TestRecorder parallel)
+	{
+		int frames = Math.min(serial.size(), parallel.size());
+		for (int k = 0; k < frames; k++)
+		{
+			assertEquals(serial.getTime(k), parallel.getTime(k), 0);
+
+			float[] expected = serial.getFrame(k).ptrF();
+			float[] actual = parallel.getFrame(k).ptrF();
+			assertEquals(expected.length, actual.length);
+			for (int i = 0; i < expected.length; i++)
+			{
+				assertEquals(expected[i], actual[i], 0);
+			}
+		}
+	}
+
+	/**
+	 * fails on every partition except the first one, i.e. on those which run in the worker pool
+	 */
+	private static class FailingPartition extends Transformer
+	{
+		private final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+		Set<Thread> getThreads()
+		{
+			return threads;
+		}
+
+		@Override
+		public OptionList getOptions()
+		{
+			return null;
+		}
+
+		@Override
+		protected boolean hasIndependentDimensions()
+		{
+			return true;
+		}
+
+		@Override
+		public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+		{
+			transform(stream_in, stream_out, 0, stream_in[0].dim);
+		}
+
+		@Override
+		public void transform(Stream[] stream_in, Stream stream_out, int dim_from, int dim_to) throws SSJFatalException
+		{
+			threads.add(Thread.currentThread());
+			if (dim_from > 0)
+			{
+				throw new IllegalStateException("partition " + dim_from + " failed");
+			}
+		}
+
+		@Override
+		public int getSampleDimension(Stream[] stream_in)
+		{
+			return stream_in[0].dim;
+		}
+
+		@Override
+		public int getSampleBytes(Stream[] stream_in)
+		{
+			return 4;
+		}
+
+		@Override
+		public Cons.Type getSampleType(Stream[] stream_in)
+		{
+			return Cons.Type.FLOAT;
+		}
+
+		@Override
+		public int getSampleNumber(int sampleNumber_in)
+		{
+			return sampleNumber_in;
+		}
+
+		@Override
+		protected void describeOutput(Stream[] stream_in, Stream stream_out)
+		{
+			stream_out.desc = stream_in[0].desc;
+		}
+	}
+
+	@Test
+	public void testResample() throws Exception
+	{
+		// 48kHz to 16kHz, a 1kHz tone passes while a 12kHz tone is removed
+		double sr = 48000;
+		int num = 4800;
+
+		Resample resample = new Resample();
+		resample.options.up.set(1);
+		resample.options.down.set(3);
+
+		Stream[] input = new Stream[]{Stream.create(num, 2, sr, Cons.Type.FLOAT)};
+		Stream output = Stream.create(resample.getSampleNumber(num), 2, sr / 3, Cons.Type.FLOAT);
+		resample.enter(input, output);
+
+		assertEquals(1600, output.num);
+
+		for (int frame = 0; frame < 5; frame++)
+		{
+			for (int i = 0; i < num; i++)
+			{
+				double t = (frame * num + i) / sr;
+				input[0].ptrF()[i * 2] = (float) Math.sin(2 * Math.PI * 1000 * t);
+				input[0].ptrF()[i * 2 + 1] = (float) Math.sin(2 * Math.PI * 12000 * t);
+			}
+
+			resample.transform(input, output);
+		}
+
+		float pass = 0;
+		float stop = 0;
+		for (int i = 0; i < output.num; i++)
+		{
+			pass = Math.max(pass, Math.abs(output.ptrF()[i * 2]));
+			stop = Math.max(stop, Math.abs(output.ptrF()[i * 2 + 1]));
+		}
+
+		assertEquals(1, pass, 0.01);
+		assertEquals(0, stop, 0.01);
+	}
+
 	@Test
 	public void testSpectrogram() throws Exception
 	{
@@ -294,4 +606,99 @@ public class SignalTest
 		frame.stop();
 		frame.release();
 	}
+
+	@Test
+	public void testMvgMinMax() throws Exception
+	{
+		// 60s window at 100Hz, fed in chunks of one second
+		double sr = 100;
+		int dim = 3;
+		int window = 60 * (int) sr;
+		int frames = 300;
+
+		float[] data = new float[frames * (int) sr * dim];
+		Random random = new Random(0);
+		for (int i = 0; i < data.length; i++)
+		{
+			data[i] = (float) random.nextGaussian();
+		}
+
+		for (MvgMinMax.Method method : new MvgMinMax.Method[]{MvgMinMax.Method.MOVING, MvgMinMax.Method.EXACT})
+		{
+			MvgMinMax mvgMinMax = new MvgMinMax();
+			mvgMinMax.options.method.set(method);
+			mvgMinMax.options.format.set(MvgMinMax.Format.ALL);
+			mvgMinMax.options.windowSize.set(60f);
+			mvgMinMax.options.numberOfBlocks.set(60);
+
+			Stream[] input = new Stream[]{Stream.create((int) sr, dim, sr, Cons.Type.FLOAT)};
+			Stream output = Stream.create((int) sr, dim * 2, sr, Cons.Type.FLOAT);
+			mvgMinMax.enter(input, output);
+
+			long time = 0;
+			for (int frame = 0; frame < frames; frame++)
+			{
+				int offset = frame * input[0].num * dim;
+				System.arraycopy(data, offset, input[0].ptrF(), 0, input[0].num * dim);
+
+				long start = System.nanoTime();
+				mvgMinMax.transform(input, output);
+				time += System.nanoTime() - start;
+
+				if (method != MvgMinMax.Method.EXACT)
+				{
+					continue;
+				}
+
+				// compare last sample of each frame with brute force result
+				int last = offset + (input[0].num - 1) * dim;
+				for (int d = 0; d < dim; d++)
+				{
+					float min = Float.MAX_VALUE;
+					float max = -Float.MAX_VALUE;
+					for (int i = Math.max(d, last + d - (window - 1) * dim); i <= last + d; i += dim)
+					{
+						min = Math.min(min, data[i]);
+						max = Math.max(max, data[i]);
+					}
+
+					float[] out = output.ptrF();
+					int index = (input[0].num - 1) * dim * 2 + d * 2;
+					assertEquals(min, out[index], 0);
+					assertEquals(max, out[index + 1], 0);
+				}
+			}
+
+			mvgMinMax.flush(input, output);
+			Log.i(method + ": " + (time / (frames * input[0].num)) + " ns per sample");
+		}
+	}
+
+	@Test
+	public void testMvgMedian() throws Exception
+	{
+		// the last output of a moving median covering the whole frame equals the frame median
+		Stream[] input = new Stream[]{Stream.create(101, 2, 100, Cons.Type.FLOAT)};
+		Random random = new Random(0);
+		for (int i = 0; i < input[0].num * input[0].dim; i++)
+		{
+			input[0].ptrF()[i] = (float) random.nextGaussian();
+		}
+
+		MvgMedian mvgMedian = new MvgMedian();
+		mvgMedian.options.windowSize.set(1.01f);
+		Stream moving = Stream.create(input[0].num, input[0].dim, input[0].sr, Cons.Type.FLOAT);
+		mvgMedian.enter(input, moving);
+		mvgMedian.transform(input, moving);
+
+		Median median = new Median();
+		Stream frame = Stream.create(1, input[0].dim, 1, Cons.Type.FLOAT);
+		median.enter(input, frame);
+		median.transform(input, frame);
+
+		for (int d = 0; d < input[0].dim; d++)
+		{
+			assertEquals(frame.ptrF()[d], moving.ptrF()[(input[0].num - 1) * input[0].dim + d], 0);
+		}
+	}
 }
@@ -0,0 +1,114 @@
+/*
+ * TestRecorder.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj;
+
+import java.util.ArrayList;
+
+import hcm.ssj.core.Consumer;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.event.Event;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Keeps a copy of every frame of the first input stream, so tests can check what a consumer received.
+ */
+public class TestRecorder extends Consumer
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		private Options()
+		{
+			addOptions();
+		}
+	}
+	public final Options options = new Options();
+
+	private final ArrayList<Stream> frames = new ArrayList<>();
+	private final ArrayList<Double> times = new ArrayList<>();
+
+	public TestRecorder()
+	{
+		_name = "TestRecorder";
+	}
+
+	@Override
+	protected synchronized void consume(Stream[] stream_in, Event trigger) throws SSJFatalException
+	{
+		frames.add(stream_in[0].clone());
+		times.add(stream_in[0].time);
+	}
+
+	public synchronized int size()
+	{
+		return frames.size();
+	}
+
+	public synchronized Stream getFrame(int index)
+	{
+		return frames.get(index);
+	}
+
+	/**
+	 * @return start time of the frame in seconds
+	 */
+	public synchronized double getTime(int index)
+	{
+		return times.get(index);
+	}
+
+	/**
+	 * @return value of the stream at the given index, converted to double
+	 */
+	public static double value(Stream stream, int index)
+	{
+		switch (stream.type)
+		{
+			case BYTE:
+				return stream.ptrB()[index];
+			case SHORT:
+				return stream.ptrS()[index];
+			case INT:
+				return stream.ptrI()[index];
+			case LONG:
+				return stream.ptrL()[index];
+			case FLOAT:
+				return stream.ptrF()[index];
+			case DOUBLE:
+				return stream.ptrD()[index];
+			default:
+				throw new UnsupportedOperationException("unsupported type " + stream.type);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * TestSensorChannel.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.SensorChannel;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Provides a known signal: sample n of dimension d is {@link #value(long, int)}, cast to the sample type.<br>
+ * The watchdog is disabled and nothing is produced before the pipeline runs, so every sample stays
+ * at its index in the pipeline buffer.
+ */
+public class TestSensorChannel extends SensorChannel
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		public final Option<Double> sampleRate = new Option<>("sampleRate", 100.0, Double.class, "");
+		public final Option<Integer> dimension = new Option<>("dimension", 1, Integer.class, "");
+		public final Option<Integer> num = new Option<>("num", 10, Integer.class, "samples per push");
+		public final Option<Cons.Type> type = new Option<>("type", Cons.Type.FLOAT, Cons.Type.class, "SHORT, INT, LONG, FLOAT or DOUBLE");
+
+		private Options()
+		{
+			addOptions();
+		}
+	}
+	public final Options options = new Options();
+
+	private long sample;
+
+	public TestSensorChannel()
+	{
+		_name = "TestSensorChannel";
+		setWatchInterval(0);
+		setSyncInterval(0);
+	}
+
+	/**
+	 * @return value of sample n in dimension d
+	 */
+	public static double value(long n, int d)
+	{
+		return 100 * Math.sin(0.05 * n + d) + 0.25 * n;
+	}
+
+	@Override
+	public void enter(Stream stream_out) throws SSJFatalException
+	{
+		sample = 0;
+	}
+
+	@Override
+	protected boolean process(Stream stream_out) throws SSJFatalException
+	{
+		//samples pushed before the pipeline runs are discarded
+		if (!_frame.isRunning())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < stream_out.num; i++, sample++)
+		{
+			for (int d = 0; d < stream_out.dim; d++)
+			{
+				double value = value(sample, d);
+				int index = i * stream_out.dim + d;
+				switch (stream_out.type)
+				{
+					case SHORT:
+						stream_out.ptrS()[index] = (short) value;
+						break;
+					case INT:
+						stream_out.ptrI()[index] = (int) value;
+						break;
+					case LONG:
+						stream_out.ptrL()[index] = (long) value;
+						break;
+					case FLOAT:
+						stream_out.ptrF()[index] = (float) value;
+						break;
+					case DOUBLE:
+						stream_out.ptrD()[index] = value;
+						break;
+					default:
+						throw new SSJFatalException("unsupported type " + stream_out.type);
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected double getSampleRate()
+	{
+		return options.sampleRate.get();
+	}
+
+	@Override
+	protected int getSampleDimension()
+	{
+		return options.dimension.get();
+	}
+
+	@Override
+	protected Cons.Type getSampleType()
+	{
+		return options.type.get();
+	}
+
+	@Override
+	protected int getSampleNumber()
+	{
+		return options.num.get();
+	}
+
+	@Override
+	protected void describeOutput(Stream stream_out)
+	{
+		stream_out.desc = new String[stream_out.dim];
+		for (int i = 0; i < stream_out.dim; i++)
+		{
+			stream_out.desc[i] = "Test" + i;
+		}
+	}
+}
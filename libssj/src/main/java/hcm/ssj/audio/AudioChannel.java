@@ -27,8 +27,14 @@
 
 package hcm.ssj.audio;
 
+import android.annotation.TargetApi;
 import android.media.AudioRecord;
 import android.media.MediaRecorder;
+import android.os.Build;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
@@ -55,7 +61,7 @@ public class AudioChannel extends SensorChannel
         public final Option<Integer> sampleRate = new Option<>("sampleRate", 8000, Integer.class, "");
         public final Option<Cons.ChannelFormat> channelConfig = new Option<>("channelConfig", Cons.ChannelFormat.CHANNEL_IN_MONO, Cons.ChannelFormat.class, "");
         public final Option<Cons.AudioFormat> audioFormat = new Option<>("audioFormat", Cons.AudioFormat.ENCODING_PCM_16BIT, Cons.AudioFormat.class, "");
-        public final Option<Boolean> scale = new Option<>("scale", true, Boolean.class, "");
+        public final Option<Boolean> scale = new Option<>("scale", true, Boolean.class, "output floats in [-1, 1], disable to output the raw PCM samples and leave scaling to the consumers");
         public final Option<Double> chunk = new Option<>("chunk", 0.1, Double.class, "how many samples to read at once (in seconds)");
 
         /**
@@ -70,7 +76,25 @@ public class AudioChannel extends SensorChannel
 
     protected AudioRecord _recorder;
 
+    /**
+     * How samples get from the recorder into the output stream, chosen once in enter
+     */
+    private enum ReadMode
+    {
+        BYTES,
+        SHORTS,
+        FLOATS,
+        BYTES_TO_FLOATS,
+        SHORTS_TO_FLOATS
+    }
+
+    private ReadMode _mode;
+    private int _size;
+
     byte[] _data = null;
+    private ByteBuffer _buffer = null;
+    private ShortBuffer _shorts = null;
+    private short[] _samples = null;
 
     public AudioChannel()
     {
@@ -89,15 +113,49 @@ public class AudioChannel extends SensorChannel
 			Log.w("unexpected AudioRecord state = " + state);
 		}
 
-        if(options.scale.get())
+        _size = stream_out.num * stream_out.dim;
+        _mode = null;
+
+        switch (options.audioFormat.get())
         {
-			if (options.audioFormat.get() != Cons.AudioFormat.ENCODING_PCM_8BIT && options.audioFormat.get() != Cons.AudioFormat.ENCODING_PCM_16BIT)
-			{
-				Log.e("unsupported audio format for normalization");
-			}
+            case ENCODING_PCM_8BIT:
+                if (options.scale.get())
+                {
+                    _data = new byte[_size];
+                    _mode = ReadMode.BYTES_TO_FLOATS;
+                }
+                else
+                {
+                    _mode = ReadMode.BYTES;
+                }
+                break;
+            case ENCODING_PCM_16BIT:
+            case ENCODING_DEFAULT:
+                if (options.scale.get())
+                {
+                    // direct buffer, the recorder writes into it without an intermediate copy
+                    _buffer = ByteBuffer.allocateDirect(_size * 2).order(ByteOrder.LITTLE_ENDIAN);
+                    _shorts = _buffer.asShortBuffer();
+                    _samples = new short[_size];
+                    _mode = ReadMode.SHORTS_TO_FLOATS;
+                }
+                else
+                {
+                    _mode = ReadMode.SHORTS;
+                }
+                break;
+            case ENCODING_PCM_FLOAT:
+                // float samples are already in [-1, 1]
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+                {
+                    _mode = ReadMode.FLOATS;
+                }
+                break;
+        }
 
-            int numBytes = Microphone.audioFormatSampleBytes(options.audioFormat.get().val);
-            _data = new byte[stream_out.num * stream_out.dim * numBytes];
+        if (_mode == null)
+        {
+            Log.e("unsupported audio format " + options.audioFormat.get());
         }
 
         //startRecording has to be called as close to the first read as possible.
@@ -108,55 +166,88 @@ public class AudioChannel extends SensorChannel
     @Override
     protected boolean process(Stream stream_out) throws SSJFatalException
     {
-        if(!options.scale.get())
+        if (_mode == null)
         {
-            //read data
-            // this is blocking and thus defines the update rate
-            switch (options.audioFormat.get())
-            {
-                case ENCODING_PCM_8BIT:
-                    _recorder.read(stream_out.ptrB(), 0, stream_out.num * stream_out.dim);
-                    break;
-                case ENCODING_PCM_16BIT:
-                case ENCODING_DEFAULT:
-                    _recorder.read(stream_out.ptrS(), 0, stream_out.num * stream_out.dim);
-                    break;
-                default:
-                    Log.w("unsupported audio format");
-                    return false;
-            }
+            return false;
         }
-        else
+
+        //read data
+        // this is blocking and thus defines the update rate
+        int result;
+        switch (_mode)
         {
-            //read data
-            // this is blocking and thus defines the update rate
-            _recorder.read(_data, 0, _data.length);
-
-            //normalize it and convert it to floats
-            float[] outf = stream_out.ptrF();
-            int i = 0, j = 0;
-            while (i < _data.length)
-            {
-                switch (options.audioFormat.get())
+            case BYTES:
+                result = _recorder.read(stream_out.ptrB(), 0, _size);
+                break;
+            case SHORTS:
+                result = _recorder.read(stream_out.ptrS(), 0, _size);
+                break;
+            case FLOATS:
+                result = readFloats(stream_out.ptrF());
+                break;
+            case BYTES_TO_FLOATS:
+                result = _recorder.read(_data, 0, _size);
+                if (result > 0)
+                {
+                    convert(_data, stream_out.ptrF(), result);
+                }
+                break;
+            case SHORTS_TO_FLOATS:
+                result = readBuffer();
+                if (result > 0)
                 {
-                    case ENCODING_PCM_8BIT:
-                        outf[j++] = _data[i++] / 128.0f;
-                        break;
-                    case ENCODING_PCM_16BIT:
-                    case ENCODING_DEFAULT:
-                        outf[j++] = (short) ((_data[i+1] & 0xFF) << 8 | (_data[i+0] & 0xFF)) / 32768.0f;
-                        i += 2;
-                        break;
-                    default:
-                        Log.w("unsupported audio format");
-                        return false;
+                    _shorts.clear();
+                    _shorts.get(_samples, 0, result / 2);
+                    convert(_samples, stream_out.ptrF(), result / 2);
                 }
-            }
+                break;
+            default:
+                return false;
+        }
+
+        if (result < 0)
+        {
+            Log.w("failed to read audio data, error " + result);
+            return false;
         }
 
         return true;
     }
 
+    @TargetApi(Build.VERSION_CODES.M)
+    private int readFloats(float[] dst)
+    {
+        return _recorder.read(dst, 0, _size, AudioRecord.READ_BLOCKING);
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private int readBuffer()
+    {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+        {
+            return _recorder.read(_buffer, _buffer.capacity(), AudioRecord.READ_BLOCKING);
+        }
+
+        // blocks on all versions before the read mode was introduced
+        return _recorder.read(_buffer, _buffer.capacity());
+    }
+
+    private static void convert(byte[] src, float[] dst, int num)
+    {
+        for (int i = 0; i < num; i++)
+        {
+            dst[i] = src[i] / 128.0f;
+        }
+    }
+
+    private static void convert(short[] src, float[] dst, int num)
+    {
+        for (int i = 0; i < num; i++)
+        {
+            dst[i] = src[i] / 32768.0f;
+        }
+    }
+
     @Override
     public void flush(Stream stream_out) throws SSJFatalException
     {
@@ -46,6 +46,7 @@ import hcm.ssj.file.FileCons;
  * Class that is responsible for decoding of audio files into a sequence of raw bytes.
  * Bytes are represented in little-endian ordering.
  * Supports and was tested with mp3, mp4, and wav files.
+ * The {@link PeakPyramid} of the audio is computed while decoding.
  */
 public final class AudioDecoder
 {
@@ -55,15 +56,27 @@ public final class AudioDecoder
 	private int channelCount;
 	private int audioLength;
 	private short[] samples;
+	private PeakPyramid peaks;
 
 	public AudioDecoder(String filepath)
+	{
+		this(filepath, true);
+	}
+
+	/**
+	 * @param filepath Path of the file to decode.
+	 * @param loadSamples Whether to keep all samples in memory, otherwise only the peaks are available.
+	 */
+	public AudioDecoder(String filepath, boolean loadSamples)
 	{
 		try
 		{
 			File rawAudio = decode(filepath);
-			samples = getAudioSample(rawAudio);
-			int sampleCount = samples.length;
-			audioLength = calculateAudioLength(sampleCount, sampleRate, channelCount);
+			if (loadSamples)
+			{
+				samples = getAudioSample(rawAudio);
+			}
+			audioLength = peaks.getAudioLength();
 		}
 		catch (IOException e)
 		{
@@ -72,15 +85,12 @@ public final class AudioDecoder
 	}
 
 	/**
-	 * Calculates the length of the audio file in milliseconds.
-	 * @param sampleCount Number of samples.
-	 * @param sampleRate Sample rate (i.e. 16000, 44100, ..)
-	 * @param channelCount Number of audio channels.
-	 * @return length of audio file in seconds.
+	 * @param filepath Path of an audio file.
+	 * @return Location of the decoded samples of the given audio file.
 	 */
-	private int calculateAudioLength(int sampleCount, int sampleRate, int channelCount)
+	public static File getRawFile(String filepath)
 	{
-		return ((sampleCount / channelCount) * 1000) / sampleRate;
+		return new File(FileCons.SSJ_EXTERNAL_STORAGE + File.separator + new File(filepath).getName() + ".raw");
 	}
 
 	/**
@@ -113,6 +123,11 @@ public final class AudioDecoder
 		return samples;
 	}
 
+	public PeakPyramid getPeaks()
+	{
+		return peaks;
+	}
+
 	public int getAudioLength()
 	{
 		return audioLength;
@@ -150,65 +165,88 @@ public final class AudioDecoder
 		MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
 		extractor.selectTrack(0);
 
-		File dst = new File(FileCons.SSJ_EXTERNAL_STORAGE + File.separator + "output.raw");
+		File dst = getRawFile(filepath);
 		FileOutputStream f = new FileOutputStream(dst);
 
+		PeakPyramid.Builder builder = new PeakPyramid.Builder(sampleRate, channelCount);
+		short[] chunk = new short[0];
+
 		boolean endOfStreamReached = false;
 
-		while (true)
+		try
 		{
-			if (!endOfStreamReached)
+			while (true)
 			{
-				int inputBufferIndex = decoder.dequeueInputBuffer(10 * 1000);
-				if (inputBufferIndex >= 0)
+				if (!endOfStreamReached)
 				{
-					ByteBuffer inputBuffer = inputBuffers[inputBufferIndex];
-					int sampleSize = extractor.readSampleData(inputBuffer, 0);
-					if (sampleSize < 0)
+					int inputBufferIndex = decoder.dequeueInputBuffer(10 * 1000);
+					if (inputBufferIndex >= 0)
 					{
-						// Pass empty buffer and the end of stream flag to the codec.
-						decoder.queueInputBuffer(inputBufferIndex, 0, 0,
-												 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
-						endOfStreamReached = true;
-					}
-					else
-					{
-						// Pass data-filled buffer to the decoder.
-						decoder.queueInputBuffer(inputBufferIndex, 0, sampleSize,
-												 extractor.getSampleTime(), 0);
-						extractor.advance();
+						ByteBuffer inputBuffer = inputBuffers[inputBufferIndex];
+						int sampleSize = extractor.readSampleData(inputBuffer, 0);
+						if (sampleSize < 0)
+						{
+							// Pass empty buffer and the end of stream flag to the codec.
+							decoder.queueInputBuffer(inputBufferIndex, 0, 0,
+													 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+							endOfStreamReached = true;
+						}
+						else
+						{
+							// Pass data-filled buffer to the decoder.
+							decoder.queueInputBuffer(inputBufferIndex, 0, sampleSize,
+													 extractor.getSampleTime(), 0);
+							extractor.advance();
+						}
 					}
 				}
-			}
 
-			int outputBufferIndex = decoder.dequeueOutputBuffer(bufferInfo, 10 * 1000);
-			if (outputBufferIndex >= 0)
-			{
-				ByteBuffer outputBuffer = outputBuffers[outputBufferIndex];
-				byte[] data = new byte[bufferInfo.size];
-				outputBuffer.get(data);
-				outputBuffer.clear();
+				int outputBufferIndex = decoder.dequeueOutputBuffer(bufferInfo, 10 * 1000);
+				if (outputBufferIndex >= 0)
+				{
+					ByteBuffer outputBuffer = outputBuffers[outputBufferIndex];
+					byte[] data = new byte[bufferInfo.size];
+					outputBuffer.get(data);
+					outputBuffer.clear();
+
+					if (data.length > 0)
+					{
+						f.write(data, 0, data.length);
+
+						int length = data.length / 2;
+						if (chunk.length < length)
+						{
+							chunk = new short[length];
+						}
+						ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(chunk, 0, length);
+						builder.add(chunk, 0, length);
+					}
+					decoder.releaseOutputBuffer(outputBufferIndex, false);
 
-				if (data.length > 0)
+					if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0)
+					{
+						endOfStreamReached = true;
+					}
+				}
+				else if (outputBufferIndex == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED)
 				{
-					f.write(data, 0, data.length);
+					outputBuffers = decoder.getOutputBuffers();
 				}
-				decoder.releaseOutputBuffer(outputBufferIndex, false);
 
 				if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0)
 				{
-					endOfStreamReached = true;
+					peaks = builder.build();
+					peaks.setPcm(dst);
+					return dst;
 				}
 			}
-			else if (outputBufferIndex == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED)
-			{
-				outputBuffers = decoder.getOutputBuffers();
-			}
-
-			if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0)
-			{
-				return dst;
-			}
+		}
+		finally
+		{
+			f.close();
+			decoder.stop();
+			decoder.release();
+			extractor.release();
 		}
 	}
 }
@@ -0,0 +1,406 @@
+/*
+ * AudioFileReader.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.audio;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import hcm.ssj.core.Log;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.Sensor;
+import hcm.ssj.core.option.FilePath;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+
+/**
+ * Plays back compressed audio files (e.g. mp3, mp4, wav) through the pipeline.<br>
+ * The file is decoded incrementally into a ring buffer of fixed size,
+ * so memory usage does not depend on the length of the file.
+ */
+public class AudioFileReader extends Sensor
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		public final Option<FilePath> file = new Option<>("file", null, FilePath.class, "audio file path");
+		public final Option<Boolean> loop = new Option<>("loop", true, Boolean.class, "restart at the beginning when the end of the file is reached");
+		public final Option<Double> buffer = new Option<>("buffer", 0.5, Double.class, "size of the decoding buffer (in seconds)");
+
+		/**
+		 *
+		 */
+		private Options()
+		{
+			addOptions();
+		}
+	}
+
+	public final Options options = new Options();
+
+	private static final long TIMEOUT_US = 10 * 1000;
+
+	private boolean initialized = false;
+	private MediaExtractor extractor;
+	private MediaFormat format;
+	private int sampleRate;
+	private int channelCount;
+	private long durationUs;
+
+	private MediaCodec decoder;
+	private ByteBuffer[] inputBuffers;
+	private ByteBuffer[] outputBuffers;
+	private MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
+	private boolean inputDone;
+	private boolean outputDone;
+
+	// decoded output buffer which has not been fully copied into the ring yet
+	private int pendingIndex = -1;
+	private ShortBuffer pending;
+	private boolean pendingEnd;
+
+	// samples before this time are dropped after a seek, negative if not seeking
+	private long skipUntilUs = -1;
+
+	private short[] ring;
+	private int ringRead;
+	private int ringCount;
+
+	public AudioFileReader()
+	{
+		_name = this.getClass().getSimpleName();
+	}
+
+	/**
+	 * Opens the file and reads its format, called by the channel before the pipeline starts.
+	 */
+	protected synchronized final void readerInit() throws IOException
+	{
+		if (initialized)
+		{
+			return;
+		}
+
+		if (options.file.get() == null)
+		{
+			throw new IOException("file not specified");
+		}
+
+		extractor = new MediaExtractor();
+		extractor.setDataSource(options.file.get().value);
+
+		format = null;
+		for (int i = 0; i < extractor.getTrackCount(); i++)
+		{
+			MediaFormat trackFormat = extractor.getTrackFormat(i);
+			String mime = trackFormat.getString(MediaFormat.KEY_MIME);
+			if (mime != null && mime.startsWith("audio/"))
+			{
+				extractor.selectTrack(i);
+				format = trackFormat;
+				break;
+			}
+		}
+
+		if (format == null)
+		{
+			extractor.release();
+			extractor = null;
+			throw new IOException("no audio track found in " + options.file.get().value);
+		}
+
+		sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+		channelCount = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+		durationUs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : 0;
+
+		initialized = true;
+	}
+
+	@Override
+	protected synchronized boolean connect() throws SSJFatalException
+	{
+		try
+		{
+			readerInit();
+
+			decoder = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+			decoder.configure(format, null, null, 0);
+			decoder.start();
+		}
+		catch (IOException e)
+		{
+			throw new SSJFatalException("unable to open " + options.file.get(), e);
+		}
+
+		inputBuffers = decoder.getInputBuffers();
+		outputBuffers = decoder.getOutputBuffers();
+		inputDone = false;
+		outputDone = false;
+		pending = null;
+		pendingIndex = -1;
+
+		ring = new short[Math.max(1, (int) (options.buffer.get() * sampleRate)) * channelCount];
+		ringRead = 0;
+		ringCount = 0;
+
+		return true;
+	}
+
+	@Override
+	protected synchronized void disconnect() throws SSJFatalException
+	{
+		if (decoder != null)
+		{
+			decoder.stop();
+			decoder.release();
+			decoder = null;
+		}
+
+		if (extractor != null)
+		{
+			extractor.release();
+			extractor = null;
+		}
+
+		pending = null;
+		pendingIndex = -1;
+		initialized = false;
+	}
+
+	/**
+	 * Reads interleaved 16 bit samples, decoding more of the file as needed.
+	 *
+	 * @param dst buffer to read into
+	 * @param num number of values (samples * channels) to read
+	 * @return number of values read, less than num only at the end of the file
+	 */
+	protected synchronized int read(short[] dst, int num)
+	{
+		if (decoder == null)
+		{
+			return 0;
+		}
+
+		int read = 0;
+		int rewoundAt = -1;
+
+		while (read < num)
+		{
+			if (ringCount == 0)
+			{
+				if (outputDone)
+				{
+					// do not loop forever over a file without samples
+					if (!options.loop.get() || rewoundAt == read)
+					{
+						break;
+					}
+
+					seek(0);
+					rewoundAt = read;
+				}
+
+				decode();
+				continue;
+			}
+
+			int n = Math.min(num - read, Math.min(ringCount, ring.length - ringRead));
+			System.arraycopy(ring, ringRead, dst, read, n);
+			ringRead = (ringRead + n) % ring.length;
+			ringCount -= n;
+			read += n;
+		}
+
+		return read;
+	}
+
+	/**
+	 * Queues one input sample to the decoder and moves decoded data into the ring as far as it fits.
+	 */
+	private void decode()
+	{
+		if (!inputDone)
+		{
+			int index = decoder.dequeueInputBuffer(TIMEOUT_US);
+			if (index >= 0)
+			{
+				int size = extractor.readSampleData(inputBuffers[index], 0);
+				if (size < 0)
+				{
+					decoder.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+					inputDone = true;
+				}
+				else
+				{
+					decoder.queueInputBuffer(index, 0, size, extractor.getSampleTime(), 0);
+					extractor.advance();
+				}
+			}
+		}
+
+		if (pending == null)
+		{
+			int index = decoder.dequeueOutputBuffer(bufferInfo, TIMEOUT_US);
+			if (index >= 0)
+			{
+				ByteBuffer buffer = outputBuffers[index];
+				buffer.position(bufferInfo.offset);
+				buffer.limit(bufferInfo.offset + bufferInfo.size);
+
+				pending = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+				pendingIndex = index;
+				pendingEnd = (bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+
+				if (skipUntilUs >= 0)
+				{
+					skip(bufferInfo.presentationTimeUs);
+				}
+			}
+			else if (index == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED)
+			{
+				outputBuffers = decoder.getOutputBuffers();
+			}
+			else if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED)
+			{
+				MediaFormat output = decoder.getOutputFormat();
+				if (output.getInteger(MediaFormat.KEY_SAMPLE_RATE) != sampleRate
+						|| output.getInteger(MediaFormat.KEY_CHANNEL_COUNT) != channelCount)
+				{
+					Log.w("decoder output format differs from the file format: " + output);
+				}
+			}
+		}
+
+		if (pending != null)
+		{
+			// copy as much as fits, the rest stays in the codec buffer
+			while (pending.hasRemaining() && ringCount < ring.length)
+			{
+				int write = (ringRead + ringCount) % ring.length;
+				int n = Math.min(pending.remaining(), Math.min(ring.length - ringCount, ring.length - write));
+				pending.get(ring, write, n);
+				ringCount += n;
+			}
+
+			if (!pending.hasRemaining())
+			{
+				decoder.releaseOutputBuffer(pendingIndex, false);
+				pending = null;
+				pendingIndex = -1;
+
+				if (pendingEnd)
+				{
+					outputDone = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops the samples of the pending buffer which lie before the seek target
+	 */
+	private void skip(long presentationTimeUs)
+	{
+		long frames = pending.remaining() / channelCount;
+		long drop = (skipUntilUs - presentationTimeUs) * sampleRate / 1000000L;
+
+		if (drop < frames)
+		{
+			skipUntilUs = -1;
+		}
+
+		drop = Math.max(0, Math.min(drop, frames));
+		pending.position((int) drop * channelCount);
+	}
+
+	/**
+	 * Moves the read position to the given sample. Can be called while the pipeline is running.
+	 *
+	 * @param sample long
+	 */
+	protected synchronized void seek(long sample)
+	{
+		if (extractor == null)
+		{
+			return;
+		}
+
+		long timeUs = Math.max(0, sample) * 1000000L / sampleRate;
+		extractor.seekTo(timeUs, MediaExtractor.SEEK_TO_PREVIOUS_SYNC);
+
+		if (decoder != null)
+		{
+			if (pending != null)
+			{
+				decoder.releaseOutputBuffer(pendingIndex, false);
+				pending = null;
+				pendingIndex = -1;
+			}
+			decoder.flush();
+		}
+
+		inputDone = false;
+		outputDone = false;
+		ringCount = 0;
+		skipUntilUs = timeUs;
+	}
+
+	/**
+	 * @return sample rate of the file
+	 */
+	protected int getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	/**
+	 * @return number of channels of the file
+	 */
+	protected int getChannelCount()
+	{
+		return channelCount;
+	}
+
+	/**
+	 * @return number of samples of the file, 0 if unknown
+	 */
+	protected long getNumSamples()
+	{
+		return durationUs * sampleRate / 1000000L;
+	}
+}
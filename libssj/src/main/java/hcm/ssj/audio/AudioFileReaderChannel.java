@@ -0,0 +1,205 @@
+/*
+ * AudioFileReaderChannel.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.audio;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.Monitor;
+import hcm.ssj.core.SSJException;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.SensorChannel;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Audio provider of the audio file reader, outputs the same format as the microphone.
+ */
+public class AudioFileReaderChannel extends SensorChannel
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		public final Option<Double> chunk = new Option<>("chunk", 0.1, Double.class, "how many samples to read at once (in seconds)");
+		public final Option<Double> offset = new Option<>("offset", 0.0, Double.class, "start reading from indicated time (in seconds)");
+		public final Option<Boolean> scale = new Option<>("scale", true, Boolean.class, "output floats in [-1, 1], disable to output the raw PCM samples and leave scaling to the consumers");
+
+		/**
+		 *
+		 */
+		private Options()
+		{
+			addOptions();
+		}
+	}
+
+	public final Options options = new Options();
+
+	private AudioFileReader reader;
+	private double sampleRate;
+	private int dimension;
+	private int num;
+	private short[] samples;
+
+	public AudioFileReaderChannel()
+	{
+		_name = this.getClass().getSimpleName();
+	}
+
+	@Override
+	protected void init() throws SSJException
+	{
+		reader = (AudioFileReader) _sensor;
+
+		try
+		{
+			reader.readerInit();
+		}
+		catch (IOException e)
+		{
+			throw new SSJException("error initializing audio file reader", e);
+		}
+
+		sampleRate = reader.getSampleRate();
+		dimension = reader.getChannelCount();
+
+		double minChunk = 1.0 / sampleRate;
+		if (options.chunk.get() < minChunk)
+		{
+			Log.w("chunk size too small, setting to " + minChunk + "s");
+			options.chunk.set(minChunk);
+		}
+
+		num = (int) (sampleRate * options.chunk.get() + 0.5);
+		samples = options.scale.get() ? new short[num * dimension] : null;
+	}
+
+	@Override
+	public void enter(Stream stream_out) throws SSJFatalException
+	{
+		if (options.offset.get() > 0)
+		{
+			seek(options.offset.get());
+		}
+	}
+
+	/**
+	 * Continues playback from the given position. Can be called while the pipeline is running.
+	 *
+	 * @param seconds position in the file in seconds
+	 */
+	public void seek(double seconds)
+	{
+		reader.seek((long) (seconds * sampleRate + 0.5));
+	}
+
+	/**
+	 * @return duration of the file in seconds, 0 if unknown
+	 */
+	public double getDuration()
+	{
+		return reader.getNumSamples() / sampleRate;
+	}
+
+	@Override
+	protected boolean process(Stream stream_out) throws SSJFatalException
+	{
+		//data pushed before the pipeline runs would be discarded, keep the position in the file instead
+		if (!_frame.isRunning())
+		{
+			return false;
+		}
+
+		short[] dst = options.scale.get() ? samples : stream_out.ptrS();
+		int total = num * dimension;
+
+		int read = reader.read(dst, total);
+		if (read < total)
+		{
+			//notify listeners
+			Monitor.notifyMonitor();
+			Arrays.fill(dst, read, total, (short) 0);
+		}
+
+		if (options.scale.get())
+		{
+			float[] out = stream_out.ptrF();
+			for (int i = 0; i < total; i++)
+			{
+				out[i] = dst[i] / 32768.0f;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public double getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	@Override
+	public int getSampleDimension()
+	{
+		return dimension;
+	}
+
+	@Override
+	public int getSampleNumber()
+	{
+		return num;
+	}
+
+	@Override
+	public int getSampleBytes()
+	{
+		return options.scale.get() ? 4 : 2;
+	}
+
+	@Override
+	public Cons.Type getSampleType()
+	{
+		return options.scale.get() ? Cons.Type.FLOAT : Cons.Type.SHORT;
+	}
+
+	@Override
+	protected void describeOutput(Stream stream_out)
+	{
+		stream_out.desc = new String[1];
+		stream_out.desc[0] = "Audio";
+	}
+}
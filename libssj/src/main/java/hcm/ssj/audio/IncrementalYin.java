@@ -0,0 +1,340 @@
+/*
+ * IncrementalYin.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.audio;
+
+import org.jtransforms.fft.DoubleFFT_1D;
+
+import be.tarsos.dsp.pitch.PitchDetectionResult;
+import be.tarsos.dsp.pitch.PitchDetector;
+
+/**
+ * YIN pitch detector for overlapping frames, follows TarsosDSP's Yin.<br>
+ * The difference function is derived from the autocorrelation of the frame and the energies of its
+ * lagged windows. For consecutive frames which overlap, the autocorrelation is only updated by the
+ * samples which left and entered the window instead of being recomputed. Full computations use an FFT
+ * for large windows. All buffers are allocated once.
+ */
+public class IncrementalYin implements PitchDetector
+{
+    public static final double DEFAULT_THRESHOLD = 0.20;
+
+    // incremental updates between two full computations, bounds the accumulated rounding error
+    private static final int REFRESH = 100;
+    private static final double FFT_COST = 2.5;
+
+    private final float sampleRate;
+    private final double threshold;
+
+    private final int size;
+    private final int window;
+    private final int hop;
+    private final boolean incremental;
+
+    // current and previous frame in double precision, swapped after each frame
+    private double[] samples;
+    private double[] previous;
+    private final double[] correlation;
+    private final double[] energy;
+    private final float[] yinBuffer;
+
+    private DoubleFFT_1D fft;
+    private double[] head;
+    private double[] frame;
+
+    private boolean valid = false;
+    private int updates = 0;
+
+    private final PitchDetectionResult result = new PitchDetectionResult();
+
+    /**
+     * @param sampleRate sample rate of the audio
+     * @param bufferSize number of samples of each frame
+     * @param hop        number of samples between the starts of two consecutive frames
+     */
+    public IncrementalYin(float sampleRate, int bufferSize, int hop)
+    {
+        this(sampleRate, bufferSize, hop, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param sampleRate sample rate of the audio
+     * @param bufferSize number of samples of each frame
+     * @param hop        number of samples between the starts of two consecutive frames
+     * @param threshold  YIN threshold, see TarsosDSP's Yin
+     */
+    public IncrementalYin(float sampleRate, int bufferSize, int hop, double threshold)
+    {
+        this.sampleRate = sampleRate;
+        this.threshold = threshold;
+        this.size = bufferSize;
+        this.window = bufferSize / 2;
+        this.hop = hop;
+
+        samples = new double[size];
+        previous = new double[size];
+        correlation = new double[window];
+        energy = new double[size + 1];
+        yinBuffer = new float[window];
+
+        int n = Integer.highestOneBit(Math.max(size, 1));
+        if (n < size)
+        {
+            n <<= 1;
+        }
+
+        // direct autocorrelation against two real ffts, one inverse and the spectrum product
+        double direct = (double) window * window;
+        double transform = n * (3 * FFT_COST * (Math.log(n) / Math.log(2)) / 2 + 2);
+        double full = Math.min(direct, transform);
+
+        if (transform < direct)
+        {
+            fft = new DoubleFFT_1D(n);
+            head = new double[n];
+            frame = new double[n];
+        }
+
+        incremental = hop > 0 && hop <= window && 2.0 * hop * window < full;
+    }
+
+    @Override
+    public PitchDetectionResult getPitch(float[] audioBuffer)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            samples[i] = audioBuffer[i];
+        }
+
+        if (incremental && valid && updates < REFRESH && continues())
+        {
+            update();
+            updates++;
+        }
+        else
+        {
+            correlate();
+            updates = 0;
+        }
+
+        difference();
+
+        double[] swap = previous;
+        previous = samples;
+        samples = swap;
+        valid = true;
+
+        cumulativeMeanNormalizedDifference();
+
+        int tau = absoluteThreshold();
+        if (tau != -1)
+        {
+            result.setPitch(sampleRate / parabolicInterpolation(tau));
+        }
+        else
+        {
+            result.setPitch(-1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Forces the next frame to be computed from scratch
+     */
+    public void reset()
+    {
+        valid = false;
+    }
+
+    /**
+     * Checks whether the frame is the previous one moved by the hop
+     */
+    private boolean continues()
+    {
+        for (int i = 0, j = hop; j < size; i++, j++)
+        {
+            if (samples[i] != previous[j])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes r(tau) = sum x[j] * x[j + tau] over the window
+     */
+    private void correlate()
+    {
+        if (fft == null)
+        {
+            for (int tau = 0; tau < window; tau++)
+            {
+                double sum = 0;
+                for (int j = 0; j < window; j++)
+                {
+                    sum += samples[j] * samples[j + tau];
+                }
+                correlation[tau] = sum;
+            }
+            return;
+        }
+
+        int n = frame.length;
+        for (int i = 0; i < n; i++)
+        {
+            head[i] = i < window ? samples[i] : 0;
+            frame[i] = i < size ? samples[i] : 0;
+        }
+
+        fft.realForward(head);
+        fft.realForward(frame);
+
+        // conj(head) * frame, dc and nyquist are stored in the first two values
+        frame[0] *= head[0];
+        frame[1] *= head[1];
+        for (int k = 2; k < n; k += 2)
+        {
+            double re = head[k] * frame[k] + head[k + 1] * frame[k + 1];
+            double im = head[k] * frame[k + 1] - head[k + 1] * frame[k];
+            frame[k] = re;
+            frame[k + 1] = im;
+        }
+
+        fft.realInverse(frame, true);
+
+        // lags stay below the frame length, so the circular correlation does not wrap
+        System.arraycopy(frame, 0, correlation, 0, window);
+    }
+
+    /**
+     * Removes the products of the samples which left the window and adds those of the samples which entered it
+     */
+    private void update()
+    {
+        for (int j = 0; j < hop; j++)
+        {
+            double sample = previous[j];
+            for (int tau = 0; tau < window; tau++)
+            {
+                correlation[tau] -= sample * previous[j + tau];
+            }
+        }
+
+        for (int j = window - hop; j < window; j++)
+        {
+            double sample = samples[j];
+            for (int tau = 0; tau < window; tau++)
+            {
+                correlation[tau] += sample * samples[j + tau];
+            }
+        }
+    }
+
+    /**
+     * d(tau) = sum x[j]^2 + sum x[j + tau]^2 - 2 r(tau)
+     */
+    private void difference()
+    {
+        energy[0] = 0;
+        for (int i = 0; i < size; i++)
+        {
+            energy[i + 1] = energy[i] + samples[i] * samples[i];
+        }
+
+        yinBuffer[0] = 0;
+        for (int tau = 1; tau < window; tau++)
+        {
+            double d = energy[window] + energy[tau + window] - energy[tau] - 2 * correlation[tau];
+            yinBuffer[tau] = d > 0 ? (float) d : 0;
+        }
+    }
+
+    private void cumulativeMeanNormalizedDifference()
+    {
+        yinBuffer[0] = 1;
+        float runningSum = 0;
+        for (int tau = 1; tau < yinBuffer.length; tau++)
+        {
+            runningSum += yinBuffer[tau];
+            yinBuffer[tau] *= tau / runningSum;
+        }
+    }
+
+    private int absoluteThreshold()
+    {
+        int tau;
+        for (tau = 2; tau < yinBuffer.length; tau++)
+        {
+            if (yinBuffer[tau] < threshold)
+            {
+                while (tau + 1 < yinBuffer.length && yinBuffer[tau + 1] < yinBuffer[tau])
+                {
+                    tau++;
+                }
+                result.setProbability(1 - yinBuffer[tau]);
+                break;
+            }
+        }
+
+        if (tau == yinBuffer.length || yinBuffer[tau] >= threshold)
+        {
+            tau = -1;
+            result.setProbability(0);
+            result.setPitched(false);
+        }
+        else
+        {
+            result.setPitched(true);
+        }
+
+        return tau;
+    }
+
+    private float parabolicInterpolation(int tauEstimate)
+    {
+        int x0 = tauEstimate < 1 ? tauEstimate : tauEstimate - 1;
+        int x2 = tauEstimate + 1 < yinBuffer.length ? tauEstimate + 1 : tauEstimate;
+
+        if (x0 == tauEstimate)
+        {
+            return yinBuffer[tauEstimate] <= yinBuffer[x2] ? tauEstimate : x2;
+        }
+        if (x2 == tauEstimate)
+        {
+            return yinBuffer[tauEstimate] <= yinBuffer[x0] ? tauEstimate : x0;
+        }
+
+        float s0 = yinBuffer[x0];
+        float s1 = yinBuffer[tauEstimate];
+        float s2 = yinBuffer[x2];
+
+        return tauEstimate + (s2 - s0) / (2 * (2 * s1 - s2 - s0));
+    }
+}
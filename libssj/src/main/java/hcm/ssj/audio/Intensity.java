@@ -27,6 +27,10 @@
 
 package hcm.ssj.audio;
 
+import org.jtransforms.fft.DoubleFFT_1D;
+
+import java.util.Arrays;
+
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.SSJFatalException;
@@ -54,6 +58,7 @@ public class Intensity extends Transformer {
         public final Option<Double> timeStep = new Option<>("timeStep", 0., Double.class, "");
         public final Option<Boolean> subtractMeanPressure = new Option<>("subtractMeanPressure", true, Boolean.class, "");
         public final Option<Boolean> mean = new Option<>("mean", false, Boolean.class, "output mean intensity over entire window");
+        public final Option<Boolean> fft = new Option<>("fft", true, Boolean.class, "use fft convolution for the windowed sums if it is cheaper than summing each frame");
 
         /**
          *
@@ -64,12 +69,32 @@ public class Intensity extends Transformer {
     }
     public final Options options = new Options();
 
+    // relative cost of one butterfly compared to one multiply-add of the direct sum
+    private static final double FFT_COST = 2.5;
+
     private double myDuration, windowDuration, halfWindowDuration, outStep;
     private int halfWindowSamples, numberOfFrames;
 
-    double[] amplitude = null;
     double[] window = null;
 
+    // sample range and window weight of each frame
+    private int[] midSample, leftSample, rightSample;
+    private double[] windowSum;
+
+    // samples of one channel and their prefix sums for the mean and the detection of silent frames
+    private double[] samples;
+    private double[] prefixSum;
+    private int[] prefixNonZero;
+
+    // windowed sums of squared and plain amplitudes of each frame and the total over all channels
+    private double[] sumx2w, sumxw, energy;
+
+    // overlap-save convolution with the window
+    private DoubleFFT_1D fft;
+    private int fftSize;
+    private double[] windowSpectrum;
+    private double[] block;
+
     public Intensity()
     {
         _name = "Intensity";
@@ -102,7 +127,6 @@ public class Intensity extends Transformer {
          */
         halfWindowDuration = 0.5 * windowDuration;
         halfWindowSamples = (int)(halfWindowDuration / audio.step);
-        amplitude = new double[2 * halfWindowSamples +1];
         window = new double[2 * halfWindowSamples +1];
 
         double x, root;
@@ -112,6 +136,105 @@ public class Intensity extends Transformer {
             window [i + halfWindowSamples] = root <= 0.0 ? 0.0 : AudioUtil.bessel_i0_f((2 * Math.PI * Math.PI + 0.5) * Math.sqrt(root));
         }
 
+        /*
+         * Frame positions do not depend on the stream time, compute them once.
+         */
+        midSample = new int[numberOfFrames];
+        leftSample = new int[numberOfFrames];
+        rightSample = new int[numberOfFrames];
+        windowSum = new double[numberOfFrames];
+
+        for (int iframe = 0; iframe < numberOfFrames; iframe++)
+        {
+            midSample[iframe] = (int) (Math.round(iframe * outStep / audio.step + 1.0));
+            leftSample[iframe] = Math.max(0, midSample[iframe] - halfWindowSamples);
+            rightSample[iframe] = Math.min(audio.num - 1, midSample[iframe] + halfWindowSamples);
+
+            for (int i = leftSample[iframe]; i <= rightSample[iframe]; i++)
+            {
+                windowSum[iframe] += window[i - midSample[iframe] + halfWindowSamples];
+            }
+        }
+
+        samples = new double[audio.num];
+        prefixSum = new double[audio.num + 1];
+        prefixNonZero = new int[audio.num + 1];
+        sumx2w = new double[numberOfFrames];
+        sumxw = new double[numberOfFrames];
+        energy = new double[numberOfFrames];
+
+        fft = null;
+        windowSpectrum = null;
+        block = null;
+
+        if (options.fft.get())
+        {
+            initConvolution(audio.num);
+        }
+    }
+
+    /**
+     * Chooses the fft size for overlap-save convolution with the window and
+     * keeps it only if it needs fewer operations than summing each frame directly.
+     */
+    private void initConvolution(int num)
+    {
+        int taps = window.length;
+        double direct = 0;
+        for (int iframe = 0; iframe < numberOfFrames; iframe++)
+        {
+            direct += rightSample[iframe] - leftSample[iframe] + 1;
+        }
+
+        int size = 0;
+        double cost = Double.MAX_VALUE;
+        for (int n = Integer.highestOneBit(taps) << 1; n < 4 * (num + taps); n <<= 1)
+        {
+            // complex fft and inverse plus spectrum product for each block
+            double blocks = countBlocks(n - taps + 1);
+            double c = blocks * n * (2 * FFT_COST * (Math.log(n) / Math.log(2)) + 1);
+            if (c < cost)
+            {
+                cost = c;
+                size = n;
+            }
+        }
+
+        if (cost >= direct)
+        {
+            return;
+        }
+
+        fftSize = size;
+        fft = new DoubleFFT_1D(fftSize);
+        block = new double[2 * fftSize];
+
+        // the window is symmetric, so convolving with it equals the windowed sum around each sample
+        windowSpectrum = new double[2 * fftSize];
+        for (int i = 0; i < taps; i++)
+        {
+            windowSpectrum[2 * i] = window[i];
+        }
+        fft.complexForward(windowSpectrum);
+    }
+
+    /**
+     * @param valid number of outputs of one overlap-save block
+     * @return number of blocks needed to cover all frames
+     */
+    private int countBlocks(int valid)
+    {
+        int blocks = 0;
+        int end = Integer.MIN_VALUE;
+        for (int iframe = 0; iframe < numberOfFrames; iframe++)
+        {
+            if (midSample[iframe] >= end)
+            {
+                end = midSample[iframe] + valid;
+                blocks++;
+            }
+        }
+        return blocks;
     }
 
     @Override
@@ -122,43 +245,55 @@ public class Intensity extends Transformer {
         float[] data = in.ptrF();
         float[] outf = out.ptrF();
 
-        double intensitySum = 0;
+        boolean subtractMean = options.subtractMeanPressure.get();
+        Arrays.fill(energy, 0.0);
 
-        for (int iframe = 0; iframe < numberOfFrames; iframe++)
+        for (int channel = 0; channel < in.dim; channel++)
         {
-            double midTime = in.time + iframe * outStep;
-            int midSample = (int) (Math.round((midTime - in.time) / in.step + 1.0));
-            int leftSample = midSample - halfWindowSamples, rightSample = midSample + halfWindowSamples;
-            double sumxw = 0.0, sumw = 0.0, intensity;
-            if (leftSample < 0) leftSample = 0;
-            if (rightSample >= in.num) rightSample = in.num - 1;
-
-            for (int channel = 0; channel < in.dim; channel++)
+            accumulate(data, channel, in.dim, in.num);
+
+            if (fft != null)
+            {
+                convolve(in.num, subtractMean);
+            }
+
+            for (int iframe = 0; iframe < numberOfFrames; iframe++)
             {
-                for (int i = leftSample; i <= rightSample; i++)
+                int leftSample = this.leftSample[iframe], rightSample = this.rightSample[iframe];
+
+                // silent frames are exactly zero, whichever way they are summed
+                if (prefixNonZero[rightSample + 1] == prefixNonZero[leftSample])
                 {
-                    amplitude[i - midSample + halfWindowSamples] = data[i * in.dim + channel];
+                    continue;
                 }
-                if (options.subtractMeanPressure.get())
+
+                double mean = 0.0;
+                if (subtractMean)
                 {
-                    double sum = 0.0;
-                    for (int i = leftSample; i <= rightSample; i++)
-                    {
-                        sum += amplitude[i - midSample + halfWindowSamples];
-                    }
-                    double mean = sum / (rightSample - leftSample + 1);
-                    for (int i = leftSample; i <= rightSample; i++)
+                    mean = (prefixSum[rightSample + 1] - prefixSum[leftSample]) / (rightSample - leftSample + 1);
+                }
+
+                if (fft != null)
+                {
+                    // sum of w * (x - mean)^2 expanded
+                    double sum = sumx2w[iframe] - 2 * mean * sumxw[iframe] + mean * mean * windowSum[iframe];
+                    if (sum > 0)
                     {
-                        amplitude[i - midSample + halfWindowSamples] -= mean;
+                        energy[iframe] += sum;
                     }
                 }
-                for (int i = leftSample; i <= rightSample; i++)
+                else
                 {
-                    sumxw += amplitude[i - midSample + halfWindowSamples] * amplitude[i - midSample + halfWindowSamples] * window[i - midSample + halfWindowSamples];
-                    sumw += window[i - midSample + halfWindowSamples];
+                    energy[iframe] += sum(leftSample, rightSample, halfWindowSamples - midSample[iframe], mean);
                 }
             }
-            intensity = sumxw / sumw;
+        }
+
+        double intensitySum = 0;
+
+        for (int iframe = 0; iframe < numberOfFrames; iframe++)
+        {
+            double intensity = energy[iframe] / (in.dim * windowSum[iframe]);
             if (intensity != 0.0) intensity /= 4e-10;
             intensity = intensity < 1e-30 ? -300 : 10 * Math.log10(intensity);
 
@@ -172,6 +307,85 @@ public class Intensity extends Transformer {
             outf[0] = (float)(intensitySum / numberOfFrames);
     }
 
+    /**
+     * Copies one channel and computes its prefix sums and prefix counts of non-zero samples
+     */
+    private void accumulate(float[] data, int channel, int dim, int num)
+    {
+        double sum = 0.0;
+        int nonZero = 0;
+        for (int i = 0, j = channel; i < num; i++, j += dim)
+        {
+            samples[i] = data[j];
+            sum += data[j];
+            if (data[j] != 0)
+            {
+                nonZero++;
+            }
+            prefixSum[i + 1] = sum;
+            prefixNonZero[i + 1] = nonZero;
+        }
+    }
+
+    /**
+     * Sums w * (x - mean)^2 over one frame of the current channel
+     */
+    private double sum(int leftSample, int rightSample, int offset, double mean)
+    {
+        double[] samples = this.samples;
+        double[] window = this.window;
+        double sum = 0.0;
+        for (int i = leftSample; i <= rightSample; i++)
+        {
+            double amplitude = samples[i] - mean;
+            sum += amplitude * amplitude * window[i + offset];
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the windowed sums of squared amplitudes (and amplitudes) of all frames of the current channel
+     * by overlap-save convolution. Squared amplitudes go to the real part, amplitudes to the imaginary part,
+     * so one complex transform serves both.
+     */
+    private void convolve(int num, boolean linear)
+    {
+        int taps = window.length;
+        int valid = fftSize - taps + 1;
+
+        int iframe = 0;
+        while (iframe < numberOfFrames)
+        {
+            // the block's first valid output is centered on this frame
+            int start = midSample[iframe] - halfWindowSamples;
+            int end = midSample[iframe] + valid;
+
+            for (int j = 0, i = start; j < fftSize; j++, i++)
+            {
+                double x = (i >= 0 && i < num) ? samples[i] : 0.0;
+                block[2 * j] = x * x;
+                block[2 * j + 1] = linear ? x : 0.0;
+            }
+
+            fft.complexForward(block);
+            for (int j = 0; j < 2 * fftSize; j += 2)
+            {
+                double re = block[j] * windowSpectrum[j] - block[j + 1] * windowSpectrum[j + 1];
+                double im = block[j] * windowSpectrum[j + 1] + block[j + 1] * windowSpectrum[j];
+                block[j] = re;
+                block[j + 1] = im;
+            }
+            fft.complexInverse(block, true);
+
+            for (; iframe < numberOfFrames && midSample[iframe] < end; iframe++)
+            {
+                int j = midSample[iframe] - start + halfWindowSamples;
+                sumx2w[iframe] = block[2 * j];
+                sumxw[iframe] = block[2 * j + 1];
+            }
+        }
+    }
+
     @Override
     public void flush(Stream[] stream_in, Stream stream_out) throws SSJFatalException
     {}
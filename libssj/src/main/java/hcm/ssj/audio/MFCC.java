@@ -0,0 +1,442 @@
+/*
+ * MFCC.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.audio;
+
+import org.jtransforms.fft.FloatFFT_1D;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+import hcm.ssj.signal.FFTCache;
+import hcm.ssj.signal.FilterTools;
+import hcm.ssj.signal.FloatMatrix;
+
+/**
+ * Computes mel frequency cepstral coefficients of each audio frame.<br>
+ * Window, mel filterbank and DCT matrix are computed once in enter and all buffers are
+ * preallocated. Multi-channel audio is mixed down.<br>
+ * If deltas are requested, they are computed by linear regression over the neighbouring frames,
+ * so the output lags deltas * deltaWindow frames behind the input.
+ */
+public class MFCC extends Transformer
+{
+    @Override
+    public OptionList getOptions()
+    {
+        return options;
+    }
+
+    public class Options extends OptionList
+    {
+        public final Option<Integer> coefficients = new Option<>("coefficients", 13, Integer.class, "number of cepstral coefficients, starting with c0");
+        public final Option<Integer> banks = new Option<>("banks", 26, Integer.class, "number of mel filters");
+        public final Option<Double> minFreq = new Option<>("minFreq", 0., Double.class, "lower edge of the filterbank in Hz");
+        public final Option<Double> maxFreq = new Option<>("maxFreq", 0., Double.class, "upper edge of the filterbank in Hz, 0 for half the sample rate");
+        public final Option<Integer> nfft = new Option<>("nfft", 0, Integer.class, "fft size, 0 for the next power of two of the frame size");
+        public final Option<Float> preemphasis = new Option<>("preemphasis", 0.97f, Float.class, "pre-emphasis coefficient, 0 to disable");
+        public final Option<FilterTools.WINDOW_TYPE> window = new Option<>("window", FilterTools.WINDOW_TYPE.HAMMING, FilterTools.WINDOW_TYPE.class, "window function");
+        public final Option<Integer> lifter = new Option<>("lifter", 22, Integer.class, "cepstral liftering, 0 to disable");
+        public final Option<Integer> deltas = new Option<>("deltas", 0, Integer.class, "0 = static coefficients only, 1 = append deltas, 2 = append deltas and delta-deltas");
+        public final Option<Integer> deltaWindow = new Option<>("deltaWindow", 2, Integer.class, "number of frames on each side used for the deltas");
+
+        /**
+         *
+         */
+        private Options()
+        {
+            addOptions();
+        }
+    }
+
+    public final Options options = new Options();
+
+    private FloatFFT_1D fft;
+    private int nfft;
+    private int coefficients;
+    private int banks;
+    private float preemphasis;
+
+    private float[] window;
+
+    // non-zero part of each triangular filter
+    private int[] filterStart;
+    private int[] filterLength;
+    private float[] filterWeights;
+
+    // banks values per coefficient, liftering included
+    private float[] dct;
+
+    private float[] frame;
+    private float[] spectrum;
+    private float[] melEnergies;
+
+    // static coefficients and deltas of the last 2 * deltaWindow + 1 frames
+    private int deltas;
+    private int deltaWindow;
+    private float[][] staticHistory;
+    private float[][] deltaHistory;
+    private float[] deltaDelta;
+    private float deltaNorm;
+    private long frameCount;
+
+    public MFCC()
+    {
+        _name = "MFCC";
+    }
+
+    @Override
+    public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+    {
+        if (stream_in[0].type != Cons.Type.FLOAT && stream_in[0].type != Cons.Type.SHORT)
+        {
+            throw new SSJFatalException("unsupported input type " + stream_in[0].type);
+        }
+
+        int num = stream_in[0].num;
+        double sr = stream_in[0].sr;
+
+        nfft = options.nfft.get();
+        if (nfft <= 0)
+        {
+            nfft = 1;
+            while (nfft < num)
+            {
+                nfft <<= 1;
+            }
+        }
+        if (nfft < num)
+        {
+            throw new SSJFatalException("fft size " + nfft + " is smaller than the frame size " + num);
+        }
+
+        coefficients = options.coefficients.get();
+        banks = options.banks.get();
+        preemphasis = options.preemphasis.get();
+
+        if (coefficients > banks)
+        {
+            throw new SSJFatalException("number of coefficients exceeds number of mel filters");
+        }
+
+        fft = FFTCache.getInstance().getFFT(nfft);
+        window = FFTCache.getInstance().getWindow(num, options.window.get());
+
+        // compact the filterbank to the non-zero weights of each filter
+        double maxFreq = options.maxFreq.get() > 0 ? options.maxFreq.get() : sr / 2;
+        FloatMatrix filterbank = FilterTools.getInstance().getMelFilterbank(nfft, sr, banks, options.minFreq.get(), maxFreq);
+
+        filterStart = new int[banks];
+        filterLength = new int[banks];
+        int total = 0;
+        for (int b = 0; b < banks; b++)
+        {
+            int first = -1;
+            int last = -1;
+            for (int k = 0; k < filterbank.getCols(); k++)
+            {
+                if (filterbank.getData(b, k) != 0)
+                {
+                    if (first < 0)
+                    {
+                        first = k;
+                    }
+                    last = k;
+                }
+            }
+            if (first < 0)
+            {
+                Log.w("mel filter " + b + " is empty, increase nfft or reduce the number of banks");
+                first = 0;
+                last = -1;
+            }
+            filterStart[b] = first;
+            filterLength[b] = last - first + 1;
+            total += filterLength[b];
+        }
+
+        filterWeights = new float[total];
+        for (int b = 0, w = 0; b < banks; b++)
+        {
+            for (int k = 0; k < filterLength[b]; k++)
+            {
+                filterWeights[w++] = filterbank.getData(b, filterStart[b] + k);
+            }
+        }
+
+        // orthonormal DCT-II with optional sinusoidal liftering
+        int lifter = options.lifter.get();
+        dct = new float[coefficients * banks];
+        for (int i = 0; i < coefficients; i++)
+        {
+            double scale = Math.sqrt((i == 0 ? 1.0 : 2.0) / banks);
+            if (lifter > 0)
+            {
+                scale *= 1.0 + (lifter / 2.0) * Math.sin(Math.PI * i / lifter);
+            }
+            for (int j = 0; j < banks; j++)
+            {
+                dct[i * banks + j] = (float) (scale * Math.cos(Math.PI * i * (j + 0.5) / banks));
+            }
+        }
+
+        frame = new float[nfft];
+        spectrum = new float[nfft / 2 + 1];
+        melEnergies = new float[banks];
+
+        deltas = Math.max(0, Math.min(2, options.deltas.get()));
+        deltaWindow = Math.max(1, options.deltaWindow.get());
+        deltaNorm = 0;
+        for (int k = 1; k <= deltaWindow; k++)
+        {
+            deltaNorm += 2 * k * k;
+        }
+        staticHistory = new float[2 * deltaWindow + 1][coefficients];
+        deltaHistory = new float[2 * deltaWindow + 1][coefficients];
+        deltaDelta = new float[coefficients];
+        frameCount = 0;
+    }
+
+    @Override
+    public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+    {
+        float[] out = stream_out.ptrF();
+
+        if (deltas == 0)
+        {
+            readFrame(stream_in[0]);
+            computeCoefficients(out);
+            return;
+        }
+
+        int size = staticHistory.length;
+        int newest = (int) (frameCount % size);
+
+        readFrame(stream_in[0]);
+        computeCoefficients(staticHistory[newest]);
+
+        // pad the past with the first frame, their deltas are zero
+        if (frameCount == 0)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                if (i != newest)
+                {
+                    System.arraycopy(staticHistory[newest], 0, staticHistory[i], 0, coefficients);
+                }
+            }
+        }
+
+        // deltas of frame t - deltaWindow
+        int center = (newest + size - deltaWindow) % size;
+        regression(staticHistory, center, deltaHistory[center]);
+
+        if (deltas == 1)
+        {
+            System.arraycopy(staticHistory[center], 0, out, 0, coefficients);
+            System.arraycopy(deltaHistory[center], 0, out, coefficients, coefficients);
+        }
+        else
+        {
+            // delta-deltas of frame t - 2 * deltaWindow, whose static coefficients are the oldest in the history
+            int oldest = (newest + 1) % size;
+            System.arraycopy(staticHistory[oldest], 0, out, 0, coefficients);
+            System.arraycopy(deltaHistory[oldest], 0, out, coefficients, coefficients);
+            regression(deltaHistory, oldest, deltaDelta);
+            System.arraycopy(deltaDelta, 0, out, 2 * coefficients, coefficients);
+        }
+
+        frameCount++;
+    }
+
+    /**
+     * Mixes down, applies pre-emphasis and window and zero pads to the fft size
+     */
+    private void readFrame(Stream stream)
+    {
+        int num = stream.num;
+        int dim = stream.dim;
+        float scale = 1.0f / dim;
+
+        if (stream.type == Cons.Type.SHORT)
+        {
+            short[] in = stream.ptrS();
+            scale /= 32768.0f;
+            for (int i = 0, s = 0; i < num; i++)
+            {
+                float sum = 0;
+                for (int j = 0; j < dim; j++)
+                {
+                    sum += in[s++];
+                }
+                frame[i] = sum * scale;
+            }
+        }
+        else
+        {
+            float[] in = stream.ptrF();
+            for (int i = 0, s = 0; i < num; i++)
+            {
+                float sum = 0;
+                for (int j = 0; j < dim; j++)
+                {
+                    sum += in[s++];
+                }
+                frame[i] = sum * scale;
+            }
+        }
+
+        if (preemphasis != 0)
+        {
+            for (int i = num - 1; i > 0; i--)
+            {
+                frame[i] -= preemphasis * frame[i - 1];
+            }
+            frame[0] *= 1 - preemphasis;
+        }
+
+        if (window != null)
+        {
+            for (int i = 0; i < num; i++)
+            {
+                frame[i] *= window[i];
+            }
+        }
+
+        for (int i = num; i < nfft; i++)
+        {
+            frame[i] = 0;
+        }
+    }
+
+    private void computeCoefficients(float[] dst)
+    {
+        fft.realForward(frame);
+
+        // power spectrum
+        int half = nfft / 2;
+        spectrum[0] = frame[0] * frame[0];
+        spectrum[half] = frame[1] * frame[1];
+        for (int k = 1; k < half; k++)
+        {
+            float re = frame[2 * k];
+            float im = frame[2 * k + 1];
+            spectrum[k] = re * re + im * im;
+        }
+
+        // log mel energies
+        for (int b = 0, w = 0; b < banks; b++)
+        {
+            float energy = 0;
+            int start = filterStart[b];
+            for (int k = 0; k < filterLength[b]; k++)
+            {
+                energy += filterWeights[w++] * spectrum[start + k];
+            }
+            melEnergies[b] = (float) Math.log(Math.max(energy, 1e-10f));
+        }
+
+        // cepstrum
+        for (int i = 0; i < coefficients; i++)
+        {
+            float sum = 0;
+            int row = i * banks;
+            for (int j = 0; j < banks; j++)
+            {
+                sum += dct[row + j] * melEnergies[j];
+            }
+            dst[i] = sum;
+        }
+    }
+
+    /**
+     * Slope over the deltaWindow frames on each side of the center of the history
+     */
+    private void regression(float[][] history, int center, float[] dst)
+    {
+        int size = history.length;
+
+        for (int i = 0; i < coefficients; i++)
+        {
+            float sum = 0;
+            for (int k = 1; k <= deltaWindow; k++)
+            {
+                sum += k * (history[(center + k) % size][i] - history[(center + size - k) % size][i]);
+            }
+            dst[i] = sum / deltaNorm;
+        }
+    }
+
+    @Override
+    public void flush(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+    {
+        staticHistory = null;
+        deltaHistory = null;
+    }
+
+    @Override
+    public int getSampleDimension(Stream[] stream_in)
+    {
+        return options.coefficients.get() * (1 + Math.max(0, Math.min(2, options.deltas.get())));
+    }
+
+    @Override
+    public int getSampleBytes(Stream[] stream_in)
+    {
+        return Util.sizeOf(Cons.Type.FLOAT);
+    }
+
+    @Override
+    public Cons.Type getSampleType(Stream[] stream_in)
+    {
+        return Cons.Type.FLOAT;
+    }
+
+    @Override
+    public int getSampleNumber(int sampleNumber_in)
+    {
+        return 1;
+    }
+
+    @Override
+    protected void describeOutput(Stream[] stream_in, Stream stream_out)
+    {
+        int coefficients = options.coefficients.get();
+        String[] prefix = {"mfcc", "dmfcc", "ddmfcc"};
+
+        stream_out.desc = new String[stream_out.dim];
+        for (int i = 0; i < stream_out.dim; i++)
+        {
+            stream_out.desc[i] = prefix[i / coefficients] + (i % coefficients);
+        }
+    }
+}
@@ -0,0 +1,492 @@
+/*
+ * PeakPyramid.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.audio;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import hcm.ssj.core.Log;
+
+/**
+ * Multi-resolution min/max summary of an audio file for waveform rendering.
+ * Level k holds the extremes of blocks of 2^(BASE_SHIFT + k) frames over all channels, so any
+ * zoom level can be drawn by reading at most a few blocks per pixel. Below the finest level, raw
+ * samples are read from the decoded PCM file if one is available.
+ * The pyramid is cached as a sidecar file next to the audio file.
+ */
+public final class PeakPyramid
+{
+	public static final String FILE_EXTENSION = ".peaks";
+
+	private static final int MAGIC = 0x5353504B;
+	private static final int VERSION = 1;
+	private static final int BASE_SHIFT = 6;
+
+	private final int sampleRate;
+	private final int channelCount;
+	private final long frameCount;
+
+	private final short[][] max;
+	private final short[][] min;
+
+	private File pcm;
+
+	private PeakPyramid(int sampleRate, int channelCount, long frameCount, short[][] max, short[][] min)
+	{
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		this.frameCount = frameCount;
+		this.max = max;
+		this.min = min;
+	}
+
+	/**
+	 * Loads the cached pyramid of an audio file or decodes the file and caches its pyramid.
+	 * @param audio Audio file (mp3, mp4, wav).
+	 * @return Pyramid of the audio file.
+	 */
+	public static PeakPyramid forAudio(File audio)
+	{
+		File sidecar = getSidecar(audio);
+
+		PeakPyramid peaks = load(sidecar, audio);
+		if (peaks != null)
+		{
+			return peaks;
+		}
+
+		AudioDecoder decoder = new AudioDecoder(audio.getPath(), false);
+		peaks = decoder.getPeaks();
+		if (peaks == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			peaks.save(sidecar, audio);
+		}
+		catch (IOException e)
+		{
+			Log.w("unable to cache waveform peaks in " + sidecar.getPath() + ": " + e.getMessage());
+		}
+
+		return peaks;
+	}
+
+	/**
+	 * @param audio Audio file.
+	 * @return Location of the cached pyramid of the given audio file.
+	 */
+	public static File getSidecar(File audio)
+	{
+		return new File(audio.getPath() + FILE_EXTENSION);
+	}
+
+	/**
+	 * Loads a cached pyramid.
+	 * @param sidecar Cached pyramid.
+	 * @param audio Audio file the pyramid was computed from.
+	 * @return Pyramid or null if there is no cache or the audio file changed since it was written.
+	 */
+	public static PeakPyramid load(File sidecar, File audio)
+	{
+		if (!sidecar.exists())
+		{
+			return null;
+		}
+
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)));
+
+			if (in.readInt() != MAGIC || in.readInt() != VERSION
+					|| in.readLong() != audio.length() || in.readLong() != audio.lastModified())
+			{
+				return null;
+			}
+
+			int sampleRate = in.readInt();
+			int channelCount = in.readInt();
+			long frameCount = in.readLong();
+			int levels = in.readInt();
+
+			short[][] max = new short[levels][];
+			short[][] min = new short[levels][];
+			for (int level = 0; level < levels; level++)
+			{
+				int blocks = in.readInt();
+				byte[] data = new byte[blocks * 4];
+				in.readFully(data);
+
+				max[level] = new short[blocks];
+				min[level] = new short[blocks];
+				ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+				buffer.asShortBuffer().get(max[level]);
+				buffer.position(blocks * 2);
+				buffer.asShortBuffer().get(min[level]);
+			}
+
+			PeakPyramid peaks = new PeakPyramid(sampleRate, channelCount, frameCount, max, min);
+
+			File pcm = AudioDecoder.getRawFile(audio.getPath());
+			if (pcm.length() == frameCount * channelCount * 2)
+			{
+				peaks.setPcm(pcm);
+			}
+
+			return peaks;
+		}
+		catch (IOException e)
+		{
+			Log.w("unable to read waveform peaks from " + sidecar.getPath() + ": " + e.getMessage());
+			return null;
+		}
+		finally
+		{
+			close(in);
+		}
+	}
+
+	/**
+	 * Writes the pyramid to a sidecar file.
+	 * @param sidecar Destination.
+	 * @param audio Audio file the pyramid was computed from.
+	 * @throws IOException If the file couldn't be written.
+	 */
+	public void save(File sidecar, File audio) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sidecar)));
+		try
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(audio.length());
+			out.writeLong(audio.lastModified());
+			out.writeInt(sampleRate);
+			out.writeInt(channelCount);
+			out.writeLong(frameCount);
+			out.writeInt(max.length);
+
+			for (int level = 0; level < max.length; level++)
+			{
+				int blocks = max[level].length;
+				ByteBuffer buffer = ByteBuffer.allocate(blocks * 4).order(ByteOrder.LITTLE_ENDIAN);
+				buffer.asShortBuffer().put(max[level]);
+				buffer.position(blocks * 2);
+				buffer.asShortBuffer().put(min[level]);
+
+				out.writeInt(blocks);
+				out.write(buffer.array());
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Sets the decoded PCM file which is read when zooming in beyond the finest level.
+	 * @param pcm Interleaved 16 bit little-endian samples.
+	 */
+	public void setPcm(File pcm)
+	{
+		this.pcm = pcm;
+	}
+
+	public int getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	public int getChannelCount()
+	{
+		return channelCount;
+	}
+
+	public long getFrameCount()
+	{
+		return frameCount;
+	}
+
+	/**
+	 * @return Length of the audio in milliseconds.
+	 */
+	public int getAudioLength()
+	{
+		return (int) (frameCount * 1000 / sampleRate);
+	}
+
+	/**
+	 * Computes the highest and lowest sample for each pixel of a section of the audio.
+	 * Reads from the coarsest level whose blocks are not wider than a pixel, or from the raw
+	 * samples if a pixel covers less than a block of the finest level.
+	 * @param from First frame.
+	 * @param to Frame after the last one.
+	 * @param pixels Number of pixels the section is drawn on.
+	 * @param maxima Destination of the maximum of each pixel.
+	 * @param minima Destination of the minimum of each pixel.
+	 */
+	public void getExtremes(long from, long to, int pixels, short[] maxima, short[] minima)
+	{
+		double framesPerPixel = (double) (to - from) / pixels;
+
+		if (framesPerPixel < (1 << BASE_SHIFT) && pcm != null && readExtremes(from, to, pixels, maxima, minima))
+		{
+			return;
+		}
+
+		int level = 0;
+		while (level + 1 < max.length && (1 << (BASE_SHIFT + level + 1)) <= framesPerPixel)
+		{
+			level++;
+		}
+
+		int shift = BASE_SHIFT + level;
+		short[] levelMax = max[level];
+		short[] levelMin = min[level];
+
+		for (int x = 0; x < pixels; x++)
+		{
+			long start = from + (long) (x * framesPerPixel);
+			long end = Math.max(from + (long) ((x + 1) * framesPerPixel), start + 1);
+
+			int first = (int) Math.min(start >> shift, levelMax.length);
+			int last = (int) Math.min((end - 1) >> shift, levelMax.length - 1);
+
+			short hi = 0;
+			short lo = 0;
+			if (first <= last)
+			{
+				hi = Short.MIN_VALUE;
+				lo = Short.MAX_VALUE;
+				for (int block = first; block <= last; block++)
+				{
+					if (levelMax[block] > hi) hi = levelMax[block];
+					if (levelMin[block] < lo) lo = levelMin[block];
+				}
+			}
+
+			maxima[x] = hi;
+			minima[x] = lo;
+		}
+	}
+
+	/**
+	 * Computes the extremes of each pixel from the raw samples
+	 */
+	private boolean readExtremes(long from, long to, int pixels, short[] maxima, short[] minima)
+	{
+		long frames = Math.min(to, frameCount) - from;
+		if (frames <= 0)
+		{
+			Arrays.fill(maxima, 0, pixels, (short) 0);
+			Arrays.fill(minima, 0, pixels, (short) 0);
+			return true;
+		}
+
+		short[] samples = new short[(int) frames * channelCount];
+
+		RandomAccessFile file = null;
+		try
+		{
+			file = new RandomAccessFile(pcm, "r");
+			byte[] data = new byte[samples.length * 2];
+			file.seek(from * channelCount * 2);
+			file.readFully(data);
+			ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(samples);
+		}
+		catch (IOException e)
+		{
+			Log.w("unable to read samples from " + pcm.getPath() + ": " + e.getMessage());
+			return false;
+		}
+		finally
+		{
+			close(file);
+		}
+
+		double framesPerPixel = (double) (to - from) / pixels;
+		for (int x = 0; x < pixels; x++)
+		{
+			int start = (int) (x * framesPerPixel);
+			int end = Math.min(Math.max((int) ((x + 1) * framesPerPixel), start + 1), (int) frames);
+
+			short hi = 0;
+			short lo = 0;
+			if (start < end)
+			{
+				hi = Short.MIN_VALUE;
+				lo = Short.MAX_VALUE;
+				for (int i = start * channelCount; i < end * channelCount; i++)
+				{
+					if (samples[i] > hi) hi = samples[i];
+					if (samples[i] < lo) lo = samples[i];
+				}
+			}
+
+			maxima[x] = hi;
+			minima[x] = lo;
+		}
+
+		return true;
+	}
+
+	private static void close(Closeable closeable)
+	{
+		if (closeable != null)
+		{
+			try
+			{
+				closeable.close();
+			}
+			catch (IOException e)
+			{
+				Log.w("unable to close file: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Computes the pyramid from interleaved samples which are added chunk by chunk,
+	 * so the samples never have to be held in memory at once.
+	 */
+	public static final class Builder
+	{
+		private final int sampleRate;
+		private final int channelCount;
+
+		private short[] blockMax = new short[1024];
+		private short[] blockMin = new short[1024];
+		private int blocks = 0;
+
+		private long samples = 0;
+		private int blockSamples = 0;
+		private short hi = Short.MIN_VALUE;
+		private short lo = Short.MAX_VALUE;
+
+		public Builder(int sampleRate, int channelCount)
+		{
+			this.sampleRate = sampleRate;
+			this.channelCount = Math.max(channelCount, 1);
+		}
+
+		/**
+		 * @param data Interleaved samples.
+		 * @param offset Position of the first sample.
+		 * @param length Number of samples.
+		 */
+		public void add(short[] data, int offset, int length)
+		{
+			int blockLength = channelCount << BASE_SHIFT;
+
+			for (int i = offset; i < offset + length; i++)
+			{
+				if (data[i] > hi) hi = data[i];
+				if (data[i] < lo) lo = data[i];
+
+				if (++blockSamples == blockLength)
+				{
+					addBlock();
+				}
+			}
+
+			samples += length;
+		}
+
+		/**
+		 * @return Pyramid of all samples added so far.
+		 */
+		public PeakPyramid build()
+		{
+			if (blockSamples > 0)
+			{
+				addBlock();
+			}
+
+			int levels = 1;
+			for (int count = blocks; count > 1; count = (count + 1) / 2)
+			{
+				levels++;
+			}
+
+			short[][] max = new short[levels][];
+			short[][] min = new short[levels][];
+			max[0] = Arrays.copyOf(blockMax, blocks);
+			min[0] = Arrays.copyOf(blockMin, blocks);
+
+			for (int level = 1; level < levels; level++)
+			{
+				short[] finerMax = max[level - 1];
+				short[] finerMin = min[level - 1];
+				int count = (finerMax.length + 1) / 2;
+
+				max[level] = new short[count];
+				min[level] = new short[count];
+				for (int i = 0; i < count; i++)
+				{
+					int j = Math.min(2 * i + 1, finerMax.length - 1);
+					max[level][i] = (short) Math.max(finerMax[2 * i], finerMax[j]);
+					min[level][i] = (short) Math.min(finerMin[2 * i], finerMin[j]);
+				}
+			}
+
+			return new PeakPyramid(sampleRate, channelCount, samples / channelCount, max, min);
+		}
+
+		private void addBlock()
+		{
+			if (blocks == blockMax.length)
+			{
+				blockMax = Arrays.copyOf(blockMax, 2 * blocks);
+				blockMin = Arrays.copyOf(blockMin, 2 * blocks);
+			}
+
+			blockMax[blocks] = hi;
+			blockMin[blocks] = lo;
+			blocks++;
+
+			blockSamples = 0;
+			hi = Short.MIN_VALUE;
+			lo = Short.MAX_VALUE;
+		}
+	}
+}
@@ -37,6 +37,7 @@ import be.tarsos.dsp.pitch.PitchDetector;
 import be.tarsos.dsp.pitch.Yin;
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
+import hcm.ssj.core.SSJException;
 import hcm.ssj.core.SSJFatalException;
 import hcm.ssj.core.Transformer;
 import hcm.ssj.core.option.Option;
@@ -56,6 +57,7 @@ public class Pitch extends Transformer {
     public final static int AMDF = 3;
     public final static int FFT_PITCH = 4;
     public final static int YIN = 5;
+    public final static int INCREMENTAL_YIN = 6;
 
 	@Override
 	public OptionList getOptions()
@@ -87,11 +89,19 @@ public class Pitch extends Transformer {
 
     protected float _lastPitch = 0;
 
+    protected double _frameDuration = 0;
+
     public Pitch()
     {
         _name = "Pitch";
     }
 
+    @Override
+    public void init(double frame, double delta) throws SSJException
+    {
+        _frameDuration = frame;
+    }
+
     @Override
 	public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
     {
@@ -124,6 +134,11 @@ public class Pitch extends Transformer {
             case FFT_PITCH:
                 _detector = new FFTPitch((int)audio.sr, audio.num * audio.dim);
                 break;
+            case INCREMENTAL_YIN:
+                // consecutive frames overlap by delta, so the detector moves by the frame size
+                int hop = (_frameDuration > 0) ? (int) (_frameDuration * audio.sr + 0.5) : audio.num;
+                _detector = new IncrementalYin((float)audio.sr, audio.num * audio.dim, hop * audio.dim);
+                break;
             case YIN:
             default:
                 _detector = new Yin((float)audio.sr, audio.num * audio.dim);
@@ -27,8 +27,7 @@
 
 package hcm.ssj.audio;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Consumer;
@@ -56,6 +55,7 @@ public class SpeechRate extends Consumer
         public final Option<Float> intensityIgnoranceLevel = new Option<>("intensityIgnoranceLevel", 1.0f, Float.class, "in dB");
         public final Option<Float> minDipBetweenPeaks = new Option<>("minDipBetweenPeaks", 3.0f, Float.class, "in dB");
         public final Option<Integer> width = new Option<>("width", 3, Integer.class, "");
+        public final Option<Boolean> incremental = new Option<>("incremental", false, Boolean.class, "keep syllable nuclei of previous windows and only search the new part of overlapping windows");
 
         /**
          *
@@ -72,7 +72,15 @@ public class SpeechRate extends Consumer
     private int _intensity_ind = -1;
     private int _voiced_ind = -1;
 
+    private float[] _data = new float[512];
     private float[] _tmp = new float[512];
+    private int[] _peaks = new int[64];
+
+    // syllable nuclei of previous windows, incremental mode only
+    private double[] _nuclei = new double[64];
+    private int _numNuclei = 0;
+    private double _lastPeak = Double.NaN;
+    private double _analyzedUntil = Double.NaN;
 
     public SpeechRate()
     {
@@ -112,47 +120,37 @@ public class SpeechRate extends Consumer
 		{
 			Log.e("no outgoing event channel has been registered");
 		}
+
+        _numNuclei = 0;
+        _lastPeak = Double.NaN;
+        _analyzedUntil = Double.NaN;
     }
 
     @Override
     protected void consume(Stream[] stream_in, Event trigger) throws SSJFatalException
     {
-        float[] intensity = _intensity.select(_intensity_ind).ptrF();
-        float[] voiced = _voiced.ptrF();
-
-        Log.ds("computing sr for " + _intensity.num + " samples");
+        int length = _intensity.num;
+        float[] intensity = column(_intensity, _intensity_ind);
 
-        //compute peaks
-        LinkedList<Integer> peaks = findPeaks(intensity, _intensity.num, options.intensityIgnoranceLevel.get(), options.minDipBetweenPeaks.get());
+        Log.ds("computing sr for " + length + " samples");
 
-        Log.ds("peaks (pre-cull) = " + peaks.size());
-
-        //remove non-voiced peaks
-        Iterator<Integer> peak = peaks.iterator();
-        int i,j;
-        double t;
-        while (peak.hasNext())
+        int numPeaks;
+        if (options.incremental.get())
         {
-            i = peak.next();
-
-            t = _intensity.time + i * _intensity.step;
-            j = (int)((t - _voiced.time) / _voiced.step);
+            numPeaks = findNuclei(intensity, length);
+        }
+        else
+        {
+            numPeaks = findPeaks(intensity, length, 0, length, -1, options.intensityIgnoranceLevel.get(), options.minDipBetweenPeaks.get());
 
-            if (j >= _voiced.num)
-            {
-                j = _voiced.num - 1;
-            }
+            Log.ds("peaks (pre-cull) = " + numPeaks);
 
-            if (voiced[j * _voiced.dim + _voiced_ind] < options.thresholdVoicedProb.get())
-            {
-                peak.remove();
-            }
+            numPeaks = cullUnvoiced(numPeaks);
         }
 
         double duration = stream_in[0].num / stream_in[0].sr;
 
-
-        Log.ds("peaks = " + peaks.size() + ", sr = " + peaks.size() / duration);
+        Log.ds("peaks = " + numPeaks + ", sr = " + numPeaks / duration);
 
         Event ev = Event.create(Cons.Type.STRING);
         ev.sender = options.sender.get();
@@ -160,22 +158,139 @@ public class SpeechRate extends Consumer
         ev.time = (int)(1000 * stream_in[0].time + 0.5);
         ev.dur = (int)(1000 * duration + 0.5);
         ev.state = Event.State.COMPLETED;
-        ev.setData("<tuple string=\"Speechrate (syllables/sec)\" value=\""+ (peaks.size() / duration) +"\" />");
+        ev.setData("<tuple string=\"Speechrate (syllables/sec)\" value=\""+ (numPeaks / duration) +"\" />");
         _evchannel_out.pushEvent(ev);
     }
 
-
     @Override
     public void flush(Stream[] stream_in) throws SSJFatalException
     {}
 
+    /**
+     * Copies one dimension of the stream into a reused buffer
+     */
+    private float[] column(Stream stream, int dim)
+    {
+        if (stream.dim == 1)
+        {
+            return stream.ptrF();
+        }
+
+        if (_data.length < stream.num)
+            _data = new float[stream.num];
+
+        float[] src = stream.ptrF();
+        for (int i = 0, j = dim; i < stream.num; i++, j += stream.dim)
+        {
+            _data[i] = src[j];
+        }
+
+        return _data;
+    }
+
+    /**
+     * Removes the peaks which fall on unvoiced samples
+     * @return number of remaining peaks
+     */
+    private int cullUnvoiced(int numPeaks)
+    {
+        float[] voiced = _voiced.ptrF();
+        float threshold = options.thresholdVoicedProb.get();
+
+        int kept = 0;
+        for (int p = 0; p < numPeaks; p++)
+        {
+            double t = _intensity.time + _peaks[p] * _intensity.step;
+            int j = (int)((t - _voiced.time) / _voiced.step);
+
+            if (j >= _voiced.num)
+            {
+                j = _voiced.num - 1;
+            }
+
+            if (voiced[j * _voiced.dim + _voiced_ind] >= threshold)
+            {
+                _peaks[kept++] = _peaks[p];
+            }
+        }
+
+        return kept;
+    }
+
+    /**
+     * Keeps the nuclei found in previous windows and only searches the samples which were not analyzed yet.
+     * Peaks within width of the end of the window are left for the next window.
+     * @return number of nuclei in the current window
+     */
+    private int findNuclei(float[] data, int length)
+    {
+        double start = _intensity.time;
+        double step = _intensity.step;
+        int width = Math.max(options.width.get(), 1);
+
+        // windows which do not overlap the previous one start over
+        if (Double.isNaN(_analyzedUntil) || start > _analyzedUntil || start + length * step < _analyzedUntil)
+        {
+            _numNuclei = 0;
+            _lastPeak = Double.NaN;
+            _analyzedUntil = start;
+        }
+
+        int kept = 0;
+        for (int n = 0; n < _numNuclei; n++)
+        {
+            if (_nuclei[n] >= start - step / 2)
+            {
+                _nuclei[kept++] = _nuclei[n];
+            }
+        }
+        _numNuclei = kept;
+
+        int from = (int) Math.ceil((_analyzedUntil - start) / step - 0.5);
+        int to = length - width;
+        if (to <= from)
+        {
+            return _numNuclei;
+        }
+
+        int last = -1;
+        if (!Double.isNaN(_lastPeak) && _lastPeak >= start - step / 2)
+        {
+            last = (int) ((_lastPeak - start) / step + 0.5);
+        }
+        int numPeaks = findPeaks(data, length, from, to, last, options.intensityIgnoranceLevel.get(), options.minDipBetweenPeaks.get());
+
+        if (numPeaks > 0)
+        {
+            _lastPeak = start + _peaks[numPeaks - 1] * step;
+        }
+        _analyzedUntil = start + to * step;
+
+        numPeaks = cullUnvoiced(numPeaks);
+
+        if (_nuclei.length < _numNuclei + numPeaks)
+            _nuclei = Arrays.copyOf(_nuclei, 2 * (_numNuclei + numPeaks));
+
+        for (int p = 0; p < numPeaks; p++)
+        {
+            _nuclei[_numNuclei++] = start + _peaks[p] * step;
+        }
+
+        return _numNuclei;
+    }
+
     /**
      * Reimplementaiton of Jong and Wempe's PRAAT peak detector for speech rate analysis as described in
      * N.H. De Jong and T. Wempe, Praat script to detect syllable nuclei and measure speech rate automatically, 2009, doi:10.3758/BRM.41.2.385
+     * Peaks are written to _peaks.
      * @param data audio intensity
+     * @param from first sample which may be a peak
+     * @param to sample after the last one which may be a peak
+     * @param last preceding peak for the dip check, -1 if none
      * @param threshold threshold to be applied above median
+     * @return number of peaks
      */
-    private LinkedList<Integer> findPeaks(float[] data, int length, double threshold, double minDip)
+    private int findPeaks(float[] data, int length, int from, int to, int last, double threshold, double minDip)
     {
         float min = Util.min(data, 0, length);
 
@@ -190,100 +305,77 @@ public class SpeechRate extends Consumer
 
         int width = options.width.get();
         if(width == 0) width = 1;
-        LinkedList<Integer> peaks = findPeaks_(data, length, width, threshold);
-        if(peaks.size() == 0)
-            return peaks;
+        int numPeaks = findPeaks_(data, length, from, to, width, threshold);
+        if(numPeaks == 0)
+            return 0;
+
+        Log.ds("peaks (pre-mindip-cull) = " + numPeaks);
 
-        Log.ds("peaks (pre-mindip-cull) = " + peaks.size());
+        int kept = 0;
+        int prev = last;
+        if (prev < 0)
+        {
+            prev = _peaks[0];
+            kept = 1;
+        }
 
-        Iterator<Integer> i = peaks.iterator();
-        int prev = i.next();
-        int current;
-        double minLocal;
-        while(i.hasNext())
+        for (int p = kept; p < numPeaks; p++)
         {
-            current = i.next();
+            int current = _peaks[p];
 
             //find min between the two peaks
-            minLocal = Util.min(data, prev, current - prev);
+            double minLocal = Util.min(data, prev, current - prev);
 
-            if(Math.abs(data[current] - minLocal) <= minDip)
-                i.remove();
-            else
+            if(Math.abs(data[current] - minLocal) > minDip)
+            {
+                _peaks[kept++] = current;
                 prev = current;
+            }
         }
 
-        return peaks;
-    }
-
-    private LinkedList<Integer> findPeaks_(float[] data, int length, int width, double threshold) {
-        return findPeaks_(data, length, width, threshold, 0.0D, false);
+        return kept;
     }
 
-    private LinkedList<Integer> findPeaks_(float[] data, int length, int width, double threshold, double decayRate, boolean isRelative) {
-        LinkedList<Integer> peaks = new LinkedList<>();
-        int mid = 0;
-        int end = length;
-
-        for(double av = data[0]; mid < end; ++mid) {
-            av = decayRate * av + (1.0D - decayRate) * data[mid];
-            if(av < data[mid]) {
-                av = data[mid];
-            }
+    /**
+     * Finds samples between from and to which are the maximum of their neighbourhood and exceed the threshold
+     */
+    private int findPeaks_(float[] data, int length, int from, int to, int width, double threshold)
+    {
+        int numPeaks = 0;
 
-            int i = mid - width;
-            if(i < 0) {
-                i = 0;
+        for (int mid = from; mid < to; mid++)
+        {
+            int start = mid - width;
+            if (start < 0)
+            {
+                start = 0;
             }
 
             int stop = mid + width + 1;
-            if(stop > length) {
+            if (stop > length)
+            {
                 stop = length;
             }
 
-            int var15;
-            for(var15 = i++; i < stop; ++i) {
-                if(data[i] > data[var15]) {
-                    var15 = i;
-                }
-            }
-
-            if(var15 == mid) {
-                if(overThreshold(data, length, var15, width, threshold, isRelative, av)) {
-                    peaks.add(var15);
+            int max = start;
+            for (int i = start + 1; i < stop; i++)
+            {
+                if (data[i] > data[max])
+                {
+                    max = i;
                 }
             }
-        }
 
-        return peaks;
-    }
-
-    boolean overThreshold(float[] data, int length, int index, int width, double threshold, boolean isRelative, double av)
-    {
-        if(data[index] < av) {
-            return false;
-        } else if(!isRelative) {
-            return data[index] > threshold;
-        } else {
-            int iStart = index - 3 * width;
-            if(iStart < 0) {
-                iStart = 0;
-            }
-
-            int iStop = index + 1 * width;
-            if(iStop > length) {
-                iStop = length;
-            }
-
-            double sum = 0.0D;
+            if (max == mid && data[mid] > threshold)
+            {
+                if (numPeaks == _peaks.length)
+                    _peaks = Arrays.copyOf(_peaks, 2 * numPeaks);
 
-            int count;
-            for(count = iStop - iStart; iStart < iStop; iStart++) {
-                sum += data[iStart];
+                _peaks[numPeaks++] = mid;
             }
-
-            return data[index] > sum / (double)count + threshold;
         }
+
+        return numPeaks;
     }
 
     @Override
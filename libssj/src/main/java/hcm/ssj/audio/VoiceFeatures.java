@@ -0,0 +1,279 @@
+/*
+ * VoiceFeatures.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.audio;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.SSJException;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Computes energy, intensity, pitch and voicing features of an audio frame in one transformer.<br>
+ * Replaces a chain of AudioConvert, Energy, Intensity and Pitch on the same source: the frame is read
+ * and converted to float once, RMS and SPL share one pass over the samples and intensity and pitch
+ * work on the shared buffer. Results are the same as those of the separate components
+ * (intensity as with its mean option).
+ */
+public class VoiceFeatures extends Transformer
+{
+    @Override
+    public OptionList getOptions()
+    {
+        return options;
+    }
+
+    public class Options extends OptionList
+    {
+        public final Option<Boolean> computeRMS = new Option<>("computeRMS", false, Boolean.class, "");
+        public final Option<Boolean> computeSPL = new Option<>("computeSPL", true, Boolean.class, "");
+        public final Option<Boolean> computeSilence = new Option<>("computeSilence", false, Boolean.class, "");
+        public final Option<Double> silenceThreshold = new Option<>("silenceThreshold", -70.0, Double.class, "in DB");
+        public final Option<Boolean> computeIntensity = new Option<>("computeIntensity", true, Boolean.class, "mean intensity over the frame");
+        public final Option<Double> intensityMinPitch = new Option<>("intensityMinPitch", 50., Double.class, "minimum pitch of the intensity analysis, determines its window length");
+        public final Option<Double> intensityTimeStep = new Option<>("intensityTimeStep", 0., Double.class, "");
+        public final Option<Boolean> subtractMeanPressure = new Option<>("subtractMeanPressure", true, Boolean.class, "");
+        public final Option<Integer> detector = new Option<>("detector", Pitch.YIN, Integer.class, "pitch detector, see Pitch");
+        public final Option<Boolean> computePitch = new Option<>("computePitch", true, Boolean.class, "output the pitch value");
+        public final Option<Boolean> computePitchEnvelope = new Option<>("computePitchEnvelope", false, Boolean.class, "output envelope which provides old pitch value again whenever pitch is invalid");
+        public final Option<Boolean> computeVoicedProb = new Option<>("computeVoicedProb", true, Boolean.class, "output the probability of the sample being voiced");
+        public final Option<Boolean> computePitchedState = new Option<>("computePitchedState", false, Boolean.class, "output the probability of the sample being pitched");
+        public final Option<Float> minPitch = new Option<>("minPitch", 52.0f, Float.class, "ignore any sample with pitch below value");
+        public final Option<Float> maxPitch = new Option<>("maxPitch", 620.0f, Float.class, "ignore any sample with pitch above value");
+
+        /**
+         *
+         */
+        private Options()
+        {
+            addOptions();
+        }
+    }
+
+    public final Options options = new Options();
+
+    private boolean energy;
+
+    private Intensity intensity;
+    private Pitch pitchDetector;
+
+    // float copy of short input, shared by all features
+    private Stream audio;
+    private Stream[] audioIn;
+
+    private Stream intensityOut;
+    private Stream pitchOut;
+
+    public VoiceFeatures()
+    {
+        _name = "VoiceFeatures";
+    }
+
+    @Override
+    public void init(double frame, double delta) throws SSJException
+    {
+        intensity = null;
+        if (options.computeIntensity.get())
+        {
+            intensity = new Intensity();
+            intensity.options.minPitch.set(options.intensityMinPitch.get());
+            intensity.options.timeStep.set(options.intensityTimeStep.get());
+            intensity.options.subtractMeanPressure.set(options.subtractMeanPressure.get());
+            intensity.options.mean.set(true);
+            intensity.init(frame, delta);
+        }
+
+        pitchDetector = null;
+        if (options.computePitch.get() || options.computePitchEnvelope.get() || options.computeVoicedProb.get() || options.computePitchedState.get())
+        {
+            pitchDetector = new Pitch();
+            pitchDetector.options.detector.set(options.detector.get());
+            pitchDetector.options.computePitch.set(options.computePitch.get());
+            pitchDetector.options.computePitchEnvelope.set(options.computePitchEnvelope.get());
+            pitchDetector.options.computeVoicedProb.set(options.computeVoicedProb.get());
+            pitchDetector.options.computePitchedState.set(options.computePitchedState.get());
+            pitchDetector.options.minPitch.set(options.minPitch.get());
+            pitchDetector.options.maxPitch.set(options.maxPitch.get());
+            pitchDetector.init(frame, delta);
+        }
+    }
+
+    @Override
+    public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+    {
+        Stream in = stream_in[0];
+
+        if (in.type == Cons.Type.SHORT)
+        {
+            audio = Stream.create(in.num, in.dim, in.sr, Cons.Type.FLOAT);
+            audio.desc = in.desc;
+            audioIn = new Stream[]{audio};
+        }
+        else
+        {
+            audio = null;
+            audioIn = new Stream[]{in};
+        }
+
+        energy = options.computeRMS.get() || options.computeSPL.get() || options.computeSilence.get();
+        if (intensity != null)
+        {
+            intensityOut = Stream.create(1, 1, in.sr / in.num, Cons.Type.FLOAT);
+            intensity.enter(audioIn, intensityOut);
+        }
+
+        if (pitchDetector != null)
+        {
+            pitchOut = Stream.create(1, pitchDetector.getSampleDimension(audioIn), in.sr / in.num, Cons.Type.FLOAT);
+            pitchDetector.enter(audioIn, pitchOut);
+        }
+    }
+
+    @Override
+    public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+    {
+        if (audio != null)
+        {
+            short[] src = stream_in[0].ptrS();
+            float[] dst = audio.ptrF();
+            for (int i = 0; i < dst.length; i++)
+            {
+                dst[i] = src[i] / 32768.0f;
+            }
+            audio.time = stream_in[0].time;
+        }
+
+        float[] data = audioIn[0].ptrF();
+        float[] out = stream_out.ptrF();
+        int dim = 0;
+
+        if (energy)
+        {
+            // local energy, shared by RMS and SPL
+            double power = 0.0;
+            for (float element : data)
+            {
+                power += element * element;
+            }
+
+            if (options.computeRMS.get())
+            {
+                out[dim++] = (float) Math.sqrt(power / data.length);
+            }
+
+            double spl = 20.0 * Math.log10(Math.pow(power, 0.5) / data.length);
+            if (options.computeSPL.get())
+            {
+                out[dim++] = (float) spl;
+            }
+            if (options.computeSilence.get())
+            {
+                out[dim++] = (spl < options.silenceThreshold.get()) ? 1 : 0;
+            }
+        }
+
+        if (intensity != null)
+        {
+            intensity.transform(audioIn, intensityOut);
+            out[dim++] = intensityOut.ptrF()[0];
+        }
+
+        if (pitchDetector != null)
+        {
+            pitchDetector.transform(audioIn, pitchOut);
+            System.arraycopy(pitchOut.ptrF(), 0, out, dim, pitchOut.dim);
+        }
+    }
+
+    @Override
+    public void flush(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+    {
+        audio = null;
+        audioIn = null;
+    }
+
+    @Override
+    public int getSampleDimension(Stream[] stream_in)
+    {
+        int dim = 0;
+
+        if (options.computeRMS.get()) dim++;
+        if (options.computeSPL.get()) dim++;
+        if (options.computeSilence.get()) dim++;
+        if (options.computeIntensity.get()) dim++;
+        if (options.computePitch.get()) dim++;
+        if (options.computePitchEnvelope.get()) dim++;
+        if (options.computeVoicedProb.get()) dim++;
+        if (options.computePitchedState.get()) dim++;
+
+        return dim;
+    }
+
+    @Override
+    public int getSampleNumber(int sampleNumber_in)
+    {
+        return 1;
+    }
+
+    @Override
+    public int getSampleBytes(Stream[] stream_in)
+    {
+        if (stream_in[0].bytes != 2 && stream_in[0].bytes != 4)
+            Log.e("Unsupported input stream type");
+
+        return 4;
+    }
+
+    @Override
+    public Cons.Type getSampleType(Stream[] stream_in)
+    {
+        if (stream_in[0].type != Cons.Type.SHORT && stream_in[0].type != Cons.Type.FLOAT)
+            Log.e("Unsupported input stream type");
+
+        return Cons.Type.FLOAT;
+    }
+
+    @Override
+    public void describeOutput(Stream[] stream_in, Stream stream_out)
+    {
+        stream_out.desc = new String[stream_out.dim];
+
+        int i = 0;
+        if (options.computeRMS.get()) stream_out.desc[i++] = "RMS";
+        if (options.computeSPL.get()) stream_out.desc[i++] = "SPL";
+        if (options.computeSilence.get()) stream_out.desc[i++] = "Silence";
+        if (options.computeIntensity.get()) stream_out.desc[i++] = "Intensity";
+        if (options.computePitch.get()) stream_out.desc[i++] = "Pitch";
+        if (options.computePitchEnvelope.get()) stream_out.desc[i++] = "Pitch";
+        if (options.computeVoicedProb.get()) stream_out.desc[i++] = "VoicedProb";
+        if (options.computePitchedState.get()) stream_out.desc[i++] = "PitchedState";
+    }
+}
@@ -30,17 +30,14 @@ package hcm.ssj.audio;
 import android.media.AudioFormat;
 import android.text.TextUtils;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Consumer;
@@ -51,11 +48,14 @@ import hcm.ssj.core.option.FolderPath;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
 import hcm.ssj.core.stream.Stream;
+import hcm.ssj.file.AsyncWriter;
 import hcm.ssj.file.FileCons;
 import hcm.ssj.file.IFileWriter;
 
 /**
  * Writes wav files.<br>
+ * The header is reserved when the file is opened and its size fields are updated in place while
+ * recording, so the file stays readable if the app is killed. Files over 4 GB are written as RF64.<br>
  * Created by Frank Gaibler and Ionut Damian on 12.12.2016.
  */
 public class WavWriter extends Consumer implements IFileWriter
@@ -84,19 +84,34 @@ public class WavWriter extends Consumer implements IFileWriter
         }
     }
 
-    //encoder
-    protected double dFrameRate;
-    //
-    protected byte[] aByShuffle;
-    protected long lFrameIndex;
-    //
+    // RIFF header with a JUNK chunk which is turned into a ds64 chunk for RF64, followed by fmt and data
+    private static final int HEADER_SIZE = 80;
+    private static final int DS64_SIZE = 28;
+    private static final long MAX_RIFF_SIZE = 0xFFFFFFFFL;
+
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] RF64 = {'R', 'F', '6', '4'};
+    private static final byte[] WAVE = {'W', 'A', 'V', 'E'};
+    private static final byte[] JUNK = {'J', 'U', 'N', 'K'};
+    private static final byte[] DS64 = {'d', 's', '6', '4'};
+    private static final byte[] FMT = {'f', 'm', 't', ' '};
+    private static final byte[] DATA = {'d', 'a', 't', 'a'};
+
     protected File file = null;
-    private BufferedOutputStream outputStream;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private OutputStream outputStream;
+    private AsyncWriter asyncWriter;
+
+    private ByteBuffer buffer;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long dataSize;
+    private double nextHeaderUpdate;
 
     public final WavWriter.Options options = new WavWriter.Options();
     //
     private int iSampleRate;
-    private int iSampleNumber;
     private int iSampleDimension;
     //
     private WavWriter.DataFormat dataFormat = null;
@@ -105,9 +120,10 @@ public class WavWriter extends Consumer implements IFileWriter
     /**
      * All options for the audio writer
      */
-    public class Options extends IFileWriter.Options
+    public class Options extends IFileWriter.AsyncOptions
     {
         public final Option<Cons.AudioFormat> audioFormat = new Option<>("audioFormat", Cons.AudioFormat.ENCODING_DEFAULT, Cons.AudioFormat.class, "");
+        public final Option<Double> headerInterval = new Option<>("headerInterval", 1.0, Double.class, "update the sizes in the header after this time (in seconds, 0 = only when closing)");
 
         /**
          *
@@ -181,15 +197,25 @@ public class WavWriter extends Consumer implements IFileWriter
         Log.d("Format: " + dataFormat.toString());
         iSampleRate = (int) stream_in[0].sr;
         iSampleDimension = stream_in[0].dim;
-        iSampleNumber = iSampleRate * dataFormat.size * iSampleDimension;
-        //recalculate frame rate
-        dFrameRate = stream_in[0].sr / stream_in[0].num;
-        aByShuffle = new byte[(int) (iSampleNumber / dFrameRate + 0.5)];
-        lFrameIndex = 0;
+
+        allocateBuffer(stream_in[0].num * iSampleDimension * dataFormat.size);
+
+        dataSize = 0;
+        nextHeaderUpdate = options.headerInterval.get();
 
         try
         {
-            outputStream = new BufferedOutputStream(new FileOutputStream(file));
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            randomAccessFile.setLength(0);
+            channel = randomAccessFile.getChannel();
+            writeHeader(0);
+            channel.position(HEADER_SIZE);
+
+            if (options.async.get())
+            {
+                outputStream = AsyncWriter.create(new FileOutputStream(file, true), options, _name);
+            }
+            asyncWriter = (outputStream instanceof AsyncWriter) ? (AsyncWriter) outputStream : null;
         } catch (IOException ex)
         {
             throw new SSJFatalException("RawEncoder creation failed: " + ex.getMessage());
@@ -203,51 +229,43 @@ public class WavWriter extends Consumer implements IFileWriter
     @Override
     protected final void consume(Stream[] stream_in, Event trigger) throws SSJFatalException
     {
+        // event triggered windows may be longer than a frame
+        if (buffer.capacity() < stream_in[0].num * iSampleDimension * dataFormat.size)
+        {
+            allocateBuffer(stream_in[0].num * iSampleDimension * dataFormat.size);
+        }
+
+        buffer.clear();
+
         switch (dataFormat)
         {
             case BYTE:
             {
-                byte[] in = stream_in[0].ptrB();
-                for (int i = 0; i < in.length; i += aByShuffle.length)
-                {
-                    System.arraycopy(in, i, aByShuffle, 0, aByShuffle.length);
-                    write(aByShuffle);
-                }
+                buffer.put(stream_in[0].ptrB(), 0, stream_in[0].tot);
                 break;
             }
             case SHORT:
             {
-                short[] in = stream_in[0].ptrS();
-                for (int i = 0; i < in.length; i += aByShuffle.length)
-                {
-                    ByteBuffer.wrap(aByShuffle).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().put(in, i / 2, aByShuffle.length / 2);
-                    write(aByShuffle);
-                }
+                buffer.asShortBuffer().put(stream_in[0].ptrS(), 0, stream_in[0].num * stream_in[0].dim);
+                buffer.position(stream_in[0].tot);
                 break;
             }
             case FLOAT_8:
+            {
+                // 8 bit wav samples are unsigned
                 float[] in = stream_in[0].ptrF();
-                for (int i = 0; i < in.length; )
+                for (int i = 0; i < stream_in[0].num * stream_in[0].dim; i++)
                 {
-                    for (int j = 0; j < aByShuffle.length; j++, i += aByShuffle.length)
-                    {
-                        aByShuffle[j] = (byte) (in[i] * 128);
-                    }
-                    write(aByShuffle);
+                    buffer.put((byte) (in[i] * 128 + 128));
                 }
                 break;
+            }
             case FLOAT_16:
             {
-                float[] in16 = stream_in[0].ptrF();
-                for (int i = 0; i < in16.length; )
+                float[] in = stream_in[0].ptrF();
+                for (int i = 0; i < stream_in[0].num * stream_in[0].dim; i++)
                 {
-                    for (int j = 0; j < aByShuffle.length; i++, j += 2)
-                    {
-                        short value = (short) (in16[i] * 32768);
-                        aByShuffle[j] = (byte) (value & 0xff);
-                        aByShuffle[j + 1] = (byte) ((value >> 8) & 0xff);
-                    }
-                    write(aByShuffle);
+                    buffer.putShort((short) (in[i] * 32768));
                 }
                 break;
             }
@@ -257,6 +275,24 @@ public class WavWriter extends Consumer implements IFileWriter
                 break;
             }
         }
+
+        buffer.flip();
+        write(buffer);
+
+        if (options.headerInterval.get() > 0 && stream_in[0].time >= nextHeaderUpdate)
+        {
+            nextHeaderUpdate = stream_in[0].time + options.headerInterval.get();
+            updateHeader();
+        }
+    }
+
+    /**
+     * @return I/O thread of the current or last recording with its queue depth and stall statistics,
+     * null if the file is written synchronously
+     */
+    public AsyncWriter getAsyncWriter()
+    {
+        return asyncWriter;
     }
 
     /**
@@ -275,15 +311,25 @@ public class WavWriter extends Consumer implements IFileWriter
             {
                 Log.e("RawEncoder closing: " + ex.getMessage());
             }
+            outputStream = null;
         }
 
-        try
+        if (channel != null)
         {
-            writeWavHeader(file);
-        }
-        catch (IOException e)
-        {
-            throw new SSJFatalException("error writing header", e);
+            try
+            {
+                writeHeader(dataSize);
+                randomAccessFile.close();
+            }
+            catch (IOException e)
+            {
+                throw new SSJFatalException("error writing header", e);
+            }
+            finally
+            {
+                channel = null;
+                randomAccessFile = null;
+            }
         }
 
         dataFormat = null;
@@ -319,13 +365,35 @@ public class WavWriter extends Consumer implements IFileWriter
     }
 
     /**
-     * @param frameData byte[]
+     * The async writer copies from arrays, otherwise the channel writes the direct buffer without a copy
+     * @param capacity int
+     */
+    private void allocateBuffer(int capacity)
+    {
+        buffer = options.async.get() ? ByteBuffer.allocate(capacity) : ByteBuffer.allocateDirect(capacity);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @param data ByteBuffer
      */
-    protected final void write(byte[] frameData)
+    protected final void write(ByteBuffer data)
     {
+        int length = data.remaining();
         try
         {
-            outputStream.write(frameData, 0, frameData.length);
+            if (outputStream != null)
+            {
+                outputStream.write(data.array(), data.position(), length);
+            }
+            else
+            {
+                while (data.hasRemaining())
+                {
+                    channel.write(data);
+                }
+            }
+            dataSize += length;
         } catch (IOException ex)
         {
             Log.e("RawEncoder: " + ex.getMessage());
@@ -333,85 +401,63 @@ public class WavWriter extends Consumer implements IFileWriter
     }
 
     /**
-     * Writes a PCM Wav header at the start of the provided file
-     * code taken from : http://stackoverflow.com/questions/9179536/writing-pcm-recorded-data-into-a-wav-file-java-android
-     * by: Oliver Mahoney, Oak Bytes
-     * @param fileToConvert File
+     * Writes the sizes of the samples which already reached the file into the header
      */
-    private void writeWavHeader(File fileToConvert) throws IOException
+    private void updateHeader()
     {
-        long mySubChunk1Size = 16;
-        int myBitsPerSample = 16;
-        int myFormat = 1;
-        long myChannels = iSampleDimension;
-        long mySampleRate = iSampleRate;
-        long myByteRate = mySampleRate * myChannels * myBitsPerSample / 8;
-        int myBlockAlign = (int) (myChannels * myBitsPerSample / 8);
-
-        int size = (int) fileToConvert.length();
-        byte[] bytes = new byte[size];
         try
         {
-            BufferedInputStream buf = new BufferedInputStream(new FileInputStream(fileToConvert));
-            buf.read(bytes, 0, bytes.length);
-            buf.close();
-        } catch (FileNotFoundException e)
-        {
-            e.printStackTrace();
+            int blockAlign = iSampleDimension * dataFormat.size;
+            long written = Math.min(dataSize, channel.size() - HEADER_SIZE);
+            writeHeader(written - written % blockAlign);
         }
-        long myDataSize = bytes.length;
-        long myChunk2Size = myDataSize * myChannels * myBitsPerSample / 8;
-        long myChunkSize = 36 + myChunk2Size;
-
-        OutputStream os;
-        os = new FileOutputStream(new File(fileToConvert.getPath()));
-        BufferedOutputStream bos = new BufferedOutputStream(os);
-        DataOutputStream outFile = new DataOutputStream(bos);
-
-        outFile.writeBytes("RIFF");                                 // 00 - RIFF
-        outFile.write(intToByteArray((int) myChunkSize), 0, 4);      // 04 - how big is the rest of this file?
-        outFile.writeBytes("WAVE");                                 // 08 - WAVE
-        outFile.writeBytes("fmt ");                                 // 12 - fmt
-        outFile.write(intToByteArray((int) mySubChunk1Size), 0, 4);  // 16 - size of this chunk
-        outFile.write(shortToByteArray((short) myFormat), 0, 2);     // 20 - what is the audio format? 1 for PCM = Pulse Code Modulation
-        outFile.write(shortToByteArray((short) myChannels), 0, 2);   // 22 - mono or stereo? 1 or 2?  (or 5 or ???)
-        outFile.write(intToByteArray((int) mySampleRate), 0, 4);     // 24 - samples per second (numbers per second)
-        outFile.write(intToByteArray((int) myByteRate), 0, 4);       // 28 - bytes per second
-        outFile.write(shortToByteArray((short) myBlockAlign), 0, 2); // 32 - # of bytes in one sample, for all channels
-        outFile.write(shortToByteArray((short) myBitsPerSample), 0, 2);  // 34 - how many bits in a sample(number)?  usually 16 or 24
-        outFile.writeBytes("data");                                 // 36 - data
-        outFile.write(intToByteArray((int) myDataSize), 0, 4);       // 40 - how big is this data chunk
-        outFile.write(bytes);                                    // 44 - the actual data itself - just a long string of numbers
-
-        outFile.flush();
-        outFile.close();
-        if (!fileToConvert.delete())
+        catch (IOException e)
         {
-            throw new IOException("error deleting temp file");
+            Log.w("unable to update wav header: " + e.getMessage());
         }
     }
 
     /**
-     * Code taken from : http://stackoverflow.com/questions/9179536/writing-pcm-recorded-data-into-a-wav-file-java-android
-     * by: Oliver Mahoney, Oak Bytes
+     * Writes a PCM wav header for the given number of data bytes at the start of the file,
+     * uses RF64 if the riff size exceeds 4 GB
+     * @param dataBytes long
      */
-    private static byte[] intToByteArray(int i)
+    private void writeHeader(long dataBytes) throws IOException
     {
-        byte[] b = new byte[4];
-        b[0] = (byte) (i & 0x00FF);
-        b[1] = (byte) ((i >> 8) & 0x000000FF);
-        b[2] = (byte) ((i >> 16) & 0x000000FF);
-        b[3] = (byte) ((i >> 24) & 0x000000FF);
-        return b;
-    }
+        int bitsPerSample = dataFormat.size * 8;
+        int blockAlign = iSampleDimension * dataFormat.size;
+        long riffSize = HEADER_SIZE - 8 + dataBytes;
+        boolean rf64 = riffSize > MAX_RIFF_SIZE;
 
-    /**
-     * Convert a short to a byte array
-     * code taken from : http://stackoverflow.com/questions/9179536/writing-pcm-recorded-data-into-a-wav-file-java-android
-     * by: Oliver Mahoney, Oak Bytes
-     */
-    private static byte[] shortToByteArray(short data)
-    {
-        return new byte[]{(byte) (data & 0xff), (byte) ((data >>> 8) & 0xff)};
+        header.clear();
+        header.put(rf64 ? RF64 : RIFF);
+        header.putInt(rf64 ? -1 : (int) riffSize);
+        header.put(WAVE);
+
+        header.put(rf64 ? DS64 : JUNK);
+        header.putInt(DS64_SIZE);
+        header.putLong(rf64 ? riffSize : 0);
+        header.putLong(rf64 ? dataBytes : 0);
+        header.putLong(rf64 ? dataBytes / blockAlign : 0);
+        header.putInt(0);
+
+        header.put(FMT);
+        header.putInt(16);
+        header.putShort((short) 1);
+        header.putShort((short) iSampleDimension);
+        header.putInt(iSampleRate);
+        header.putInt(iSampleRate * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) bitsPerSample);
+
+        header.put(DATA);
+        header.putInt(rf64 ? -1 : (int) dataBytes);
+
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining())
+        {
+            position += channel.write(header, position);
+        }
     }
 }
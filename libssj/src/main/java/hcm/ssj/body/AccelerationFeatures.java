@@ -29,6 +29,8 @@ package hcm.ssj.body;
 
 import org.jtransforms.fft.FloatFFT_1D;
 
+import java.util.Arrays;
+
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.SSJFatalException;
@@ -37,6 +39,7 @@ import hcm.ssj.core.Util;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
 import hcm.ssj.core.stream.Stream;
+import hcm.ssj.signal.FFTCache;
 import hcm.ssj.signal.MathTools;
 
 /**
@@ -117,49 +120,34 @@ public class AccelerationFeatures extends Transformer
 	public final Options options = new Options();
 
 	FloatFFT_1D fft;
-	float[] inputCopy;
 
-	float[] xValues;
-	float[] yValues;
-	float[] zValues;
+	Axis x;
+	Axis y;
+	Axis z;
 
-	float[] joined;
 	float[] psd;
-	float[] xValuesFFT;
-	float[] yValuesFFT;
-	float[] zValuesFFT;
 
 	@Override
 	public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
 	{
 		int values = stream_in[0].num;
 
-		fft = new FloatFFT_1D(values);
-		inputCopy = new float[values];
+		fft = FFTCache.getInstance().getFFT(values);
 
-		xValues = new float[values];
-		yValues = new float[values];
-		zValues = new float[values];
+		x = new Axis(values);
+		y = new Axis(values);
+		z = new Axis(values);
 
-		joined = new float[(values >> 1) + 1];
 		psd = new float[(values >> 1) + 1];
-		xValuesFFT = new float[(values >> 1) + 1];
-		yValuesFFT = new float[(values >> 1) + 1];
-		zValuesFFT = new float[(values >> 1) + 1];
 	}
 
 	@Override
 	public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
 	{
-		MathTools math = MathTools.getInstance();
-
-		getValues(stream_in[0], 0, xValues);
-		getValues(stream_in[0], 1, yValues);
-		getValues(stream_in[0], 2, zValues);
-
-		calculateFFT(xValues, xValuesFFT);
-		calculateFFT(yValues, yValuesFFT);
-		calculateFFT(zValues, zValuesFFT);
+		// intermediates are computed on first use
+		x.update(stream_in[0], 0);
+		y.update(stream_in[0], 1);
+		z.update(stream_in[0], 2);
 
 		float[] out = stream_out.ptrF();
 
@@ -167,249 +155,224 @@ public class AccelerationFeatures extends Transformer
 
 		if (options.meanX.get())
 		{
-			out[featureCount++] = math.getMean(xValues);
+			out[featureCount++] = x.getMean();
 		}
 		if (options.meanY.get())
 		{
-			out[featureCount++] = math.getMean(yValues);
+			out[featureCount++] = y.getMean();
 		}
 		if (options.meanZ.get())
 		{
-			out[featureCount++] = math.getMean(zValues);
+			out[featureCount++] = z.getMean();
 		}
 		if (options.stdDeviationX.get())
 		{
-			out[featureCount++] = math.getStdDeviation(xValues);
+			out[featureCount++] = x.getStdDeviation();
 		}
 		if (options.stdDeviationY.get())
 		{
-			out[featureCount++] = math.getStdDeviation(yValues);
+			out[featureCount++] = y.getStdDeviation();
 		}
 		if (options.stdDeviationZ.get())
 		{
-			out[featureCount++] = math.getStdDeviation(zValues);
+			out[featureCount++] = z.getStdDeviation();
 		}
 		if (options.energyX.get())
 		{
-			out[featureCount++] = getEnergy(xValuesFFT);
+			out[featureCount++] = x.getEnergy();
 		}
 		if (options.energyY.get())
 		{
-			out[featureCount++] = getEnergy(yValuesFFT);
+			out[featureCount++] = y.getEnergy();
 		}
 		if (options.energyZ.get())
 		{
-			out[featureCount++] = getEnergy(zValuesFFT);
+			out[featureCount++] = z.getEnergy();
 		}
 		if (options.correlationXY.get())
 		{
-			out[featureCount++] = getCorrelation(xValues, yValues);
+			out[featureCount++] = getCorrelation(x, y);
 		}
 		if (options.correlationXZ.get())
 		{
-			out[featureCount++] = getCorrelation(xValues, zValues);
+			out[featureCount++] = getCorrelation(x, z);
 		}
 		if (options.correlationYZ.get())
 		{
-			out[featureCount++] = getCorrelation(yValues, zValues);
+			out[featureCount++] = getCorrelation(y, z);
 		}
 		if (options.displacementX.get())
 		{
-			out[featureCount++] = getDisplacement(xValues, stream_in[0].sr);
+			out[featureCount++] = getDisplacement(x.values, stream_in[0].sr);
 		}
 		if (options.displacementY.get())
 		{
-			out[featureCount++] = getDisplacement(yValues, stream_in[0].sr);
+			out[featureCount++] = getDisplacement(y.values, stream_in[0].sr);
 		}
 		if (options.displacementZ.get())
 		{
-			out[featureCount++] = getDisplacement(zValues, stream_in[0].sr);
+			out[featureCount++] = getDisplacement(z.values, stream_in[0].sr);
 		}
 		if (options.entropyX.get())
 		{
-			out[featureCount++] = getEntropy(xValuesFFT);
+			out[featureCount++] = x.getEntropy();
 		}
 		if (options.entropyY.get())
 		{
-			out[featureCount++] = getEntropy(yValuesFFT);
+			out[featureCount++] = y.getEntropy();
 		}
 		if (options.entropyZ.get())
 		{
-			out[featureCount++] = getEntropy(zValuesFFT);
+			out[featureCount++] = z.getEntropy();
 		}
 		if (options.skewX.get())
 		{
-			out[featureCount++] = math.getSkew(xValues);
+			out[featureCount++] = x.getSkew();
 		}
 		if (options.skewY.get())
 		{
-			out[featureCount++] = math.getSkew(yValues);
+			out[featureCount++] = y.getSkew();
 		}
 		if (options.skewZ.get())
 		{
-			out[featureCount++] = math.getSkew(zValues);
+			out[featureCount++] = z.getSkew();
 		}
 		if (options.kurtosisX.get())
 		{
-			out[featureCount++] = math.getKurtosis(xValues);
+			out[featureCount++] = x.getKurtosis();
 		}
 		if (options.kurtosisY.get())
 		{
-			out[featureCount++] = math.getKurtosis(yValues);
+			out[featureCount++] = y.getKurtosis();
 		}
 		if (options.kurtosisZ.get())
 		{
-			out[featureCount++] = math.getKurtosis(zValues);
+			out[featureCount++] = z.getKurtosis();
 		}
 		if (options.iqrX.get())
 		{
-			out[featureCount++] = math.getIQR(xValues);
+			out[featureCount++] = x.getIQR();
 		}
 		if (options.iqrY.get())
 		{
-			out[featureCount++] = math.getIQR(yValues);
+			out[featureCount++] = y.getIQR();
 		}
 		if (options.iqrZ.get())
 		{
-			out[featureCount++] = math.getIQR(zValues);
+			out[featureCount++] = z.getIQR();
 		}
 		if (options.madX.get())
 		{
-			out[featureCount++] = math.getMAD(xValues);
+			out[featureCount++] = x.getMAD();
 		}
 		if (options.madY.get())
 		{
-			out[featureCount++] = math.getMAD(yValues);
+			out[featureCount++] = y.getMAD();
 		}
 		if (options.madZ.get())
 		{
-			out[featureCount++] = math.getMAD(zValues);
+			out[featureCount++] = z.getMAD();
 		}
 		if (options.rmsX.get())
 		{
-			out[featureCount++] = math.getRMS(xValues);
+			out[featureCount++] = x.getRMS();
 		}
 		if (options.rmsY.get())
 		{
-			out[featureCount++] = math.getRMS(yValues);
+			out[featureCount++] = y.getRMS();
 		}
 		if (options.rmsZ.get())
 		{
-			out[featureCount++] = math.getRMS(zValues);
+			out[featureCount++] = z.getRMS();
 		}
 		if (options.varianceX.get())
 		{
-			out[featureCount++] = math.getVariance(xValues);
+			out[featureCount++] = x.getVariance();
 		}
 		if (options.varianceY.get())
 		{
-			out[featureCount++] = math.getVariance(yValues);
+			out[featureCount++] = y.getVariance();
 		}
 		if (options.varianceZ.get())
 		{
-			out[featureCount++] = math.getVariance(zValues);
+			out[featureCount++] = z.getVariance();
 		}
 		if (options.signalMagnitudeArea.get())
 		{
-			out[featureCount++] = getSignalMagnitudeArea(xValues, yValues, zValues);
+			out[featureCount++] = getSignalMagnitudeArea(x.values, y.values, z.values);
 		}
 		if (options.haarFilterX.get())
 		{
-			out[featureCount++] = getHaarFilter(xValues);
+			out[featureCount++] = getHaarFilter(x.values);
 		}
 		if (options.haarFilterY.get())
 		{
-			out[featureCount++] = getHaarFilter(yValues);
+			out[featureCount++] = getHaarFilter(y.values);
 		}
 		if (options.haarFilterZ.get())
 		{
-			out[featureCount++] = getHaarFilter(zValues);
+			out[featureCount++] = getHaarFilter(z.values);
 		}
 		if (options.haarFilterBiaxialXY.get())
 		{
-			out[featureCount++] = getHaarFilterBiaxial(xValues, yValues);
+			out[featureCount++] = getHaarFilterBiaxial(x.values, y.values);
 		}
 		if (options.haarFilterBiaxialYZ.get())
 		{
-			out[featureCount++] = getHaarFilterBiaxial(yValues, zValues);
+			out[featureCount++] = getHaarFilterBiaxial(y.values, z.values);
 		}
 		if (options.haarFilterBiaxialZX.get())
 		{
-			out[featureCount++] = getHaarFilterBiaxial(zValues, xValues);
+			out[featureCount++] = getHaarFilterBiaxial(z.values, x.values);
 		}
 		if (options.crestX.get())
 		{
-			out[featureCount++] = math.getCrest(xValues);
+			out[featureCount++] = x.getCrest();
 		}
 		if (options.crestY.get())
 		{
-			out[featureCount++] = math.getCrest(yValues);
+			out[featureCount++] = y.getCrest();
 		}
 		if (options.crestZ.get())
 		{
-			out[featureCount++] = math.getCrest(zValues);
+			out[featureCount++] = z.getCrest();
 		}
 		if (options.spectralFluxX.get())
 		{
-			out[featureCount++] = getSpectralFlux(xValuesFFT);
+			out[featureCount++] = getSpectralFlux(x.getSpectrum());
 		}
 		if (options.spectralFluxY.get())
 		{
-			out[featureCount++] = getSpectralFlux(yValuesFFT);
+			out[featureCount++] = getSpectralFlux(y.getSpectrum());
 		}
 		if (options.spectralFluxZ.get())
 		{
-			out[featureCount++] = getSpectralFlux(zValuesFFT);
+			out[featureCount++] = getSpectralFlux(z.getSpectrum());
 		}
 		if (options.spectralCentroidX.get())
 		{
-			out[featureCount++] = getSpectralCentroid(xValuesFFT);
+			out[featureCount++] = x.getSpectralCentroid();
 		}
 		if (options.spectralCentroidY.get())
 		{
-			out[featureCount++] = getSpectralCentroid(yValuesFFT);
+			out[featureCount++] = y.getSpectralCentroid();
 		}
 		if (options.spectralCentroidZ.get())
 		{
-			out[featureCount++] = getSpectralCentroid(zValuesFFT);
+			out[featureCount++] = z.getSpectralCentroid();
 		}
 		if (options.spectralRolloffX.get())
 		{
-			out[featureCount++] = getSpectralRolloff(xValuesFFT);
+			out[featureCount++] = getSpectralRolloff(x.getSpectrum());
 		}
 		if (options.spectralRolloffY.get())
 		{
-			out[featureCount++] = getSpectralRolloff(yValuesFFT);
+			out[featureCount++] = getSpectralRolloff(y.getSpectrum());
 		}
 		if (options.spectralRolloffZ.get())
 		{
-			out[featureCount++] = getSpectralRolloff(zValuesFFT);
-		}
-	}
-
-	/*
-	* Energy for acceleration value
-	*
-	* based on
-	* Bao, Ling et al. - Activity Recognition from User-Annotated Acceleration Data
-	* Ravi, N. et al. - Activity recognition from accelerometer data
-	*/
-	private float getEnergy(float[] fftValues)
-	{
-		float energy = 0;
-
-		// Calculate energy
-		for (int i = 0; i < fftValues.length; i++)
-		{
-			energy += Math.pow(fftValues[i], 2);
+			out[featureCount++] = getSpectralRolloff(z.getSpectrum());
 		}
-
-		if (fftValues.length > 0)
-		{
-			energy = energy / (float) fftValues.length;
-		}
-
-		return energy;
 	}
 
 	/*
@@ -419,26 +382,27 @@ public class AccelerationFeatures extends Transformer
 	* Bao, Ling et al. - Activity Recognition from User-Annotated Acceleration Data
 	* Ravi, N. et al. - Activity recognition from accelerometer data
 	*/
-	private float getCorrelation(float[] aValues, float[] bValues)
+	private float getCorrelation(Axis a, Axis b)
 	{
-		MathTools math = MathTools.getInstance();
-
 		float correlation = 0;
 		float covariance = 0;
 
-		if (aValues.length > 0 && bValues.length > 0)
+		if (a.n > 0 && b.n > 0)
 		{
-			float meanA = math.getMean(aValues);
-			float meanB = math.getMean(bValues);
-			float stdDeviationA = math.getStdDeviation(aValues);
-			float stdDeviationB = math.getStdDeviation(bValues);
+			float meanA = a.getMean();
+			float meanB = b.getMean();
+			float stdDeviationA = a.getStdDeviation();
+			float stdDeviationB = b.getStdDeviation();
+
+			float[] aValues = a.values;
+			float[] bValues = b.values;
 
-			for (int i = 0; i < aValues.length; i++)
+			for (int i = 0; i < a.n; i++)
 			{
 				covariance += (aValues[i] - meanA) * (bValues[i] - meanB);
 			}
 
-			covariance = covariance / (float) aValues.length;
+			covariance = covariance / (float) a.n;
 
 			if (stdDeviationA * stdDeviationB != 0)
 			{
@@ -674,37 +638,6 @@ public class AccelerationFeatures extends Transformer
 		return spectralFlux;
 	}
 
-	/*
-	* Spectral centroid for acceleration
-	*
-	* based on
-	* Rahman, Shah et al. - Unintrusive eating recognition using Google glass
-	* Lu, Hong et al. - SoundSense: Scalable Sound Sensing for People-Centric Applications on Mobile Phones
-	*/
-	private float getSpectralCentroid(float[] fftValues)
-	{
-		float spectralCentroid = 0;
-
-		if (fftValues.length > 0)
-		{
-			float sumTop = 0;
-			float sumBottom = 0;
-
-			for (int i = 0; i < fftValues.length; i++)
-			{
-				sumTop += i * Math.pow(fftValues[i], 2);
-				sumBottom += Math.pow(fftValues[i], 2);
-			}
-
-			if (sumBottom > 0)
-			{
-				spectralCentroid = sumTop / sumBottom;
-			}
-		}
-
-		return spectralCentroid;
-	}
-
 	/*
 	* Spectral rolloff for acceleration
 	*
@@ -743,27 +676,312 @@ public class AccelerationFeatures extends Transformer
 	}
 
 	/**
-	 * Helper function to get all values from a specific dimension
+	 * Values of one axis together with the intermediates which are shared by several features.
+	 * Each intermediate is computed at most once per frame and only if a feature asks for it.
 	 */
-	private void getValues(Stream stream, int dimension, float[] out)
+	class Axis
 	{
-		float[] in = stream.ptrF();
+		final float[] values;
+		final int n;
 
-		for (int i = 0; i < stream.num; i++)
+		private final float[] spectrum;
+		private final float[] sorted;
+
+		private boolean hasRawMoments;
+		private boolean hasCentralMoments;
+		private boolean hasHigherMoments;
+		private boolean hasSpectrum;
+		private boolean hasPower;
+		private boolean hasSorted;
+
+		// sum, sum of squares and peak of the absolute values
+		private float sum;
+		private float sumSquares;
+		private float peak;
+
+		// squared and absolute deviations from the mean
+		private float squaredDeviations;
+		private float absoluteDeviations;
+
+		// standardized third and fourth moment
+		private float skew;
+		private float kurtosis;
+
+		// sum of squared and frequency weighted squared magnitudes
+		private float power;
+		private float weightedPower;
+
+		Axis(int n)
 		{
-			out[i] = in[i * stream.dim + dimension];
+			this.n = n;
+
+			values = new float[n];
+			spectrum = new float[(n >> 1) + 1];
+			sorted = new float[n];
 		}
-	}
 
-	private void calculateFFT(float[] values, float[] out)
-	{
-		System.arraycopy(values, 0, inputCopy, 0, values.length);
+		/**
+		 * Copies the values of one dimension and invalidates all intermediates
+		 */
+		void update(Stream stream, int dimension)
+		{
+			float[] in = stream.ptrF();
+
+			for (int i = 0; i < n; i++)
+			{
+				values[i] = in[i * stream.dim + dimension];
+			}
+
+			hasRawMoments = false;
+			hasCentralMoments = false;
+			hasHigherMoments = false;
+			hasSpectrum = false;
+			hasPower = false;
+			hasSorted = false;
+		}
+
+		private void rawMoments()
+		{
+			if (hasRawMoments)
+			{
+				return;
+			}
+
+			sum = 0;
+			sumSquares = 0;
+			peak = 0;
+
+			for (int i = 0; i < n; i++)
+			{
+				float value = values[i];
+				float absValue = Math.abs(value);
 
-		// Calculate FFT
-		fft.realForward(inputCopy);
+				sum += value;
+				sumSquares += (double) value * value;
 
-		// Format values like in SSI
-		Util.joinFFT(inputCopy, out);
+				if (absValue > peak)
+				{
+					peak = absValue;
+				}
+			}
+
+			hasRawMoments = true;
+		}
+
+		private void centralMoments()
+		{
+			if (hasCentralMoments)
+			{
+				return;
+			}
+
+			float mean = getMean();
+
+			squaredDeviations = 0;
+			absoluteDeviations = 0;
+
+			for (int i = 0; i < n; i++)
+			{
+				float deviation = values[i] - mean;
+
+				squaredDeviations += (double) deviation * deviation;
+				absoluteDeviations += Math.abs(deviation);
+			}
+
+			hasCentralMoments = true;
+		}
+
+		private void higherMoments()
+		{
+			if (hasHigherMoments)
+			{
+				return;
+			}
+
+			float mean = getMean();
+			float stdDeviation = getStdDeviation();
+
+			skew = 0;
+			kurtosis = 0;
+
+			if (n > 0 && stdDeviation > 0)
+			{
+				for (int i = 0; i < n; i++)
+				{
+					float standardized = (values[i] - mean) / stdDeviation;
+
+					skew += Math.pow(standardized, 3);
+					kurtosis += Math.pow(standardized, 4);
+				}
+
+				skew = skew / n;
+				kurtosis = kurtosis / n;
+			}
+
+			hasHigherMoments = true;
+		}
+
+		float getMean()
+		{
+			rawMoments();
+			return n > 0 ? sum / (float) n : 0;
+		}
+
+		float getVariance()
+		{
+			centralMoments();
+			return n > 0 ? squaredDeviations / (float) n : 0;
+		}
+
+		float getStdDeviation()
+		{
+			return n > 0 ? (float) Math.sqrt(getVariance()) : 0;
+		}
+
+		float getSkew()
+		{
+			higherMoments();
+			return skew;
+		}
+
+		float getKurtosis()
+		{
+			higherMoments();
+			return kurtosis;
+		}
+
+		float getRMS()
+		{
+			rawMoments();
+			return n > 0 ? (float) Math.sqrt(sumSquares / (float) n) : 0;
+		}
+
+		float getMAD()
+		{
+			centralMoments();
+			return n > 0 ? (float) Math.sqrt(absoluteDeviations / (float) n) : 0;
+		}
+
+		float getCrest()
+		{
+			float rms = getRMS();
+			return rms > 0 ? peak / rms : 0;
+		}
+
+		/*
+		* Interquartile range, as difference of the medians of the upper and lower half of the values
+		*/
+		float getIQR()
+		{
+			if (n == 0)
+			{
+				return 0;
+			}
+
+			if (!hasSorted)
+			{
+				System.arraycopy(values, 0, sorted, 0, n);
+				Arrays.sort(sorted, 0, n);
+				hasSorted = true;
+			}
+
+			// the median is excluded from both halves for odd n
+			int half = n / 2;
+			int upper = (n % 2 == 0) ? half : half + 1;
+
+			return getSortedMedian(upper, half) - getSortedMedian(0, half);
+		}
+
+		private float getSortedMedian(int from, int length)
+		{
+			if (length == 0)
+			{
+				return 0;
+			}
+
+			if (length % 2 == 0)
+			{
+				return (sorted[from + length / 2 - 1] + sorted[from + length / 2]) / 2.0f;
+			}
+
+			return sorted[from + (length - 1) / 2];
+		}
+
+		/**
+		 * @return magnitudes of the spectrum formatted like in SSI
+		 */
+		float[] getSpectrum()
+		{
+			if (!hasSpectrum)
+			{
+				float[] inputCopy = FFTCache.getInstance().getScratch(n);
+				System.arraycopy(values, 0, inputCopy, 0, n);
+
+				// Calculate FFT
+				fft.realForward(inputCopy);
+
+				// Format values like in SSI
+				Util.joinFFT(inputCopy, n, spectrum);
+
+				hasSpectrum = true;
+			}
+
+			return spectrum;
+		}
+
+		private void power()
+		{
+			if (hasPower)
+			{
+				return;
+			}
+
+			float[] fftValues = getSpectrum();
+
+			power = 0;
+			weightedPower = 0;
+
+			for (int i = 0; i < fftValues.length; i++)
+			{
+				double squared = Math.pow(fftValues[i], 2);
+
+				power += squared;
+				weightedPower += i * squared;
+			}
+
+			hasPower = true;
+		}
+
+		/*
+		* Energy for acceleration value
+		*
+		* based on
+		* Bao, Ling et al. - Activity Recognition from User-Annotated Acceleration Data
+		* Ravi, N. et al. - Activity recognition from accelerometer data
+		*/
+		float getEnergy()
+		{
+			power();
+			return spectrum.length > 0 ? power / (float) spectrum.length : 0;
+		}
+
+		float getEntropy()
+		{
+			return AccelerationFeatures.this.getEntropy(getSpectrum());
+		}
+
+		/*
+		* Spectral centroid for acceleration
+		*
+		* based on
+		* Rahman, Shah et al. - Unintrusive eating recognition using Google glass
+		* Lu, Hong et al. - SoundSense: Scalable Sound Sensing for People-Centric Applications on Mobile Phones
+		*/
+		float getSpectralCentroid()
+		{
+			power();
+			return power > 0 ? weightedPower / power : 0;
+		}
 	}
 
 	@Override
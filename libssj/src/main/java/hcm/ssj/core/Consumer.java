@@ -48,6 +48,7 @@ public abstract class Consumer extends Component {
     private int[] _num_delta;
 
     private EventChannel _triggerChannel = null;
+    private Gate _gate = null;
 
     private Timer _timer;
 
@@ -102,6 +103,9 @@ public abstract class Consumer extends Component {
             }
         }
 
+        if(_gate != null)
+            _gate.reset();
+
         //maintain update rate starting from now
         if(_triggerChannel == null)
             _timer.reset();
@@ -141,8 +145,8 @@ public abstract class Consumer extends Component {
                         _stream_in[i].time = (double) pos / _stream_in[i].sr;
                 }
 
-                //if we received data from all sources, process it
-                if(ok) {
+                //if we received data from all sources, process it unless the gate is closed
+                if(ok && (_gate == null || _gate.isOpen(_stream_in[0].time, _stream_in[0].num / _stream_in[0].sr))) {
                     consume(_stream_in, ev);
                 }
 
@@ -200,6 +204,18 @@ public abstract class Consumer extends Component {
         return _triggerChannel;
     }
 
+    /**
+     * Skips consume while the gate is closed. Must be called before the pipeline starts.
+     */
+    public void setGate(Gate gate)
+    {
+        _gate = gate;
+    }
+    public Gate getGate()
+    {
+        return _gate;
+    }
+
     /**
      * initialization for continuous consumer
      */
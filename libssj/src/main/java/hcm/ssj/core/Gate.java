@@ -0,0 +1,90 @@
+/*
+ * Gate.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+/**
+ * Decides whether a transformer or consumer processes the current window, e.g. to skip
+ * expensive processing during silence or rest.<br>
+ * Once activity is detected, the gate stays open for at least the hold time.
+ */
+public abstract class Gate
+{
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * Output of a transformer while its gate is closed
+     */
+    public enum Fill
+    {
+        /** zeros */
+        ZERO,
+        /** the last output before the gate closed */
+        HOLD
+    }
+
+    /**
+     * Time in seconds the gate stays open after the last activity
+     */
+    public double hold = 0;
+
+    /**
+     * Time in seconds of input processed (without publishing the output) before a transformer
+     * resumes, so stateful transformers do not start cold. Not used by consumers.
+     */
+    public double warmUp = 0;
+
+    public Fill fill = Fill.ZERO;
+
+    private double openUntil = -1;
+
+    /**
+     * @param time     start of the window in seconds
+     * @param duration length of the window in seconds
+     * @return true if the window should be processed
+     */
+    public synchronized final boolean isOpen(double time, double duration)
+    {
+        if (isActive(time, duration))
+        {
+            openUntil = Math.max(openUntil, time + duration + hold);
+        }
+
+        // window times are derived from sample positions, ignore rounding errors
+        return time + EPSILON < openUntil;
+    }
+
+    /**
+     * @return true if the gate source shows activity within the window
+     */
+    protected abstract boolean isActive(double time, double duration);
+
+    public synchronized void reset()
+    {
+        openUntil = -1;
+    }
+}
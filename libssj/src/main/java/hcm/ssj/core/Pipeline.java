@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -120,6 +121,7 @@ public class Pipeline
     private NetworkSync sync = null;
 
     ThreadPool threadPool = null;
+    ThreadPool workerPool = null;
     ExceptionHandler exceptionHandler = null;
 
     private HashSet<Component> components = new HashSet<>();
@@ -175,6 +177,10 @@ public class Pipeline
             int coreThreads = Runtime.getRuntime().availableProcessors();
             threadPool = new ThreadPool(coreThreads, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
 
+            //bounded pool for work which components split up among several cores
+            workerPool = new ThreadPool(coreThreads, coreThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+            workerPool.allowCoreThreadTimeOut(true);
+
             //sync with other pipelines
             if (options.sync.get() != SyncType.NONE) {
                 boolean isMaster = (options.syncHost.get() == null) || (options.syncHost.get().isEmpty());
@@ -769,11 +775,14 @@ public class Pipeline
             if(!threadPool.awaitTermination(Cons.WAIT_THREAD_TERMINATION, TimeUnit.MILLISECONDS))
                 threadPool.shutdownNow();
 
+            workerPool.shutdownNow();
+
             Log.i("shut down completed");
         }
         catch (InterruptedException e)
         {
             threadPool.shutdownNow();
+            workerPool.shutdownNow();
         }
         catch (Exception e)
         {
@@ -0,0 +1,100 @@
+/*
+ * StreamGate.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Gate which is open while a dimension of a stream crosses a threshold,
+ * e.g. the silence flag of {@link hcm.ssj.audio.Energy} or an activation stream.
+ */
+public class StreamGate extends Gate
+{
+    private final int bufferID;
+    private final int dim;
+    private final float threshold;
+    private final boolean above;
+    private final Stream stream;
+
+    /**
+     * @param source    provider of the gate stream, must be set up
+     * @param dim       dimension of the gate stream to check
+     * @param threshold threshold
+     * @param above     true if values above the threshold are activity, false if values below are
+     * @throws SSJException if the source is not set up or does not provide floats
+     */
+    public StreamGate(Provider source, int dim, float threshold, boolean above) throws SSJException
+    {
+        if (!source.isSetup())
+        {
+            throw new SSJException("gate source " + source.getComponentName() + " must be added to the pipeline first");
+        }
+
+        Stream out = source.getOutputStream();
+        if (out.type != Cons.Type.FLOAT || dim < 0 || dim >= out.dim)
+        {
+            throw new SSJException("gate source " + source.getComponentName() + " must provide float values in dimension " + dim);
+        }
+
+        this.bufferID = source.getBufferID();
+        this.dim = dim;
+        this.threshold = threshold;
+        this.above = above;
+        this.stream = Stream.create(source, 1);
+    }
+
+    @Override
+    protected boolean isActive(double time, double duration)
+    {
+        int pos = (int) (time * stream.sr + 0.5);
+        int num = Math.max(1, (int) ((time + duration) * stream.sr + 0.5) - pos);
+
+        if (num > stream.num)
+        {
+            stream.adjust(num);
+        }
+
+        // rather process too much than miss activity
+        if (!Pipeline.getInstance().getData(bufferID, stream.ptr(), pos, num))
+        {
+            return true;
+        }
+
+        float[] values = stream.ptrF();
+        for (int i = 0; i < num; i++)
+        {
+            float value = values[i * stream.dim + dim];
+            if (above ? value > threshold : value < threshold)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -31,6 +31,7 @@ import android.content.Context;
 import android.os.PowerManager;
 
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 
 import hcm.ssj.core.stream.Stream;
 
@@ -47,9 +48,20 @@ public abstract class Transformer extends Provider {
     private int[] _num_delta;
 
     private Timer _timer;
+    private Partition[] _partitions;
+
+    private Gate _gate = null;
+    private boolean _gated = false;
+    private Stream _fill = null;
 
     protected Pipeline _frame;
 
+    /**
+     * Number of dimension ranges which are processed concurrently, only used by transformers
+     * with independent dimensions (see {@link #hasIndependentDimensions()})
+     */
+    public int parallelism = 1;
+
     public Transformer()
     {
         _frame = Pipeline.getInstance();
@@ -84,6 +96,18 @@ public abstract class Transformer extends Provider {
             _frame.error(this.getComponentName(), "exception in enter", e);
         }
 
+        //split dimensions among worker threads
+        _partitions = null;
+        int partitions = Math.min(parallelism, _stream_in[0].dim);
+        if (partitions > 1 && hasIndependentDimensions())
+        {
+            _partitions = new Partition[partitions];
+            for (int i = 0; i < partitions; i++)
+                _partitions[i] = new Partition(i * _stream_in[0].dim / partitions, (i + 1) * _stream_in[0].dim / partitions);
+
+            Log.i("processing " + _stream_in[0].dim + " dimensions in " + partitions + " partitions");
+        }
+
         //wait for framework
         while (!_terminate && !_frame.isRunning()) {
             try {
@@ -93,6 +117,13 @@ public abstract class Transformer extends Provider {
             }
         }
 
+        if (_gate != null)
+        {
+            _gate.reset();
+            _gated = false;
+            _fill = Stream.create(_stream_out.num, _stream_out.dim, _stream_out.sr, _stream_out.type);
+        }
+
         //maintain update rate starting from now
         _timer.reset();
 
@@ -101,6 +132,16 @@ public abstract class Transformer extends Provider {
             try {
                 wakeLock.acquire();
 
+                //skip processing while the gate is closed
+                boolean open = true;
+                if (_gate != null)
+                {
+                    open = _gate.isOpen(_readPos[0] / _stream_in[0].sr, _stream_in[0].num / _stream_in[0].sr);
+                    if (open && _gated)
+                        warmUp();
+                    _gated = !open;
+                }
+
                 //grab data
                 boolean ok = true;
                 for(int i = 0; i < _bufferID_in.length; i++)
@@ -114,8 +155,15 @@ public abstract class Transformer extends Provider {
                 }
 
                 //if we received data from all sources, process it
-                if(ok) {
-                    transform(_stream_in, _stream_out);
+                if(ok && !open) {
+                    Stream fill = (_gate.fill == Gate.Fill.ZERO) ? _fill : _stream_out;
+                    _frame.pushData(_bufferID, fill.ptr(), fill.tot);
+                }
+                else if(ok) {
+                    if(_partitions != null)
+                        transformPartitions();
+                    else
+                        transform(_stream_in, _stream_out);
                     _frame.pushData(_bufferID, _stream_out.ptr(), _stream_out.tot);
                 }
 
@@ -157,6 +205,24 @@ public abstract class Transformer extends Provider {
      */
     public abstract void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException;
 
+    /**
+     * processes only the dimensions [dim_from, dim_to) of the first input stream,
+     * called concurrently for disjoint ranges if dimensions are independent
+     */
+    public void transform(Stream[] stream_in, Stream stream_out, int dim_from, int dim_to) throws SSJFatalException
+    {
+        throw new SSJFatalException(_name + " does not support processing dimension ranges");
+    }
+
+    /**
+     * @return true if each output dimension only depends on the same input dimension, i.e.
+     * {@link #transform(Stream[], Stream, int, int)} may be called concurrently for disjoint ranges
+     */
+    protected boolean hasIndependentDimensions()
+    {
+        return false;
+    }
+
     /**
      * called once prior to termination
      */
@@ -236,6 +302,112 @@ public abstract class Transformer extends Provider {
         _isSetup = true;
     }
 
+    /**
+     * Suspends processing while the gate is closed. Must be called before the pipeline starts.
+     */
+    public void setGate(Gate gate)
+    {
+        _gate = gate;
+    }
+
+    public Gate getGate()
+    {
+        return _gate;
+    }
+
+    /**
+     * processes the frames preceding the current one without publishing the output,
+     * so the transformer resumes with the state it would have had without the gate
+     */
+    private void warmUp() throws SSJFatalException
+    {
+        int frames = (int) Math.ceil(_gate.warmUp * _stream_in[0].sr / _num_frame[0]);
+        for (int k = frames; k > 0; k--)
+        {
+            boolean ok = true;
+            for (int i = 0; i < _bufferID_in.length; i++)
+            {
+                int pos = _readPos[i] - k * _num_frame[i];
+                ok &= pos >= 0 && _frame.getData(_bufferID_in[i], _stream_in[i].ptr(), pos, _stream_in[i].num);
+                if (ok)
+                    _stream_in[i].time = (double) pos / _stream_in[i].sr;
+            }
+
+            if (ok) {
+                if (_partitions != null)
+                    transformPartitions();
+                else
+                    transform(_stream_in, _stream_out);
+            }
+        }
+    }
+
+    /**
+     * runs all partitions of the current frame, the first one on the calling thread, and waits for them
+     */
+    private void transformPartitions() throws SSJFatalException
+    {
+        CountDownLatch latch = new CountDownLatch(_partitions.length - 1);
+        for (int i = 1; i < _partitions.length; i++)
+        {
+            _partitions[i].latch = latch;
+            _frame.workerPool.execute(_partitions[i]);
+        }
+
+        _partitions[0].latch = null;
+        _partitions[0].run();
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new SSJFatalException("interrupted while waiting for partitions", e);
+        }
+
+        for (Partition partition : _partitions)
+        {
+            Throwable error = partition.error;
+            if (error == null)
+                continue;
+
+            partition.error = null;
+            if (error instanceof SSJFatalException)
+                throw (SSJFatalException) error;
+            if (error instanceof RuntimeException)
+                throw (RuntimeException) error;
+            throw new RuntimeException(error);
+        }
+    }
+
+    /**
+     * Range of dimensions processed as one task
+     */
+    private class Partition implements Runnable
+    {
+        final int from;
+        final int to;
+        CountDownLatch latch;
+        Throwable error;
+
+        Partition(int from, int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run()
+        {
+            try {
+                transform(_stream_in, _stream_out, from, to);
+            } catch (Throwable t) {
+                error = t;
+            } finally {
+                if (latch != null)
+                    latch.countDown();
+            }
+        }
+    }
+
     @Override
     public String[] getOutputDescription()
     {
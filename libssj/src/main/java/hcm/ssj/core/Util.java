@@ -841,7 +841,17 @@ public class Util
      */
     public static void joinFFT(float[] in, float[] out)
     {
-        for (int i = 0; i < in.length; i += 2)
+        joinFFT(in, in.length, out);
+    }
+
+    /**
+     * Helper function to format fft values similar to SSI
+     *
+     * @param n number of fft values in the input, which may be a larger (scratch) buffer
+     */
+    public static void joinFFT(float[] in, int n, float[] out)
+    {
+        for (int i = 0; i < n; i += 2)
         {
             if (i == 0)
             {
@@ -31,17 +31,20 @@ import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Serializable;
+import java.util.zip.DataFormatException;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.Provider;
 import hcm.ssj.core.Util;
+import hcm.ssj.file.ChunkCodec;
 import hcm.ssj.file.FileCons;
 import hcm.ssj.file.SimpleXmlParser;
 
@@ -247,12 +250,33 @@ public abstract class Stream implements Serializable
                 new String[]{"from", "num"}
         );
 
-        double time = Double.valueOf(xmlValues.foundAttributes.get(0)[0]);
-        int num = Integer.valueOf(xmlValues.foundAttributes.get(0)[1]);
+        double time = 0;
+        int num = 0;
+
+        if (!xmlValues.foundAttributes.isEmpty())
+        {
+            time = Double.valueOf(xmlValues.foundAttributes.get(0)[0]);
+            num = Integer.valueOf(xmlValues.foundAttributes.get(0)[1]);
+
+            if (ftype.equals("COMPRESSED"))
+            {
+                //compressed files list every chunk separately
+                for (int i = 1; i < xmlValues.foundAttributes.size(); i++)
+                {
+                    num += Integer.valueOf(xmlValues.foundAttributes.get(i)[1]);
+                }
+            }
+        }
 
         Stream stream = create(num, dim, sr, type);
         stream.time = time;
 
+        if (num == 0)
+        {
+            //recording without any chunk
+            return stream;
+        }
+
         if (ftype.equals("ASCII"))
         {
             loadDataASCII(stream, path + FileCons.TAG_DATA_FILE);
@@ -261,6 +285,10 @@ public abstract class Stream implements Serializable
         {
             loadDataBinary(stream, path + FileCons.TAG_DATA_FILE);
         }
+        else if (ftype.equals("COMPRESSED"))
+        {
+            loadDataCompressed(stream, bytes, path + FileCons.TAG_DATA_FILE);
+        }
 
         return stream;
     }
@@ -325,4 +353,50 @@ public abstract class Stream implements Serializable
             len = reader.read(buffer, 0, stream.tot);
         }
     }
+
+    private static void loadDataCompressed(Stream stream, int bytes, String path) throws IOException
+    {
+        DataInputStream reader = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(path))));
+        ChunkCodec codec = new ChunkCodec(stream.type, bytes, stream.dim);
+
+        byte[] header = new byte[ChunkCodec.HEADER_BYTES];
+        byte[] encoded = new byte[0];
+        byte[] decoded = new byte[0];
+        int pos = 0;
+
+        try
+        {
+            while (pos < stream.tot)
+            {
+                reader.readFully(header);
+                int size = ChunkCodec.getInt(header, 0);
+                int num = ChunkCodec.getInt(header, 4);
+                int len = num * stream.dim * bytes;
+
+                if (encoded.length < size)
+                {
+                    encoded = new byte[size];
+                }
+                if (decoded.length < len)
+                {
+                    decoded = new byte[len];
+                }
+
+                reader.readFully(encoded, 0, size);
+                codec.decode(encoded, size, num, decoded);
+
+                len = Math.min(len, stream.tot - pos);
+                Util.arraycopy(decoded, 0, stream.ptr(), pos, len);
+                pos += len;
+            }
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException("corrupt chunk in " + path, e);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
 }
@@ -0,0 +1,292 @@
+/*
+ * AsciiFormatter.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.file;
+
+import java.nio.charset.Charset;
+
+/**
+ * Formats numbers as ascii text directly into a reusable byte buffer.<br>
+ * Fixed point values are produced with integer arithmetic only, so no strings
+ * or temporary arrays are allocated per value.
+ */
+public class AsciiFormatter
+{
+    public enum Format
+    {
+        /** fixed number of decimals, like "%.6f" in SSI */
+        SSI,
+        /** fixed point, trailing zeros are removed */
+        COMPACT,
+        /** shortest representation as produced by java (slow, allocates) */
+        JAVA
+    }
+
+    public static final int MAX_PRECISION = 17;
+
+    private static final long[] POW10 = new long[MAX_PRECISION + 1];
+    static
+    {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++)
+        {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private static final byte[] TRUE = "true".getBytes(Charset.forName("UTF-8"));
+    private static final byte[] FALSE = "false".getBytes(Charset.forName("UTF-8"));
+    private static final byte[] NAN = "NaN".getBytes(Charset.forName("UTF-8"));
+    private static final byte[] INFINITY = "Infinity".getBytes(Charset.forName("UTF-8"));
+
+    private final Format format;
+    private final int precision;
+    private final long scale;
+    private final double limit;
+
+    private byte[] buffer;
+    private int pos = 0;
+
+    /**
+     * @param format    Format
+     * @param precision number of decimals of floating point values
+     * @param capacity  initial size of the buffer in bytes
+     */
+    public AsciiFormatter(Format format, int precision, int capacity)
+    {
+        this.format = format;
+        this.precision = Math.max(0, Math.min(precision, MAX_PRECISION));
+        this.scale = POW10[this.precision];
+        //values above this would overflow a long once scaled
+        this.limit = (double) Long.MAX_VALUE / scale;
+        this.buffer = new byte[Math.max(capacity, 64)];
+    }
+
+    /**
+     * Empties the buffer, previous content is overwritten by subsequent calls
+     */
+    public void reset()
+    {
+        pos = 0;
+    }
+
+    /**
+     * @return internal buffer, valid from 0 to size()
+     */
+    public byte[] getBuffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * @return number of valid bytes in the buffer
+     */
+    public int size()
+    {
+        return pos;
+    }
+
+    public void put(byte[] bytes)
+    {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    public void put(boolean value)
+    {
+        put(value ? TRUE : FALSE);
+    }
+
+    public void put(char value)
+    {
+        ensure(3);
+        if (value < 0x80)
+        {
+            buffer[pos++] = (byte) value;
+        }
+        else if (value < 0x800)
+        {
+            buffer[pos++] = (byte) (0xC0 | (value >> 6));
+            buffer[pos++] = (byte) (0x80 | (value & 0x3F));
+        }
+        else
+        {
+            buffer[pos++] = (byte) (0xE0 | (value >> 12));
+            buffer[pos++] = (byte) (0x80 | ((value >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (value & 0x3F));
+        }
+    }
+
+    public void put(long value)
+    {
+        ensure(20);
+        if (value < 0)
+        {
+            buffer[pos++] = '-';
+            if (value == Long.MIN_VALUE)
+            {
+                //cannot be negated
+                putAscii(Long.toString(value).substring(1));
+                return;
+            }
+            value = -value;
+        }
+        putDigits(value, 0);
+    }
+
+    public void put(float value)
+    {
+        if (format == Format.JAVA || (Math.abs(value) >= limit && !Float.isInfinite(value)))
+        {
+            //java format or too large for fixed point, print the float and not its double widening
+            putAscii(Float.toString(value));
+        }
+        else
+        {
+            putFixed(value);
+        }
+    }
+
+    public void put(double value)
+    {
+        if (format == Format.JAVA)
+        {
+            putAscii(Double.toString(value));
+        }
+        else
+        {
+            putFixed(value);
+        }
+    }
+
+    private void putFixed(double value)
+    {
+        if (Double.isNaN(value))
+        {
+            put(NAN);
+            return;
+        }
+
+        double abs = Math.abs(value);
+        if (Double.isInfinite(value) || abs >= limit)
+        {
+            if (Double.isInfinite(value))
+            {
+                if (value < 0)
+                {
+                    ensure(1);
+                    buffer[pos++] = '-';
+                }
+                put(INFINITY);
+            }
+            else
+            {
+                //too large for fixed point, rare enough to accept the allocation
+                putAscii(Double.toString(value));
+            }
+            return;
+        }
+
+        long scaled = (long) (abs * scale + 0.5);
+
+        ensure(22 + precision);
+        if (value < 0 && scaled != 0)
+        {
+            buffer[pos++] = '-';
+        }
+
+        putDigits(scaled / scale, 0);
+
+        if (precision > 0)
+        {
+            long fraction = scaled % scale;
+            int digits = precision;
+
+            if (format == Format.COMPACT)
+            {
+                while (digits > 0 && fraction % 10 == 0)
+                {
+                    fraction /= 10;
+                    digits--;
+                }
+                if (digits == 0)
+                {
+                    return;
+                }
+            }
+
+            buffer[pos++] = '.';
+            putDigits(fraction, digits);
+        }
+    }
+
+    /**
+     * Writes a non negative number, left padded with zeros to at least minDigits digits
+     */
+    private void putDigits(long value, int minDigits)
+    {
+        int digits = 1;
+        while (digits < POW10.length && value >= POW10[digits])
+        {
+            digits++;
+        }
+        if (value >= POW10[POW10.length - 1] * 10)
+        {
+            digits = 19;
+        }
+        digits = Math.max(digits, minDigits);
+
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--)
+        {
+            buffer[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        pos = end;
+    }
+
+    private void putAscii(String str)
+    {
+        int len = str.length();
+        ensure(len);
+        for (int i = 0; i < len; i++)
+        {
+            buffer[pos++] = (byte) str.charAt(i);
+        }
+    }
+
+    private void ensure(int bytes)
+    {
+        if (pos + bytes > buffer.length)
+        {
+            byte[] tmp = new byte[Math.max(buffer.length * 2, pos + bytes)];
+            System.arraycopy(buffer, 0, tmp, 0, pos);
+            buffer = tmp;
+        }
+    }
+}
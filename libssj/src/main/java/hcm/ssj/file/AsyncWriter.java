@@ -0,0 +1,449 @@
+/*
+ * AsyncWriter.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.file;
+
+import android.os.SystemClock;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import hcm.ssj.core.Log;
+
+/**
+ * Output stream which hands data over to a dedicated I/O thread.<br>
+ * Data is copied into one of a fixed number of reusable buffers. Filled buffers are
+ * queued for the I/O thread, which writes them to the underlying stream and returns
+ * them to the pool. The writing thread only blocks (stalls) if all buffers are in use.
+ * If nothing is written for longer than the flush interval, the I/O thread takes over the
+ * partially filled buffer itself, so sparse data does not remain in memory until close.
+ */
+public class AsyncWriter extends OutputStream
+{
+    private static class Chunk
+    {
+        final byte[] data;
+        int size = 0;
+
+        Chunk(int capacity)
+        {
+            data = (capacity > 0) ? new byte[capacity] : null;
+        }
+    }
+
+    private final static Chunk END = new Chunk(0);
+
+    private final OutputStream out;
+    private final FileOutputStream fileOut;
+    private final String name;
+    private final long flushInterval;
+    private final long syncInterval;
+
+    private final ArrayBlockingQueue<Chunk> free;
+    private final ArrayBlockingQueue<Chunk> filled;
+    //guards current, the I/O thread only takes it over if the writing thread is not using it
+    private final ReentrantLock currentLock = new ReentrantLock();
+    private Chunk current;
+    private volatile long lastHandOff;
+
+    private final Object lock = new Object();
+    private int pending = 0;
+    private volatile boolean closed = false;
+    private final Thread thread;
+    private volatile IOException error = null;
+
+    private volatile int maxQueueDepth = 0;
+    private volatile int stallCount = 0;
+    private volatile long stallTime = 0;
+
+    /**
+     * Wraps the file stream in an AsyncWriter if requested by the options, otherwise in a BufferedOutputStream
+     *
+     * @param out     FileOutputStream
+     * @param options IFileWriter.AsyncOptions
+     * @param name    String
+     * @return OutputStream
+     */
+    public static OutputStream create(FileOutputStream out, IFileWriter.AsyncOptions options, String name)
+    {
+        if (!options.async.get())
+        {
+            return new BufferedOutputStream(out);
+        }
+
+        return new AsyncWriter(out, options.asyncBuffers.get(), options.asyncBufferSize.get() * 1024,
+                               (long) (options.flushInterval.get() * 1000), (long) (options.syncInterval.get() * 1000), name);
+    }
+
+    /**
+     * @param out           stream to write to, is closed together with this stream
+     * @param numBuffers    number of buffers in the pool (at least 2)
+     * @param bufferSize    size of each buffer in bytes
+     * @param flushInterval hand over partially filled buffers after this time (in ms, 0 = only when full)
+     * @param syncInterval  force data to the storage device after this time (in ms, 0 = never),
+     *                      only applies to FileOutputStreams
+     * @param name          String
+     */
+    public AsyncWriter(OutputStream out, int numBuffers, int bufferSize, long flushInterval, long syncInterval, String name)
+    {
+        this.out = out;
+        this.fileOut = (out instanceof FileOutputStream) ? (FileOutputStream) out : null;
+        this.name = name;
+        this.flushInterval = flushInterval;
+        this.syncInterval = syncInterval;
+
+        numBuffers = Math.max(2, numBuffers);
+        free = new ArrayBlockingQueue<>(numBuffers);
+        filled = new ArrayBlockingQueue<>(numBuffers + 1);
+        for (int i = 1; i < numBuffers; i++)
+        {
+            free.add(new Chunk(bufferSize));
+        }
+        current = new Chunk(bufferSize);
+        lastHandOff = SystemClock.elapsedRealtime();
+
+        thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                loop();
+            }
+        }, "SSJ_" + name + "_io");
+        thread.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        checkError();
+
+        currentLock.lock();
+        try
+        {
+            while (len > 0)
+            {
+                int n = Math.min(len, current.data.length - current.size);
+                System.arraycopy(b, off, current.data, current.size, n);
+                current.size += n;
+                off += n;
+                len -= n;
+
+                if (current.size == current.data.length)
+                {
+                    handOff();
+                }
+            }
+
+            if (flushInterval > 0 && current.size > 0 && SystemClock.elapsedRealtime() - lastHandOff >= flushInterval)
+            {
+                handOff();
+            }
+        }
+        finally
+        {
+            currentLock.unlock();
+        }
+    }
+
+    /**
+     * Hands over all buffered data and waits until it has been written
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        currentLock.lock();
+        try
+        {
+            if (current.size > 0)
+            {
+                handOff();
+            }
+        }
+        finally
+        {
+            currentLock.unlock();
+        }
+
+        synchronized (lock)
+        {
+            while (pending > 0)
+            {
+                try
+                {
+                    lock.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    Log.w("thread interrupt");
+                    break;
+                }
+            }
+        }
+
+        checkError();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            closed = true;
+            filled.add(END);
+            try
+            {
+                thread.join();
+            }
+            catch (InterruptedException e)
+            {
+                Log.w("thread interrupt");
+            }
+
+            if (stallCount > 0)
+            {
+                Log.w(name, "writer stalled " + stallCount + " times for " + stallTime + "ms in total, max queue depth " + maxQueueDepth);
+            }
+
+            if (syncInterval > 0 && fileOut != null)
+            {
+                fileOut.getFD().sync();
+            }
+            out.close();
+        }
+    }
+
+    /**
+     * @return number of buffers waiting to be written
+     */
+    public int getQueueDepth()
+    {
+        return filled.size();
+    }
+
+    /**
+     * @return largest number of buffers which were waiting to be written at the same time
+     */
+    public int getMaxQueueDepth()
+    {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return how often the writing thread had to wait for a free buffer
+     */
+    public int getStallCount()
+    {
+        return stallCount;
+    }
+
+    /**
+     * @return total time the writing thread had to wait for a free buffer (in ms)
+     */
+    public long getStallTime()
+    {
+        return stallTime;
+    }
+
+    private void handOff() throws IOException
+    {
+        synchronized (lock)
+        {
+            pending++;
+        }
+        filled.add(current);
+        maxQueueDepth = Math.max(maxQueueDepth, filled.size());
+        lastHandOff = SystemClock.elapsedRealtime();
+
+        current = free.poll();
+        if (current == null)
+        {
+            long start = SystemClock.elapsedRealtime();
+            try
+            {
+                current = free.take();
+            }
+            catch (InterruptedException e)
+            {
+                throw new IOException("interrupted while waiting for a free buffer");
+            }
+            stallCount++;
+            stallTime += SystemClock.elapsedRealtime() - start;
+        }
+    }
+
+    private void checkError() throws IOException
+    {
+        if (error != null)
+        {
+            IOException e = error;
+            error = null;
+            throw e;
+        }
+    }
+
+    private void loop()
+    {
+        long lastSync = SystemClock.elapsedRealtime();
+        long lastCheck = lastSync;
+
+        while (true)
+        {
+            Chunk chunk;
+            try
+            {
+                if (flushInterval > 0)
+                {
+                    long wait = Math.max(lastHandOff, lastCheck) + flushInterval - SystemClock.elapsedRealtime();
+                    chunk = filled.poll(Math.max(wait, 1), TimeUnit.MILLISECONDS);
+                }
+                else
+                {
+                    chunk = filled.take();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                continue;
+            }
+
+            if (chunk == END)
+            {
+                break;
+            }
+
+            if (chunk == null)
+            {
+                //nothing was handed over within the flush interval
+                lastCheck = SystemClock.elapsedRealtime();
+                chunk = takeIdle();
+                if (chunk == null)
+                {
+                    continue;
+                }
+            }
+
+            lastSync = writeChunk(chunk, lastSync);
+
+            synchronized (lock)
+            {
+                pending--;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Takes over the partially filled buffer if the writing thread has been idle for the flush interval
+     *
+     * @return the buffer to write or null
+     */
+    private Chunk takeIdle()
+    {
+        if (!currentLock.tryLock())
+        {
+            //the writing thread is busy, it hands over the buffer itself
+            return null;
+        }
+
+        try
+        {
+            if (closed || current.size == 0 || SystemClock.elapsedRealtime() - lastHandOff < flushInterval)
+            {
+                return null;
+            }
+
+            Chunk next = free.poll();
+            if (next == null)
+            {
+                return null;
+            }
+
+            synchronized (lock)
+            {
+                pending++;
+            }
+
+            Chunk chunk = current;
+            current = next;
+            lastHandOff = SystemClock.elapsedRealtime();
+            return chunk;
+        }
+        finally
+        {
+            currentLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the buffer and returns it to the pool
+     *
+     * @return time of the last sync
+     */
+    private long writeChunk(Chunk chunk, long lastSync)
+    {
+        try
+        {
+            out.write(chunk.data, 0, chunk.size);
+
+            if (syncInterval > 0 && fileOut != null && SystemClock.elapsedRealtime() - lastSync >= syncInterval)
+            {
+                fileOut.getFD().sync();
+                lastSync = SystemClock.elapsedRealtime();
+            }
+        }
+        catch (IOException e)
+        {
+            //keep recycling buffers so the writing thread does not block, the error is reported on its next call
+            error = e;
+        }
+
+        chunk.size = 0;
+        free.add(chunk);
+        return lastSync;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * ChunkCodec.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.file;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import hcm.ssj.core.Cons;
+
+/**
+ * Codec for chunks of COMPRESSED stream files.<br>
+ * Every value is predicted from the previous sample of the same dimension. Integer types store
+ * the zigzag encoded difference, floating point types store the xor of the bit patterns. The
+ * residuals are split into byte planes (all lowest bytes first, then all second bytes, ...), which
+ * leaves long runs of zeros for slowly changing signals, and are finally deflated.<br>
+ * Raw data is expected in the little endian layout used by BINARY files.
+ */
+public class ChunkCodec
+{
+    //size of the chunk header in the data file: compressed size and number of samples
+    public static final int HEADER_BYTES = 8;
+
+    private final int bytes;
+    private final int dim;
+    private final boolean xor;
+    private final long mask;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    private final Inflater inflater = new Inflater(true);
+    private final long[] previous;
+    private byte[] planes;
+
+    /**
+     * @param type  sample type
+     * @param bytes size of one value in bytes
+     * @param dim   sample dimension
+     */
+    public ChunkCodec(Cons.Type type, int bytes, int dim)
+    {
+        this.bytes = bytes;
+        this.dim = dim;
+        this.xor = (type == Cons.Type.FLOAT || type == Cons.Type.DOUBLE);
+        this.mask = (bytes >= 8) ? -1L : (1L << (bytes * 8)) - 1;
+        this.previous = new long[dim];
+        this.planes = new byte[0];
+    }
+
+    /**
+     * @param numSamples int
+     * @return size of a buffer which is guaranteed to hold an encoded chunk
+     */
+    public int maxEncodedSize(int numSamples)
+    {
+        int len = numSamples * dim * bytes;
+        //deflate worst case for stored blocks plus some slack
+        return len + len / 1000 + 64;
+    }
+
+    /**
+     * Releases the native zlib memory, the codec must not be used afterwards
+     */
+    public void close()
+    {
+        deflater.end();
+        inflater.end();
+    }
+
+    /**
+     * @param raw        samples in binary file layout
+     * @param numSamples number of samples in raw
+     * @param out        destination, see maxEncodedSize
+     * @param outPos     position in out
+     * @return number of bytes written to out
+     */
+    public int encode(byte[] raw, int numSamples, byte[] out, int outPos)
+    {
+        int num = numSamples * dim;
+        int len = num * bytes;
+        ensurePlanes(len);
+
+        for (int d = 0; d < dim; d++)
+        {
+            previous[d] = 0;
+        }
+
+        for (int i = 0, d = 0; i < num; i++)
+        {
+            long value = read(raw, i * bytes);
+            long residual;
+            if (xor)
+            {
+                residual = value ^ previous[d];
+            }
+            else
+            {
+                long diff = signExtend(value - previous[d]);
+                residual = ((diff << 1) ^ (diff >> 63)) & mask;
+            }
+            previous[d] = value;
+
+            for (int b = 0; b < bytes; b++)
+            {
+                planes[b * num + i] = (byte) (residual >>> (b * 8));
+            }
+
+            if (++d == dim)
+            {
+                d = 0;
+            }
+        }
+
+        deflater.reset();
+        deflater.setInput(planes, 0, len);
+        deflater.finish();
+
+        int size = 0;
+        while (!deflater.finished() && outPos + size < out.length)
+        {
+            size += deflater.deflate(out, outPos + size, out.length - outPos - size);
+        }
+        return size;
+    }
+
+    /**
+     * @param in         encoded chunk
+     * @param inLen      size of the encoded chunk
+     * @param numSamples number of samples in the chunk
+     * @param raw        destination in binary file layout
+     * @throws DataFormatException if the chunk is corrupt
+     */
+    public void decode(byte[] in, int inLen, int numSamples, byte[] raw) throws DataFormatException
+    {
+        int num = numSamples * dim;
+        int len = num * bytes;
+        ensurePlanes(len);
+
+        inflater.reset();
+        inflater.setInput(in, 0, inLen);
+
+        int size = 0;
+        while (size < len)
+        {
+            int n = inflater.inflate(planes, size, len - size);
+            if (n == 0 && (inflater.finished() || inflater.needsInput()))
+            {
+                throw new DataFormatException("chunk is truncated");
+            }
+            size += n;
+        }
+
+        for (int d = 0; d < dim; d++)
+        {
+            previous[d] = 0;
+        }
+
+        for (int i = 0, d = 0; i < num; i++)
+        {
+            long residual = 0;
+            for (int b = 0; b < bytes; b++)
+            {
+                residual |= (planes[b * num + i] & 0xFFL) << (b * 8);
+            }
+
+            long value;
+            if (xor)
+            {
+                value = residual ^ previous[d];
+            }
+            else
+            {
+                long diff = (residual >>> 1) ^ -(residual & 1);
+                value = (previous[d] + diff) & mask;
+            }
+            previous[d] = value;
+
+            write(raw, i * bytes, value);
+
+            if (++d == dim)
+            {
+                d = 0;
+            }
+        }
+    }
+
+    private long read(byte[] src, int pos)
+    {
+        long value = 0;
+        for (int b = 0; b < bytes; b++)
+        {
+            value |= (src[pos + b] & 0xFFL) << (b * 8);
+        }
+        return value;
+    }
+
+    private void write(byte[] dst, int pos, long value)
+    {
+        for (int b = 0; b < bytes; b++)
+        {
+            dst[pos + b] = (byte) (value >>> (b * 8));
+        }
+    }
+
+    private long signExtend(long value)
+    {
+        int shift = 64 - bytes * 8;
+        return (value << shift) >> shift;
+    }
+
+    private void ensurePlanes(int len)
+    {
+        if (planes.length < len)
+        {
+            planes = new byte[len];
+        }
+    }
+
+    /**
+     * Writes a little endian int
+     */
+    public static void putInt(byte[] dst, int pos, int value)
+    {
+        dst[pos] = (byte) value;
+        dst[pos + 1] = (byte) (value >>> 8);
+        dst[pos + 2] = (byte) (value >>> 16);
+        dst[pos + 3] = (byte) (value >>> 24);
+    }
+
+    /**
+     * Reads a little endian int
+     */
+    public static int getInt(byte[] src, int pos)
+    {
+        return (src[pos] & 0xFF) | (src[pos + 1] & 0xFF) << 8 | (src[pos + 2] & 0xFF) << 16 | (src[pos + 3] & 0xFF) << 24;
+    }
+}
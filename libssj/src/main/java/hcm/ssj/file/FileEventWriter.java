@@ -31,6 +31,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -68,9 +69,15 @@ public class FileEventWriter extends EventHandler implements IFileWriter
         ANNO_PLAIN
     }
 
-    public class Options extends IFileWriter.Options
+    public class Options extends IFileWriter.AsyncOptions
     {
         public final Option<Format> format = new Option<>("format", Format.EVENT, Format.class, "format of event file");
+
+        private Options()
+        {
+            super();
+            addOptions();
+        }
     }
     public Options options = new Options();
 
@@ -80,7 +87,8 @@ public class FileEventWriter extends EventHandler implements IFileWriter
     ArrayList<Event> unprocessedEvents = new ArrayList<>();
 
     private File file;
-    private FileOutputStream fileOutputStream = null;
+    private OutputStream fileOutputStream = null;
+    private AsyncWriter asyncWriter = null;
 
     private boolean headerWritten = false;
 
@@ -126,6 +134,11 @@ public class FileEventWriter extends EventHandler implements IFileWriter
         }
         file = new File(fileDirectory, options.fileName.get());
         fileOutputStream = getFileConnection(file, fileOutputStream);
+        if (fileOutputStream != null)
+        {
+            fileOutputStream = AsyncWriter.create((FileOutputStream) fileOutputStream, options, _name);
+        }
+        asyncWriter = (fileOutputStream instanceof AsyncWriter) ? (AsyncWriter) fileOutputStream : null;
 
         headerWritten = false;
         unprocessedEvents.clear();
@@ -195,7 +208,16 @@ public class FileEventWriter extends EventHandler implements IFileWriter
         }
     }
 
-    public void flush() throws SSJFatalException
+    /**
+     * @return I/O thread of the current or last recording with its queue depth and stall statistics,
+     * null if the file is written synchronously
+     */
+    public AsyncWriter getAsyncWriter()
+    {
+        return asyncWriter;
+    }
+
+    public synchronized void flush() throws SSJFatalException
     {
         //write footer
         if(options.format.get() == Format.EVENT) {
@@ -209,10 +231,10 @@ public class FileEventWriter extends EventHandler implements IFileWriter
 
 
     /**
-     * @param stream FileOutputStream
-     * @return FileOutputStream
+     * @param stream OutputStream
+     * @return OutputStream
      */
-    private FileOutputStream closeStream(FileOutputStream stream)
+    private OutputStream closeStream(OutputStream stream)
     {
         if (stream != null)
         {
@@ -230,10 +252,10 @@ public class FileEventWriter extends EventHandler implements IFileWriter
 
     /**
      * @param file   File
-     * @param stream FileOutputStream
-     * @return FileOutputStream
+     * @param stream OutputStream
+     * @return OutputStream
      */
-    private FileOutputStream getFileConnection(File file, FileOutputStream stream)
+    private OutputStream getFileConnection(File file, OutputStream stream)
     {
         try
         {
@@ -247,9 +269,9 @@ public class FileEventWriter extends EventHandler implements IFileWriter
 
     /**
      * @param line   String
-     * @param stream FileOutputStream
+     * @param stream OutputStream
      */
-    private void write(String line, FileOutputStream stream)
+    private void write(String line, OutputStream stream)
     {
         if (stream != null)
         {
@@ -265,9 +287,9 @@ public class FileEventWriter extends EventHandler implements IFileWriter
 
     /**
      * @param line   String
-     * @param stream FileOutputStream
+     * @param stream OutputStream
      */
-    private void writeLine(String line, FileOutputStream stream)
+    private void writeLine(String line, OutputStream stream)
     {
         if (stream != null)
         {
@@ -30,15 +30,18 @@ package hcm.ssj.file;
 
 import org.xmlpull.v1.XmlPullParserException;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.SSJFatalException;
 import hcm.ssj.core.Sensor;
@@ -48,6 +51,9 @@ import hcm.ssj.core.option.OptionList;
 
 /**
  * File reader for SSJ.<br>
+ * Data files are accessed through memory mapped windows, which allows seeking
+ * to any sample without reading the data in front of it. Compressed files are decoded
+ * chunk by chunk, the chunk index in the header is used for seeking.<br>
  * Created by Frank Gaibler on 20.08.2015.
  */
 public class FileReader extends Sensor
@@ -64,6 +70,7 @@ public class FileReader extends Sensor
     public class Options extends OptionList
     {
         public final Option<FilePath> file = new Option<>("file", null, FilePath.class, "file path");
+        public final Option<String[]> playlist = new Option<>("playlist", null, String[].class, "further files which are played back after file (must have the same format)");
         public final Option<Boolean> loop = new Option<>("loop", true, Boolean.class, "");
 
         /**
@@ -75,15 +82,38 @@ public class FileReader extends Sensor
         }
     }
 
+    //maximum number of bytes mapped at once, larger files are mapped in windows
+    private static final int MAP_SIZE = 32 * 1024 * 1024;
+
     public final Options options = new Options();
     private File fileHeader;
-    private File fileReal;
-    private BufferedInputStream inputBinary = null;
-    private BufferedReader inputASCII = null;
-    private int pos;
+    private File[] filesHeader;
+    private File[] filesReal;
+    private long[] numSamples;
     private SimpleHeader simpleHeader = null;
     private boolean initialized = false;
 
+    private boolean ascii;
+    private int frameBytes;
+    private int current = -1;
+    private RandomAccessFile file = null;
+    private FileChannel channel = null;
+    private MappedByteBuffer mapped = null;
+    private long mapOffset;
+    private long fileSize;
+    private byte[] line = new byte[256];
+
+    private boolean compressed;
+    private ChunkCodec codec;
+    private long[][] chunkStarts;
+    private long[][] chunkOffsets;
+    private int chunk;
+    private byte[] chunkData = new byte[0];
+    private int chunkPos;
+    private int chunkLen;
+    private byte[] encoded = new byte[ChunkCodec.HEADER_BYTES];
+    private final Charset charset = Charset.forName("UTF-8");
+
     /**
      *
      */
@@ -95,7 +125,7 @@ public class FileReader extends Sensor
     /**
      *
      */
-    protected final void readerInit() throws IOException
+    protected final void readerInit() throws IOException, XmlPullParserException
     {
         if (!initialized)
         {
@@ -106,8 +136,52 @@ public class FileReader extends Sensor
                 throw new IOException("file not specified");
             }
 
-            this.fileHeader = new File(options.file.get().value);
-            setFiles();
+            String[] playlist = options.playlist.get();
+            int numFiles = 1 + ((playlist != null) ? playlist.length : 0);
+
+            filesHeader = new File[numFiles];
+            filesReal = new File[numFiles];
+            setFiles(0, options.file.get().value);
+            for (int i = 1; i < numFiles; i++)
+            {
+                setFiles(i, playlist[i - 1]);
+            }
+
+            fileHeader = filesHeader[0];
+            simpleHeader = null;
+            SimpleHeader header = getSimpleHeader();
+
+            ascii = header._ftype.equals("ASCII");
+            compressed = header._ftype.equals("COMPRESSED");
+            frameBytes = Integer.parseInt(header._dim) * Integer.parseInt(header._byte);
+
+            if (compressed)
+            {
+                codec = new ChunkCodec(Cons.Type.valueOf(header._type), Integer.parseInt(header._byte), Integer.parseInt(header._dim));
+                chunkStarts = new long[numFiles][];
+                chunkOffsets = new long[numFiles][];
+            }
+
+            numSamples = new long[numFiles];
+            for (int i = 0; i < numFiles; i++)
+            {
+                SimpleHeader other = (i == 0) ? header : parseHeader(filesHeader[i]);
+                if (!other._ftype.equals(header._ftype) || !other._type.equals(header._type)
+                        || !other._dim.equals(header._dim)
+                        || Double.parseDouble(other._sr) != Double.parseDouble(header._sr))
+                {
+                    throw new IOException("format of " + filesHeader[i].getName() + " does not match " + filesHeader[0].getName());
+                }
+
+                if (compressed)
+                {
+                    numSamples[i] = parseChunks(i);
+                }
+                else
+                {
+                    numSamples[i] = ascii ? Long.parseLong(other._num) : filesReal[i].length() / frameBytes;
+                }
+            }
         }
     }
 
@@ -120,23 +194,21 @@ public class FileReader extends Sensor
         try
         {
             readerInit();
-            simpleHeader = getSimpleHeader();
         }
         catch (IOException | XmlPullParserException e)
         {
             throw new SSJFatalException("unable to initialize file reader", e);
         }
 
-		if (simpleHeader._ftype.equals("BINARY"))
-		{
-			inputBinary = getFileConnection(fileReal, inputBinary);
-		}
-		else if (simpleHeader._ftype.equals("ASCII"))
-		{
-			inputASCII = getFileConnection(fileReal, inputASCII);
-		}
+        try
+        {
+            open(0);
+        }
+        catch (IOException e)
+        {
+            throw new SSJFatalException("unable to open " + filesReal[0].getPath(), e);
+        }
 
-        pos = 0;
         return true;
     }
 
@@ -147,228 +219,479 @@ public class FileReader extends Sensor
     {
         if (simpleHeader == null)
         {
-            SimpleXmlParser simpleXmlParser = new SimpleXmlParser();
-            SimpleXmlParser.XmlValues xmlValues = simpleXmlParser.parse(
-                    new FileInputStream(fileHeader),
-                    new String[]{"stream", "info"},
-                    new String[]{"ftype", "sr", "dim", "byte", "type"}
-            );
-            simpleHeader = new SimpleHeader();
-            simpleHeader._ftype = xmlValues.foundAttributes.get(0)[0];
-            simpleHeader._sr = xmlValues.foundAttributes.get(0)[1];
-            simpleHeader._dim = xmlValues.foundAttributes.get(0)[2];
-            simpleHeader._byte = xmlValues.foundAttributes.get(0)[3];
-            simpleHeader._type = xmlValues.foundAttributes.get(0)[4];
-            xmlValues = simpleXmlParser.parse(
-                    new FileInputStream(fileHeader),
-                    new String[]{"stream", "chunk"},
-                    new String[]{"from", "to", "num"}
-            );
-            simpleHeader._from = xmlValues.foundAttributes.get(0)[0];
-            simpleHeader._to = xmlValues.foundAttributes.get(0)[1];
-            simpleHeader._num = xmlValues.foundAttributes.get(0)[2];
+            simpleHeader = parseHeader(fileHeader);
         }
         return simpleHeader;
     }
 
     /**
-     *
+     * @param header File
+     * @return SimpleHeader
      */
-    private void setFiles()
+    private SimpleHeader parseHeader(File header) throws IOException, XmlPullParserException
     {
-        String path = fileHeader.getPath();
-        if (path.endsWith(FileCons.TAG_DATA_FILE))
+        SimpleXmlParser simpleXmlParser = new SimpleXmlParser();
+        SimpleXmlParser.XmlValues xmlValues = simpleXmlParser.parse(
+                new FileInputStream(header),
+                new String[]{"stream", "info"},
+                new String[]{"ftype", "sr", "dim", "byte", "type"}
+        );
+        SimpleHeader result = new SimpleHeader();
+        result._ftype = xmlValues.foundAttributes.get(0)[0];
+        result._sr = xmlValues.foundAttributes.get(0)[1];
+        result._dim = xmlValues.foundAttributes.get(0)[2];
+        result._byte = xmlValues.foundAttributes.get(0)[3];
+        result._type = xmlValues.foundAttributes.get(0)[4];
+        xmlValues = simpleXmlParser.parse(
+                new FileInputStream(header),
+                new String[]{"stream", "chunk"},
+                new String[]{"from", "to", "num"}
+        );
+        if (xmlValues.foundAttributes.isEmpty())
         {
-            fileReal = fileHeader;
-            fileHeader = new File(path.substring(0, path.length() - 1));
-        } else if (fileHeader.getName().contains("."))
+            //compressed recording without any chunk
+            result._from = "0";
+            result._to = "0";
+            result._num = "0";
+        }
+        else
         {
-            fileReal = new File(path + FileCons.TAG_DATA_FILE);
-        } else
+            result._from = xmlValues.foundAttributes.get(0)[0];
+            result._to = xmlValues.foundAttributes.get(0)[1];
+            result._num = xmlValues.foundAttributes.get(0)[2];
+        }
+        return result;
+    }
+
+    /**
+     * Reads the chunk index of a compressed file
+     *
+     * @param index int
+     * @return number of samples in the file
+     */
+    private long parseChunks(int index) throws IOException, XmlPullParserException
+    {
+        SimpleXmlParser.XmlValues xmlValues = new SimpleXmlParser().parse(
+                new FileInputStream(filesHeader[index]),
+                new String[]{"stream", "chunk"},
+                new String[]{"byte", "num"}
+        );
+
+        int num = xmlValues.foundAttributes.size();
+        long[] starts = new long[num + 1];
+        long[] offsets = new long[num];
+        for (int i = 0; i < num; i++)
         {
-            fileHeader = new File(path + "." + FileCons.FILE_EXTENSION_STREAM);
-            fileReal = new File(path + "." + FileCons.FILE_EXTENSION_STREAM + FileCons.TAG_DATA_FILE);
+            offsets[i] = Long.parseLong(xmlValues.foundAttributes.get(i)[0]);
+            starts[i + 1] = starts[i] + Long.parseLong(xmlValues.foundAttributes.get(i)[1]);
         }
+
+        chunkStarts[index] = starts;
+        chunkOffsets[index] = offsets;
+        return starts[num];
     }
 
     /**
-     * @param reader BufferedReader
-     * @return BufferedReader
+     * @param index int
+     * @param path  String
      */
-    private BufferedInputStream closeStream(BufferedInputStream reader)
+    private void setFiles(int index, String path)
     {
-        if (reader != null)
+        File header = new File(path);
+        File real;
+        if (path.endsWith(FileCons.TAG_DATA_FILE))
         {
-            try
-            {
-                reader.close();
-                reader = null;
-            } catch (IOException e)
-            {
-                Log.e("could not close reader", e);
-            }
+            real = header;
+            header = new File(path.substring(0, path.length() - 1));
+        } else if (header.getName().contains("."))
+        {
+            real = new File(path + FileCons.TAG_DATA_FILE);
+        } else
+        {
+            header = new File(path + "." + FileCons.FILE_EXTENSION_STREAM);
+            real = new File(path + "." + FileCons.FILE_EXTENSION_STREAM + FileCons.TAG_DATA_FILE);
         }
-        return reader;
+        filesHeader[index] = header;
+        filesReal[index] = real;
     }
 
     /**
-     * @param reader BufferedReader
-     * @return BufferedReader
+     * Opens the data file with the given playlist index and maps its beginning
+     *
+     * @param index int
      */
-    private BufferedReader closeStream(BufferedReader reader)
+    private void open(int index) throws IOException
     {
-        if (reader != null)
+        if (index != current)
         {
-            try
-            {
-                reader.close();
-                reader = null;
-            } catch (IOException e)
-            {
-                Log.e("could not close reader", e);
-            }
+            closeFile();
+            file = new RandomAccessFile(filesReal[index], "r");
+            channel = file.getChannel();
+            fileSize = channel.size();
+            current = index;
+        }
+
+        if (compressed)
+        {
+            //chunks are decoded on demand
+            chunk = -1;
+            chunkPos = 0;
+            chunkLen = 0;
+        }
+        else
+        {
+            map(0);
         }
-        return reader;
     }
 
     /**
-	 *
+     * Maps a window of the current data file starting at the given byte position
+     *
+     * @param position long
      */
-    @Override
-    protected void disconnect() throws SSJFatalException
+    private void map(long position) throws IOException
     {
-        inputBinary = closeStream(inputBinary);
-        inputASCII = closeStream(inputASCII);
-        initialized = false;
+        mapOffset = position;
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_SIZE, fileSize - position));
     }
 
     /**
-     * @param file   File
-     * @param stream BufferedInputStream
-     * @return BufferedInputStream
+     * Reads and decodes a chunk of the current compressed file
+     *
+     * @param index int
      */
-    private BufferedInputStream getFileConnection(File file, BufferedInputStream stream)
+    private void loadChunk(int index) throws IOException
     {
-        if (stream != null)
+        long position = chunkOffsets[current][index];
+        read(encoded, ChunkCodec.HEADER_BYTES, position);
+
+        int size = ChunkCodec.getInt(encoded, 0);
+        int num = ChunkCodec.getInt(encoded, 4);
+        if (num != chunkStarts[current][index + 1] - chunkStarts[current][index])
         {
-            stream = closeStream(stream);
+            throw new IOException("chunk " + index + " of " + filesReal[current].getName() + " does not match its header");
         }
+
+        if (encoded.length < size)
+        {
+            encoded = new byte[size];
+        }
+        read(encoded, size, position + ChunkCodec.HEADER_BYTES);
+
+        chunkLen = num * frameBytes;
+        if (chunkData.length < chunkLen)
+        {
+            chunkData = new byte[chunkLen];
+        }
+
         try
         {
-            InputStream inputStream = new FileInputStream(file);
-            stream = new BufferedInputStream(inputStream);
-        } catch (FileNotFoundException e)
+            codec.decode(encoded, size, num, chunkData);
+        }
+        catch (DataFormatException e)
         {
-            Log.e("file not found", e);
+            throw new IOException("chunk " + index + " of " + filesReal[current].getName() + " is corrupt", e);
         }
-        return stream;
+
+        chunk = index;
+        chunkPos = 0;
     }
 
     /**
-     * @param file   File
-     * @param reader BufferedReader
-     * @return BufferedReader
+     * @param dst      byte[]
+     * @param len      int
+     * @param position long
      */
-    private BufferedReader getFileConnection(File file, BufferedReader reader)
+    private void read(byte[] dst, int len, long position) throws IOException
     {
-        if (reader != null)
+        ByteBuffer buf = ByteBuffer.wrap(dst, 0, len);
+        while (buf.hasRemaining())
         {
-            reader = closeStream(reader);
+            if (channel.read(buf, position + buf.position()) < 0)
+            {
+                throw new IOException("unexpected end of " + filesReal[current].getName());
+            }
         }
-        try
-        {
-            InputStream inputStream = new FileInputStream(file);
-            reader = new BufferedReader(new InputStreamReader(inputStream));
+    }
 
-        } catch (FileNotFoundException e)
+    /**
+     * Moves on to the next file of the playlist
+     *
+     * @return false if the end of the playlist has been reached and looping is disabled
+     */
+    private boolean next() throws IOException
+    {
+        int index = current + 1;
+        if (index >= filesReal.length)
         {
-            Log.e("file not found", e);
+            if (!options.loop.get())
+            {
+                return false;
+            }
+
+            Log.d("end of file reached, looping");
+            index = 0;
         }
-        return reader;
+
+        open(index);
+        return true;
     }
 
     /**
-     * @param reader BufferedReader
-     * @return String
+     * Makes sure that the mapped window has data left to read
+     *
+     * @return false if there is no more data
      */
-    private String readLine(BufferedReader reader)
+    private boolean ensureData() throws IOException
     {
-        String line = null;
-        if (reader != null)
+        //stop after visiting every file once, otherwise empty files would be looped forever
+        int tries = filesReal.length;
+        if (compressed)
         {
-            try
+            while (chunkPos == chunkLen)
             {
-                line = reader.readLine();
-            } catch (IOException e)
+                if (chunk + 1 < chunkOffsets[current].length)
+                {
+                    loadChunk(chunk + 1);
+                }
+                else if (tries-- == 0 || !next())
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        while (!mapped.hasRemaining())
+        {
+            long position = mapOffset + mapped.limit();
+            if (position < fileSize)
             {
-                Log.e("could not read line", e);
+                map(position);
+            }
+            else if (tries-- == 0 || !next())
+            {
+                return false;
             }
         }
-        return line;
+        return true;
     }
 
     /**
-     * @param stream BufferedInputStream
-     * @return String
+     *
      */
-    private int read(BufferedInputStream stream, byte[] buffer, int numBytes)
+    private void closeFile()
     {
-        int ret = 0;
-        if (stream != null)
+        mapped = null;
+        current = -1;
+        if (file != null)
         {
             try
             {
-                ret = stream.read(buffer, 0, numBytes);
+                file.close();
             } catch (IOException e)
             {
-                Log.e("could not read line", e);
+                Log.e("could not close file", e);
             }
+            file = null;
+            channel = null;
         }
-        return ret;
     }
 
     /**
-        * @return String
-    */
-    protected String getDataASCII()
+	 *
+     */
+    @Override
+    protected synchronized void disconnect() throws SSJFatalException
     {
+        closeFile();
+        initialized = false;
 
-        String data = readLine(inputASCII);
-        if (data == null && options.loop.get())
+        if (codec != null)
         {
-            Log.d("end of file reached, looping");
-            inputASCII = getFileConnection(fileReal, inputASCII);
-            data = readLine(inputASCII);
+            codec.close();
+            codec = null;
         }
-        return data;
     }
 
+    /**
+     * @return String
+     */
+    protected synchronized String getDataASCII()
+    {
+        if (mapped == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            int len = 0;
+            while (ensureData())
+            {
+                byte b = mapped.get();
+                if (b == '\n')
+                {
+                    break;
+                }
+
+                if (len == line.length)
+                {
+                    byte[] tmp = new byte[line.length * 2];
+                    System.arraycopy(line, 0, tmp, 0, len);
+                    line = tmp;
+                }
+                line[len++] = b;
+
+                //a line does not continue across files
+                if (!mapped.hasRemaining() && mapOffset + mapped.limit() >= fileSize)
+                {
+                    break;
+                }
+            }
 
-    protected int getDataBinary(byte[] buffer, int numBytes)
+            if (len > 0 && line[len - 1] == '\r')
+            {
+                len--;
+            }
+
+            return (len > 0) ? new String(line, 0, len, charset) : null;
+        }
+        catch (IOException e)
+        {
+            Log.e("could not read line", e);
+        }
+        return null;
+    }
+
+    /**
+     * @param buffer   byte[]
+     * @param numBytes int
+     * @return number of bytes read
+     */
+    protected synchronized int getDataBinary(byte[] buffer, int numBytes)
     {
-        int ret = read(inputBinary, buffer, numBytes);
-        if(ret == -1 && options.loop.get())
+        int ret = 0;
+        if (channel == null)
         {
-            Log.d("end of file reached, looping");
-            inputBinary = getFileConnection(fileReal, inputBinary);
-            ret = read(inputBinary, buffer, numBytes);
+            return ret;
+        }
 
-            if(ret <= 0)
-                Log.e("unexpected error reading from file");
+        try
+        {
+            while (ret < numBytes && ensureData())
+            {
+                if (compressed)
+                {
+                    int n = Math.min(chunkLen - chunkPos, numBytes - ret);
+                    System.arraycopy(chunkData, chunkPos, buffer, ret, n);
+                    chunkPos += n;
+                    ret += n;
+                }
+                else
+                {
+                    int n = Math.min(mapped.remaining(), numBytes - ret);
+                    mapped.get(buffer, ret, n);
+                    ret += n;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            Log.e("could not read data", e);
         }
 
-        if(numBytes != ret)
-            Log.e("unexpected amount of bytes read from file");
+        if (numBytes != ret)
+        {
+            Log.w("unexpected amount of bytes read from file");
+        }
 
         return ret;
     }
 
-    protected void skip(int bytes)
+    /**
+     * Moves the read position to the given sample. Samples are counted over the whole playlist.
+     * For binary files this is a constant time operation, compressed files decode the chunk
+     * containing the sample and ascii files are scanned for line breaks.
+     *
+     * @param sample long
+     */
+    protected synchronized void seek(long sample)
+    {
+        if (numSamples == null)
+        {
+            return;
+        }
+
+        int index = 0;
+        while (index < numSamples.length - 1 && sample >= numSamples[index])
+        {
+            sample -= numSamples[index++];
+        }
+        sample = Math.max(0, Math.min(sample, numSamples[index]));
+
+        try
+        {
+            open(index);
+
+            if (compressed)
+            {
+                long[] starts = chunkStarts[index];
+                int c = Arrays.binarySearch(starts, sample);
+                if (c < 0)
+                {
+                    c = -c - 2;
+                }
+
+                if (c < starts.length - 1)
+                {
+                    loadChunk(c);
+                    chunkPos = (int) (sample - starts[c]) * frameBytes;
+                }
+                else
+                {
+                    //end of file, the next read moves on to the next file
+                    chunk = c - 1;
+                }
+            }
+            else if (!ascii)
+            {
+                map(sample * frameBytes);
+            }
+            else
+            {
+                while (sample > 0 && mapped.hasRemaining())
+                {
+                    if (mapped.get() == '\n')
+                    {
+                        sample--;
+                    }
+                    if (!mapped.hasRemaining() && mapOffset + mapped.limit() < fileSize)
+                    {
+                        map(mapOffset + mapped.limit());
+                    }
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            Log.e("exception while seeking", e);
+        }
+    }
+
+    /**
+     * @return total number of samples in all files of the playlist
+     */
+    protected long getNumSamples()
     {
-        try {
-            inputBinary.skip(bytes);
-        } catch (IOException e) {
-            Log.e("exception while skipping bytes", e);
+        long sum = 0;
+        if (numSamples != null)
+        {
+            for (long num : numSamples)
+            {
+                sum += num;
+            }
         }
+        return sum;
     }
 }
@@ -129,23 +129,45 @@ public class FileReaderChannel extends SensorChannel
         buffer = new byte[num*dimension*bytes];
     }
 
-
-
     @Override
 	public void enter(Stream stream_out) throws SSJFatalException
     {
 		if (options.offset.get() > 0)
 		{
-			fileReader.skip((int) (stream_out.sr * options.offset.get()));
+			seek(options.offset.get());
 		}
     }
 
+    /**
+     * Continues playback from the given position. Can be called while the pipeline is running.
+     *
+     * @param seconds position in the file (or playlist) in seconds
+     */
+    public void seek(double seconds)
+    {
+        fileReader.seek((long) (seconds * sampleRate + 0.5));
+    }
+
+    /**
+     * @return duration of the file (or playlist) in seconds
+     */
+    public double getDuration()
+    {
+        return fileReader.getNumSamples() / sampleRate;
+    }
+
     /**
      * @param stream_out Stream
      */
     @Override
     protected boolean process(Stream stream_out) throws SSJFatalException
     {
+        //data pushed before the pipeline runs would be discarded, keep the position in the file instead
+        if (!_frame.isRunning())
+        {
+            return false;
+        }
+
         if(ftype == Cons.FileType.ASCII)
         {
             for(int i = 0; i < num; ++i) {
@@ -227,10 +249,16 @@ public class FileReaderChannel extends SensorChannel
                 }
             }
         }
-        else if(ftype == Cons.FileType.BINARY)
+        else if(ftype == Cons.FileType.BINARY || ftype == Cons.FileType.COMPRESSED)
         {
             int numBytes = num * dimension * bytes;
-            fileReader.getDataBinary(buffer, numBytes);
+            int read = fileReader.getDataBinary(buffer, numBytes);
+            if (read < numBytes)
+            {
+                //notify listeners
+                Monitor.notifyMonitor();
+                Arrays.fill(buffer, read, numBytes, (byte) 0);
+            }
             Util.arraycopy(buffer, 0, stream_out.ptr(), 0, numBytes);
         }
 
@@ -29,13 +29,13 @@ package hcm.ssj.file;
 
 import android.text.TextUtils;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -69,11 +69,14 @@ public class FileWriter extends Consumer implements IFileWriter
 	/**
      *
      */
-    public class Options extends IFileWriter.Options
+    public class Options extends IFileWriter.AsyncOptions
     {
         public final Option<String> separator = new Option<>("separator", FileCons.DELIMITER_DIMENSION, String.class, "");
-        public final Option<Cons.FileType> type = new Option<>("type", Cons.FileType.ASCII, Cons.FileType.class, "file type (ASCII or BINARY)");
+        public final Option<Cons.FileType> type = new Option<>("type", Cons.FileType.ASCII, Cons.FileType.class, "file type (ASCII, BINARY or COMPRESSED)");
         public final Option<Boolean> merge = new Option<>("merge", true, Boolean.class, "merge multiple input streams");
+        public final Option<AsciiFormatter.Format> format = new Option<>("format", AsciiFormatter.Format.JAVA, AsciiFormatter.Format.class, "formatting of floating point values in ASCII files (JAVA is lossless, SSI and COMPACT use a fixed number of decimals)");
+        public final Option<Integer> precision = new Option<>("precision", 6, Integer.class, "number of decimals of floating point values in ASCII files (SSI and COMPACT format only)");
+        public final Option<Double> chunk = new Option<>("chunk", 1.0, Double.class, "length of the independently decodable chunks of COMPRESSED files (in seconds)");
 
         /**
          *
@@ -89,14 +92,27 @@ public class FileWriter extends Consumer implements IFileWriter
     private Cons.FileType fileType;
     private FileOutputStream fileOutputStream = null;
     private FileOutputStream fileOutputStreamHeader = null;
-    private BufferedOutputStream byteStream;
+    private OutputStream dataStream;
     private byte[] buffer;
 
     private int sampleCount = 0;
     private SimpleHeader simpleHeader;
-    private StringBuilder stringBuilder;
+    private AsciiFormatter formatter;
+    private byte[] separator;
+    private byte[] delimiter;
     private File file;
 
+    private AsyncWriter asyncWriter;
+
+    private ChunkCodec codec;
+    private byte[] chunkBuffer;
+    private byte[] encoded;
+    private int chunkSamples;
+    private int chunkFill;
+    private long chunkStart;
+    private long dataOffset;
+    private ArrayList<long[]> chunks = new ArrayList<>();
+
     private Merge merge = null;
     private Stream stream_merged;
 
@@ -169,13 +185,29 @@ public class FileWriter extends Consumer implements IFileWriter
 
         sampleCount = 0;
         fileOutputStream = getFileConnection(fileReal, fileOutputStream);
+        dataStream = (fileOutputStream != null) ? AsyncWriter.create(fileOutputStream, options, _name) : null;
+        asyncWriter = (dataStream instanceof AsyncWriter) ? (AsyncWriter) dataStream : null;
 
         if(fileType == Cons.FileType.BINARY) {
-            byteStream = new BufferedOutputStream(fileOutputStream);
             buffer = new byte[stream.tot];
         }
         else if(fileType == Cons.FileType.ASCII) {
-            stringBuilder = new StringBuilder();
+            //reserve enough room for a whole frame of the largest values
+            formatter = new AsciiFormatter(options.format.get(), options.precision.get(), stream.num * (stream.dim * 32 + 2));
+            separator = options.separator.get().getBytes();
+            delimiter = FileCons.DELIMITER_LINE.getBytes();
+        }
+        else if(fileType == Cons.FileType.COMPRESSED) {
+            //chunks always hold a whole number of input frames
+            int frames = Math.max(1, (int) (options.chunk.get() * stream.sr / stream.num + 0.5));
+            chunkSamples = frames * stream.num;
+            chunkBuffer = new byte[chunkSamples * stream.dim * stream.bytes];
+            codec = new ChunkCodec(stream.type, stream.bytes, stream.dim);
+            encoded = new byte[ChunkCodec.HEADER_BYTES + codec.maxEncodedSize(chunkSamples)];
+            chunkFill = 0;
+            chunkStart = 0;
+            dataOffset = 0;
+            chunks.clear();
         }
     }
 
@@ -193,27 +225,24 @@ public class FileWriter extends Consumer implements IFileWriter
             input = stream_merged;
         }
         
-        if (fileType == Cons.FileType.ASCII)
-        {
-            stringBuilder.delete(0, stringBuilder.length());
-        }
-
         if(fileType == Cons.FileType.ASCII)
         {
+            formatter.reset();
+
             switch (input.type)
             {
                 case BOOL:
                 {
                     boolean[] in = input.ptrBool();
-                    for (int i = 0, j = 0; i < input.num; i++) {
-                        for (int k = 0; k < input.dim; k++, j++) {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
+                    for (int i = 0, j = 0; i < input.num; i++)
+                    {
+                        for (int k = 0; k < input.dim; k++, j++)
+                        {
+                            formatter.put(in[j]);
+                            formatter.put(separator);
                         }
-                        stringBuilder.append(FileCons.DELIMITER_LINE);
+                        formatter.put(delimiter);
                     }
-                    sampleCount += input.num;
-                    write(stringBuilder.toString(), fileOutputStream);
                     break;
                 }
                 case BYTE:
@@ -223,13 +252,11 @@ public class FileWriter extends Consumer implements IFileWriter
                     {
                         for (int k = 0; k < input.dim; k++, j++)
                         {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
+                            formatter.put(in[j]);
+                            formatter.put(separator);
                         }
-                        stringBuilder.append(FileCons.DELIMITER_LINE);
+                        formatter.put(delimiter);
                     }
-                    sampleCount += input.num;
-                    write(stringBuilder.toString(), fileOutputStream);
                     break;
                 }
                 case CHAR:
@@ -239,13 +266,11 @@ public class FileWriter extends Consumer implements IFileWriter
                     {
                         for (int k = 0; k < input.dim; k++, j++)
                         {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
+                            formatter.put(in[j]);
+                            formatter.put(separator);
                         }
-                        stringBuilder.append(FileCons.DELIMITER_LINE);
+                        formatter.put(delimiter);
                     }
-                    sampleCount += input.num;
-                    write(stringBuilder.toString(), fileOutputStream);
                     break;
                 }
                 case SHORT:
@@ -255,13 +280,11 @@ public class FileWriter extends Consumer implements IFileWriter
                     {
                         for (int k = 0; k < input.dim; k++, j++)
                         {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
+                            formatter.put(in[j]);
+                            formatter.put(separator);
                         }
-                        stringBuilder.append(FileCons.DELIMITER_LINE);
+                        formatter.put(delimiter);
                     }
-                    sampleCount += input.num;
-                    write(stringBuilder.toString(), fileOutputStream);
                     break;
                 }
                 case INT:
@@ -271,13 +294,11 @@ public class FileWriter extends Consumer implements IFileWriter
                     {
                         for (int k = 0; k < input.dim; k++, j++)
                         {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
+                            formatter.put(in[j]);
+                            formatter.put(separator);
                         }
-                        stringBuilder.append(FileCons.DELIMITER_LINE);
+                        formatter.put(delimiter);
                     }
-                    sampleCount += input.num;
-                    write(stringBuilder.toString(), fileOutputStream);
                     break;
                 }
                 case LONG:
@@ -287,13 +308,11 @@ public class FileWriter extends Consumer implements IFileWriter
                     {
                         for (int k = 0; k < input.dim; k++, j++)
                         {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
+                            formatter.put(in[j]);
+                            formatter.put(separator);
                         }
-                        stringBuilder.append(FileCons.DELIMITER_LINE);
+                        formatter.put(delimiter);
                     }
-                    sampleCount += input.num;
-                    write(stringBuilder.toString(), fileOutputStream);
                     break;
                 }
                 case FLOAT:
@@ -303,13 +322,11 @@ public class FileWriter extends Consumer implements IFileWriter
                     {
                         for (int k = 0; k < input.dim; k++, j++)
                         {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
+                            formatter.put(in[j]);
+                            formatter.put(separator);
                         }
-                        stringBuilder.append(FileCons.DELIMITER_LINE);
+                        formatter.put(delimiter);
                     }
-                    sampleCount += input.num;
-                    write(stringBuilder.toString(), fileOutputStream);
                     break;
                 }
                 case DOUBLE:
@@ -319,26 +336,67 @@ public class FileWriter extends Consumer implements IFileWriter
                     {
                         for (int k = 0; k < input.dim; k++, j++)
                         {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
+                            formatter.put(in[j]);
+                            formatter.put(separator);
                         }
-                        stringBuilder.append(FileCons.DELIMITER_LINE);
+                        formatter.put(delimiter);
                     }
-                    sampleCount += input.num;
-                    write(stringBuilder.toString(), fileOutputStream);
                     break;
                 }
                 default:
                     Log.w("unsupported data type");
-                    break;
+                    return;
             }
+
+            sampleCount += input.num;
+            write(formatter.getBuffer(), formatter.size(), dataStream);
         }
         else if(fileType == Cons.FileType.BINARY)
         {
             sampleCount += input.num;
             Util.arraycopy(input.ptr(), 0, buffer, 0, input.tot);
-            write(buffer, byteStream);
+            write(buffer, input.tot, dataStream);
         }
+        else if(fileType == Cons.FileType.COMPRESSED)
+        {
+            sampleCount += input.num;
+            Util.arraycopy(input.ptr(), 0, chunkBuffer, chunkFill * input.dim * input.bytes, input.tot);
+            chunkFill += input.num;
+            if (chunkFill == chunkSamples)
+            {
+                writeChunk();
+            }
+        }
+    }
+
+    /**
+     * Compresses the buffered samples and appends them to the data file
+     */
+    private void writeChunk()
+    {
+        if (chunkFill == 0)
+        {
+            return;
+        }
+
+        int size = codec.encode(chunkBuffer, chunkFill, encoded, ChunkCodec.HEADER_BYTES);
+        ChunkCodec.putInt(encoded, 0, size);
+        ChunkCodec.putInt(encoded, 4, chunkFill);
+        write(encoded, ChunkCodec.HEADER_BYTES + size, dataStream);
+
+        chunks.add(new long[]{chunkStart, chunkFill, dataOffset});
+        dataOffset += ChunkCodec.HEADER_BYTES + size;
+        chunkStart += chunkFill;
+        chunkFill = 0;
+    }
+
+    /**
+     * @return I/O thread of the current or last recording with its queue depth and stall statistics,
+     * null if the file is written synchronously
+     */
+    public AsyncWriter getAsyncWriter()
+    {
+        return asyncWriter;
     }
 
     /**
@@ -354,10 +412,16 @@ public class FileWriter extends Consumer implements IFileWriter
             input = stream_merged;
         }
 
-        if(fileType == Cons.FileType.BINARY)
-            byteStream = (BufferedOutputStream)closeStream(byteStream);
+        if (fileType == Cons.FileType.COMPRESSED)
+        {
+            writeChunk();
+            codec.close();
+            codec = null;
+        }
 
-        fileOutputStream = (FileOutputStream)closeStream(fileOutputStream);
+        //also closes the file stream
+        dataStream = closeStream(dataStream);
+        fileOutputStream = null;
 
         writeHeader(input);
         fileOutputStreamHeader = (FileOutputStream)closeStream(fileOutputStreamHeader);
@@ -388,9 +452,24 @@ public class FileWriter extends Consumer implements IFileWriter
         writeLine(simpleHeader.getLine3(), fileOutputStreamHeader);
         writeLine(simpleHeader.getLine4(), fileOutputStreamHeader);
 
-        simpleHeader._num = String.valueOf(sampleCount);
-        simpleHeader._to = String.valueOf(stream.time + stream.num / stream.sr);
-        writeLine(simpleHeader.getLine5(), fileOutputStreamHeader);
+        if (fileType == Cons.FileType.COMPRESSED)
+        {
+            //one entry per chunk, the byte attribute points to the chunk in the data file
+            for (long[] chunk : chunks)
+            {
+                simpleHeader._from = String.valueOf(chunk[0] / stream.sr);
+                simpleHeader._to = String.valueOf((chunk[0] + chunk[1]) / stream.sr);
+                simpleHeader._byte2 = String.valueOf(chunk[2]);
+                simpleHeader._num = String.valueOf(chunk[1]);
+                writeLine(simpleHeader.getLine5(), fileOutputStreamHeader);
+            }
+        }
+        else
+        {
+            simpleHeader._num = String.valueOf(sampleCount);
+            simpleHeader._to = String.valueOf(stream.time + stream.num / stream.sr);
+            writeLine(simpleHeader.getLine5(), fileOutputStreamHeader);
+        }
         writeLine(simpleHeader.getLine6(), fileOutputStreamHeader);
     }
 
@@ -433,33 +512,16 @@ public class FileWriter extends Consumer implements IFileWriter
 
     /**
      * @param data   byte[]
-     * @param stream BufferedOutputStream
-     */
-    private void write(byte[] data, BufferedOutputStream stream)
-    {
-        if (data != null)
-        {
-            try
-            {
-                stream.write(data);
-            } catch (IOException e)
-            {
-                Log.e("could not write data", e);
-            }
-        }
-    }
-
-    /**
-     * @param line   String
-     * @param stream FileOutputStream
+     * @param length int
+     * @param stream OutputStream
      */
-    private void write(String line, FileOutputStream stream)
+    private void write(byte[] data, int length, OutputStream stream)
     {
         if (stream != null)
         {
             try
             {
-                stream.write(line.getBytes());
+                stream.write(data, 0, length);
             } catch (IOException e)
             {
                 Log.e("could not write data", e);
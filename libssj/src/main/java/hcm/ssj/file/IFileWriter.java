@@ -55,4 +55,25 @@ public interface IFileWriter
             addOptions();
         }
     }
+
+    /**
+     * Standard options of writers which support asynchronous writing
+     */
+    class AsyncOptions extends Options
+    {
+        public final Option<Boolean> async = new Option<>("async", true, Boolean.class, "write to file from a separate thread");
+        public final Option<Integer> asyncBuffers = new Option<>("asyncBuffers", 4, Integer.class, "number of buffers which can be queued for the writer thread");
+        public final Option<Integer> asyncBufferSize = new Option<>("asyncBufferSize", 64, Integer.class, "size of each buffer (in KB)");
+        public final Option<Double> flushInterval = new Option<>("flushInterval", 1.0, Double.class, "hand over partially filled buffers after this time (in seconds, 0 = only when full)");
+        public final Option<Double> syncInterval = new Option<>("syncInterval", 0.0, Double.class, "force data to the storage device after this time (in seconds, 0 = never)");
+
+        /**
+         *
+         */
+        protected AsyncOptions()
+        {
+            super();
+            addOptions();
+        }
+    }
 }
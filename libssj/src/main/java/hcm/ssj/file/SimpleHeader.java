@@ -46,7 +46,7 @@ class SimpleHeader
     protected String _system = "00/00/00 00:00:00:0";
     protected String _from = "0.0";
     protected String _to = "0.0";
-    private final static String _byte2 = "0";
+    protected String _byte2 = "0";
     protected String _num = "0";
 
     /**
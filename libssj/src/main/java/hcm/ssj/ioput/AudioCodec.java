@@ -0,0 +1,644 @@
+/*
+ * AudioCodec.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+package hcm.ssj.ioput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Packet codec for 16 bit audio which is streamed by AudioSocketWriter and received by AudioSocketReader.<br>
+ * Every packet starts with a header (magic, codec, dimension, sequence number, number of samples and
+ * position of the first sample) and can be decoded on its own, hence lost packets do not affect the following ones.
+ * Channels are coded one after another.
+ * <ul>
+ * <li>PCM: raw big endian samples</li>
+ * <li>ADPCM: IMA-ADPCM, 4 bits per sample, the predictor state is stored at the beginning of each channel</li>
+ * <li>LOSSLESS: FLAC-style fixed polynomial predictor (order 0-4, chosen per channel) with Rice coded residuals</li>
+ * </ul>
+ */
+public class AudioCodec
+{
+	public enum Type
+	{
+		PCM,
+		ADPCM,
+		LOSSLESS
+	}
+
+	public static final int HEADER_BYTES = 20;
+	private static final byte MAGIC = 0x41;
+
+	private static final int MAX_ORDER = 4;
+	private static final int VERBATIM = 0xFF;
+
+	private static final int[] INDEX_TABLE = {
+			-1, -1, -1, -1, 2, 4, 6, 8,
+			-1, -1, -1, -1, 2, 4, 6, 8
+	};
+
+	private static final int[] STEP_TABLE = {
+			7, 8, 9, 10, 11, 12, 13, 14, 16, 17,
+			19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+			50, 55, 60, 66, 73, 80, 88, 97, 107, 118,
+			130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+			337, 371, 408, 449, 494, 544, 598, 658, 724, 796,
+			876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+			2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358,
+			5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899,
+			15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+	};
+
+	private final Type type;
+	private final int dim;
+
+	// encoder state of the ADPCM step index, carried over to the next packet
+	private final int[] stepIndex;
+	private final long[] errors = new long[MAX_ORDER + 1];
+	private int[] residuals = new int[0];
+
+	// bit writer/reader state
+	private long bits;
+	private int numBits;
+	private byte[] buf;
+	private int bufPos;
+
+	/**
+	 * @param type codec
+	 * @param dim  number of audio channels
+	 */
+	public AudioCodec(Type type, int dim)
+	{
+		this.type = type;
+		this.dim = dim;
+		this.stepIndex = new int[dim];
+	}
+
+	/**
+	 * @param num number of samples per channel
+	 * @return size of a buffer which is guaranteed to hold an encoded packet
+	 */
+	public int maxEncodedSize(int num)
+	{
+		return HEADER_BYTES + dim * (4 + 2 * num);
+	}
+
+	/**
+	 * Encodes interleaved samples into a packet
+	 *
+	 * @param samples  interleaved samples
+	 * @param num      number of samples per channel
+	 * @param seq      sequence number of the packet
+	 * @param position index of the first sample since the beginning of the stream
+	 * @param out      packet buffer, at least maxEncodedSize(num) bytes
+	 * @return packet size in bytes
+	 */
+	public int encode(short[] samples, int num, int seq, long position, byte[] out)
+	{
+		out[0] = MAGIC;
+		out[1] = (byte) type.ordinal();
+		out[2] = (byte) dim;
+		out[3] = 0;
+		putInt(out, 4, seq);
+		putInt(out, 8, num);
+		putInt(out, 12, (int) (position >>> 32));
+		putInt(out, 16, (int) position);
+
+		int pos = HEADER_BYTES;
+		for (int d = 0; d < dim; d++)
+		{
+			switch (type)
+			{
+				case PCM:
+					for (int i = d; i < num * dim; i += dim)
+					{
+						out[pos++] = (byte) (samples[i] >> 8);
+						out[pos++] = (byte) samples[i];
+					}
+					break;
+				case ADPCM:
+					pos = encodeAdpcm(samples, num, d, out, pos);
+					break;
+				case LOSSLESS:
+					pos = encodeLossless(samples, num, d, out, pos);
+					break;
+			}
+		}
+
+		return pos;
+	}
+
+	/**
+	 * Decodes a packet into interleaved samples
+	 *
+	 * @param packet  packet buffer
+	 * @param length  packet size in bytes
+	 * @param samples output, at least getNumSamples(packet) * dim values
+	 * @return number of samples per channel
+	 */
+	public int decode(byte[] packet, int length, short[] samples) throws IOException
+	{
+		if (length < HEADER_BYTES || packet[0] != MAGIC)
+		{
+			throw new IOException("invalid audio packet");
+		}
+		if (packet[1] != type.ordinal() || packet[2] != dim)
+		{
+			throw new IOException("unexpected audio format (codec " + packet[1] + ", dim " + packet[2] + ")");
+		}
+
+		int num = getNumSamples(packet);
+		if (num < 0 || num * dim > samples.length)
+		{
+			throw new IOException("audio packet too large (" + num + " samples)");
+		}
+
+		try
+		{
+			int pos = HEADER_BYTES;
+			for (int d = 0; d < dim; d++)
+			{
+				switch (type)
+				{
+					case PCM:
+						for (int i = d; i < num * dim; i += dim)
+						{
+							samples[i] = (short) ((packet[pos] << 8) | (packet[pos + 1] & 0xFF));
+							pos += 2;
+						}
+						break;
+					case ADPCM:
+						pos = decodeAdpcm(packet, pos, num, d, samples);
+						break;
+					case LOSSLESS:
+						pos = decodeLossless(packet, pos, num, d, samples);
+						break;
+				}
+
+				if (pos > length)
+				{
+					throw new IOException("truncated audio packet");
+				}
+			}
+		}
+		catch (ArrayIndexOutOfBoundsException e)
+		{
+			throw new IOException("truncated audio packet", e);
+		}
+
+		return num;
+	}
+
+	public static int getSequence(byte[] packet)
+	{
+		return getInt(packet, 4);
+	}
+
+	public static int getNumSamples(byte[] packet)
+	{
+		return getInt(packet, 8);
+	}
+
+	public static long getPosition(byte[] packet)
+	{
+		return ((long) getInt(packet, 12) << 32) | (getInt(packet, 16) & 0xFFFFFFFFL);
+	}
+
+	private int encodeAdpcm(short[] samples, int num, int d, byte[] out, int pos)
+	{
+		if (num == 0)
+		{
+			return pos;
+		}
+
+		int predictor = samples[d];
+		int index = stepIndex[d];
+
+		out[pos++] = (byte) (predictor >> 8);
+		out[pos++] = (byte) predictor;
+		out[pos++] = (byte) index;
+		out[pos++] = 0;
+
+		int packed = 0;
+		boolean high = false;
+		for (int i = d + dim; i < num * dim; i += dim)
+		{
+			int step = STEP_TABLE[index];
+			int diff = samples[i] - predictor;
+
+			int nibble = 0;
+			if (diff < 0)
+			{
+				nibble = 8;
+				diff = -diff;
+			}
+
+			// same rounding as the decoder, so that both predictors stay in sync
+			int delta = step >> 3;
+			if (diff >= step)
+			{
+				nibble |= 4;
+				diff -= step;
+				delta += step;
+			}
+			if (diff >= step >> 1)
+			{
+				nibble |= 2;
+				diff -= step >> 1;
+				delta += step >> 1;
+			}
+			if (diff >= step >> 2)
+			{
+				nibble |= 1;
+				delta += step >> 2;
+			}
+
+			predictor += ((nibble & 8) != 0) ? -delta : delta;
+			if (predictor > Short.MAX_VALUE)
+			{
+				predictor = Short.MAX_VALUE;
+			}
+			else if (predictor < Short.MIN_VALUE)
+			{
+				predictor = Short.MIN_VALUE;
+			}
+
+			index += INDEX_TABLE[nibble];
+			if (index < 0)
+			{
+				index = 0;
+			}
+			else if (index > 88)
+			{
+				index = 88;
+			}
+
+			if (high)
+			{
+				out[pos++] = (byte) (packed | (nibble << 4));
+			}
+			else
+			{
+				packed = nibble;
+			}
+			high = !high;
+		}
+
+		if (high)
+		{
+			out[pos++] = (byte) packed;
+		}
+
+		stepIndex[d] = index;
+		return pos;
+	}
+
+	private int decodeAdpcm(byte[] in, int pos, int num, int d, short[] samples) throws IOException
+	{
+		if (num == 0)
+		{
+			return pos;
+		}
+
+		int predictor = (short) ((in[pos] << 8) | (in[pos + 1] & 0xFF));
+		int index = in[pos + 2];
+		pos += 4;
+
+		if (index < 0 || index > 88)
+		{
+			throw new IOException("invalid ADPCM step index " + index);
+		}
+
+		samples[d] = (short) predictor;
+
+		boolean high = false;
+		for (int i = d + dim; i < num * dim; i += dim)
+		{
+			int nibble;
+			if (high)
+			{
+				nibble = (in[pos++] >> 4) & 0x0F;
+			}
+			else
+			{
+				nibble = in[pos] & 0x0F;
+			}
+			high = !high;
+
+			int step = STEP_TABLE[index];
+			int delta = step >> 3;
+			if ((nibble & 4) != 0)
+			{
+				delta += step;
+			}
+			if ((nibble & 2) != 0)
+			{
+				delta += step >> 1;
+			}
+			if ((nibble & 1) != 0)
+			{
+				delta += step >> 2;
+			}
+
+			predictor += ((nibble & 8) != 0) ? -delta : delta;
+			if (predictor > Short.MAX_VALUE)
+			{
+				predictor = Short.MAX_VALUE;
+			}
+			else if (predictor < Short.MIN_VALUE)
+			{
+				predictor = Short.MIN_VALUE;
+			}
+
+			index += INDEX_TABLE[nibble];
+			if (index < 0)
+			{
+				index = 0;
+			}
+			else if (index > 88)
+			{
+				index = 88;
+			}
+
+			samples[i] = (short) predictor;
+		}
+
+		if (high)
+		{
+			pos++;
+		}
+
+		return pos;
+	}
+
+	private int encodeLossless(short[] samples, int num, int d, byte[] out, int pos)
+	{
+		// pick the fixed predictor with the smallest sum of absolute residuals
+		long[] error = errors;
+		Arrays.fill(error, 0);
+		int e1 = 0, e2 = 0, e3 = 0;
+		int prev0 = 0, prev1 = 0, prev2 = 0, prev3 = 0;
+		for (int n = 0, i = d; n < num; n++, i += dim)
+		{
+			int x = samples[i];
+			int r1 = x - prev0;
+			int r2 = r1 - e1;
+			int r3 = r2 - e2;
+			int r4 = r3 - e3;
+
+			if (n >= MAX_ORDER)
+			{
+				error[0] += Math.abs(x);
+				error[1] += Math.abs(r1);
+				error[2] += Math.abs(r2);
+				error[3] += Math.abs(r3);
+				error[4] += Math.abs(r4);
+			}
+
+			prev0 = x;
+			e1 = r1;
+			e2 = r2;
+			e3 = r3;
+		}
+
+		int order = 0;
+		for (int o = 1; o <= MAX_ORDER; o++)
+		{
+			if (error[o] < error[order])
+			{
+				order = o;
+			}
+		}
+		if (order > num)
+		{
+			order = num;
+		}
+
+		if (residuals.length < num)
+		{
+			residuals = new int[num];
+		}
+
+		int count = 0;
+		long sum = 0;
+		for (int n = order, i = d + order * dim; n < num; n++, i += dim)
+		{
+			int r = residual(samples, i, order);
+			int u = (r << 1) ^ (r >> 31);
+			residuals[count++] = u;
+			sum += u;
+		}
+
+		// Rice parameter from the mean of the folded residuals
+		int k = 0;
+		if (count > 0)
+		{
+			long mean = sum / count;
+			while (k < 30 && (1L << (k + 1)) <= mean)
+			{
+				k++;
+			}
+		}
+
+		long size = (long) (k + 1) * count;
+		for (int n = 0; n < count; n++)
+		{
+			size += residuals[n] >>> k;
+		}
+
+		if (size > 16L * (num - order))
+		{
+			out[pos++] = (byte) VERBATIM;
+			out[pos++] = 0;
+			for (int n = 0, i = d; n < num; n++, i += dim)
+			{
+				out[pos++] = (byte) (samples[i] >> 8);
+				out[pos++] = (byte) samples[i];
+			}
+			return pos;
+		}
+
+		out[pos++] = (byte) order;
+		out[pos++] = (byte) k;
+		for (int n = 0, i = d; n < order; n++, i += dim)
+		{
+			out[pos++] = (byte) (samples[i] >> 8);
+			out[pos++] = (byte) samples[i];
+		}
+
+		startBits(out, pos);
+		for (int n = 0; n < count; n++)
+		{
+			int u = residuals[n];
+			int q = u >>> k;
+			while (q >= 32)
+			{
+				writeBits(0, 32);
+				q -= 32;
+			}
+			writeBits(1, q + 1);
+			if (k > 0)
+			{
+				writeBits(u & ((1 << k) - 1), k);
+			}
+		}
+		return endBits();
+	}
+
+	private int decodeLossless(byte[] in, int pos, int num, int d, short[] samples) throws IOException
+	{
+		int order = in[pos++] & 0xFF;
+		int k = in[pos++];
+
+		if (order == VERBATIM)
+		{
+			order = num;
+		}
+		else if (order > MAX_ORDER || k < 0 || k > 30)
+		{
+			throw new IOException("invalid predictor (order " + order + ", rice " + k + ")");
+		}
+
+		int warmup = Math.min(order, num);
+		for (int n = 0, i = d; n < warmup; n++, i += dim)
+		{
+			samples[i] = (short) ((in[pos] << 8) | (in[pos + 1] & 0xFF));
+			pos += 2;
+		}
+
+		if (warmup == num)
+		{
+			return pos;
+		}
+
+		startBits(in, pos);
+		for (int n = order, i = d + order * dim; n < num; n++, i += dim)
+		{
+			int q = 0;
+			while (readBit() == 0)
+			{
+				q++;
+			}
+
+			int u = (q << k) | (k > 0 ? readBits(k) : 0);
+			int r = (u >>> 1) ^ -(u & 1);
+
+			samples[i] = (short) (r + prediction(samples, i, order));
+		}
+		return bufPos;
+	}
+
+	private int residual(short[] s, int i, int order)
+	{
+		return s[i] - prediction(s, i, order);
+	}
+
+	private int prediction(short[] s, int i, int order)
+	{
+		switch (order)
+		{
+			case 0:
+				return 0;
+			case 1:
+				return s[i - dim];
+			case 2:
+				return 2 * s[i - dim] - s[i - 2 * dim];
+			case 3:
+				return 3 * s[i - dim] - 3 * s[i - 2 * dim] + s[i - 3 * dim];
+			default:
+				return 4 * s[i - dim] - 6 * s[i - 2 * dim] + 4 * s[i - 3 * dim] - s[i - 4 * dim];
+		}
+	}
+
+	private void startBits(byte[] b, int pos)
+	{
+		buf = b;
+		bufPos = pos;
+		bits = 0;
+		numBits = 0;
+	}
+
+	private void writeBits(int value, int n)
+	{
+		bits = (bits << n) | (value & 0xFFFFFFFFL);
+		numBits += n;
+		while (numBits >= 8)
+		{
+			numBits -= 8;
+			buf[bufPos++] = (byte) (bits >>> numBits);
+		}
+	}
+
+	/**
+	 * Pads the last byte with zeros
+	 *
+	 * @return position after the written bits
+	 */
+	private int endBits()
+	{
+		if (numBits > 0)
+		{
+			buf[bufPos++] = (byte) (bits << (8 - numBits));
+		}
+		buf = null;
+		return bufPos;
+	}
+
+	private int readBit()
+	{
+		if (numBits == 0)
+		{
+			bits = buf[bufPos++] & 0xFF;
+			numBits = 8;
+		}
+		numBits--;
+		return (int) (bits >>> numBits) & 1;
+	}
+
+	private int readBits(int n)
+	{
+		while (numBits < n)
+		{
+			bits = (bits << 8) | (buf[bufPos++] & 0xFF);
+			numBits += 8;
+		}
+		numBits -= n;
+		return (int) (bits >>> numBits) & ((1 << n) - 1);
+	}
+
+	private static void putInt(byte[] dst, int pos, int value)
+	{
+		dst[pos] = (byte) (value >>> 24);
+		dst[pos + 1] = (byte) (value >>> 16);
+		dst[pos + 2] = (byte) (value >>> 8);
+		dst[pos + 3] = (byte) value;
+	}
+
+	private static int getInt(byte[] src, int pos)
+	{
+		return (src[pos] << 24) | ((src[pos + 1] & 0xFF) << 16) | ((src[pos + 2] & 0xFF) << 8) | (src[pos + 3] & 0xFF);
+	}
+}
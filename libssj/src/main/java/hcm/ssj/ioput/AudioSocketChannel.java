@@ -0,0 +1,150 @@
+/*
+ * AudioSocketChannel.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+package hcm.ssj.ioput;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.SensorChannel;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Provides the audio stream received by an AudioSocketReader as SHORT or FLOAT (-1 to 1) samples.
+ */
+public class AudioSocketChannel extends SensorChannel
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		public final Option<Integer> dim = new Option<>("dim", 1, Integer.class, "number of audio channels, must match that of the writer");
+		public final Option<Double> sr = new Option<>("sr", 16000., Double.class, "must match that of the writer");
+		public final Option<Integer> num = new Option<>("num", 320, Integer.class, "number of samples per frame");
+		public final Option<Cons.Type> type = new Option<>("type", Cons.Type.SHORT, Cons.Type.class, "SHORT or FLOAT");
+		public final Option<String[]> outputClass = new Option<>("outputClass", null, String[].class, "Describes the output names for every dimension in e.g. a graph");
+
+		/**
+		 *
+		 */
+		private Options()
+		{
+			addOptions();
+		}
+	}
+
+	public final Options options = new Options();
+
+	private short[] _samples;
+
+	public AudioSocketChannel()
+	{
+		_name = "AudioSocketReader_Data";
+	}
+
+	@Override
+	public void enter(Stream stream_out) throws SSJFatalException
+	{
+		if (stream_out.type != Cons.Type.SHORT && stream_out.type != Cons.Type.FLOAT)
+		{
+			throw new SSJFatalException("output type must be SHORT or FLOAT");
+		}
+
+		_samples = new short[stream_out.num * stream_out.dim];
+	}
+
+	@Override
+	protected boolean process(Stream stream_out) throws SSJFatalException
+	{
+		AudioSocketReader reader = (AudioSocketReader) _sensor;
+
+		if (!reader.isStreaming() || !reader.read(_samples, stream_out.num))
+		{
+			return false;
+		}
+
+		if (stream_out.type == Cons.Type.SHORT)
+		{
+			System.arraycopy(_samples, 0, stream_out.ptrS(), 0, _samples.length);
+		}
+		else
+		{
+			float[] dst = stream_out.ptrF();
+			for (int i = 0; i < _samples.length; i++)
+			{
+				dst[i] = _samples[i] / 32768.0f;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public int getSampleDimension()
+	{
+		return options.dim.get();
+	}
+
+	@Override
+	public double getSampleRate()
+	{
+		return options.sr.get();
+	}
+
+	@Override
+	public int getSampleNumber()
+	{
+		return options.num.get();
+	}
+
+	@Override
+	public Cons.Type getSampleType()
+	{
+		return options.type.get();
+	}
+
+	@Override
+	public void describeOutput(Stream stream_out)
+	{
+		stream_out.desc = new String[stream_out.dim];
+		if (options.outputClass.get() == null || stream_out.dim != options.outputClass.get().length)
+		{
+			for (int i = 0; i < stream_out.desc.length; i++)
+			{
+				stream_out.desc[i] = "Audio";
+			}
+		}
+		else
+		{
+			System.arraycopy(options.outputClass.get(), 0, stream_out.desc, 0, options.outputClass.get().length);
+		}
+	}
+}
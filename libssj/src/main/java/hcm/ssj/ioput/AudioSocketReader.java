@@ -0,0 +1,427 @@
+/*
+ * AudioSocketReader.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+package hcm.ssj.ioput;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.Sensor;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Receives audio packets sent by an AudioSocketWriter.<br>
+ * Packets are decoded into a ring buffer at the position of their first sample. Gaps left by lost
+ * packets are filled with silence, late packets are inserted if they have not been read yet.
+ * The AudioSocketChannel starts reading once the jitter buffer holds enough samples, so that the output
+ * stream keeps its sample rate even if packets arrive irregularly.
+ */
+public class AudioSocketReader extends Sensor
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		public final Option<String> ip = new Option<>("ip", null, String.class, "");
+		public final Option<Integer> port = new Option<>("port", 34300, Integer.class, "");
+		public final Option<Cons.SocketType> type = new Option<>("type", Cons.SocketType.UDP, Cons.SocketType.class, "");
+		public final Option<AudioCodec.Type> codec = new Option<>("codec", AudioCodec.Type.ADPCM, AudioCodec.Type.class, "must match that of the writer");
+		public final Option<Float> latency = new Option<>("latency", 0.2f, Float.class, "jitter buffer in seconds, audio is delayed by this amount");
+		public final Option<Float> bufferSize = new Option<>("bufferSize", 2.0f, Float.class, "size of the receive buffer in seconds");
+
+		/**
+		 *
+		 */
+		private Options()
+		{
+			addOptions();
+		}
+	}
+	public final Options options = new Options();
+
+	// timeout of blocking reads, allows the sensor thread to terminate
+	private static final int TIMEOUT = 1000;
+
+	private DatagramSocket _socket_udp = null;
+	private ServerSocket _server_tcp = null;
+	private Socket _client_tcp = null;
+	private DataInputStream _in;
+
+	private AudioCodec _codec;
+	private DatagramPacket _datagram;
+	private byte[] _packet;
+	private short[] _frame;
+
+	private final Object _lock = new Object();
+	private short[] _ring;
+	private int _capacity;
+	private int _dim;
+	private int _prebuffer;
+	private long _readPos;
+	private long _writePos;
+	private boolean _synced;
+	private boolean _started;
+	private int _lastSeq;
+
+	private long _lostPackets;
+	private long _latePackets;
+	private long _underruns;
+
+	boolean _connected = false;
+
+	public AudioSocketReader()
+	{
+		_name = "AudioSocketReader";
+	}
+
+	@Override
+	public boolean connect() throws SSJFatalException
+	{
+		_connected = false;
+		_socket_udp = null;
+		_server_tcp = null;
+		_client_tcp = null;
+
+		if (_provider.size() != 1 || !(_provider.get(0) instanceof AudioSocketChannel))
+		{
+			throw new SSJFatalException("exactly one AudioSocketChannel is required");
+		}
+
+		Stream stream = _provider.get(0).getOutputStream();
+		_dim = stream.dim;
+		_capacity = Math.max((int) (options.bufferSize.get() * stream.sr), 2 * stream.num);
+		_prebuffer = Math.min((int) (options.latency.get() * stream.sr), _capacity - stream.num);
+		_ring = new short[_capacity * _dim];
+		_frame = new short[_capacity * _dim];
+		_codec = new AudioCodec(options.codec.get(), _dim);
+		_packet = new byte[_codec.maxEncodedSize(_capacity)];
+
+		synchronized (_lock)
+		{
+			_synced = false;
+			_started = false;
+		}
+		_lostPackets = 0;
+		_latePackets = 0;
+		_underruns = 0;
+
+		Log.i("setting up socket (" + options.ip.get() + "@" + options.port.get() + " / " + options.type.get().toString() + ")");
+
+		if (options.ip.get() == null)
+		{
+			try
+			{
+				options.ip.set(Util.getIPAddress(true));
+			}
+			catch (SocketException e)
+			{
+				throw new SSJFatalException("unable to determine local IP address", e);
+			}
+		}
+
+		try
+		{
+			InetAddress addr = InetAddress.getByName(options.ip.get());
+			InetSocketAddress saddr = new InetSocketAddress(addr, options.port.get());
+
+			switch (options.type.get())
+			{
+				case UDP:
+					_socket_udp = new DatagramSocket(null);
+					_socket_udp.setReuseAddress(true);
+					_socket_udp.setSoTimeout(TIMEOUT);
+					_socket_udp.bind(saddr);
+					_datagram = new DatagramPacket(_packet, _packet.length);
+					break;
+				case TCP:
+					_server_tcp = new ServerSocket(options.port.get());
+					Log.i("waiting for client ... ");
+					_client_tcp = _server_tcp.accept();
+					_client_tcp.setSoTimeout(TIMEOUT);
+					_in = new DataInputStream(new BufferedInputStream(_client_tcp.getInputStream()));
+					break;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new SSJFatalException("ERROR: cannot bind/connect socket", e);
+		}
+
+		_connected = true;
+
+		Log.i("socket connected");
+
+		return true;
+	}
+
+	@Override
+	protected void update() throws SSJFatalException
+	{
+		if (!_connected)
+		{
+			return;
+		}
+
+		int length;
+		try
+		{
+			switch (options.type.get())
+			{
+				case UDP:
+					_datagram.setLength(_packet.length);
+					_socket_udp.receive(_datagram);
+					length = _datagram.getLength();
+					break;
+				case TCP:
+					length = _in.readInt();
+					if (length < 0 || length > _packet.length)
+					{
+						throw new IOException("invalid packet size " + length);
+					}
+					_in.readFully(_packet, 0, length);
+					break;
+				default:
+					return;
+			}
+		}
+		catch (SocketTimeoutException e)
+		{
+			return;
+		}
+		catch (IOException e)
+		{
+			Log.w("failed receiving data", e);
+			return;
+		}
+
+		int num;
+		try
+		{
+			num = _codec.decode(_packet, length, _frame);
+		}
+		catch (IOException e)
+		{
+			Log.w("failed decoding packet", e);
+			return;
+		}
+
+		put(AudioCodec.getSequence(_packet), AudioCodec.getPosition(_packet), num);
+	}
+
+	/**
+	 * Copies the decoded frame into the ring buffer
+	 */
+	private void put(int seq, long pos, int num)
+	{
+		synchronized (_lock)
+		{
+			// first packet or the writer has been restarted
+			if (!_synced || seq == 0 || pos + num < _readPos - _capacity)
+			{
+				if (_synced)
+				{
+					Log.i("audio stream restarted");
+				}
+				_synced = true;
+				_started = false;
+				_readPos = pos;
+				_writePos = pos;
+				_lastSeq = seq - 1;
+			}
+
+			if (seq - _lastSeq > 1)
+			{
+				_lostPackets += seq - _lastSeq - 1;
+			}
+			else if (seq - _lastSeq < 1)
+			{
+				_latePackets++;
+			}
+			_lastSeq = Math.max(_lastSeq, seq);
+
+			long end = pos + num;
+			if (end <= _readPos)
+			{
+				// already played back
+				return;
+			}
+
+			if (end - _readPos > _capacity)
+			{
+				// receiver is too slow or the clocks drift apart, skip the oldest samples
+				Log.w("receive buffer overflow, dropping " + (end - _capacity - _readPos) + " samples");
+				_readPos = end - _capacity;
+				if (_writePos < _readPos)
+				{
+					_writePos = _readPos;
+				}
+			}
+
+			// fill the gap of lost packets with silence, a late packet may still replace it
+			if (pos > _writePos)
+			{
+				fill(_writePos, pos);
+			}
+
+			long from = Math.max(pos, _readPos);
+			int offset = (int) (from - pos);
+			copyIn(from, _frame, offset * _dim, (int) (end - from));
+
+			if (end > _writePos)
+			{
+				_writePos = end;
+			}
+		}
+	}
+
+	/**
+	 * Reads the next samples of the output stream, missing samples are replaced by silence
+	 *
+	 * @return false if the jitter buffer is still filling
+	 */
+	boolean read(short[] dst, int num)
+	{
+		synchronized (_lock)
+		{
+			if (!_started)
+			{
+				if (!_synced || _writePos - _readPos < _prebuffer + num)
+				{
+					return false;
+				}
+				_started = true;
+			}
+
+			int available = (int) Math.min(_writePos - _readPos, num);
+			if (available < num)
+			{
+				_underruns++;
+				Arrays.fill(dst, available * _dim, num * _dim, (short) 0);
+			}
+			if (available > 0)
+			{
+				copyOut(_readPos, dst, available);
+			}
+
+			_readPos += num;
+			if (_writePos < _readPos)
+			{
+				_writePos = _readPos;
+			}
+			return true;
+		}
+	}
+
+	private void fill(long from, long to)
+	{
+		int start = (int) (from % _capacity) * _dim;
+		int count = (int) (to - from) * _dim;
+		int first = Math.min(count, _ring.length - start);
+		Arrays.fill(_ring, start, start + first, (short) 0);
+		Arrays.fill(_ring, 0, count - first, (short) 0);
+	}
+
+	private void copyIn(long to, short[] src, int srcPos, int num)
+	{
+		int start = (int) (to % _capacity) * _dim;
+		int count = num * _dim;
+		int first = Math.min(count, _ring.length - start);
+		System.arraycopy(src, srcPos, _ring, start, first);
+		System.arraycopy(src, srcPos + first, _ring, 0, count - first);
+	}
+
+	private void copyOut(long from, short[] dst, int num)
+	{
+		int start = (int) (from % _capacity) * _dim;
+		int count = num * _dim;
+		int first = Math.min(count, _ring.length - start);
+		System.arraycopy(_ring, start, dst, 0, first);
+		System.arraycopy(_ring, 0, dst, first, count - first);
+	}
+
+	@Override
+	public void disconnect() throws SSJFatalException
+	{
+		_connected = false;
+
+		Log.i("lost packets: " + _lostPackets + ", late packets: " + _latePackets + ", buffer underruns: " + _underruns);
+
+		try
+		{
+			switch (options.type.get())
+			{
+				case UDP:
+					if (_socket_udp != null)
+					{
+						_socket_udp.close();
+						_socket_udp = null;
+					}
+					break;
+				case TCP:
+					if (_client_tcp != null)
+					{
+						_client_tcp.close();
+						_client_tcp = null;
+					}
+					if (_server_tcp != null)
+					{
+						_server_tcp.close();
+						_server_tcp = null;
+					}
+					break;
+			}
+		}
+		catch (Exception e)
+		{
+			Log.w("failed closing socket", e);
+		}
+	}
+
+	boolean isStreaming()
+	{
+		return _connected;
+	}
+}
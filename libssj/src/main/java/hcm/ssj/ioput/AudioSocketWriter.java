@@ -0,0 +1,250 @@
+/*
+ * AudioSocketWriter.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+package hcm.ssj.ioput;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Consumer;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.event.Event;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Streams an audio signal (SHORT or FLOAT) compressed with AudioCodec to an AudioSocketReader.<br>
+ * Every frame is sent as one packet which carries a sequence number and the position of its first sample,
+ * which allows the receiver to detect lost, late and reordered packets.
+ * Packet and sample buffers are allocated once and reused for every frame.
+ */
+public class AudioSocketWriter extends Consumer
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		public final Option<Integer> port = new Option<>("port", 34300, Integer.class, "");
+		public final Option<String> ip = new Option<>("ip", "127.0.0.1", String.class, "");
+		public final Option<Cons.SocketType> type = new Option<>("type", Cons.SocketType.UDP, Cons.SocketType.class, "");
+		public final Option<AudioCodec.Type> codec = new Option<>("codec", AudioCodec.Type.ADPCM, AudioCodec.Type.class, "ADPCM (4:1, low latency), LOSSLESS or PCM");
+
+		/**
+		 *
+		 */
+		private Options()
+		{
+			addOptions();
+		}
+	}
+	public final Options options = new Options();
+
+	// maximum payload of an UDP datagram
+	private static final int MAX_DATAGRAM = 65507;
+
+	private DatagramSocket _socket_udp;
+	private Socket _socket_tcp;
+	private InetAddress _addr;
+	private DataOutputStream _out;
+
+	private AudioCodec _codec;
+	private DatagramPacket _datagram;
+	private byte[] _packet;
+	private short[] _samples;
+	private int _seq;
+
+	private boolean _connected = false;
+
+	public AudioSocketWriter()
+	{
+		_name = "AudioSocketWriter";
+	}
+
+	@Override
+	public void enter(Stream[] stream_in) throws SSJFatalException
+	{
+		if (stream_in.length != 1 || (stream_in[0].type != Cons.Type.SHORT && stream_in[0].type != Cons.Type.FLOAT))
+		{
+			throw new SSJFatalException("invalid input configuration, a single SHORT or FLOAT audio stream is required");
+		}
+
+		Stream audio = stream_in[0];
+
+		_codec = new AudioCodec(options.codec.get(), audio.dim);
+		_seq = 0;
+
+		if (!allocateBuffers(audio.num, audio.dim))
+		{
+			throw new SSJFatalException("frame too large for UDP (" + _codec.maxEncodedSize(audio.num) + " bytes), reduce the frame size");
+		}
+
+		try
+		{
+			_addr = InetAddress.getByName(options.ip.get());
+			switch (options.type.get())
+			{
+				case UDP:
+					_socket_udp = new DatagramSocket();
+					_datagram = new DatagramPacket(_packet, _packet.length, _addr, options.port.get());
+					break;
+				case TCP:
+					_socket_tcp = new Socket(_addr, options.port.get());
+					_socket_tcp.setTcpNoDelay(true);
+					_out = new DataOutputStream(new BufferedOutputStream(_socket_tcp.getOutputStream(), _packet.length + 4));
+					break;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new SSJFatalException("error in setting up connection", e);
+		}
+
+		Log.i("Streaming " + options.codec.get() + " audio to " + _addr.getHostName() + "@" + options.port.get() + "(" + options.type.get().toString() + ")");
+		_connected = true;
+	}
+
+	@Override
+	protected void consume(Stream[] stream_in, Event trigger) throws SSJFatalException
+	{
+		if (!_connected)
+		{
+			return;
+		}
+
+		Stream audio = stream_in[0];
+		int values = audio.num * audio.dim;
+
+		// event triggered windows may be longer than a frame
+		if (_samples.length < values && !allocateBuffers(audio.num, audio.dim))
+		{
+			Log.w("window too large for UDP (" + _codec.maxEncodedSize(audio.num) + " bytes), dropped");
+			return;
+		}
+
+		if (audio.type == Cons.Type.SHORT)
+		{
+			System.arraycopy(audio.ptrS(), 0, _samples, 0, values);
+		}
+		else
+		{
+			float[] src = audio.ptrF();
+			for (int i = 0; i < values; i++)
+			{
+				float v = src[i] * 32768f;
+				_samples[i] = (short) (v >= Short.MAX_VALUE ? Short.MAX_VALUE : (v <= Short.MIN_VALUE ? Short.MIN_VALUE : Math.round(v)));
+			}
+		}
+
+		long position = Math.round(audio.time * audio.sr);
+		int length = _codec.encode(_samples, audio.num, _seq++, position, _packet);
+
+		try
+		{
+			switch (options.type.get())
+			{
+				case UDP:
+					_datagram.setLength(length);
+					_socket_udp.send(_datagram);
+					break;
+				case TCP:
+					_out.writeInt(length);
+					_out.write(_packet, 0, length);
+					_out.flush();
+					break;
+			}
+		}
+		catch (IOException e)
+		{
+			Log.w("failed sending data", e);
+		}
+	}
+
+	/**
+	 * Allocates packet and sample buffers for windows of the given number of samples
+	 *
+	 * @return false if an encoded window would not fit into an UDP datagram
+	 */
+	private boolean allocateBuffers(int num, int dim)
+	{
+		int size = _codec.maxEncodedSize(num);
+		if (options.type.get() == Cons.SocketType.UDP && size > MAX_DATAGRAM)
+		{
+			return false;
+		}
+
+		_packet = new byte[size];
+		_samples = new short[num * dim];
+
+		if (_datagram != null)
+		{
+			_datagram.setData(_packet);
+		}
+		return true;
+	}
+
+	@Override
+	public void flush(Stream[] stream_in) throws SSJFatalException
+	{
+		_connected = false;
+
+		try
+		{
+			switch (options.type.get())
+			{
+				case UDP:
+					if (_socket_udp != null)
+					{
+						_socket_udp.close();
+						_socket_udp = null;
+					}
+					break;
+				case TCP:
+					if (_socket_tcp != null)
+					{
+						_socket_tcp.close();
+						_socket_tcp = null;
+					}
+					break;
+			}
+		}
+		catch (Exception e)
+		{
+			Log.w("failed closing socket", e);
+		}
+	}
+}
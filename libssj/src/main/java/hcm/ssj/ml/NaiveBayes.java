@@ -90,6 +90,15 @@ public class NaiveBayes extends Model
 	private double[][] weightSum = null;
 	private double[] classDistribution = null;
 
+	// Compiled inference tables, flattened per class and feature, rebuilt when the model changes.
+	// Guarded by this, like all methods which modify the model
+	private boolean compiled = false;
+	private double[] compiledMean = null;
+	private double[] compiledScale = null;
+	private double[] compiledNorm = null;
+	private double[] compiledBias = null;
+	private double[] features = null;
+
 	// Options instance
 	public final Options options = new Options();
 
@@ -135,40 +144,57 @@ public class NaiveBayes extends Model
 			return null;
 		}
 
-		double classDistributionSum = getClassDistributionSum();
+		if (!compiled)
+		{
+			compile();
+		}
+
+		// Convert input once
+		double[] x = features;
+		for (int featureIndex = 0; featureIndex < featureCount; featureIndex++)
+		{
+			x[featureIndex] = getDoubleValue(stream, featureIndex);
+		}
 
 		double probabilitySum = 0;
 
 		// Do prediction
 		if (logNormalDistribution)
 		{
-			for (int classIndex = 0; classIndex < classCount; classIndex++)
+			for (int classIndex = 0, offset = 0; classIndex < classCount; classIndex++, offset += featureCount)
 			{
-				double probability = usePriorProbability ? naiveBayesLog(classDistribution[classIndex] / classDistributionSum) : 0;
+				double sum = 0;
 
 				for (int featureIndex = 0; featureIndex < featureCount; featureIndex++)
 				{
-					double stdDev = getStdDev(classIndex, featureIndex);
-
-					if (stdDev != 0)
-					{
-						probability += getProbabilityLog(getDoubleValue(stream, featureIndex), stdDev, mean[classIndex][featureIndex], weightSum[classIndex][featureIndex]);
-					}
+					double diff = x[featureIndex] - compiledMean[offset + featureIndex];
+					sum += diff * diff * compiledScale[offset + featureIndex];
 				}
 
-				classProbabilities[classIndex] = (float) Math.exp(probability / featureCount);
+				classProbabilities[classIndex] = (float) Math.exp((compiledBias[classIndex] - sum) / featureCount);
 				probabilitySum += classProbabilities[classIndex];
 			}
 		}
 		else
 		{
-			for (int classIndex = 0; classIndex < classCount; classIndex++)
+			for (int classIndex = 0, offset = 0; classIndex < classCount; classIndex++, offset += featureCount)
 			{
-				double probability = usePriorProbability ? classDistribution[classIndex] / classDistributionSum : 0;
+				double probability = compiledBias[classIndex];
 
 				for (int featureIndex = 0; featureIndex < featureCount; featureIndex++)
 				{
-					probability *= getProbability(getDoubleValue(stream, featureIndex), getStdDev(classIndex, featureIndex), mean[classIndex][featureIndex], weightSum[classIndex][featureIndex]);
+					double norm = compiledNorm[offset + featureIndex];
+					double diff = x[featureIndex] - compiledMean[offset + featureIndex];
+
+					if (norm >= 0)
+					{
+						probability *= norm * Math.exp(-diff * diff * compiledScale[offset + featureIndex]);
+					}
+					else
+					{
+						// Zero variance
+						probability *= diff == 0 ? 1.0 : 0.0;
+					}
 				}
 
 				classProbabilities[classIndex] = (float) probability;
@@ -197,39 +223,87 @@ public class NaiveBayes extends Model
 		return classProbabilities;
 	}
 
-	private double getProbability(double featureValue, double stdDev, double mean, double weightSum)
+	/**
+	 * Builds the inference tables from the current model.
+	 * Per class and feature the mean, 1 / (2 * variance) and the normalization factor are stored,
+	 * the prior and the log standard deviations are summed up per class.
+	 * Features with zero standard deviation are neutral in the log distribution.
+	 */
+	private void compile()
 	{
-		double probability = 0;
+		int size = classCount * featureCount;
 
-		if (weightSum > 0.0)
+		if (compiledMean == null || compiledMean.length != size)
 		{
-			if (stdDev > 0.0)
-			{
-				double diff = featureValue - mean;
+			compiledMean = new double[size];
+			compiledScale = new double[size];
+			compiledNorm = new double[size];
+		}
+		if (compiledBias == null || compiledBias.length != classCount)
+		{
+			compiledBias = new double[classCount];
+		}
+		if (features == null || features.length != featureCount)
+		{
+			features = new double[featureCount];
+		}
 
-				probability = (1.0 / (NORMAL_CONSTANT * stdDev)) * Math.exp(-(diff * diff / (2.0 * stdDev * stdDev)));
+		double classDistributionSum = getClassDistributionSum();
+
+		for (int classIndex = 0, offset = 0; classIndex < classCount; classIndex++, offset += featureCount)
+		{
+			double bias;
+
+			if (logNormalDistribution)
+			{
+				bias = usePriorProbability ? naiveBayesLog(classDistribution[classIndex] / classDistributionSum) : 0;
 			}
 			else
 			{
-				probability = featureValue == mean ? 1.0 : 0.0;
+				bias = usePriorProbability ? classDistribution[classIndex] / classDistributionSum : 0;
 			}
-		}
 
-		return probability;
-	}
+			for (int featureIndex = 0; featureIndex < featureCount; featureIndex++)
+			{
+				double stdDev = getStdDev(classIndex, featureIndex);
+				int i = offset + featureIndex;
 
-	private double getProbabilityLog(double featureValue, double stdDev, double mean, double weightSum)
-	{
-		double probability = 0;
+				compiledMean[i] = mean[classIndex][featureIndex];
 
-		if (stdDev != 0.0)
-		{
-			double diff = featureValue - mean;
+				if (logNormalDistribution)
+				{
+					if (stdDev != 0)
+					{
+						compiledScale[i] = 1.0 / (2.0 * stdDev * stdDev);
+						bias -= naiveBayesLog(stdDev);
+					}
+					else
+					{
+						compiledScale[i] = 0;
+					}
+				}
+				else if (weightSum[classIndex][featureIndex] <= 0.0)
+				{
+					// Untrained feature, probability is always 0
+					compiledScale[i] = 0;
+					compiledNorm[i] = 0;
+				}
+				else if (stdDev > 0.0)
+				{
+					compiledScale[i] = 1.0 / (2.0 * stdDev * stdDev);
+					compiledNorm[i] = 1.0 / (NORMAL_CONSTANT * stdDev);
+				}
+				else
+				{
+					compiledScale[i] = 0;
+					compiledNorm[i] = -1;
+				}
+			}
 
-			probability = -naiveBayesLog(stdDev) - (diff * diff) / (2 * stdDev * stdDev);
+			compiledBias[classIndex] = bias;
 		}
 
-		return probability;
+		compiled = true;
 	}
 
 	private double getClassDistributionSum()
@@ -245,7 +319,7 @@ public class NaiveBayes extends Model
 	}
 
 	@Override
-	public void train(Stream stream, String label)
+	public synchronized void train(Stream stream, String label)
 	{
 		Log.i("training model with " + stream.num + " sample(s)");
 
@@ -280,6 +354,7 @@ public class NaiveBayes extends Model
 			}
 		}
 
+		compiled = false;
 		isTrained = true;
 	}
 
@@ -308,7 +383,7 @@ public class NaiveBayes extends Model
 	}
 
 	@Override
-	protected void init(String[] classes, int n_features)
+	protected synchronized void init(String[] classes, int n_features)
 	{
 		classCount = classes.length;
 		featureCount = n_features;
@@ -328,6 +403,7 @@ public class NaiveBayes extends Model
 		}
 
 		classProbabilities = new float[classCount];
+		compiled = false;
 
 		// Store class indices for reverse lookup used in online learning
 		classNameIndices = new HashMap<>();
@@ -339,7 +415,7 @@ public class NaiveBayes extends Model
 	}
 
 	@Override
-	public void loadModel(File file)
+	public synchronized void loadModel(File file)
 	{
 		BufferedReader reader;
 		try
@@ -451,6 +527,7 @@ public class NaiveBayes extends Model
 			Log.e("Could not close reader");
 		}
 
+		compiled = false;
 		isTrained = true;
 	}
 
@@ -458,7 +535,7 @@ public class NaiveBayes extends Model
 	 * Load data from option file
 	 */
 	@Override
-	public void loadOption(File file)
+	public synchronized void loadOption(File file)
 	{
 		if (file == null)
 		{
@@ -486,6 +563,8 @@ public class NaiveBayes extends Model
 					usePriorProbability = strings[1].equals("true");
 				}
 			}
+
+			compiled = false;
 		}
 		catch (Exception e)
 		{
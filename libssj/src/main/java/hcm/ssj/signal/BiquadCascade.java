@@ -0,0 +1,293 @@
+/*
+ * BiquadCascade.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import java.util.Arrays;
+
+/**
+ * Cascade of second-order sections (biquads) applied to interleaved multi-dimensional data.<br>
+ * Sections are given in SSI layout, one row [b0, b1, b2, 1, a1, a2] per section as returned by
+ * FilterTools. Each section is realized in direct form II with the exact operation order of the
+ * SSI implementation, so single precision results are identical to SSI's IIR filter.
+ * Filter state is kept per dimension and section, the whole frame of one dimension is run through
+ * one section at a time, so the inner loop only touches local variables.<br>
+ * Optionally, coefficients and state are kept in double precision, which is recommended for very
+ * low cutoff frequencies where single precision poles lie too close to the unit circle.
+ */
+public class BiquadCascade
+{
+	private final int sections;
+	private final int dim;
+	private final boolean doublePrecision;
+
+	// a1, a2, b0, b1, b2 per section
+	private float[] coefficients;
+	private double[] coefficientsD;
+
+	// two history values per section and dimension, dimension major
+	private float[] history;
+	private double[] historyD;
+
+	// current frame while it passes the double precision sections, dimension major
+	private double[] work = new double[0];
+
+	/**
+	 * @param sos  coefficients, one row per section
+	 * @param dim  sample dimension
+	 */
+	public BiquadCascade(FloatMatrix sos, int dim)
+	{
+		this.sections = sos.getRows();
+		this.dim = dim;
+		this.doublePrecision = false;
+
+		coefficients = new float[sections * 5];
+		for (int i = 0; i < sections; i++)
+		{
+			coefficients[i * 5] = sos.getData(i, 4);
+			coefficients[i * 5 + 1] = sos.getData(i, 5);
+			coefficients[i * 5 + 2] = sos.getData(i, 0);
+			coefficients[i * 5 + 3] = sos.getData(i, 1);
+			coefficients[i * 5 + 4] = sos.getData(i, 2);
+		}
+
+		history = new float[sections * dim * 2];
+	}
+
+	/**
+	 * @param sos             coefficients, 6 values per section
+	 * @param dim             sample dimension
+	 * @param doublePrecision filter in double precision, otherwise coefficients are rounded to float
+	 */
+	public BiquadCascade(double[] sos, int dim, boolean doublePrecision)
+	{
+		this.sections = sos.length / 6;
+		this.dim = dim;
+		this.doublePrecision = doublePrecision;
+
+		if (doublePrecision)
+		{
+			coefficientsD = new double[sections * 5];
+			for (int i = 0; i < sections; i++)
+			{
+				coefficientsD[i * 5] = sos[i * 6 + 4];
+				coefficientsD[i * 5 + 1] = sos[i * 6 + 5];
+				coefficientsD[i * 5 + 2] = sos[i * 6];
+				coefficientsD[i * 5 + 3] = sos[i * 6 + 1];
+				coefficientsD[i * 5 + 4] = sos[i * 6 + 2];
+			}
+
+			historyD = new double[sections * dim * 2];
+		}
+		else
+		{
+			coefficients = new float[sections * 5];
+			for (int i = 0; i < sections; i++)
+			{
+				coefficients[i * 5] = (float) sos[i * 6 + 4];
+				coefficients[i * 5 + 1] = (float) sos[i * 6 + 5];
+				coefficients[i * 5 + 2] = (float) sos[i * 6];
+				coefficients[i * 5 + 3] = (float) sos[i * 6 + 1];
+				coefficients[i * 5 + 4] = (float) sos[i * 6 + 2];
+			}
+
+			history = new float[sections * dim * 2];
+		}
+	}
+
+	/**
+	 * Clears the filter state
+	 */
+	public void reset()
+	{
+		if (doublePrecision)
+		{
+			Arrays.fill(historyD, 0);
+		}
+		else
+		{
+			Arrays.fill(history, 0);
+		}
+	}
+
+	/**
+	 * @param src input samples, interleaved
+	 * @param dst output samples, interleaved, may be the same array as src
+	 * @param num number of samples
+	 */
+	public void process(float[] src, float[] dst, int num)
+	{
+		process(src, dst, num, null);
+	}
+
+	/**
+	 * @param src    input samples, interleaved
+	 * @param dst    output samples, interleaved, may be the same array as src
+	 * @param num    number of samples
+	 * @param offset value per dimension which is subtracted before and added after filtering, may be null
+	 */
+	public void process(float[] src, float[] dst, int num, float[] offset)
+	{
+		process(src, dst, num, offset, 0, dim);
+	}
+
+	/**
+	 * Filters only the dimensions [dimFrom, dimTo), disjoint ranges may be processed concurrently.
+	 *
+	 * @param src     input samples, interleaved
+	 * @param dst     output samples, interleaved, may be the same array as src
+	 * @param num     number of samples
+	 * @param offset  value per dimension which is subtracted before and added after filtering, may be null
+	 * @param dimFrom first dimension
+	 * @param dimTo   last dimension (exclusive)
+	 */
+	public void process(float[] src, float[] dst, int num, float[] offset, int dimFrom, int dimTo)
+	{
+		int end = num * dim;
+
+		double[] work = this.work;
+		if (doublePrecision && work.length < end)
+		{
+			work = new double[end];
+			this.work = work;
+		}
+
+		for (int j = dimFrom; j < dimTo; j++)
+		{
+			if (doublePrecision)
+			{
+				filterDouble(src, dst, work, j, end, offset != null ? offset[j] : 0);
+				continue;
+			}
+
+			if (offset != null)
+			{
+				float o = offset[j];
+				for (int i = j; i < end; i += dim)
+				{
+					dst[i] = src[i] - o;
+				}
+			}
+			else if (src != dst)
+			{
+				for (int i = j; i < end; i += dim)
+				{
+					dst[i] = src[i];
+				}
+			}
+
+			filterFloat(dst, j, end);
+
+			if (offset != null)
+			{
+				float o = offset[j];
+				for (int i = j; i < end; i += dim)
+				{
+					dst[i] += o;
+				}
+			}
+		}
+	}
+
+	private void filterFloat(float[] data, int first, int end)
+	{
+		int step = dim;
+		int h = first * sections * 2;
+
+		for (int k = 0, c = 0; k < sections; k++, c += 5, h += 2)
+		{
+			float a1 = coefficients[c];
+			float a2 = coefficients[c + 1];
+			float b0 = coefficients[c + 2];
+			float b1 = coefficients[c + 3];
+			float b2 = coefficients[c + 4];
+
+			float hist1 = history[h];
+			float hist2 = history[h + 1];
+
+			for (int i = first; i < end; i += step)
+			{
+				float x = data[i];
+				x -= hist1 * a1;
+				float newHist = x - hist2 * a2;
+				x = newHist * b0;
+				x += hist1 * b1;
+				x += hist2 * b2;
+				data[i] = x;
+
+				hist2 = hist1;
+				hist1 = newHist;
+			}
+
+			history[h] = hist1;
+			history[h + 1] = hist2;
+		}
+	}
+
+	private void filterDouble(float[] src, float[] dst, double[] work, int first, int end, float offset)
+	{
+		int step = dim;
+		int h = first * sections * 2;
+		int base = first * (end / dim);
+		int num = base;
+
+		for (int i = first; i < end; i += step)
+		{
+			work[num++] = src[i] - offset;
+		}
+
+		for (int k = 0, c = 0; k < sections; k++, c += 5, h += 2)
+		{
+			double a1 = coefficientsD[c];
+			double a2 = coefficientsD[c + 1];
+			double b0 = coefficientsD[c + 2];
+			double b1 = coefficientsD[c + 3];
+			double b2 = coefficientsD[c + 4];
+
+			double hist1 = historyD[h];
+			double hist2 = historyD[h + 1];
+
+			for (int i = base; i < num; i++)
+			{
+				double newHist = work[i] - hist1 * a1 - hist2 * a2;
+				work[i] = newHist * b0 + hist1 * b1 + hist2 * b2;
+
+				hist2 = hist1;
+				hist1 = newHist;
+			}
+
+			historyD[h] = hist1;
+			historyD[h + 1] = hist2;
+		}
+
+		for (int i = first, n = base; i < end; i += step, n++)
+		{
+			dst[i] = (float) (work[n] + offset);
+		}
+	}
+}
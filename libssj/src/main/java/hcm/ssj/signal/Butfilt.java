@@ -27,6 +27,8 @@
 
 package hcm.ssj.signal;
 
+import java.util.Arrays;
+
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.SSJFatalException;
@@ -62,6 +64,7 @@ public class Butfilt extends Transformer
 		public final Option<Double> low = new Option<>("low", 0., Double.class, "Low cutoff frequency given either as normalized value in interval [0..1] or as an absolute value in Hz (see -norm)");
 		public final Option<Double> high = new Option<>("high", 1., Double.class, "High cutoff frequency given either as normalized value in interval [0..1] or as an absolute value in Hz (see -norm)");
 		public final Option<Boolean> zero = new Option<>("zero", true, Boolean.class, "Subtract first sample from signal to avoid artifacts at the beginning of the signal");
+		public final Option<Boolean> doublePrecision = new Option<>("doublePrecision", false, Boolean.class, "Filter with double precision coefficients and state, recommended for very low cutoff frequencies");
 
 		/**
 		 *
@@ -73,101 +76,110 @@ public class Butfilt extends Transformer
 
 	public final Options options = new Options();
 
-	IIR _iir;
-	Matrix<Float> _coefficients;
+	BiquadCascade _cascade;
+	FloatMatrix _coefficients;
 	float[] _firstSample;
 
-	boolean _firstCall;
+	boolean[] _firstCall;
 
 	public Butfilt()
 	{
 		_name = "Butfilt";
 	}
 
-	protected Matrix<Float> getCoefficients(double sr)
+	protected FloatMatrix getCoefficients(double sr)
+	{
+		return FilterTools.getInstance().toFloatMatrix(getSOS(sr));
+	}
+
+	protected FloatMatrix initCoefficients(Type type, int order, double low, double high)
+	{
+		return FilterTools.getInstance().toFloatMatrix(initSOS(type, order, low, high));
+	}
+
+	/**
+	 * @return second order sections in double precision
+	 */
+	protected double[] getSOS(double sr)
 	{
 		double low = options.norm.get() ? options.low.get() : 2 * options.low.get() / sr;
 		double high = options.norm.get() ? options.high.get() : 2 * options.high.get() / sr;
 
-		return initCoefficients(options.type.get(), options.order.get(), low, high);
+		return initSOS(options.type.get(), options.order.get(), low, high);
 	}
 
-	protected Matrix<Float> initCoefficients(Type type, int order, double low, double high)
+	protected double[] initSOS(Type type, int order, double low, double high)
 	{
-		Matrix<Float> coefficients = null;
+		double[] sos = null;
 
 		switch (type)
 		{
 			case LOW:
-				coefficients = FilterTools.getInstance().getLPButter(order, low);
+				sos = FilterTools.getInstance().getLPButterSOS(order, low);
 				break;
 			case HIGH:
-				coefficients = FilterTools.getInstance().getHPButter(order, high);
+				sos = FilterTools.getInstance().getHPButterSOS(order, high);
 				break;
 			case BAND:
-				coefficients = FilterTools.getInstance().getBPButter(order, low, high);
+				sos = FilterTools.getInstance().getBPButterSOS(order, low, high);
 				break;
 		}
 
-		return coefficients;
+		return sos;
 	}
 
 	@Override
 	public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
 	{
-		_coefficients = getCoefficients(stream_in[0].sr);
+		double[] sos = getSOS(stream_in[0].sr);
+		_coefficients = FilterTools.getInstance().toFloatMatrix(sos);
 
-		_iir = new IIR();
-		_iir.setCoefficients(_coefficients);
-		_iir.enter(stream_in, stream_out);
+		if (options.doublePrecision.get())
+		{
+			_cascade = new BiquadCascade(sos, stream_in[0].dim, true);
+		}
+		else
+		{
+			_cascade = new BiquadCascade(_coefficients, stream_in[0].dim);
+		}
 
-		_firstCall = true;
+		_firstSample = options.zero.get() ? new float[stream_in[0].dim] : null;
+		_firstCall = new boolean[stream_in[0].dim];
+		Arrays.fill(_firstCall, true);
 	}
 
 	@Override
 	public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
 	{
-		if (_firstCall)
-		{
-			if (options.zero.get())
-			{
-				_firstSample = new float[stream_in[0].dim];
-
-				System.arraycopy(stream_in[0].ptrF(), 0, _firstSample, 0, stream_in[0].dim);
-			}
+		transform(stream_in, stream_out, 0, stream_in[0].dim);
+	}
 
-			_firstCall = false;
-		}
+	@Override
+	public void transform(Stream[] stream_in, Stream stream_out, int dim_from, int dim_to) throws SSJFatalException
+	{
+		float[] in = stream_in[0].ptrF();
 
-		if (_firstSample != null)
+		for (int j = dim_from; j < dim_to; j++)
 		{
-			float[] ptr = stream_in[0].ptrF();
-			int ptrIndex = 0;
-
-			for (int i = 0; i < stream_in[0].num; i++) // TODO SSI: info.frame_num?
+			if (_firstCall[j])
 			{
-				for (int j = 0; j < stream_in[0].dim; j++)
+				if (_firstSample != null)
 				{
-					ptr[ptrIndex++] -= _firstSample[j];
+					_firstSample[j] = in[j];
 				}
+
+				_firstCall[j] = false;
 			}
 		}
 
-		_iir.transform(stream_in, stream_out);
-
-		if (_firstSample != null)
-		{
-			float[] ptr = stream_out.ptrF();
-			int ptrIndex = 0;
+		// the first sample is subtracted before and added after filtering
+		_cascade.process(in, stream_out.ptrF(), stream_in[0].num, _firstSample, dim_from, dim_to);
+	}
 
-			for (int i = 0; i < stream_in[0].num; i++) // TODO SSI: info.frame_num?
-			{
-				for (int j = 0; j < stream_in[0].dim; j++)
-				{
-					ptr[ptrIndex++] += _firstSample[j];
-				}
-			}
-		}
+	@Override
+	protected boolean hasIndependentDimensions()
+	{
+		return true;
 	}
 
 	@Override
@@ -27,6 +27,8 @@
 
 package hcm.ssj.signal;
 
+import java.util.Arrays;
+
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.SSJFatalException;
 import hcm.ssj.core.Transformer;
@@ -71,7 +73,7 @@ public class Derivative extends Transformer
 
     private float[] history;
     private int depth = 0;
-    private boolean first_call;
+    private boolean[] first_call;
 
     private boolean[] store_value = new boolean[5];
 
@@ -103,7 +105,8 @@ public class Derivative extends Transformer
         depth++;
 
         history = new float[(depth - 1) * stream_in[0].dim];
-        first_call = true;
+        first_call = new boolean[stream_in[0].dim];
+        Arrays.fill(first_call, true);
     }
 
     /**
@@ -112,30 +115,44 @@ public class Derivative extends Transformer
      */
     @Override
     public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+    {
+        transform(stream_in, stream_out, 0, stream_in[0].dim);
+    }
+
+    /**
+     * @param stream_in  Stream[]
+     * @param stream_out Stream
+     * @param dim_from   int
+     * @param dim_to     int
+     */
+    @Override
+    public void transform(Stream[] stream_in, Stream stream_out, int dim_from, int dim_to) throws SSJFatalException
     {
         int sample_dimension = stream_in[0].dim;
         int sample_number = stream_in[0].num;
+        int dim_out = stream_out.dim;
+        int values = dim_out / sample_dimension;
 
         float src[] = stream_in[0].ptrF();
         float dst[] = stream_out.ptrF();
         float tmp, tmp2;
 
         // initialize history during first call
-        if (first_call) {
-            for (int i = 0; i < sample_dimension; ++i) {
+        for (int i = dim_from; i < dim_to; ++i) {
+            if (first_call[i]) {
                 for (int j = 0; j < depth-1; j++) {
                     history[i*(depth-1) + j] = j == 0 ? src[i] : 0;
                 }
+                first_call[i] = false;
             }
-            first_call = false;
         }
 
         // calculate derivative
-        int srccnt = 0;
-        int dstcnt = 0;
         for (int i = 0; i < sample_number; i++) {
-            int histcnt = 0;
-            for (int j = 0; j < sample_dimension; j++) {
+            int srccnt = i * sample_dimension + dim_from;
+            int dstcnt = i * dim_out + dim_from * values;
+            int histcnt = dim_from * (depth-1);
+            for (int j = dim_from; j < dim_to; j++) {
                 tmp = src[srccnt++];
                 if (store_value[0]) {
                     dst[dstcnt++] = tmp;
@@ -159,6 +176,15 @@ public class Derivative extends Transformer
         store_value = null;
     }
 
+    /**
+     * @return boolean
+     */
+    @Override
+    protected boolean hasIndependentDimensions()
+    {
+        return true;
+    }
+
     /**
      * @param stream_in Stream[]
      * @return int
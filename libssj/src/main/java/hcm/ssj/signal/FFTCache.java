@@ -0,0 +1,194 @@
+/*
+ * FFTCache.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import hcm.ssj.signal.Matrix.MATRIX_DIMENSION;
+
+/**
+ * Process wide cache of FFT plans, window functions and filter banks.<br>
+ * Spectral transformers working on the same frame size share one plan (and its twiddle tables)
+ * instead of building their own. Plans, windows and filter banks are never modified after
+ * creation and may therefore be used by several threads at once. Cached arrays must be treated
+ * as read-only by the caller.<br>
+ * Scratch buffers are kept per thread, so transformers can use them without allocating.
+ */
+public class FFTCache
+{
+	private static final FFTCache _instance = new FFTCache();
+
+	private final ConcurrentHashMap<Integer, FloatFFT_1D> _plans = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Long, float[]> _windows = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, FloatMatrix> _filterbanks = new ConcurrentHashMap<>();
+
+	private final ThreadLocal<float[]> _scratch = new ThreadLocal<>();
+
+	/**
+	 * Private constructor for singleton pattern.
+	 */
+	private FFTCache()
+	{
+	}
+
+	/**
+	 * Method for accessing the singleton instance.
+	 *
+	 * @return singleton instance
+	 */
+	public static FFTCache getInstance()
+	{
+		return _instance;
+	}
+
+	/**
+	 * @param size number of samples
+	 * @return shared FFT plan for the given size
+	 */
+	public FloatFFT_1D getFFT(int size)
+	{
+		FloatFFT_1D fft = _plans.get(size);
+		if (fft == null)
+		{
+			fft = new FloatFFT_1D(size);
+			FloatFFT_1D other = _plans.putIfAbsent(size, fft);
+			if (other != null)
+			{
+				fft = other;
+			}
+		}
+		return fft;
+	}
+
+	/**
+	 * @param size number of samples
+	 * @param type window type
+	 * @return shared window coefficients (read-only), or null if the type is not supported
+	 */
+	public float[] getWindow(int size, FilterTools.WINDOW_TYPE type)
+	{
+		long key = ((long) type.ordinal() << 32) | size;
+
+		float[] window = _windows.get(key);
+		if (window == null)
+		{
+			FloatMatrix matrix = FilterTools.getInstance().Window(size, type, MATRIX_DIMENSION.ROW);
+			if (matrix == null)
+			{
+				return null;
+			}
+
+			window = matrix.getData();
+			float[] other = _windows.putIfAbsent(key, window);
+			if (other != null)
+			{
+				window = other;
+			}
+		}
+		return window;
+	}
+
+	/**
+	 * @param size      number of samples
+	 * @param type      window type
+	 * @param dimension orientation of the returned matrix
+	 * @return read-only matrix view on the shared window coefficients, or null if the type is not supported
+	 */
+	public FloatMatrix getWindow(int size, FilterTools.WINDOW_TYPE type, MATRIX_DIMENSION dimension)
+	{
+		float[] window = getWindow(size, type);
+		if (window == null)
+		{
+			return null;
+		}
+
+		return (dimension == MATRIX_DIMENSION.ROW)
+				? new FloatMatrix(window, 0, 1, window.length, window.length)
+				: new FloatMatrix(window, 0, window.length, 1, 1);
+	}
+
+	/**
+	 * @param size        number of fft coefficients
+	 * @param sample_rate sample rate of the signal
+	 * @param intervals   frequency bands, one row with start and end frequency per band
+	 * @param type        window type
+	 * @return shared filter bank (read-only), one row per band
+	 */
+	public FloatMatrix getFilterbank(int size, double sample_rate, FloatMatrix intervals, FilterTools.WINDOW_TYPE type)
+	{
+		StringBuilder key = new StringBuilder();
+		key.append(size).append(';').append(sample_rate).append(';').append(type.name());
+		for (int i = 0; i < intervals.getSize(); i++)
+		{
+			key.append(';').append(intervals.getData(i));
+		}
+
+		FloatMatrix filterbank = _filterbanks.get(key.toString());
+		if (filterbank == null)
+		{
+			filterbank = FilterTools.getInstance().Filterbank(size, sample_rate, intervals, type);
+			FloatMatrix other = _filterbanks.putIfAbsent(key.toString(), filterbank);
+			if (other != null)
+			{
+				filterbank = other;
+			}
+		}
+		return filterbank;
+	}
+
+	/**
+	 * Returns a buffer owned by the calling thread. The content is undefined and only valid
+	 * until the next call from the same thread.
+	 *
+	 * @param size minimum length
+	 * @return float[]
+	 */
+	public float[] getScratch(int size)
+	{
+		float[] scratch = _scratch.get();
+		if (scratch == null || scratch.length < size)
+		{
+			scratch = new float[size];
+			_scratch.set(scratch);
+		}
+		return scratch;
+	}
+
+	/**
+	 * Drops all cached plans, windows and filter banks. Components keep the instances they
+	 * already hold.
+	 */
+	public void clear()
+	{
+		_plans.clear();
+		_windows.clear();
+		_filterbanks.clear();
+	}
+}
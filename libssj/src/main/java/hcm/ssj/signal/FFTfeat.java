@@ -44,7 +44,6 @@ import hcm.ssj.core.stream.Stream;
 public class FFTfeat extends Transformer
 {
 	private FloatFFT_1D fft;
-	private float[][] fft_in;
 	private float[][] fft_out;
 
 	private int fft_dim = 0;
@@ -62,12 +61,10 @@ public class FFTfeat extends Transformer
 		fft_dim = stream_in[0].dim;
 		fft_size = stream_in[0].num;
 
-		fft = new FloatFFT_1D(fft_size);
+		fft = FFTCache.getInstance().getFFT(fft_size);
 		fft_out = new float[fft_dim][];
-		fft_in = new float[fft_dim][];
 
 		for(int i = 0; i < fft_dim; i++){
-			fft_in[i]= new float[fft_size];
 			fft_out[i] = new float[rfft];
 		}
 	}
@@ -78,23 +75,23 @@ public class FFTfeat extends Transformer
 		float[] in = stream_in[0].ptrF();
 		float[] out = stream_out.ptrF();
 
-		for (int j = 0; j < fft_size; j++) {
-			for (int i = 0; i < fft_dim; i++) {
+		float[] fft_in = FFTCache.getInstance().getScratch(fft_size);
+
+		for (int i = 0; i < fft_dim; i++)
+		{
+			for (int j = 0; j < fft_size; j++) {
 				if (j < stream_in[0].num){
-					fft_in[i][j] = in[j * fft_dim + i];
+					fft_in[j] = in[j * fft_dim + i];
 				} else {
-					fft_in[i][j] = 0;
+					fft_in[j] = 0;
 				}
 			}
-		}
 
-		for (int i = 0; i < fft_dim; i++)
-		{
 			// Calculate FFT
-			fft.realForward(fft_in[i]);
+			fft.realForward(fft_in);
 
 			// Format values like in SSI
-			Util.joinFFT(fft_in[i], fft_out[i]);
+			Util.joinFFT(fft_in, fft_size, fft_out[i]);
 		}
 
 		for (int j = 0; j < rfft; j++){
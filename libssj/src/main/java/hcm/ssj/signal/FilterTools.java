@@ -76,12 +76,19 @@ public class FilterTools
 		return _instance;
 	}
 
-	public Matrix<Float> getLPButter(int order, double cutoff)
+	public FloatMatrix getLPButter(int order, double cutoff)
+	{
+		return toFloatMatrix(getLPButterSOS(order, cutoff));
+	}
+
+	/**
+	 * @return second order sections in double precision, 6 values [b0, b1, b2, 1, a1, a2] per section
+	 */
+	public double[] getLPButterSOS(int order, double cutoff)
 	{
 		int sections = (order + 1) / 2;
 
-		Matrix<Float> sos = new Matrix<>(sections, 6);
-		sos.fillValue(1.0f);
+		double[] sos = new double[sections * 6];
 
 		double freq = cutoff / 2.0;
 
@@ -95,23 +102,30 @@ public class FilterTools
 			double a2 = poleReal * poleReal + poleImag * poleImag;
 			double gain = 4.0 / (1.0 + a1 + a2);
 
-			sos.setData(i, 0, (float) (1.0 / gain));
-			sos.setData(i, 1, (float) (2.0 / gain));
-			sos.setData(i, 2, (float) (1.0 / gain));
-			sos.setData(i, 3, (float) (1.0));
-			sos.setData(i, 4, (float) (a1));
-			sos.setData(i, 5, (float) (a2));
+			sos[i * 6] = 1.0 / gain;
+			sos[i * 6 + 1] = 2.0 / gain;
+			sos[i * 6 + 2] = 1.0 / gain;
+			sos[i * 6 + 3] = 1.0;
+			sos[i * 6 + 4] = a1;
+			sos[i * 6 + 5] = a2;
 		}
 
 		return sos;
 	}
 
-	public Matrix<Float> getHPButter(int order, double cutoff)
+	public FloatMatrix getHPButter(int order, double cutoff)
+	{
+		return toFloatMatrix(getHPButterSOS(order, cutoff));
+	}
+
+	/**
+	 * @return second order sections in double precision, 6 values [b0, b1, b2, 1, a1, a2] per section
+	 */
+	public double[] getHPButterSOS(int order, double cutoff)
 	{
 		int sections = (order + 1) / 2;
 
-		Matrix<Float> sos = new Matrix<>(sections, 6);
-		sos.fillValue(1.0f);
+		double[] sos = new double[sections * 6];
 
 		double freq = cutoff / 2.0;
 
@@ -136,23 +150,30 @@ public class FilterTools
 
 			double gain = new Complex(2.0, 0.0).div(MatrixOps.getInstance().multiplyVector(tmp2, tmp)).mod();
 
-			sos.setData(i, 0, (float) (1.0 / gain));
-			sos.setData(i, 1, (float) (-2.0 / gain));
-			sos.setData(i, 2, (float) (1.0 / gain));
-			sos.setData(i, 3, (float) (1.0));
-			sos.setData(i, 4, (float) (a1));
-			sos.setData(i, 5, (float) (a2));
+			sos[i * 6] = 1.0 / gain;
+			sos[i * 6 + 1] = -2.0 / gain;
+			sos[i * 6 + 2] = 1.0 / gain;
+			sos[i * 6 + 3] = 1.0;
+			sos[i * 6 + 4] = a1;
+			sos[i * 6 + 5] = a2;
 		}
 
 		return sos;
 	}
 
-	public Matrix<Float> getBPButter(int order, double lowCutoff, double highCutoff)
+	public FloatMatrix getBPButter(int order, double lowCutoff, double highCutoff)
+	{
+		return toFloatMatrix(getBPButterSOS(order, lowCutoff, highCutoff));
+	}
+
+	/**
+	 * @return second order sections in double precision, 6 values [b0, b1, b2, 1, a1, a2] per section
+	 */
+	public double[] getBPButterSOS(int order, double lowCutoff, double highCutoff)
 	{
 		int sections = (order + 1) / 2;
 
-		Matrix<Float> sos = new Matrix<>(sections, 6);
-		sos.fillValue(1.0f);
+		double[] sos = new double[sections * 6];
 
 		double lFreq = lowCutoff / 2.0;
 		double hFreq = highCutoff / 2.0;
@@ -194,17 +215,138 @@ public class FilterTools
 
 			double gain = Math.abs(new Complex(0.1685, 0.5556).div(MatrixOps.getInstance().multiplyVector(tmp2, tmp)).mod());
 
-			sos.setData(i, 0, (float) (1.0 / gain));
-			sos.setData(i, 1, 0.0f);
-			sos.setData(i, 2, (float) (-1.0 / gain));
-			sos.setData(i, 3, (float) (1.0));
-			sos.setData(i, 4, (float) (a1));
-			sos.setData(i, 5, (float) (a2));
+			sos[i * 6] = 1.0 / gain;
+			sos[i * 6 + 1] = 0.0;
+			sos[i * 6 + 2] = -1.0 / gain;
+			sos[i * 6 + 3] = 1.0;
+			sos[i * 6 + 4] = a1;
+			sos[i * 6 + 5] = a2;
 		}
 
 		return sos;
 	}
 
+	/**
+	 * Rounds second order sections to single precision, one row per section
+	 */
+	public FloatMatrix toFloatMatrix(double[] sos)
+	{
+		FloatMatrix matrix = new FloatMatrix(sos.length / 6, 6);
+		float[] data = matrix.getData();
+
+		for (int i = 0; i < sos.length; i++)
+		{
+			data[i] = (float) sos[i];
+		}
+
+		return matrix;
+	}
+
+	/**
+	 * Triangular filters equally spaced on the mel scale, as used for MFCCs.
+	 *
+	 * @param nfft       fft size
+	 * @param sampleRate sample rate of the signal
+	 * @param banks      number of filters
+	 * @param minFreq    lower edge of the first filter in Hz
+	 * @param maxFreq    upper edge of the last filter in Hz
+	 * @return one row of nfft / 2 + 1 weights per filter
+	 */
+	public FloatMatrix getMelFilterbank(int nfft, double sampleRate, int banks, double minFreq, double maxFreq)
+	{
+		int bins = nfft / 2 + 1;
+		FloatMatrix filterbank = new FloatMatrix(banks, bins);
+
+		double minMel = hzToMel(minFreq);
+		double maxMel = hzToMel(maxFreq);
+
+		// edge frequencies of all triangles
+		double[] edges = new double[banks + 2];
+		for (int i = 0; i < edges.length; i++)
+		{
+			edges[i] = melToHz(minMel + i * (maxMel - minMel) / (banks + 1));
+		}
+
+		for (int b = 0; b < banks; b++)
+		{
+			double low = edges[b];
+			double center = edges[b + 1];
+			double high = edges[b + 2];
+
+			for (int k = 0; k < bins; k++)
+			{
+				double freq = k * sampleRate / nfft;
+
+				if (freq > low && freq <= center)
+				{
+					filterbank.setData(b, k, (float) ((freq - low) / (center - low)));
+				}
+				else if (freq > center && freq < high)
+				{
+					filterbank.setData(b, k, (float) ((high - freq) / (high - center)));
+				}
+			}
+		}
+
+		return filterbank;
+	}
+
+	public double hzToMel(double hz)
+	{
+		return 2595.0 * Math.log10(1.0 + hz / 700.0);
+	}
+
+	public double melToHz(double mel)
+	{
+		return 700.0 * (Math.pow(10.0, mel / 2595.0) - 1.0);
+	}
+
+	/**
+	 * Designs a linear phase low pass FIR filter as Kaiser windowed sinc.
+	 *
+	 * @param length number of taps
+	 * @param cutoff cutoff frequency relative to the nyquist frequency
+	 * @param beta   Kaiser window shape, higher values give more stopband attenuation but a wider transition
+	 * @param gain   gain in the passband
+	 * @return filter taps
+	 */
+	public double[] getLPKaiserFIR(int length, double cutoff, double beta, double gain)
+	{
+		double[] taps = new double[length];
+		double center = (length - 1) / 2.0;
+		double norm = besselI0(beta);
+
+		for (int i = 0; i < length; i++)
+		{
+			double x = i - center;
+			double sinc = (x == 0) ? cutoff : Math.sin(PI * cutoff * x) / (PI * x);
+			double r = (length > 1) ? x / center : 0;
+			double window = besselI0(beta * Math.sqrt(Math.max(0, 1 - r * r))) / norm;
+
+			taps[i] = gain * sinc * window;
+		}
+
+		return taps;
+	}
+
+	/**
+	 * Modified Bessel function of the first kind and order zero
+	 */
+	private double besselI0(double x)
+	{
+		double sum = 1;
+		double term = 1;
+		double y = x * x / 4;
+
+		for (int k = 1; term > 1e-12 * sum; k++)
+		{
+			term *= y / (k * k);
+			sum += term;
+		}
+
+		return sum;
+	}
+
 	public Matrix<Complex> getButterPoles(int sections, double frequency)
 	{
 		int columns = 1;
@@ -238,10 +380,10 @@ public class FilterTools
 		return poles;
 	}
 
-	Matrix<Float> Filterbank(int size, double sample_rate, Matrix<Float> intervals, WINDOW_TYPE type)
+	FloatMatrix Filterbank(int size, double sample_rate, FloatMatrix intervals, WINDOW_TYPE type)
 	{
 
-		Matrix<Float> filterbank = new Matrix<>(intervals.getRows(), size);
+		FloatMatrix filterbank = new FloatMatrix(intervals.getRows(), size);
 		filterbank.fillValue(0f);
 
 		sample_rate /= 2; // convert sampling to nyquist rate
@@ -257,7 +399,7 @@ public class FilterTools
 			intervalsptr++;
 
 			maxind = Math.min(maxind, size - 1);
-			Matrix<Float> winmat = Window(1 + (maxind - minind), type, MATRIX_DIMENSION.ROW);
+			FloatMatrix winmat = Window(1 + (maxind - minind), type, MATRIX_DIMENSION.ROW);
 			MatrixOps.getInstance().div(winmat, MatrixOps.getInstance().sum(winmat));
 			filterbank.setSubMatrix(i, minind, winmat);
 		}
@@ -265,17 +407,17 @@ public class FilterTools
 		return filterbank;
 	}
 
-	public Matrix<Float> Window(int size, WINDOW_TYPE type, MATRIX_DIMENSION dimension)
+	public FloatMatrix Window(int size, WINDOW_TYPE type, MATRIX_DIMENSION dimension)
 	{
-		Matrix<Float> window;
+		FloatMatrix window;
 
 		if (size < 1)
 		{
-			window = new Matrix<>(0, 0);
+			window = new FloatMatrix(0, 0);
 		}
 		else if (size == 1)
 		{
-			window = new Matrix<>(1, 1);
+			window = new FloatMatrix(1, 1);
 			window.setData(0, 1f);
 		}
 		else
@@ -284,7 +426,7 @@ public class FilterTools
 			{
 				default:
 				case RECTANGLE:
-					window = new Matrix<>(1, size);
+					window = new FloatMatrix(1, size);
 					window.fillValue(1f);
 					break;
 
@@ -0,0 +1,219 @@
+/*
+ * FloatMatrix.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import java.util.Arrays;
+
+/**
+ * Matrix of primitive floats.<br>
+ * Values are stored row-major in one contiguous array. Rows start every stride elements
+ * beginning at offset, which allows views on parts of larger arrays without copying.
+ */
+public class FloatMatrix
+{
+	private int rows;
+	private int cols;
+	private int stride;
+	private int offset;
+
+	float[] data;
+
+	public FloatMatrix(int rows, int cols)
+	{
+		reset(rows, cols);
+	}
+
+	/**
+	 * Wraps existing data without copying
+	 *
+	 * @param data   backing array
+	 * @param offset index of the first element
+	 * @param rows   number of rows
+	 * @param cols   number of columns
+	 * @param stride distance between the starts of two rows
+	 */
+	public FloatMatrix(float[] data, int offset, int rows, int cols, int stride)
+	{
+		if (stride < cols || offset + (rows > 0 ? (rows - 1) * stride + cols : 0) > data.length)
+		{
+			throw new IllegalArgumentException("data does not fit a " + rows + "x" + cols + " matrix");
+		}
+
+		this.data = data;
+		this.offset = offset;
+		this.rows = rows;
+		this.cols = cols;
+		this.stride = stride;
+	}
+
+	public void reset(int rows, int cols)
+	{
+		this.rows = Math.max(rows, 0);
+		this.cols = Math.max(cols, 0);
+		this.stride = this.cols;
+		this.offset = 0;
+
+		data = new float[this.rows * this.cols];
+	}
+
+	public FloatMatrix clone()
+	{
+		FloatMatrix ret = new FloatMatrix(rows, cols);
+		ret.setSubMatrix(0, 0, this);
+
+		return ret;
+	}
+
+	/**
+	 * @return backing array, see getOffset and getStride for its layout
+	 */
+	public float[] getData()
+	{
+		return data;
+	}
+
+	public float getData(int index)
+	{
+		return (stride == cols) ? data[offset + index] : data[offset + (index / cols) * stride + index % cols];
+	}
+
+	public float getData(int row, int col)
+	{
+		return data[offset + row * stride + col];
+	}
+
+	public void setData(int index, float value)
+	{
+		if (stride == cols)
+		{
+			data[offset + index] = value;
+		}
+		else
+		{
+			data[offset + (index / cols) * stride + index % cols] = value;
+		}
+	}
+
+	public void setData(int row, int col, float value)
+	{
+		data[offset + row * stride + col] = value;
+	}
+
+	public void fillValue(float value)
+	{
+		if (stride == cols)
+		{
+			Arrays.fill(data, offset, offset + rows * cols, value);
+		}
+		else
+		{
+			for (int row = 0, ptr = offset; row < rows; row++, ptr += stride)
+			{
+				Arrays.fill(data, ptr, ptr + cols, value);
+			}
+		}
+	}
+
+	public int getRows()
+	{
+		return rows;
+	}
+
+	public int getCols()
+	{
+		return cols;
+	}
+
+	public int getSize()
+	{
+		return cols * rows;
+	}
+
+	public int getStride()
+	{
+		return stride;
+	}
+
+	public int getOffset()
+	{
+		return offset;
+	}
+
+	public boolean isEmpty()
+	{
+		return rows * cols == 0;
+	}
+
+	/**
+	 * Transposes the matrix, the result is always stored in a new contiguous array
+	 */
+	public void transpose()
+	{
+		float[] dst = new float[rows * cols];
+
+		for (int i = 0, srcptr = offset; i < rows; i++, srcptr += stride)
+		{
+			for (int j = 0, dstptr = i; j < cols; j++, dstptr += rows)
+			{
+				dst[dstptr] = data[srcptr + j];
+			}
+		}
+
+		int tmp = cols;
+		cols = rows;
+		rows = tmp;
+		stride = cols;
+		offset = 0;
+		data = dst;
+	}
+
+	public void setSubMatrix(int row, int col, FloatMatrix submatrix)
+	{
+		setSubMatrix(row, col, 0, 0, submatrix.getRows(), submatrix.getCols(), submatrix);
+	}
+
+	public void setSubMatrix(int row_dst, int col_dst, int row_src, int col_src, int row_number, int col_number, FloatMatrix src)
+	{
+		if (row_dst + row_number > rows
+				|| col_dst + col_number > cols
+				|| row_src + row_number > src.getRows()
+				|| col_src + col_number > src.getCols())
+			return;
+
+		int srcptr = src.offset + row_src * src.stride + col_src;
+		int dstptr = offset + row_dst * stride + col_dst;
+
+		for (int i = 0; i < row_number; i++)
+		{
+			System.arraycopy(src.data, srcptr, data, dstptr, col_number);
+
+			srcptr += src.stride;
+			dstptr += stride;
+		}
+	}
+}
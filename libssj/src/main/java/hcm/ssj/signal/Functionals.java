@@ -67,6 +67,7 @@ public class Functionals extends Transformer
         public final Option<Boolean> len = new Option<>("len", true, Boolean.class, "Calculate sample number of each frame");
         public final Option<Boolean> path = new Option<>("path", false, Boolean.class, "Calculate path length of each frame");
         public final Option<Integer> delta = new Option<>("delta", 2, Integer.class, "zero/peaks search offset");
+        public final Option<Boolean> incremental = new Option<>("incremental", false, Boolean.class, "Update metrics only by the samples which entered or left the window, recommended for strongly overlapping windows");
 
         /**
          *
@@ -93,6 +94,7 @@ public class Functionals extends Transformer
     private float[] _mid_val;
     private float[] _path;
     private float[] _old_val;
+    private Incremental _incremental;
 
     /**
      *
@@ -129,6 +131,7 @@ public class Functionals extends Transformer
         _mid_val = new float[sample_dimension];
         _path = new float[sample_dimension];
         _old_val = new float[sample_dimension];
+        _incremental = options.incremental.get() ? new Incremental(stream_in[0].num, sample_dimension, _delta) : null;
     }
 
     /**
@@ -152,6 +155,7 @@ public class Functionals extends Transformer
         _mid_val = null;
         _path = null;
         _old_val = null;
+        _incremental = null;
     }
 
     /**
@@ -161,156 +165,210 @@ public class Functionals extends Transformer
     @Override
     public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
     {
-        boolean first_call = true;
-        int sample_number = stream_in[0].num, sample_dimension = stream_in[0].dim, c_in = 0, c_out = 0;
+        transform(stream_in, stream_out, 0, stream_in[0].dim);
+    }
+
+    /**
+     * @param stream_in  Stream[]
+     * @param stream_out Stream
+     * @param dim_from   int
+     * @param dim_to     int
+     */
+    @Override
+    public void transform(Stream[] stream_in, Stream stream_out, int dim_from, int dim_to) throws SSJFatalException
+    {
+        int sample_number = stream_in[0].num, sample_dimension = stream_in[0].dim, c_out = 0;
         float[] ptr_in = stream_in[0].ptrF(), ptr_out = stream_out.ptrF();
-        float _val;
-        for (int i = 0; i < sample_dimension; i++)
+        if (_incremental != null)
         {
-            _val = ptr_in[c_in++];
-            _mean_val[i] = _val;
-            _energy_val[i] = _val * _val;
-            _min_val[i] = _val;
-            _max_val[i] = _val;
-            _min_pos[i] = 0;
-            _max_pos[i] = 0;
-            _zeros[i] = 0;
-            _peaks[i] = 0;
-            _mid_val[i] = _val;
-            _path[i] = 0;
-            _old_val[i] = _val;
-        }
-        for (int i = 1; i < sample_number; i++)
+            _incremental.update(ptr_in, Math.round(stream_in[0].time * stream_in[0].sr));
+        } else
         {
-            for (int j = 0; j < sample_dimension; j++)
-            {
-                _val = ptr_in[c_in++];
-                _mean_val[j] += _val;
-                _energy_val[j] += _val * _val;
-                if (_val < _min_val[j])
-                {
-                    _min_val[j] = _val;
-                    _min_pos[j] = i;
-                } else if (_val > _max_val[j])
-                {
-                    _max_val[j] = _val;
-                    _max_pos[j] = i;
-                }
-                if ((i % _delta) == 0)
-                {
-                    if (first_call)
-                    {
-                        first_call = false;
-                    } else
-                    {
-                        if ((_left_val[j] > 0 && _mid_val[j] < 0) || (_left_val[j] < 0 && _mid_val[j] > 0))
-                        {
-                            _zeros[j]++;
-                        }
-                        if (_left_val[j] < _mid_val[j] && _mid_val[j] > _val)
-                        {
-                            _peaks[j]++;
-                        }
-                    }
-                    _left_val[j] = _mid_val[j];
-                    _mid_val[j] = _val;
-                }
-                _path[j] += Math.abs(_val - _old_val[j]);
-                _old_val[j] = _val;
-            }
+            compute(ptr_in, sample_number, sample_dimension, dim_from, dim_to);
         }
-        for (int i = 0; i < sample_dimension; i++)
+        for (int i = dim_from; i < dim_to; i++)
         {
-            _mean_val[i] /= sample_number;
-            _energy_val[i] /= sample_number;
             _std_val[i] = (float) Math.sqrt(Math.abs(_energy_val[i] - _mean_val[i] * _mean_val[i]));
         }
         if (options.mean.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = _mean_val[i];
+                ptr_out[c_out + i] = _mean_val[i];
             }
+            c_out += sample_dimension;
         }
         if (options.energy.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = (float)Math.sqrt(_energy_val[i]);
+                ptr_out[c_out + i] = (float)Math.sqrt(_energy_val[i]);
             }
+            c_out += sample_dimension;
         }
         if (options.std.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = _std_val[i];
+                ptr_out[c_out + i] = _std_val[i];
             }
+            c_out += sample_dimension;
         }
         if (options.min.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = _min_val[i];
+                ptr_out[c_out + i] = _min_val[i];
             }
+            c_out += sample_dimension;
         }
         if (options.max.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = _max_val[i];
+                ptr_out[c_out + i] = _max_val[i];
             }
+            c_out += sample_dimension;
         }
         if (options.range.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = _max_val[i] - _min_val[i];
+                ptr_out[c_out + i] = _max_val[i] - _min_val[i];
             }
+            c_out += sample_dimension;
         }
         if (options.minPos.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = (float) (_min_pos[i]) / sample_number;
+                ptr_out[c_out + i] = (float) (_min_pos[i]) / sample_number;
             }
+            c_out += sample_dimension;
         }
         if (options.maxPos.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = (float) (_max_pos[i]) / sample_number;
+                ptr_out[c_out + i] = (float) (_max_pos[i]) / sample_number;
             }
+            c_out += sample_dimension;
         }
         if (options.zeros.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = (float) (_zeros[i]) / sample_number;
+                ptr_out[c_out + i] = (float) (_zeros[i]) / sample_number;
             }
+            c_out += sample_dimension;
         }
         if (options.peaks.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = (float) (_peaks[i]) / sample_number;
+                ptr_out[c_out + i] = (float) (_peaks[i]) / sample_number;
             }
+            c_out += sample_dimension;
         }
         if (options.len.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = (float) sample_number;
+                ptr_out[c_out + i] = (float) sample_number;
             }
+            c_out += sample_dimension;
         }
         if (options.path.get())
         {
-            for (int i = 0; i < sample_dimension; i++)
+            for (int i = dim_from; i < dim_to; i++)
             {
-                ptr_out[c_out++] = _path[i];
+                ptr_out[c_out + i] = _path[i];
             }
+            c_out += sample_dimension;
         }
     }
 
+    /**
+     * Computes all metrics over the whole window.
+     *
+     * @param ptr_in           float[]
+     * @param sample_number    int
+     * @param sample_dimension int
+     * @param dim_from         int
+     * @param dim_to           int
+     */
+    private void compute(float[] ptr_in, int sample_number, int sample_dimension, int dim_from, int dim_to)
+    {
+        int c_in;
+        float _val;
+        for (int i = dim_from; i < dim_to; i++)
+        {
+            _val = ptr_in[i];
+            _mean_val[i] = _val;
+            _energy_val[i] = _val * _val;
+            _min_val[i] = _val;
+            _max_val[i] = _val;
+            _min_pos[i] = 0;
+            _max_pos[i] = 0;
+            _zeros[i] = 0;
+            _peaks[i] = 0;
+            _mid_val[i] = _val;
+            _path[i] = 0;
+            _old_val[i] = _val;
+        }
+        for (int i = 1; i < sample_number; i++)
+        {
+            c_in = i * sample_dimension + dim_from;
+            for (int j = dim_from; j < dim_to; j++)
+            {
+                _val = ptr_in[c_in++];
+                _mean_val[j] += _val;
+                _energy_val[j] += _val * _val;
+                if (_val < _min_val[j])
+                {
+                    _min_val[j] = _val;
+                    _min_pos[j] = i;
+                } else if (_val > _max_val[j])
+                {
+                    _max_val[j] = _val;
+                    _max_pos[j] = i;
+                }
+                if ((i % _delta) == 0)
+                {
+                    if (i > _delta)
+                    {
+                        if ((_left_val[j] > 0 && _mid_val[j] < 0) || (_left_val[j] < 0 && _mid_val[j] > 0))
+                        {
+                            _zeros[j]++;
+                        }
+                        if (_left_val[j] < _mid_val[j] && _mid_val[j] > _val)
+                        {
+                            _peaks[j]++;
+                        }
+                    }
+                    _left_val[j] = _mid_val[j];
+                    _mid_val[j] = _val;
+                }
+                _path[j] += Math.abs(_val - _old_val[j]);
+                _old_val[j] = _val;
+            }
+        }
+        for (int i = dim_from; i < dim_to; i++)
+        {
+            _mean_val[i] /= sample_number;
+            _energy_val[i] /= sample_number;
+        }
+    }
+
+    /**
+     * @return boolean
+     */
+    @Override
+    protected boolean hasIndependentDimensions()
+    {
+        return _incremental == null;
+    }
+
     /**
      * @param stream_in Stream[]
      * @return int
@@ -424,4 +482,286 @@ public class Functionals extends Transformer
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Keeps running sums, monotonic deques and event counters between calls, so overlapping
+     * windows only need to visit the samples which entered or left the window.<br>
+     * Falls back to a full update if the window did not move forward by less than its length.
+     */
+    private class Incremental
+    {
+        private final int num;
+        private final int dim;
+        private final int delta;
+        //absolute position of the first sample of the current window
+        private long position;
+        private boolean valid = false;
+        //samples shifted since the running sums were last recomputed
+        private int shifted;
+        //ring buffers with one entry per sample of the window
+        private final float[] values;
+        private final byte[] events;
+        private final long[] minPositions;
+        private final long[] maxPositions;
+        private final int[] minHead;
+        private final int[] minSize;
+        private final int[] maxHead;
+        private final int[] maxSize;
+        //running values
+        private final double[] sum;
+        private final double[] sumSquares;
+        private final double[] path;
+        //zero crossings and peaks per dimension and grid phase
+        private final int[] zeroCount;
+        private final int[] peakCount;
+
+        private static final byte ZERO = 1;
+        private static final byte PEAK = 2;
+
+        /**
+         * @param num   int
+         * @param dim   int
+         * @param delta int
+         */
+        Incremental(int num, int dim, int delta)
+        {
+            this.num = num;
+            this.dim = dim;
+            this.delta = delta;
+            values = new float[num * dim];
+            events = new byte[num * dim];
+            minPositions = new long[num * dim];
+            maxPositions = new long[num * dim];
+            minHead = new int[dim];
+            minSize = new int[dim];
+            maxHead = new int[dim];
+            maxSize = new int[dim];
+            sum = new double[dim];
+            sumSquares = new double[dim];
+            path = new double[dim];
+            zeroCount = new int[dim * delta];
+            peakCount = new int[dim * delta];
+        }
+
+        /**
+         * @param ptr_in float[]
+         * @param start  long, absolute position of the first sample
+         */
+        void update(float[] ptr_in, long start)
+        {
+            long from;
+            if (valid && start > position && start - position < num)
+            {
+                for (long a = position; a < start; a++)
+                {
+                    remove(a);
+                }
+                for (int j = 0; j < dim; j++)
+                {
+                    while (minSize[j] > 0 && minPositions[j * num + minHead[j]] < start)
+                    {
+                        minHead[j] = (minHead[j] + 1) % num;
+                        minSize[j]--;
+                    }
+                    while (maxSize[j] > 0 && maxPositions[j * num + maxHead[j]] < start)
+                    {
+                        maxHead[j] = (maxHead[j] + 1) % num;
+                        maxSize[j]--;
+                    }
+                }
+                from = position + num;
+                shifted += (int) (start - position);
+            } else
+            {
+                reset();
+                from = start;
+            }
+            position = start;
+            valid = true;
+            for (long a = from; a < start + num; a++)
+            {
+                add(a, ptr_in, (int) (a - start) * dim);
+            }
+            if (shifted >= num)
+            {
+                resum(ptr_in);
+            }
+            int phase = (int) (start % delta);
+            for (int j = 0; j < dim; j++)
+            {
+                _mean_val[j] = (float) (sum[j] / num);
+                _energy_val[j] = (float) (sumSquares[j] / num);
+                long min = minPositions[j * num + minHead[j]];
+                long max = maxPositions[j * num + maxHead[j]];
+                _min_val[j] = values[slot(min) + j];
+                _max_val[j] = values[slot(max) + j];
+                _min_pos[j] = (int) (min - start);
+                _max_pos[j] = (int) (max - start);
+                _zeros[j] = zeroCount[j * delta + phase];
+                _peaks[j] = peakCount[j * delta + phase];
+                _path[j] = (float) path[j];
+            }
+        }
+
+        /**
+         * @param a long
+         * @return int
+         */
+        private int slot(long a)
+        {
+            return (int) (a % num) * dim;
+        }
+
+        /**
+         *
+         */
+        private void reset()
+        {
+            for (int j = 0; j < dim; j++)
+            {
+                sum[j] = 0;
+                sumSquares[j] = 0;
+                path[j] = 0;
+                minHead[j] = 0;
+                minSize[j] = 0;
+                maxHead[j] = 0;
+                maxSize[j] = 0;
+            }
+            for (int i = 0; i < zeroCount.length; i++)
+            {
+                zeroCount[i] = 0;
+                peakCount[i] = 0;
+            }
+            shifted = 0;
+        }
+
+        /**
+         * Removes a sample of the previous window, requires the previous window in the ring buffer.
+         *
+         * @param a long
+         */
+        private void remove(long a)
+        {
+            int s = slot(a);
+            int next = slot(a + 1);
+            boolean hasNext = a + 1 < position + num;
+            boolean hasEvent = a + 2 * delta < position + num;
+            int phase = (int) (a % delta);
+            for (int j = 0; j < dim; j++)
+            {
+                float val = values[s + j];
+                sum[j] -= val;
+                sumSquares[j] -= val * val;
+                if (hasNext)
+                {
+                    path[j] -= Math.abs(values[next + j] - val);
+                }
+                if (hasEvent)
+                {
+                    if ((events[s + j] & ZERO) != 0)
+                    {
+                        zeroCount[j * delta + phase]--;
+                    }
+                    if ((events[s + j] & PEAK) != 0)
+                    {
+                        peakCount[j * delta + phase]--;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds a sample of the current window.
+         *
+         * @param a      long
+         * @param ptr_in float[]
+         * @param c_in   int
+         */
+        private void add(long a, float[] ptr_in, int c_in)
+        {
+            int s = slot(a);
+            int prev = slot(a - 1);
+            boolean hasPrev = a > position;
+            //grid positions left and mid of the new sample
+            long l = a - 2 * delta;
+            boolean hasEvent = l >= position;
+            int left = hasEvent ? slot(l) : 0;
+            int mid = hasEvent ? slot(l + delta) : 0;
+            int phase = hasEvent ? (int) (l % delta) : 0;
+            for (int j = 0; j < dim; j++)
+            {
+                float val = ptr_in[c_in + j];
+                values[s + j] = val;
+                sum[j] += val;
+                sumSquares[j] += val * val;
+                if (hasPrev)
+                {
+                    path[j] += Math.abs(val - values[prev + j]);
+                }
+                if (hasEvent)
+                {
+                    float left_val = values[left + j];
+                    float mid_val = values[mid + j];
+                    byte flags = 0;
+                    if ((left_val > 0 && mid_val < 0) || (left_val < 0 && mid_val > 0))
+                    {
+                        flags |= ZERO;
+                        zeroCount[j * delta + phase]++;
+                    }
+                    if (left_val < mid_val && mid_val > val)
+                    {
+                        flags |= PEAK;
+                        peakCount[j * delta + phase]++;
+                    }
+                    events[left + j] = flags;
+                }
+                //earliest minimum and maximum stay in front
+                int base = j * num;
+                int size = minSize[j];
+                while (size > 0 && values[slot(minPositions[base + (minHead[j] + size - 1) % num]) + j] > val)
+                {
+                    size--;
+                }
+                minPositions[base + (minHead[j] + size) % num] = a;
+                minSize[j] = size + 1;
+                size = maxSize[j];
+                while (size > 0 && values[slot(maxPositions[base + (maxHead[j] + size - 1) % num]) + j] < val)
+                {
+                    size--;
+                }
+                maxPositions[base + (maxHead[j] + size) % num] = a;
+                maxSize[j] = size + 1;
+            }
+        }
+
+        /**
+         * Recomputes the running sums to avoid accumulating rounding errors.
+         *
+         * @param ptr_in float[]
+         */
+        private void resum(float[] ptr_in)
+        {
+            int c_in = 0;
+            for (int j = 0; j < dim; j++)
+            {
+                sum[j] = 0;
+                sumSquares[j] = 0;
+                path[j] = 0;
+            }
+            for (int i = 0; i < num; i++)
+            {
+                for (int j = 0; j < dim; j++)
+                {
+                    float val = ptr_in[c_in++];
+                    sum[j] += val;
+                    sumSquares[j] += val * val;
+                    if (i > 0)
+                    {
+                        path[j] += Math.abs(val - ptr_in[c_in - 1 - dim]);
+                    }
+                }
+            }
+            shifted = 0;
+        }
+    }
+}
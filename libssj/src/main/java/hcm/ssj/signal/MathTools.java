@@ -168,6 +168,118 @@ public class MathTools
 		return median;
 	}
 
+	/**
+	 * Calculates a quantile of the first n values, interpolating linearly between
+	 * neighbouring order statistics. The values are reordered in place.
+	 *
+	 * @param values   values, gets reordered
+	 * @param n        number of values to consider
+	 * @param quantile quantile in [0..1], 0.5 is the median
+	 * @return quantile
+	 */
+	public float getQuantileInPlace(float[] values, int n, float quantile)
+	{
+		if (n <= 0)
+		{
+			return 0;
+		}
+
+		double position = Math.min(Math.max(quantile, 0), 1) * (n - 1);
+		int k = (int) position;
+		double fraction = position - k;
+
+		float low = select(values, 0, n, k);
+
+		if (fraction == 0)
+		{
+			return low;
+		}
+
+		// the next order statistic is the smallest value behind k
+		float high = values[k + 1];
+		for (int i = k + 2; i < n; i++)
+		{
+			if (values[i] < high)
+			{
+				high = values[i];
+			}
+		}
+
+		return (float) (low * (1 - fraction) + high * fraction);
+	}
+
+	/**
+	 * Partially sorts values[from..to) such that values[k] holds the value it would hold
+	 * if the range was sorted, with no larger value in front and no smaller value behind it
+	 * (quickselect, linear on average).
+	 *
+	 * @return values[k]
+	 */
+	public float select(float[] values, int from, int to, int k)
+	{
+		int left = from;
+		int right = to - 1;
+
+		while (right > left)
+		{
+			// median of three as pivot
+			int mid = (left + right) >>> 1;
+			if (values[mid] < values[left])
+			{
+				swap(values, mid, left);
+			}
+			if (values[right] < values[left])
+			{
+				swap(values, right, left);
+			}
+			if (values[right] < values[mid])
+			{
+				swap(values, right, mid);
+			}
+			float pivot = values[mid];
+
+			int i = left;
+			int j = right;
+			while (i <= j)
+			{
+				while (values[i] < pivot)
+				{
+					i++;
+				}
+				while (values[j] > pivot)
+				{
+					j--;
+				}
+				if (i <= j)
+				{
+					swap(values, i++, j--);
+				}
+			}
+
+			if (k <= j)
+			{
+				right = j;
+			}
+			else if (k >= i)
+			{
+				left = i;
+			}
+			else
+			{
+				break;
+			}
+		}
+
+		return values[k];
+	}
+
+	private static void swap(float[] values, int i, int j)
+	{
+		float tmp = values[i];
+		values[i] = values[j];
+		values[j] = tmp;
+	}
+
 	/**
 	 * Calculates the variance of all values
 	 */
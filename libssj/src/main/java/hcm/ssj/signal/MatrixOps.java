@@ -58,33 +58,32 @@ public class MatrixOps
 		return _instance;
 	}
 
-	public Matrix<Float> array (float start, float delta, float end, Matrix.MATRIX_DIMENSION dimension)
+	public FloatMatrix array (float start, float delta, float end, Matrix.MATRIX_DIMENSION dimension)
 	{
 		int steps = (int) (((end - start) / (double)(delta)) + 1.001);
-		Matrix<Float> matrix;
+		FloatMatrix matrix;
 
 		if (steps <= 0) {
-			matrix = new Matrix<> (0,0);
+			matrix = new FloatMatrix (0,0);
 			return matrix;
 		}
 
 		switch (dimension) {
 			case ROW:
-				matrix = new Matrix<> (1, steps);
+				matrix = new FloatMatrix (1, steps);
 				break;
 			case COL:
 			default:
-				matrix = new Matrix<> (steps, 1);
+				matrix = new FloatMatrix (steps, 1);
 				break;
 		}
 
-		int dataptr = 0;
-		matrix.setData(dataptr, start);
+		float[] data = matrix.getData();
+		data[0] = start;
 
-		for (int i = 0; i < steps-1; i++)
+		for (int i = 1; i < steps; i++)
 		{
-			matrix.setData(dataptr+1, matrix.getData(dataptr) + delta);
-			dataptr++;
+			data[i] = data[i - 1] + delta;
 		}
 
 		return matrix;
@@ -105,29 +104,31 @@ public class MatrixOps
 		return result;
 	}
 
-	public void plus (Matrix<Float> matrix, float scalar)
+	public void plus (FloatMatrix matrix, float scalar)
 	{
-		if (matrix.getData().isEmpty()) {
-			return;
-		}
+		float[] data = matrix.getData();
+		int cols = matrix.getCols();
 
-		for (int i = 0; i < matrix.getSize(); i++) {
-			matrix.setData(i, matrix.getData(i) + scalar);
+		for (int i = 0, ptr = matrix.getOffset(); i < matrix.getRows(); i++, ptr += matrix.getStride()) {
+			for (int j = ptr; j < ptr + cols; j++) {
+				data[j] += scalar;
+			}
 		}
 	}
 
-	public void mult (Matrix<Float> matrix, float scalar)
+	public void mult (FloatMatrix matrix, float scalar)
 	{
-		if (matrix.getData().isEmpty()) {
-			return;
-		}
+		float[] data = matrix.getData();
+		int cols = matrix.getCols();
 
-		for (int i = 0; i < matrix.getSize(); i++) {
-			matrix.setData(i, matrix.getData(i) * scalar);
+		for (int i = 0, ptr = matrix.getOffset(); i < matrix.getRows(); i++, ptr += matrix.getStride()) {
+			for (int j = ptr; j < ptr + cols; j++) {
+				data[j] *= scalar;
+			}
 		}
 	}
 
-	public void mult(Matrix<Float> a, Matrix<Float> b)
+	public void mult(FloatMatrix a, FloatMatrix b)
 	{
 		if(a.getRows() != b.getRows() || a.getCols() != b.getCols())
 		{
@@ -135,16 +136,18 @@ public class MatrixOps
 			return;
 		}
 
-		if(a.getData().isEmpty())
-			return;
+		float[] adata = a.getData();
+		float[] bdata = b.getData();
+		int cols = a.getCols();
 
-		for(int i = 0; i < a.getSize(); i++)
-		{
-			a.setData(i, a.getData(i) * b.getData(i));
+		for (int i = 0, aptr = a.getOffset(), bptr = b.getOffset(); i < a.getRows(); i++, aptr += a.getStride(), bptr += b.getStride()) {
+			for (int j = 0; j < cols; j++) {
+				adata[aptr + j] *= bdata[bptr + j];
+			}
 		}
 	}
 
-	public void multM(Matrix<Float> a, Matrix<Float> b, Matrix<Float> dst)
+	public void multM(FloatMatrix a, FloatMatrix b, FloatMatrix dst)
 	{
 		if(a.getCols() != b.getRows() || dst.getRows() != a.getRows() || dst.getCols() != b.getCols())
 		{
@@ -154,89 +157,122 @@ public class MatrixOps
 
 		dst.fillValue(0f);
 
-		int aptr = 0;
-		int bptr = 0;
-		int dstptr = 0;
-		int dstptr2 = 0;
+		float[] adata = a.getData();
+		float[] bdata = b.getData();
+		float[] dstdata = dst.getData();
+		int cols = b.getCols();
 
 		for (int i = 0; i < a.getRows(); i++) {
-			bptr = 0;
+			int aptr = a.getOffset() + i * a.getStride();
+			int dstptr = dst.getOffset() + i * dst.getStride();
 			for (int j = 0; j < b.getRows(); j++) {
-				dstptr2 = dstptr;
-				for (int k = 0; k < b.getCols(); k++) {
-					dst.setData(dstptr2, dst.getData(dstptr2) + b.getData(bptr) * a.getData(aptr));
-					bptr++;
-					dstptr2++;
+				float scalar = adata[aptr + j];
+				int bptr = b.getOffset() + j * b.getStride();
+				for (int k = 0; k < cols; k++) {
+					dstdata[dstptr + k] += bdata[bptr + k] * scalar;
 				}
-				aptr++;
 			}
-			dstptr = dstptr2;
 		}
 	}
 
-	public void div(Matrix<Float> a, Matrix<Float> b)
+	/**
+	 * Multiplies a with the transpose of b, dst = a * b'
+	 */
+	public void multMT(FloatMatrix a, FloatMatrix b, FloatMatrix dst)
 	{
-		if(a.getRows() != b.getRows() || a.getCols() != b.getCols())
+		if(a.getCols() != b.getCols() || dst.getRows() != a.getRows() || dst.getCols() != b.getRows())
 		{
 			Log.w("matrices not matching");
 			return;
 		}
 
-		if(a.getData().isEmpty())
-			return;
+		float[] adata = a.getData();
+		float[] bdata = b.getData();
+		float[] dstdata = dst.getData();
+		int n = a.getCols();
 
-		int elements = a.getRows() * a.getCols();
-		for(int i = 0; i < elements; i++)
-		{
-			a.setData(i, a.getData(i) / b.getData(i));
+		for (int i = 0; i < a.getRows(); i++) {
+			int aptr = a.getOffset() + i * a.getStride();
+			int dstptr = dst.getOffset() + i * dst.getStride();
+			for (int k = 0; k < b.getRows(); k++) {
+				int bptr = b.getOffset() + k * b.getStride();
+				float sum = 0;
+				for (int j = 0; j < n; j++) {
+					sum += adata[aptr + j] * bdata[bptr + j];
+				}
+				dstdata[dstptr + k] = sum;
+			}
 		}
 	}
 
-	public void div (Matrix<Float> matrix, float scalar)
+	public void div(FloatMatrix a, FloatMatrix b)
 	{
-		if (matrix.getData().isEmpty()) {
+		if(a.getRows() != b.getRows() || a.getCols() != b.getCols())
+		{
+			Log.w("matrices not matching");
 			return;
 		}
 
-		int elems  = matrix.getRows() * matrix.getCols();
+		float[] adata = a.getData();
+		float[] bdata = b.getData();
+		int cols = a.getCols();
 
-		for (int i = 0; i < elems; i++) {
-			matrix.setData(i, matrix.getData(i) / scalar);
+		for (int i = 0, aptr = a.getOffset(), bptr = b.getOffset(); i < a.getRows(); i++, aptr += a.getStride(), bptr += b.getStride()) {
+			for (int j = 0; j < cols; j++) {
+				adata[aptr + j] /= bdata[bptr + j];
+			}
 		}
 	}
 
-	public float sum(Matrix<Float> matrix)
+	public void div (FloatMatrix matrix, float scalar)
+	{
+		float[] data = matrix.getData();
+		int cols = matrix.getCols();
+
+		for (int i = 0, ptr = matrix.getOffset(); i < matrix.getRows(); i++, ptr += matrix.getStride()) {
+			for (int j = ptr; j < ptr + cols; j++) {
+				data[j] /= scalar;
+			}
+		}
+	}
+
+	public float sum(FloatMatrix matrix)
 	{
 		float sum = 0;
-		int elems = matrix.getRows() * matrix.getCols();
+		float[] data = matrix.getData();
+		int cols = matrix.getCols();
 
-		for (int i = 0; i < elems; i++) {
-			sum += matrix.getData(i);
+		for (int i = 0, ptr = matrix.getOffset(); i < matrix.getRows(); i++, ptr += matrix.getStride()) {
+			for (int j = ptr; j < ptr + cols; j++) {
+				sum += data[j];
+			}
 		}
 
 		return sum;
 	}
 
-	public void cos (Matrix<Float> matrix)
+	public void cos (FloatMatrix matrix)
 	{
-		if (matrix.getData().isEmpty()) {
-			return;
-		}
+		float[] data = matrix.getData();
+		int cols = matrix.getCols();
 
-		for (int i = 0; i < matrix.getSize(); i++) {
-			matrix.setData(i, (float)Math.cos(matrix.getData(i)));
+		for (int i = 0, ptr = matrix.getOffset(); i < matrix.getRows(); i++, ptr += matrix.getStride()) {
+			for (int j = ptr; j < ptr + cols; j++) {
+				data[j] = (float) Math.cos(data[j]);
+			}
 		}
 	}
 
-	public void log10 (Matrix<Float> matrix)
+	public void log10 (FloatMatrix matrix)
 	{
-		if (matrix.getData().isEmpty()) {
-			return;
-		}
+		float[] data = matrix.getData();
+		int cols = matrix.getCols();
 
-		for (int i = 0; i < matrix.getSize(); i++) {
-			float val = matrix.getData(i);
-			matrix.setData(i, (val <= 0) ? 0 : (float)Math.log10(val));
+		for (int i = 0, ptr = matrix.getOffset(); i < matrix.getRows(); i++, ptr += matrix.getStride()) {
+			for (int j = ptr; j < ptr + cols; j++) {
+				float val = data[j];
+				data[j] = (val <= 0) ? 0 : (float) Math.log10(val);
+			}
 		}
 	}
 }
@@ -27,8 +27,6 @@
 
 package hcm.ssj.signal;
 
-import java.util.Arrays;
-
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.SSJFatalException;
@@ -39,7 +37,8 @@ import hcm.ssj.core.option.OptionList;
 import hcm.ssj.core.stream.Stream;
 
 /**
- * A general transformer to calculate the median for every dimension in the provided streams.<br>
+ * A general transformer to calculate the median (or any other quantile) for every dimension in the provided streams.<br>
+ * Each frame is evaluated on its own using quickselect, see MvgMedian for a moving median over overlapping windows.<br>
  * Created by Frank Gaibler on 09.09.2015.
  */
 public class Median extends Transformer
@@ -56,6 +55,7 @@ public class Median extends Transformer
     public class Options extends OptionList
     {
         public final Option<String[]> outputClass = new Option<>("outputClass", null, String[].class, "Describes the output names for every dimension in e.g. a graph");
+        public final Option<Float> quantile = new Option<>("quantile", 0.5f, Float.class, "quantile to compute in interval [0..1], 0.5 is the median");
 
         /**
          *
@@ -151,15 +151,7 @@ public class Median extends Transformer
      */
     private float getMedian(float[] in)
     {
-        Arrays.sort(in);
-        int n = in.length;
-        if (n % 2 == 0)
-        {
-            return (in[n / 2] + in[(n / 2) - 1]) / 2;
-        } else
-        {
-            return in[(n - 1) / 2];
-        }
+        return MathTools.getInstance().getQuantileInPlace(in, in.length, options.quantile.get());
     }
 
     /**
@@ -0,0 +1,364 @@
+/*
+ * MvgMedian.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Computes the moving median (or any other quantile) of the input stream for the chosen window.<br>
+ * Every input sample produces an output sample. The window of each dimension is kept in two heaps,
+ * the lower part in a max-heap and the upper part in a min-heap, so inserting the newest and
+ * evicting the oldest sample costs O(log n) instead of sorting the whole window.
+ */
+public class MvgMedian extends Transformer
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		public final Option<Float> windowSize = new Option<>("windowSize", 1.f, Float.class, "window size in seconds");
+		public final Option<Float> quantile = new Option<>("quantile", 0.5f, Float.class, "quantile to compute in interval [0..1], 0.5 is the median");
+
+		/**
+		 *
+		 */
+		private Options() {
+			addOptions();
+		}
+	}
+
+	public final Options options = new Options();
+
+	Window[] _windows;
+	float[] _data;
+
+	public MvgMedian()
+	{
+		_name = "MvgMedian";
+	}
+
+	@Override
+	public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+	{
+		int windowSizeInSamples = Math.max(1, (int) (options.windowSize.get() * stream_in[0].sr + 0.5));
+		float quantile = Math.min(Math.max(options.quantile.get(), 0), 1);
+
+		_windows = new Window[stream_in[0].dim];
+		for (int i = 0; i < _windows.length; i++)
+		{
+			_windows[i] = new Window(windowSizeInSamples, quantile);
+		}
+
+		_data = new float[stream_in[0].num * stream_in[0].dim];
+	}
+
+	@Override
+	public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+	{
+		int sampleDimension = stream_in[0].dim;
+		int sampleNumber = stream_in[0].num;
+
+		Util.castStreamPointerToFloat(stream_in[0], _data);
+		float[] dstPtr = stream_out.ptrF();
+
+		for (int i = 0, index = 0; i < sampleNumber; i++)
+		{
+			for (int j = 0; j < sampleDimension; j++, index++)
+			{
+				_windows[j].push(_data[index]);
+				dstPtr[index] = _windows[j].get();
+			}
+		}
+	}
+
+	@Override
+	public void flush(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+	{
+		_windows = null;
+		_data = null;
+	}
+
+	@Override
+	public int getSampleDimension(Stream[] stream_in)
+	{
+		return stream_in[0].dim;
+	}
+
+	@Override
+	public int getSampleBytes(Stream[] stream_in)
+	{
+		return Util.sizeOf(Cons.Type.FLOAT); // Float
+	}
+
+	@Override
+	public Cons.Type getSampleType(Stream[] stream_in)
+	{
+		if (stream_in[0].type == Cons.Type.BOOL || stream_in[0].type == Cons.Type.STRING)
+		{
+			Log.e("unsupported input type");
+		}
+
+		return Cons.Type.FLOAT;
+	}
+
+	@Override
+	public int getSampleNumber(int sampleNumber_in)
+	{
+		return sampleNumber_in;
+	}
+
+	@Override
+	protected void describeOutput(Stream[] stream_in, Stream stream_out)
+	{
+		stream_out.desc = new String[stream_in[0].dim];
+		System.arraycopy(stream_in[0].desc, 0, stream_out.desc, 0, stream_in[0].desc.length);
+	}
+
+	/**
+	 * Sliding window of one dimension.<br>
+	 * Samples live in a ring buffer, the heaps store ring slots. Every slot remembers its heap
+	 * position (positive for the lower heap, negative for the upper heap) so that the oldest
+	 * sample can be removed directly.
+	 */
+	static class Window
+	{
+		final int capacity;
+		final float quantile;
+
+		final float[] values;
+		final int[] position;
+
+		final int[] lower; // max-heap
+		final int[] upper; // min-heap
+		int lowerSize;
+		int upperSize;
+
+		int size;
+		int next;
+
+		Window(int capacity, float quantile)
+		{
+			this.capacity = capacity;
+			this.quantile = quantile;
+
+			values = new float[capacity];
+			position = new int[capacity];
+			lower = new int[capacity];
+			upper = new int[capacity];
+		}
+
+		void push(float value)
+		{
+			int slot = next;
+			next = (next + 1) % capacity;
+
+			if (size == capacity)
+			{
+				remove(slot);
+			}
+			else
+			{
+				size++;
+			}
+
+			values[slot] = value;
+
+			// every value of the lower heap must not exceed any value of the upper heap
+			if (upperSize == 0 || value <= values[upper[0]])
+			{
+				lower[lowerSize] = slot;
+				position[slot] = lowerSize;
+				lowerSize++;
+				siftUp(lower, lowerSize - 1, true);
+			}
+			else
+			{
+				upper[upperSize] = slot;
+				position[slot] = -upperSize - 1;
+				upperSize++;
+				siftUp(upper, upperSize - 1, false);
+			}
+
+			// the lower heap holds all samples up to the requested order statistic
+			int lowerTarget = (int) (quantile * (size - 1)) + 1;
+			while (lowerSize > lowerTarget)
+			{
+				int top = pop(lower, true);
+				upper[upperSize] = top;
+				position[top] = -upperSize - 1;
+				upperSize++;
+				siftUp(upper, upperSize - 1, false);
+			}
+			while (lowerSize < lowerTarget)
+			{
+				int top = pop(upper, false);
+				lower[lowerSize] = top;
+				position[top] = lowerSize;
+				lowerSize++;
+				siftUp(lower, lowerSize - 1, true);
+			}
+		}
+
+		float get()
+		{
+			if (lowerSize == 0)
+			{
+				return 0;
+			}
+
+			float low = values[lower[0]];
+
+			double exact = quantile * (size - 1);
+			double fraction = exact - (int) exact;
+			if (fraction == 0 || upperSize == 0)
+			{
+				return low;
+			}
+
+			return (float) (low * (1 - fraction) + values[upper[0]] * fraction);
+		}
+
+		private void remove(int slot)
+		{
+			int pos = position[slot];
+			if (pos >= 0)
+			{
+				lowerSize--;
+				if (pos != lowerSize)
+				{
+					lower[pos] = lower[lowerSize];
+					position[lower[pos]] = pos;
+					siftDown(lower, lowerSize, pos, true);
+					siftUp(lower, pos, true);
+				}
+			}
+			else
+			{
+				pos = -pos - 1;
+				upperSize--;
+				if (pos != upperSize)
+				{
+					upper[pos] = upper[upperSize];
+					position[upper[pos]] = -pos - 1;
+					siftDown(upper, upperSize, pos, false);
+					siftUp(upper, pos, false);
+				}
+			}
+		}
+
+		private int pop(int[] heap, boolean max)
+		{
+			int top = heap[0];
+			int last;
+			if (max)
+			{
+				last = --lowerSize;
+			}
+			else
+			{
+				last = --upperSize;
+			}
+
+			if (last > 0)
+			{
+				heap[0] = heap[last];
+				setPosition(heap[0], 0, max);
+				siftDown(heap, last, 0, max);
+			}
+			return top;
+		}
+
+		/**
+		 * @return true if slot a belongs above slot b in the heap
+		 */
+		private boolean above(int a, int b, boolean max)
+		{
+			return max ? values[a] > values[b] : values[a] < values[b];
+		}
+
+		private void siftUp(int[] heap, int i, boolean max)
+		{
+			int slot = heap[i];
+			while (i > 0)
+			{
+				int parent = (i - 1) >> 1;
+				if (!above(slot, heap[parent], max))
+				{
+					break;
+				}
+				heap[i] = heap[parent];
+				setPosition(heap[i], i, max);
+				i = parent;
+			}
+			heap[i] = slot;
+			setPosition(slot, i, max);
+		}
+
+		private void siftDown(int[] heap, int size, int i, boolean max)
+		{
+			int slot = heap[i];
+			while (true)
+			{
+				int child = (i << 1) + 1;
+				if (child >= size)
+				{
+					break;
+				}
+				if (child + 1 < size && above(heap[child + 1], heap[child], max))
+				{
+					child++;
+				}
+				if (!above(heap[child], slot, max))
+				{
+					break;
+				}
+				heap[i] = heap[child];
+				setPosition(heap[i], i, max);
+				i = child;
+			}
+			heap[i] = slot;
+			setPosition(slot, i, max);
+		}
+
+		private void setPosition(int slot, int i, boolean max)
+		{
+			position[slot] = max ? i : -i - 1;
+		}
+	}
+}
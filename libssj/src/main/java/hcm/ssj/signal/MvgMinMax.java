@@ -42,6 +42,8 @@ import hcm.ssj.core.stream.Stream;
  * Created by Michael Dietz on 06.08.2015.
  *
  * Computes moving/sliding minim and/or maximum of the input stream for the chosen window.
+ * MOVING approximates the window with a number of blocks, SLIDING applies exponential smoothing
+ * and EXACT tracks the true extrema of the last windowSize seconds.
  */
 public class MvgMinMax extends Transformer
 {
@@ -54,7 +56,8 @@ public class MvgMinMax extends Transformer
 	public enum Method
 	{
 		MOVING,
-		SLIDING
+		SLIDING,
+		EXACT
 	}
 
 	public enum Format
@@ -91,13 +94,17 @@ public class MvgMinMax extends Transformer
 	@Override
 	public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
 	{
-		if (options.method.get() == Method.MOVING)
+		switch (options.method.get())
 		{
-			_impl = new Moving(options);
-		}
-		else
-		{
-			_impl = new Sliding(options);
+			case MOVING:
+				_impl = new Moving(options);
+				break;
+			case EXACT:
+				_impl = new Exact(options);
+				break;
+			default:
+				_impl = new Sliding(options);
+				break;
 		}
 
 		_impl.enter(stream_in[0], stream_out);
@@ -446,4 +453,147 @@ public class MvgMinMax extends Transformer
 			_maxHistory = null;
 		}
 	}
+
+	/**
+	 * Exact moving minimum and maximum.<br>
+	 * Each dimension keeps two monotonic deques in preallocated ring buffers. A new value removes
+	 * all values from the back which it dominates, values leaving the window are removed from the
+	 * front, so the front always holds the extremum. Every value enters and leaves each deque
+	 * once, which makes the cost per sample amortized constant regardless of the window length.
+	 */
+	class Exact implements Implementation
+	{
+		Options options;
+
+		int _windowSizeInSamples;
+		boolean _min;
+		boolean _max;
+
+		// ring buffers, _windowSizeInSamples entries per dimension
+		float[] _minValues;
+		long[] _minPositions;
+		int[] _minHead;
+		int[] _minSize;
+
+		float[] _maxValues;
+		long[] _maxPositions;
+		int[] _maxHead;
+		int[] _maxSize;
+
+		long _position;
+
+		public Exact(Options options)
+		{
+			this.options = options;
+		}
+
+		@Override
+		public void enter(Stream stream_in, Stream stream_out)
+		{
+			int sampleDimension = stream_in.dim;
+
+			_windowSizeInSamples = Math.max(1, (int) (options.windowSize.get() * stream_in.sr + 0.5));
+			_min = EnumSet.of(Format.MIN, Format.ALL).contains(options.format.get());
+			_max = EnumSet.of(Format.MAX, Format.ALL).contains(options.format.get());
+
+			_minValues = new float[sampleDimension * _windowSizeInSamples];
+			_minPositions = new long[sampleDimension * _windowSizeInSamples];
+			_minHead = new int[sampleDimension];
+			_minSize = new int[sampleDimension];
+
+			_maxValues = new float[sampleDimension * _windowSizeInSamples];
+			_maxPositions = new long[sampleDimension * _windowSizeInSamples];
+			_maxHead = new int[sampleDimension];
+			_maxSize = new int[sampleDimension];
+
+			_position = 0;
+		}
+
+		@Override
+		public void transform(Stream stream_in, Stream stream_out)
+		{
+			int sampleDimension = stream_in.dim;
+			int sampleNumber = stream_in.num;
+			int window = _windowSizeInSamples;
+
+			float[] srcPtr = stream_in.ptrF();
+			float[] dstPtr = stream_out.ptrF();
+
+			int srcIndex = 0;
+			int dstIndex = 0;
+
+			for (int i = 0; i < sampleNumber; i++)
+			{
+				// oldest position which is still part of the window
+				long first = _position - window + 1;
+
+				for (int j = 0; j < sampleDimension; j++)
+				{
+					float x = srcPtr[srcIndex++];
+					int base = j * window;
+
+					if (_min)
+					{
+						int head = _minHead[j];
+						int size = _minSize[j];
+
+						while (size > 0 && _minValues[base + (head + size - 1) % window] >= x)
+						{
+							size--;
+						}
+						while (size > 0 && _minPositions[base + head] < first)
+						{
+							head = (head + 1) % window;
+							size--;
+						}
+
+						int tail = base + (head + size) % window;
+						_minValues[tail] = x;
+						_minPositions[tail] = _position;
+						size++;
+
+						_minHead[j] = head;
+						_minSize[j] = size;
+						dstPtr[dstIndex++] = _minValues[base + head];
+					}
+
+					if (_max)
+					{
+						int head = _maxHead[j];
+						int size = _maxSize[j];
+
+						while (size > 0 && _maxValues[base + (head + size - 1) % window] <= x)
+						{
+							size--;
+						}
+						while (size > 0 && _maxPositions[base + head] < first)
+						{
+							head = (head + 1) % window;
+							size--;
+						}
+
+						int tail = base + (head + size) % window;
+						_maxValues[tail] = x;
+						_maxPositions[tail] = _position;
+						size++;
+
+						_maxHead[j] = head;
+						_maxSize[j] = size;
+						dstPtr[dstIndex++] = _maxValues[base + head];
+					}
+				}
+
+				_position++;
+			}
+		}
+
+		@Override
+		public void flush(Stream stream_in, Stream stream_out)
+		{
+			_minValues = null;
+			_minPositions = null;
+			_maxValues = null;
+			_maxPositions = null;
+		}
+	}
 }
@@ -60,7 +60,8 @@ public class MvgNorm extends Transformer
 	public enum Method
 	{
 		MOVING,
-		SLIDING
+		SLIDING,
+		EXACT // exact min/max window, averages are computed as with MOVING
 	}
 
 	public class Options extends OptionList
@@ -106,7 +107,7 @@ public class MvgNorm extends Transformer
 			{
 				MvgAvgVar mvgAvgVar = new MvgAvgVar();
 				mvgAvgVar.options.format.set(MvgAvgVar.Format.AVG_AND_VAR);
-				mvgAvgVar.options.method.set(options.method.get() == Method.MOVING ? MvgAvgVar.Method.MOVING : MvgAvgVar.Method.SLIDING);
+				mvgAvgVar.options.method.set(options.method.get() == Method.SLIDING ? MvgAvgVar.Method.SLIDING : MvgAvgVar.Method.MOVING);
 				mvgAvgVar.options.window.set((double) options.windowSize.get());
 
 				_mvg = mvgAvgVar;
@@ -116,7 +117,7 @@ public class MvgNorm extends Transformer
 			{
 				MvgMinMax mvgMinMax = new MvgMinMax();
 				mvgMinMax.options.format.set(MvgMinMax.Format.ALL);
-				mvgMinMax.options.method.set(options.method.get() == Method.MOVING ? MvgMinMax.Method.MOVING : MvgMinMax.Method.SLIDING);
+				mvgMinMax.options.method.set(MvgMinMax.Method.valueOf(options.method.get().name()));
 				mvgMinMax.options.windowSize.set(options.windowSize.get());
 
 				_mvg = mvgMinMax;
@@ -126,7 +127,7 @@ public class MvgNorm extends Transformer
 			{
 				MvgAvgVar mvgAvgVar = new MvgAvgVar();
 				mvgAvgVar.options.format.set(MvgAvgVar.Format.AVERAGE);
-				mvgAvgVar.options.method.set(options.method.get() == Method.MOVING ? MvgAvgVar.Method.MOVING : MvgAvgVar.Method.SLIDING);
+				mvgAvgVar.options.method.set(options.method.get() == Method.SLIDING ? MvgAvgVar.Method.SLIDING : MvgAvgVar.Method.MOVING);
 				mvgAvgVar.options.window.set((double) options.windowSize.get());
 
 				_mvg = mvgAvgVar;
@@ -136,7 +137,7 @@ public class MvgNorm extends Transformer
 			{
 				MvgMinMax mvgMinMax = new MvgMinMax();
 				mvgMinMax.options.format.set(MvgMinMax.Format.MIN);
-				mvgMinMax.options.method.set(options.method.get() == Method.MOVING ? MvgMinMax.Method.MOVING : MvgMinMax.Method.SLIDING);
+				mvgMinMax.options.method.set(MvgMinMax.Method.valueOf(options.method.get().name()));
 				mvgMinMax.options.windowSize.set(options.windowSize.get());
 				mvgMinMax.options.numberOfBlocks.set(options.numberOfBlocks.get());
 
@@ -71,7 +71,7 @@ public class PSD extends Transformer
     public final Options options = new Options();
     //helper variables
     private FloatFFT_1D fft;
-    private float[] copy, psd;
+    private float[] psd;
 
     /**
      *
@@ -92,8 +92,7 @@ public class PSD extends Transformer
         {
             Log.e("invalid input stream");
         }
-        fft = new FloatFFT_1D(stream_in[0].num);
-        copy = new float[stream_in[0].num];
+        fft = FFTCache.getInstance().getFFT(stream_in[0].num);
         psd = new float[stream_in[0].num / 2 + 1];
     }
 
@@ -106,7 +105,6 @@ public class PSD extends Transformer
     {
         super.flush(stream_in, stream_out);
         fft = null;
-        copy = null;
         psd = null;
     }
 
@@ -121,11 +119,12 @@ public class PSD extends Transformer
         float[] ptr_in = stream_in[0].ptrF(), ptr_out = stream_out.ptrF();
         float fde = 0;
         // Copy data for FFT
+        float[] copy = FFTCache.getInstance().getScratch(stream_in[0].num);
         System.arraycopy(ptr_in, 0, copy, 0, stream_in[0].num);
         // 1. Calculate FFT
         fft.realForward(copy);
         // Format values like in SSI
-        joinFFT(copy);
+        joinFFT(copy, stream_in[0].num);
         if (rfft > 0)
         {
             // 2. Calculate Power Spectral Density
@@ -193,10 +192,11 @@ public class PSD extends Transformer
      * Helper function to format fft values similar to SSI
      *
      * @param fft float[]
+     * @param n   number of fft values
      */
-    private void joinFFT(float[] fft)
+    private void joinFFT(float[] fft, int n)
     {
-        for (int i = 0; i < fft.length; i += 2)
+        for (int i = 0; i < n; i += 2)
         {
             if (i == 0)
             {
@@ -0,0 +1,307 @@
+/*
+ * Resample.java
+ * Copyright (c) 2018
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura,
+ * Vitalijs Krumins, Antonio Grieco
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.SSJFatalException;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Changes the sample rate of the input stream by the rational factor up / down.<br>
+ * Uses a polyphase FIR filter, i.e. the Kaiser windowed sinc low pass is split into one short
+ * filter per phase of the upsampled signal and only the taps which contribute to an output sample
+ * are evaluated. Phase tables and filter history are allocated once in enter.<br>
+ * The frame size has to be chosen such that frame * up is a multiple of down.
+ */
+public class Resample extends Transformer
+{
+	@Override
+	public OptionList getOptions()
+	{
+		return options;
+	}
+
+	public class Options extends OptionList
+	{
+		public final Option<Integer> up = new Option<>("up", 1, Integer.class, "interpolation factor, e.g. 160 to resample from 44100 to 16000 Hz");
+		public final Option<Integer> down = new Option<>("down", 2, Integer.class, "decimation factor, e.g. 441 to resample from 44100 to 16000 Hz");
+		public final Option<Integer> zeroCrossings = new Option<>("zeroCrossings", 8, Integer.class, "half filter length in zero crossings of the sinc, higher values give a sharper transition");
+		public final Option<Float> cutoff = new Option<>("cutoff", 0.9f, Float.class, "cutoff frequency relative to the lower of both nyquist frequencies");
+		public final Option<Float> beta = new Option<>("beta", 8.f, Float.class, "Kaiser window shape, higher values give more stopband attenuation");
+
+		/**
+		 *
+		 */
+		private Options()
+		{
+			addOptions();
+		}
+	}
+
+	public final Options options = new Options();
+
+	int _up;
+	int _down;
+	int _taps;
+
+	// taps of each phase, phase major, reversed so they run forward over the history
+	float[] _coefficients;
+
+	// input position and phase of each output sample of a frame
+	int[] _position;
+	int[] _phase;
+
+	// filter history followed by the current frame, dimension major
+	float[] _buffer;
+	int _bufferLength;
+	boolean[] _firstCall;
+
+	public Resample()
+	{
+		_name = "Resample";
+	}
+
+	@Override
+	public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+	{
+		if (stream_in[0].type != Cons.Type.FLOAT && stream_in[0].type != Cons.Type.SHORT)
+		{
+			throw new SSJFatalException("unsupported input type " + stream_in[0].type);
+		}
+
+		updateFactors();
+
+		int phases = _up;
+		int length = 2 * options.zeroCrossings.get() * Math.max(_up, _down) + 1;
+		double cutoff = options.cutoff.get() / Math.max(_up, _down);
+		double[] prototype = FilterTools.getInstance().getLPKaiserFIR(length, cutoff, options.beta.get(), _up);
+
+		_taps = (length + phases - 1) / phases;
+		_coefficients = new float[phases * _taps];
+
+		for (int p = 0; p < phases; p++)
+		{
+			for (int k = 0; k < _taps; k++)
+			{
+				int index = p + (_taps - 1 - k) * phases;
+				_coefficients[p * _taps + k] = index < length ? (float) prototype[index] : 0;
+			}
+		}
+
+		int sampleNumberOut = stream_out.num;
+		_position = new int[sampleNumberOut];
+		_phase = new int[sampleNumberOut];
+
+		for (int m = 0; m < sampleNumberOut; m++)
+		{
+			long t = (long) m * _down;
+			_position[m] = (int) (t / _up);
+			_phase[m] = (int) (t % _up);
+		}
+
+		_bufferLength = _taps - 1 + stream_in[0].num;
+		_buffer = new float[_bufferLength * stream_in[0].dim];
+		_firstCall = new boolean[stream_in[0].dim];
+
+		for (int j = 0; j < _firstCall.length; j++)
+		{
+			_firstCall[j] = true;
+		}
+	}
+
+	@Override
+	public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+	{
+		transform(stream_in, stream_out, 0, stream_in[0].dim);
+	}
+
+	@Override
+	public void transform(Stream[] stream_in, Stream stream_out, int dim_from, int dim_to) throws SSJFatalException
+	{
+		int sampleDimension = stream_in[0].dim;
+		int sampleNumber = stream_in[0].num;
+		int sampleNumberOut = stream_out.num;
+		int history = _taps - 1;
+		int taps = _taps;
+
+		float[] buffer = _buffer;
+		float[] coefficients = _coefficients;
+
+		for (int j = dim_from; j < dim_to; j++)
+		{
+			int base = j * _bufferLength;
+
+			// append current frame
+			if (stream_in[0].type == Cons.Type.SHORT)
+			{
+				short[] src = stream_in[0].ptrS();
+				for (int i = 0, s = j; i < sampleNumber; i++, s += sampleDimension)
+				{
+					buffer[base + history + i] = src[s];
+				}
+			}
+			else
+			{
+				float[] src = stream_in[0].ptrF();
+				for (int i = 0, s = j; i < sampleNumber; i++, s += sampleDimension)
+				{
+					buffer[base + history + i] = src[s];
+				}
+			}
+
+			// avoid transients by extending the first sample into the past
+			if (_firstCall[j])
+			{
+				for (int i = 0; i < history; i++)
+				{
+					buffer[base + i] = buffer[base + history];
+				}
+				_firstCall[j] = false;
+			}
+
+			// polyphase filter
+			if (stream_out.type == Cons.Type.SHORT)
+			{
+				short[] dst = stream_out.ptrS();
+				for (int m = 0, d = j; m < sampleNumberOut; m++, d += sampleDimension)
+				{
+					float sum = dot(buffer, base + _position[m], coefficients, _phase[m] * taps, taps);
+					dst[d] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(sum)));
+				}
+			}
+			else
+			{
+				float[] dst = stream_out.ptrF();
+				for (int m = 0, d = j; m < sampleNumberOut; m++, d += sampleDimension)
+				{
+					dst[d] = dot(buffer, base + _position[m], coefficients, _phase[m] * taps, taps);
+				}
+			}
+
+			// keep the end of the frame as history
+			System.arraycopy(buffer, base + sampleNumber, buffer, base, history);
+		}
+	}
+
+	private static float dot(float[] x, int xOffset, float[] h, int hOffset, int n)
+	{
+		float sum = 0;
+		for (int k = 0; k < n; k++)
+		{
+			sum += x[xOffset + k] * h[hOffset + k];
+		}
+		return sum;
+	}
+
+	@Override
+	protected boolean hasIndependentDimensions()
+	{
+		return true;
+	}
+
+	@Override
+	public void flush(Stream[] stream_in, Stream stream_out) throws SSJFatalException
+	{
+		_coefficients = null;
+		_buffer = null;
+	}
+
+	/**
+	 * Reduces the resampling ratio to lowest terms
+	 */
+	private void updateFactors()
+	{
+		int up = options.up.get();
+		int down = options.down.get();
+
+		if (up < 1 || down < 1)
+		{
+			throw new IllegalArgumentException("resampling factors must be positive");
+		}
+
+		int a = up;
+		int b = down;
+		while (b != 0)
+		{
+			int tmp = a % b;
+			a = b;
+			b = tmp;
+		}
+
+		_up = up / a;
+		_down = down / a;
+	}
+
+	@Override
+	public int getSampleDimension(Stream[] stream_in)
+	{
+		return stream_in[0].dim;
+	}
+
+	@Override
+	public int getSampleBytes(Stream[] stream_in)
+	{
+		return Util.sizeOf(getSampleType(stream_in));
+	}
+
+	@Override
+	public Cons.Type getSampleType(Stream[] stream_in)
+	{
+		if (stream_in[0].type != Cons.Type.FLOAT && stream_in[0].type != Cons.Type.SHORT)
+		{
+			Log.e("unsupported input type");
+		}
+
+		return stream_in[0].type;
+	}
+
+	@Override
+	public int getSampleNumber(int sampleNumber_in)
+	{
+		updateFactors();
+
+		if (((long) sampleNumber_in * _up) % _down != 0)
+		{
+			throw new IllegalArgumentException("frame of " + sampleNumber_in + " samples cannot be resampled by " + _up + "/" + _down + ", choose a multiple of " + _down + " samples");
+		}
+
+		return (int) ((long) sampleNumber_in * _up / _down);
+	}
+
+	@Override
+	protected void describeOutput(Stream[] stream_in, Stream stream_out)
+	{
+		stream_out.desc = new String[stream_in[0].dim];
+		System.arraycopy(stream_in[0].desc, 0, stream_out.desc, 0, stream_in[0].desc.length);
+	}
+}
@@ -85,16 +85,14 @@ public class Spectrogram extends Transformer
 	private int _rfft;
 	private FilterTools.WINDOW_TYPE _win_type = FilterTools.WINDOW_TYPE.HAMMING;
 	private int _win_size = 0;
-	private Matrix<Float> _filterbank = null;
+	private FloatMatrix _filterbank = null;
 	private FloatFFT_1D _fft = null;
-	private Matrix<Float> _fftmag = null;
-	private Matrix<Float> _window = null;
+	private FloatMatrix _fftmag = null;
+	private FloatMatrix _window = null;
 	private boolean _apply_log = false;
 
-	Matrix<Float> _matrix_in;
-	Matrix<Float> _matrix_out;
-	float _data_in[];
-	float _data_out[];
+	FloatMatrix _matrix_in;
+	FloatMatrix _matrix_out;
 
 	@Override
 	public void enter(Stream[] stream_in, Stream stream_out) throws SSJFatalException
@@ -115,34 +113,33 @@ public class Spectrogram extends Transformer
 			Log.w("nfft too small (" + options.nfft.get() + ") for input stream (num=" + stream_in[0].num + "), extra samples will get ignored");
 		}
 
-		_matrix_in = new Matrix<>(stream_in[0].num, 1);
-		_matrix_out = new Matrix<>(1, _filterbank.getCols());
-		_data_in = new float[_fft_size];
-		Arrays.fill(_data_in, 0);
-		_data_out = new float[_rfft];
+		_matrix_in = new FloatMatrix(stream_in[0].num, 1);
+		_matrix_out = new FloatMatrix(1, _filterbank.getRows());
 	}
 
 	@Override
 	public void transform(Stream[] stream_in, Stream stream_out) throws SSJFatalException
 	{
-		for(int i = 0; i < stream_in[0].num; i++)
+		float[] in = _matrix_in.getData();
+		switch (stream_in[0].type)
 		{
-			switch (stream_in[0].type)
-			{
-				case FLOAT:
-					_matrix_in.setData(i, stream_in[0].ptrF()[i]);
-					break;
-				case DOUBLE:
-					_matrix_in.setData(i, (float)stream_in[0].ptrD()[i]);
-					break;
-			}
+			case FLOAT:
+				System.arraycopy(stream_in[0].ptrF(), 0, in, 0, stream_in[0].num);
+				break;
+			case DOUBLE:
+				double[] ptr = stream_in[0].ptrD();
+				for (int i = 0; i < stream_in[0].num; i++)
+				{
+					in[i] = (float) ptr[i];
+				}
+				break;
 		}
 
 		//apply window
 		if (_win_size != _matrix_in.getRows()) {
 			_win_size = _matrix_in.getRows();
 			if (_win_type != WINDOW_TYPE.RECTANGLE) {
-				_window = FilterTools.getInstance().Window (_win_size, _win_type, MATRIX_DIMENSION.COL);
+				_window = FFTCache.getInstance().getWindow(_win_size, _win_type, MATRIX_DIMENSION.COL);
 			}
 		}
 
@@ -153,43 +150,34 @@ public class Spectrogram extends Transformer
 
 		//copy data from matrix for fft
 		//if nfft to large, fill with zeroes
-		for (int i = 0; i < _data_in.length && i < _matrix_in.getSize(); i++)
-		{
-			_data_in[i] = _matrix_in.getData(i);
-		}
-		for (int i = _matrix_in.getSize(); i < _data_in.length; i++)
-		{
-			_data_in[i] = 0;
-		}
+		float[] data_in = FFTCache.getInstance().getScratch(_fft_size);
+		int len = Math.min(_fft_size, _matrix_in.getSize());
+		System.arraycopy(in, 0, data_in, 0, len);
+		Arrays.fill(data_in, len, _fft_size, 0);
 
 		// Calculate FFT
-		_fft.realForward(_data_in);
+		_fft.realForward(data_in);
 
 		// Format values like in SSI
-		Util.joinFFT(_data_in, _data_out);
+		float[] mag = _fftmag.getData();
+		Util.joinFFT(data_in, _fft_size, mag);
 
-		for (int i = 0; i < _data_out.length; ++i)
+		if (options.dopower.get())
 		{
-			if (options.dopower.get())
+			for (int i = 0; i < mag.length; ++i)
 			{
-				_data_out[i] = (float) Math.pow(_data_out[i], 2) / _data_out.length;
+				mag[i] = (float) Math.pow(mag[i], 2) / mag.length;
 			}
-
-			_fftmag.setData(i, _data_out[i]);
 		}
 
-		MatrixOps.getInstance().multM (_fftmag, _filterbank, _matrix_out);
+		MatrixOps.getInstance().multMT (_fftmag, _filterbank, _matrix_out);
 
 		//compute log
 		if (_apply_log) {
 			MatrixOps.getInstance().log10 (_matrix_out);
 		}
 
-		float output[] = stream_out.ptrF();
-		for (int i = 0; i < _matrix_out.getSize(); i++)
-		{
-			output[i] = _matrix_out.getData(i);
-		}
+		System.arraycopy(_matrix_out.getData(), 0, stream_out.ptrF(), 0, _matrix_out.getSize());
 	}
 
 	@Override
@@ -201,7 +189,7 @@ public class Spectrogram extends Transformer
 	private void readFilterbank (String string, double sr)
 	{
 		int n_banks = 0;
-		Matrix<Float> intervals;
+		FloatMatrix intervals;
 
 		String[] banks = string.split("\\s*,\\s*");
 		n_banks = banks.length;
@@ -210,7 +198,7 @@ public class Spectrogram extends Transformer
 			Log.e("#banks ("+n_banks+") in string '"+string+"' differs from #banks ("+options.nbanks+") in options");
 		}
 
-		intervals = new Matrix<>(n_banks, 2);
+		intervals = new FloatMatrix(n_banks, 2);
 		int current_bank = 0;
 
 		for (String bank : banks){
@@ -220,11 +208,11 @@ public class Spectrogram extends Transformer
 			current_bank++;
 		}
 
-		Matrix<Float> filterbank = FilterTools.getInstance().Filterbank(options.nfft.get(), sr, intervals, options.wintype.get());
+		FloatMatrix filterbank = FFTCache.getInstance().getFilterbank(options.nfft.get(), sr, intervals, options.wintype.get());
 		setFilterbank(filterbank, options.wintype.get(), options.dolog.get());
 	}
 
-	private void setFilterbank (Matrix<Float> filterbank,	FilterTools.WINDOW_TYPE win_type, boolean apply_log)
+	private void setFilterbank (FloatMatrix filterbank,	FilterTools.WINDOW_TYPE win_type, boolean apply_log)
 	{
 		_fft = null;
 		_fftmag = null;
@@ -235,11 +223,11 @@ public class Spectrogram extends Transformer
 		_win_type = win_type;
 		_apply_log = apply_log;
 
+		// shared with other instances, one row per bank
 		_filterbank = filterbank;
-		_filterbank.transpose();
 
-		_fft = new FloatFFT_1D (_fft_size);
-		_fftmag = new Matrix<> (1, _rfft);
+		_fft = FFTCache.getInstance().getFFT(_fft_size);
+		_fftmag = new FloatMatrix (1, _rfft);
 	}
 
 	@Override
@@ -249,7 +237,7 @@ public class Spectrogram extends Transformer
 			Log.e("dimension > 1 not supported");
 
 		if (_filterbank != null) {
-			return _filterbank.getCols();
+			return _filterbank.getRows();
 		} else {
 			return options.nbanks.get();
 		}
@@ -39,9 +39,10 @@ import com.obsez.android.lib.filechooser.ChooserDialog;
 
 import java.io.File;
 
-import hcm.ssj.audio.AudioDecoder;
+import hcm.ssj.audio.PeakPyramid;
 import hcm.ssj.audio.PlaybackListener;
 import hcm.ssj.audio.PlaybackThread;
+import hcm.ssj.core.Log;
 import hcm.ssj.core.stream.Stream;
 import hcm.ssj.creator.R;
 import hcm.ssj.creator.util.PlaybackThreadList;
@@ -144,11 +145,16 @@ public class GraphActivity extends AppCompatActivity
 							String type = FileUtils.getFileType(file);
 							if (type.matches(SUPPORTED_MEDIA_TYPES))
 							{
-								AudioDecoder decoder = new AudioDecoder(file.getPath());
-								int audioLength = decoder.getAudioLength();
+								PeakPyramid peaks = PeakPyramid.forAudio(file);
+								if (peaks == null)
+								{
+									Log.e("unable to decode " + file.getName());
+									return;
+								}
+								int audioLength = peaks.getAudioLength();
 
 								WaveformView waveform = new WaveformView(GraphActivity.this);
-								waveform.setSamples(decoder.getSamples());
+								waveform.setPeaks(peaks);
 								waveform.setAudioLength(audioLength);
 								streamLayout.addView(waveform, 0);
 
@@ -31,6 +31,7 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
@@ -38,11 +39,12 @@ import android.util.AttributeSet;
 import android.view.View;
 import android.widget.LinearLayout;
 
-import hcm.ssj.audio.AudioUtils;
+import hcm.ssj.audio.PeakPyramid;
 import hcm.ssj.creator.R;
 
 /**
  * View that draws audio file waveform.
+ * The waveform is drawn from a {@link PeakPyramid}, so each redraw only touches a few values per pixel.
  */
 public class WaveformView extends View
 {
@@ -64,7 +66,12 @@ public class WaveformView extends View
 
 	private float scalingFactor = 1;
 
-	private short[] samples;
+	private PeakPyramid peaks;
+	private long visibleFrom;
+	private long visibleTo;
+
+	private short[] maxima = new short[0];
+	private short[] minima = new short[0];
 	private Bitmap waveformBitmap;
 
 	public WaveformView(Context context)
@@ -91,7 +98,43 @@ public class WaveformView extends View
 	 */
 	public void setSamples(short[] s)
 	{
-		samples = s;
+		if (s == null)
+		{
+			peaks = null;
+			return;
+		}
+
+		PeakPyramid.Builder builder = new PeakPyramid.Builder(1, 1);
+		builder.add(s, 0, s.length);
+		setPeaks(builder.build());
+	}
+
+	/**
+	 * Sets the peaks that are used to draw the waveform and draws the entire waveform.
+	 * @param p The result of {@link PeakPyramid#forAudio(java.io.File)}
+	 */
+	public void setPeaks(PeakPyramid p)
+	{
+		peaks = p;
+		visibleFrom = 0;
+		visibleTo = (p != null) ? p.getFrameCount() : 0;
+		createWaveform();
+	}
+
+	/**
+	 * Zooms the waveform to the given section of the audio file.
+	 * @param from Start of the section in milliseconds.
+	 * @param to End of the section in milliseconds.
+	 */
+	public void setVisibleRange(int from, int to)
+	{
+		if (peaks == null || to <= from)
+		{
+			return;
+		}
+
+		visibleFrom = (long) from * peaks.getSampleRate() / 1000;
+		visibleTo = (long) to * peaks.getSampleRate() / 1000;
 		createWaveform();
 	}
 
@@ -198,34 +241,45 @@ public class WaveformView extends View
 	 */
 	private void createWaveform()
 	{
-		if (width <= 0 || height <= 0 || samples == null)
+		if (width <= 0 || height <= 0 || peaks == null)
 		{
 			return;
 		}
 		Canvas canvas;
-		waveformBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		if (waveformBitmap == null || waveformBitmap.getWidth() != width || waveformBitmap.getHeight() != height)
+		{
+			waveformBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+		}
+		else
+		{
+			waveformBitmap.eraseColor(Color.TRANSPARENT);
+		}
 		canvas = new Canvas(waveformBitmap);
 
-		Path waveformPath = drawWaveform(width, height, samples);
+		Path waveformPath = drawWaveform(width, height);
 		canvas.drawPath(waveformPath, fillPaint);
 		canvas.drawPath(waveformPath, strokePaint);
 		invalidate();
 	}
 
 	/**
-	 * Draws waveform as a line path from given audio samples.
+	 * Draws waveform of the visible section as a line path from the peaks.
 	 * @param width Width of view.
 	 * @param height Height of view.
-	 * @param buffer Audio samples.
 	 * @return Waveform path.
 	 */
-	private Path drawWaveform(int width, int height, short[] buffer)
+	private Path drawWaveform(int width, int height)
 	{
 		Path waveformPath = new Path();
 		float centerY = height / 2.0f;
 		float max = Short.MAX_VALUE;
 
-		short[][] extremes = AudioUtils.getExtremes(buffer, width);
+		if (maxima.length != width)
+		{
+			maxima = new short[width];
+			minima = new short[width];
+		}
+		peaks.getExtremes(visibleFrom, visibleTo, width, maxima, minima);
 
 		// Start path at the origin.
 		waveformPath.moveTo(0, centerY);
@@ -233,7 +287,7 @@ public class WaveformView extends View
 		// Draw maximums.
 		for (int x = 0; x < width; x++)
 		{
-			short sample = extremes[x][0];
+			short sample = maxima[x];
 			float y = centerY - ((sample / max) * centerY);
 			waveformPath.lineTo(x, y);
 		}
@@ -241,7 +295,7 @@ public class WaveformView extends View
 		// Draw minimums.
 		for (int x = width - 1; x >= 0; x--)
 		{
-			short sample = extremes[x][1];
+			short sample = minima[x];
 			float y = centerY - ((sample / max) * centerY);
 			waveformPath.lineTo(x, y);
 		}